@@ -20,6 +20,7 @@ import org.eclipse.linuxtools.lttng.tests.model.LTTngTreeNodeTest;
 import org.eclipse.linuxtools.lttng.tests.state.TestStateManager;
 import org.eclipse.linuxtools.lttng.tests.state.experiment.StateExperimentManagerTextTest;
 import org.eclipse.linuxtools.lttng.tests.state.resource.LTTngStateResourceTest;
+import org.eclipse.linuxtools.lttng.tests.state.trace.StateHistoryTest;
 import org.eclipse.linuxtools.lttng.tests.trace.LTTngExperimentTest;
 import org.eclipse.linuxtools.lttng.tests.trace.LTTngTextTraceTest;
 import org.eclipse.linuxtools.lttng.tests.trace.LTTngTraceTest;
@@ -66,6 +67,7 @@ public class AllLTTngCoreTests {
         // suite.addTestSuite(StateBeforeUpdateFactory.class);
         // suite.addTestSuite(StateBeforeUpdateHandlers.class);
         suite.addTestSuite(LTTngStateResourceTest.class);
+        suite.addTestSuite(StateHistoryTest.class);
 
         // $JUnit-END$
         return suite;
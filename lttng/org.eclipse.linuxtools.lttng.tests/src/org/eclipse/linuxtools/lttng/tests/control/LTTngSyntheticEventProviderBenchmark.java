@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.linuxtools.lttng.tests.control;
+
+import org.eclipse.linuxtools.lttng.control.LttngCoreProviderFactory;
+import org.eclipse.linuxtools.lttng.control.LttngSyntheticEventProvider;
+import org.eclipse.linuxtools.lttng.event.LttngEvent;
+import org.eclipse.linuxtools.lttng.event.LttngSyntheticEvent;
+import org.eclipse.linuxtools.lttng.event.LttngSyntheticEvent.SequenceInd;
+import org.eclipse.linuxtools.lttng.state.experiment.IStateExperimentManager;
+import org.eclipse.linuxtools.lttng.tests.LttngTestPreparation;
+import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
+import org.eclipse.linuxtools.tmf.experiment.TmfExperiment;
+import org.eclipse.linuxtools.tmf.request.TmfDataRequest;
+import org.eclipse.linuxtools.tmf.request.TmfEventRequest;
+
+/**
+ * <b><u>LTTngSyntheticEventProviderBenchmark</u></b>
+ * <p>
+ * Measures the throughput of the synthetic event provider (BEFORE, UPDATE and
+ * AFTER dispatch of every event of the text test trace) against a plain event
+ * request on the same experiment.
+ * <p>
+ * This is a benchmark, not a unit test: it is not part of the test suite and
+ * has to be run explicitly (as a JUnit plug-in test).
+ */
+@SuppressWarnings("nls")
+public class LTTngSyntheticEventProviderBenchmark extends LttngTestPreparation {
+	// ========================================================================
+	// Data
+	// ========================================================================
+	private static final int NB_EVENTS = 15316;
+	private static final int NB_RUNS = 10;
+	private static final int BLOCK_SIZE = 1000;
+
+	// ========================================================================
+	// Benchmark
+	// ========================================================================
+	public void testThroughput() throws Exception {
+		init();
+		IStateExperimentManager expManager = prepareExperimentContext(true);
+		TmfExperiment<LttngEvent> experiment = prepareTextExperimentToTest();
+		expManager.experimentSelected_prep(experiment);
+		LttngSyntheticEventProvider synProvider = LttngCoreProviderFactory
+				.getEventProvider(LttngCoreProviderFactory.CONTROL_FLOW_LTTNG_SYTH_EVENT_PROVIDER);
+
+		long baseTime = Long.MAX_VALUE;
+		long syntheticTime = Long.MAX_VALUE;
+		for (int run = 0; run < NB_RUNS; run++) {
+			long start = System.nanoTime();
+			assertEquals("base events", NB_EVENTS, readBaseEvents(experiment));
+			baseTime = Math.min(baseTime, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			assertEquals("synthetic events", NB_EVENTS, readSyntheticEvents(synProvider));
+			syntheticTime = Math.min(syntheticTime, System.nanoTime() - start);
+		}
+
+		System.out.println("Base events: " + (baseTime / NB_EVENTS) + " ns/event, "
+				+ (NB_EVENTS * 1000000000L / baseTime) + " events/s");
+		System.out.println("Synthetic events: " + (syntheticTime / NB_EVENTS) + " ns/event, "
+				+ (NB_EVENTS * 1000000000L / syntheticTime) + " events/s");
+	}
+
+	/*
+	 * Reads all the events of the experiment, returns the number of events
+	 */
+	private static int readBaseEvents(TmfExperiment<LttngEvent> experiment) throws InterruptedException {
+		final int[] count = new int[1];
+		TmfEventRequest<LttngEvent> request = new TmfEventRequest<LttngEvent>(LttngEvent.class,
+				TmfTimeRange.Eternity, TmfDataRequest.ALL_DATA, BLOCK_SIZE) {
+			@Override
+			public void handleData(LttngEvent event) {
+				super.handleData(event);
+				if (event != null) {
+					count[0]++;
+				}
+			}
+		};
+		experiment.sendRequest(request);
+		request.waitForCompletion();
+		return count[0];
+	}
+
+	/*
+	 * Reads all the synthetic events of the experiment, returns the number
+	 * of events (BEFORE indications) and checks the sequence of each event
+	 */
+	private static int readSyntheticEvents(LttngSyntheticEventProvider synProvider) throws InterruptedException {
+		final int[] count = new int[1];
+		final SequenceInd[] last = new SequenceInd[1];
+		final boolean[] validSequence = { true };
+		TmfEventRequest<LttngSyntheticEvent> request = new TmfEventRequest<LttngSyntheticEvent>(
+				LttngSyntheticEvent.class, TmfTimeRange.Eternity, TmfDataRequest.ALL_DATA, BLOCK_SIZE) {
+			@Override
+			public void handleData(LttngSyntheticEvent event) {
+				super.handleData(event);
+				if (event == null) {
+					return;
+				}
+				SequenceInd synType = event.getSynType();
+				if (synType == SequenceInd.BEFORE) {
+					count[0]++;
+				} else if (synType == SequenceInd.AFTER && last[0] != SequenceInd.BEFORE) {
+					// The AFTER indication follows the BEFORE indication of
+					// the same event
+					validSequence[0] = false;
+				}
+				last[0] = synType;
+			}
+		};
+		synProvider.sendRequest(request);
+		request.waitForCompletion();
+		assertTrue("Synthetic events received out of sequence", validSequence[0]);
+		return count[0];
+	}
+}
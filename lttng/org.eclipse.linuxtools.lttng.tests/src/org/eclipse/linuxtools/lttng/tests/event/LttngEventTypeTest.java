@@ -6,7 +6,11 @@ import java.net.URL;
 import junit.framework.TestCase;
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.linuxtools.lttng.event.LttngEvent;
 import org.eclipse.linuxtools.lttng.event.LttngEventType;
+import org.eclipse.linuxtools.lttng.state.evProcessor.EventProcessorTable;
+import org.eclipse.linuxtools.lttng.state.evProcessor.ILttngEventProcessor;
+import org.eclipse.linuxtools.lttng.state.model.LttngTraceState;
 import org.eclipse.linuxtools.lttng.tests.LTTngCoreTestPlugin;
 import org.eclipse.linuxtools.lttng.trace.LTTngTextTrace;
 import org.eclipse.linuxtools.tmf.trace.TmfContext;
@@ -20,6 +24,7 @@ import org.eclipse.linuxtools.tmf.trace.TmfContext;
     public String getTracefileName()
     public Long getCpuId()
     public String getMarkerName()
+    public int getMarkerNameId()
     
     public String toString()
  */
@@ -111,6 +116,38 @@ public class LttngEventTypeTest extends TestCase {
         assertNotSame("getLabels returned null",null, tmpEventType.getLabels() );
     }
     
+    public void testMarkerNameId() {
+        LttngEventType type1 = new LttngEventType("channel1", 0L, "testMarkerNameId", 10, new String[] { "field" });
+        LttngEventType type2 = new LttngEventType("channel2", 1L, "testMarkerNameId", 20, new String[] { "field" });
+        LttngEventType type3 = new LttngEventType("channel1", 0L, "testMarkerNameId2", 10, new String[] { "field" });
+        
+        // Same id for the same marker name, whatever the marker id
+        assertTrue("Invalid marker name id!", type1.getMarkerNameId() >= 0);
+        assertEquals("Marker name id not the same!", type1.getMarkerNameId(), type2.getMarkerNameId());
+        assertTrue("Marker name id not different!", type1.getMarkerNameId() != type3.getMarkerNameId());
+        assertEquals("Copy has a different marker name id!", type1.getMarkerNameId(), new LttngEventType(type1).getMarkerNameId());
+        assertEquals("Clone has a different marker name id!", type1.getMarkerNameId(), type1.clone().getMarkerNameId());
+        assertEquals(type1.getMarkerNameId(), LttngEventType.findMarkerNameId("testMarkerNameId"));
+        assertEquals(-1, LttngEventType.findMarkerNameId("testMarkerNameIdUnknown"));
+        assertEquals(-1, new LttngEventType().getMarkerNameId());
+        
+        // Processors are resolved from the id
+        ILttngEventProcessor processor = new ILttngEventProcessor() {
+            @Override
+            public boolean process(LttngEvent trcEvent, LttngTraceState traceSt) {
+                return false;
+            }
+        };
+        EventProcessorTable table = new EventProcessorTable();
+        table.put("testMarkerNameId2", processor);
+        assertSame(processor, table.get(type3.getMarkerNameId()));
+        assertSame(processor, table.get("testMarkerNameId2"));
+        assertNull(table.get(type1.getMarkerNameId()));
+        assertNull(table.get("testMarkerNameIdUnknown"));
+        assertNull(table.get(-1));
+        assertNull(table.get(Integer.MAX_VALUE));
+    }
+    
     public void testToString() {
         LttngEventType tmpEventType = prepareToTest();
         
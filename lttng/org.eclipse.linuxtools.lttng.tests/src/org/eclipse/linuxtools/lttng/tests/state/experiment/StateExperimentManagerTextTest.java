@@ -11,7 +11,32 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.tests.state.experiment;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.linuxtools.lttng.event.LttngEvent;
+import org.eclipse.linuxtools.lttng.model.LTTngTreeNode;
+import org.eclipse.linuxtools.lttng.state.experiment.StateExperimentManager;
+import org.eclipse.linuxtools.lttng.state.experiment.StateManagerFactory;
+import org.eclipse.linuxtools.lttng.state.trace.IStateTraceManager;
+import org.eclipse.linuxtools.lttng.state.trace.StateTraceManager;
 import org.eclipse.linuxtools.lttng.tests.LttngTestPreparation;
+import org.eclipse.linuxtools.lttng.trace.LTTngTextTrace;
+import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.experiment.TmfExperiment;
+import org.eclipse.linuxtools.tmf.request.TmfDataRequest;
+import org.eclipse.linuxtools.tmf.request.TmfEventRequest;
+import org.eclipse.linuxtools.tmf.signal.TmfExperimentRangeUpdatedSignal;
+import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
+import org.eclipse.linuxtools.tmf.trace.TmfCheckpoint;
+import org.eclipse.linuxtools.tmf.trace.TmfContext;
 
 /**
  * @author alvaro
@@ -86,4 +111,172 @@ public class StateExperimentManagerTextTest extends LttngTestPreparation {
 
 	}
 
+	/**
+	 * Test method for
+	 * {@link org.eclipse.linuxtools.lttng.state.experiment.StateExperimentManager#experimentRangeUpdated(org.eclipse.linuxtools.tmf.signal.TmfExperimentRangeUpdatedSignal)}
+	 * .
+	 * <p>
+	 * The check points of an experiment of two text traces, built with one
+	 * request per trace running in parallel, must match the check points
+	 * built by reading each trace sequentially.
+	 */
+	@SuppressWarnings("unchecked")
+	public void testExperimentRangeUpdated_text() throws Exception {
+		// Two traces with distinct names: the text trace and a copy of it
+		String path = prepareTextStreamToTest().getPath();
+		File copy = File.createTempFile("text-trace-copy", ".txt");
+		copy.deleteOnExit();
+		copyFile(new File(path), copy);
+
+		ITmfTrace<LttngEvent>[] traces = new ITmfTrace[2];
+		traces[0] = new LTTngTextTrace(path);
+		traces[1] = new LTTngTextTrace(copy.getPath());
+		TmfExperiment<LttngEvent> experiment = new TmfExperiment<LttngEvent>(LttngEvent.class,
+				"testTextExperiment", traces, TmfTimestamp.Zero, TmfExperiment.DEFAULT_BLOCK_SIZE, true);
+
+		StateExperimentManager expManager = (StateExperimentManager) prepareExperimentContext(true);
+		expManager.waitForCompletion(true);
+		long interval = StateManagerFactory.getTraceCheckPointInterval();
+
+		// Parallel path: one check point request per trace
+		expManager.experimentSelected_prep(experiment);
+		expManager.experimentSelected(this, experiment);
+		expManager.experimentRangeUpdated(new TmfExperimentRangeUpdatedSignal(this, experiment, experiment.getTimeRange()));
+
+		verifyCheckPoints(expManager, experiment, traces, interval);
+
+		experiment.dispose();
+		copy.delete();
+	}
+
+	/**
+	 * Test method for
+	 * {@link org.eclipse.linuxtools.lttng.state.experiment.StateExperimentManager#experimentRangeUpdated(org.eclipse.linuxtools.tmf.signal.TmfExperimentRangeUpdatedSignal)}
+	 * .
+	 * <p>
+	 * The check points are built while an experiment request reads the same
+	 * traces: neither the request nor the check points may see the events of
+	 * the other reader.
+	 */
+	@SuppressWarnings("unchecked")
+	public void testExperimentRangeUpdated_concurrentRequest() throws Exception {
+		String path = prepareTextStreamToTest().getPath();
+		File copy = File.createTempFile("text-trace-copy", ".txt");
+		copy.deleteOnExit();
+		copyFile(new File(path), copy);
+
+		ITmfTrace<LttngEvent>[] traces = new ITmfTrace[2];
+		traces[0] = new LTTngTextTrace(path);
+		traces[1] = new LTTngTextTrace(copy.getPath());
+		TmfExperiment<LttngEvent> experiment = new TmfExperiment<LttngEvent>(LttngEvent.class,
+				"testConcurrentExperiment", traces, TmfTimestamp.Zero, TmfExperiment.DEFAULT_BLOCK_SIZE, true);
+
+		StateExperimentManager expManager = (StateExperimentManager) prepareExperimentContext(true);
+		expManager.waitForCompletion(true);
+		long interval = StateManagerFactory.getTraceCheckPointInterval();
+		expManager.experimentSelected_prep(experiment);
+
+		// Experiment request, slowed down to overlap the check point build
+		final CountDownLatch started = new CountDownLatch(1);
+		final long[] nbRead = new long[1];
+		final boolean[] ordered = new boolean[] { true };
+		TmfEventRequest<LttngEvent> request = new TmfEventRequest<LttngEvent>(LttngEvent.class,
+				TmfTimeRange.Eternity, TmfDataRequest.ALL_DATA, TmfExperiment.DEFAULT_BLOCK_SIZE) {
+			private long fLastTime = Long.MIN_VALUE;
+
+			@Override
+			public void handleData(LttngEvent event) {
+				super.handleData(event);
+				long time = event.getTimestamp().getValue();
+				if (time < fLastTime) {
+					ordered[0] = false;
+				}
+				fLastTime = time;
+				if (++nbRead[0] % 50 == 0) {
+					try {
+						Thread.sleep(1);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				started.countDown();
+			}
+		};
+		experiment.sendRequest(request);
+		assertTrue("Experiment request started", started.await(30, TimeUnit.SECONDS));
+
+		// Build the check points while the request is running
+		expManager.experimentSelected(this, experiment);
+		expManager.experimentRangeUpdated(new TmfExperimentRangeUpdatedSignal(this, experiment, experiment.getTimeRange()));
+		assertFalse("Experiment request still running", request.isCompleted());
+
+		request.waitForCompletion();
+		long nbEvents = verifyCheckPoints(expManager, experiment, traces, interval);
+		assertEquals("Events read by the experiment request", nbEvents, nbRead[0]);
+		assertTrue("Experiment events in time order", ordered[0]);
+
+		experiment.dispose();
+		copy.delete();
+	}
+
+	/**
+	 * Compares the check points of each trace of the selected experiment with
+	 * the check points built by reading the trace sequentially.
+	 * 
+	 * @return the total number of events of the traces
+	 */
+	private static long verifyCheckPoints(StateExperimentManager expManager, TmfExperiment<LttngEvent> experiment,
+			ITmfTrace<LttngEvent>[] traces, long interval) throws Exception {
+		long totalEvents = 0;
+		LTTngTreeNode experimentNode = expManager.getSelectedExperiment();
+		LTTngTreeNode referenceNode = new LTTngTreeNode(0L, null, "reference", experiment);
+		for (ITmfTrace<LttngEvent> trace : traces) {
+			IStateTraceManager traceManager = (IStateTraceManager) experimentNode.getChildByName(trace.getName());
+			assertNotNull("Trace manager of " + trace.getName(), traceManager);
+
+			// Sequential path: read the whole trace in order
+			StateTraceManager reference = new StateTraceManager(1L, referenceNode, trace.getName(), trace);
+			reference.setCheckPointInterval(interval);
+			TmfContext context = trace.seekEvent(0);
+			long nbEvents = 0;
+			LttngEvent event = (LttngEvent) trace.getNextEvent(context);
+			while (event != null) {
+				reference.handleTraceEvent(event, ++nbEvents);
+				event = (LttngEvent) trace.getNextEvent(context);
+			}
+			assertTrue("Number of events", nbEvents > interval);
+
+			// Same check points, restoring the same states
+			for (long index = 0; index < nbEvents; index += interval) {
+				TmfCheckpoint expected = reference.restoreCheckPointByIndex(index);
+				TmfCheckpoint actual = traceManager.restoreCheckPointByIndex(index);
+				assertEquals("Check point time at " + index, expected.getTimestamp(), actual.getTimestamp());
+				assertEquals("Check point location at " + index, expected.getLocation(), actual.getLocation());
+				assertEquals("Number of processes at " + index, reference.getStateModel().getProcesses().length,
+						traceManager.getStateModel().getProcesses().length);
+			}
+			reference.dispose();
+			totalEvents += nbEvents;
+		}
+		return totalEvents;
+	}
+
+	private static void copyFile(File source, File target) throws IOException {
+		InputStream in = new FileInputStream(source);
+		try {
+			OutputStream out = new FileOutputStream(target);
+			try {
+				byte[] buffer = new byte[8192];
+				int nbRead;
+				while ((nbRead = in.read(buffer)) != -1) {
+					out.write(buffer, 0, nbRead);
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+
 }
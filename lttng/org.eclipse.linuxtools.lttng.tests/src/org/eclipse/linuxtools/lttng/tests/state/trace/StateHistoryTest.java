@@ -0,0 +1,349 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.linuxtools.lttng.tests.state.trace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.linuxtools.lttng.state.StateStrings.ExecutionMode;
+import org.eclipse.linuxtools.lttng.state.StateStrings.IRQMode;
+import org.eclipse.linuxtools.lttng.state.model.LttngExecutionState;
+import org.eclipse.linuxtools.lttng.state.model.LttngProcessState;
+import org.eclipse.linuxtools.lttng.state.model.LttngTraceState;
+import org.eclipse.linuxtools.lttng.state.model.StateModelFactory;
+import org.eclipse.linuxtools.lttng.state.resource.ILttngStateContext;
+import org.eclipse.linuxtools.lttng.state.trace.StateHistory;
+import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
+
+@SuppressWarnings("nls")
+public class StateHistoryTest extends TestCase {
+	// =======================================================================
+	// Data
+	// =======================================================================
+	StateHistory history;
+
+	// ========================================================================
+	// Preparations and Finish
+	// =======================================================================
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		history = new StateHistory();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		history.dispose();
+	}
+
+	private ILttngStateContext getContext() {
+		return new ILttngStateContext() {
+
+			@Override
+			public TmfTimeRange getTraceTimeWindow() {
+				return new TmfTimeRange(new TmfTimestamp(1000L), new TmfTimestamp(2000L));
+			}
+
+			@Override
+			public ITmfTrace<?> getTraceIdRef() {
+				return null;
+			}
+
+			@Override
+			public String getTraceId() {
+				return "Test Trace";
+			}
+
+			@Override
+			public int getNumberOfCpus() {
+				return 2;
+			}
+
+			@Override
+			public TmfTimeRange getExperimentTimeWindow() {
+				return null;
+			}
+
+			@Override
+			public String getExperimentName() {
+				return "Test Experiment";
+			}
+
+			@Override
+			public long getIdentifier() {
+				return 0;
+			}
+		};
+	}
+
+	private static byte[] value(int value) {
+		return new byte[] { (byte) value };
+	}
+
+	// ========================================================================
+	// Methods
+	// =======================================================================
+	public void testModifyAttribute() throws Exception {
+		history.modifyAttribute("a", 0, value(1));
+		history.modifyAttribute("b", 2, value(10));
+		history.modifyAttribute("a", 5, value(2));
+		history.modifyAttribute("a", 7, value(2));
+		history.modifyAttribute("a", 9, value(3));
+
+		Map<String, byte[]> values = history.query(0);
+		assertEquals(1, values.size());
+		assertEquals(1, values.get("a")[0]);
+
+		values = history.query(4);
+		assertEquals(2, values.size());
+		assertEquals(1, values.get("a")[0]);
+		assertEquals(10, values.get("b")[0]);
+
+		// unchanged values are not stored
+		values = history.query(8);
+		assertEquals(2, values.get("a")[0]);
+		assertEquals(2, history.getNbIntervals());
+
+		values = history.query(100);
+		assertEquals(3, values.get("a")[0]);
+		assertEquals(10, values.get("b")[0]);
+		assertEquals(2, history.getNbOngoing());
+	}
+
+	public void testRemoveAttribute() throws Exception {
+		history.modifyAttribute("a", 0, value(1));
+		history.removeAttribute("a", 3);
+		history.modifyAttribute("a", 6, value(2));
+
+		assertEquals(1, history.query(2).get("a")[0]);
+		assertNull(history.query(3).get("a"));
+		assertNull(history.query(5).get("a"));
+		assertEquals(2, history.query(6).get("a")[0]);
+	}
+
+	public void testUpdate() throws Exception {
+		Map<String, byte[]> state = new HashMap<String, byte[]>();
+		state.put("a", value(1));
+		state.put("b", value(2));
+		history.update(0, state);
+
+		state.remove("a");
+		state.put("c", value(3));
+		history.update(10, state);
+
+		Map<String, byte[]> values = history.query(9);
+		assertEquals(2, values.size());
+		assertEquals(1, values.get("a")[0]);
+		assertEquals(2, values.get("b")[0]);
+
+		values = history.query(10);
+		assertEquals(2, values.size());
+		assertEquals(2, values.get("b")[0]);
+		assertEquals(3, values.get("c")[0]);
+	}
+
+	public void testTimeOrder() throws Exception {
+		history.modifyAttribute("a", 10, value(1));
+		try {
+			history.modifyAttribute("a", 5, value(2));
+			fail("Time before the current time");
+		} catch (IllegalArgumentException e) {
+			// Success
+		}
+	}
+
+	public void testManyIntervals() throws Exception {
+		// Reference states, one per time
+		int nbTimes = 2000;
+		int nbAttributes = 30;
+		List<Map<String, Integer>> reference = new ArrayList<Map<String, Integer>>();
+		Map<String, Integer> current = new HashMap<String, Integer>();
+		for (int time = 0; time < nbTimes; time++) {
+			for (int attribute = 0; attribute < nbAttributes; attribute++) {
+				// Attributes change at different rates
+				if (time % (attribute + 1) == 0) {
+					String name = "attribute" + attribute;
+					if ((time / (attribute + 1)) % 7 == 6) {
+						history.removeAttribute(name, time);
+						current.remove(name);
+					} else {
+						int newValue = (time * 31 + attribute) % 100;
+						history.modifyAttribute(name, time, value(newValue));
+						current.put(name, newValue);
+					}
+				}
+			}
+			reference.add(new HashMap<String, Integer>(current));
+		}
+
+		// Completed nodes are written to disk
+		assertTrue(history.getFileSize() > 0);
+
+		for (int time = 0; time < nbTimes; time += 7) {
+			Map<String, byte[]> values = history.query(time);
+			Map<String, Integer> expected = reference.get(time);
+			assertEquals("time " + time, expected.size(), values.size());
+			for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+				assertEquals("time " + time, entry.getValue().intValue(), values.get(entry.getKey())[0]);
+			}
+		}
+	}
+
+	public void testReset() throws Exception {
+		for (int time = 0; time < 1000; time++) {
+			history.modifyAttribute("a", time, value(time % 2));
+		}
+		history.reset();
+		assertEquals(0, history.getNbIntervals());
+		assertEquals(0, history.getFileSize());
+		assertTrue(history.query(500).isEmpty());
+
+		history.modifyAttribute("b", 0, value(1));
+		assertEquals(1, history.query(500).get("b")[0]);
+	}
+
+	public void testTraceState() throws Exception {
+		LttngTraceState state = StateModelFactory.getStateEntryInstance(getContext());
+		LttngProcessState process = new LttngProcessState(0L, 42L, 42L, "test", 1500L, "Test Trace");
+		process.setCreation_time(1500L);
+		LttngExecutionState es = new LttngExecutionState();
+		es.setExec_mode(ExecutionMode.LTTV_STATE_SYSCALL);
+		es.setEntry_Time(1600L);
+		process.pushToExecutionStack(es);
+		state.addProcessState(process);
+		state.getRunning_process().put(1L, process);
+		state.getCpu_states().get(1L).pushToIrqStack(5L);
+
+		history.update(0, state.getAttributeValues());
+
+		// Change the state after the check point
+		process.popFromExecutionStack();
+		state.getCpu_states().get(1L).popFromIrqStack();
+		history.update(10, state.getAttributeValues());
+
+		LttngTraceState restored = state.restore(history.query(5));
+		assertEquals(state.getProcesses().length, restored.getProcesses().length);
+		LttngProcessState restoredProcess = restored.findProcessState(42L, 0L, "Test Trace");
+		assertNotNull(restoredProcess);
+		assertNotSame(process, restoredProcess);
+		assertEquals("test", restoredProcess.getName());
+		assertEquals("42-1500", restoredProcess.getPid_time());
+		assertSame(restoredProcess.peekFromExecutionStack(), restoredProcess.getState());
+		assertEquals(ExecutionMode.LTTV_STATE_SYSCALL, restoredProcess.getState().getExec_mode());
+		assertEquals(Long.valueOf(1600L), restoredProcess.getState().getEntry_LttTime());
+		assertSame(restoredProcess, restored.getRunning_process().get(1L));
+		assertEquals(Long.valueOf(5L), restored.getCpu_states().get(1L).peekFromIrqStack());
+		assertSame(state.getSyscall_names(), restored.getSyscall_names());
+		assertSame(state.getContext(), restored.getContext());
+
+		restored = state.restore(history.query(10));
+		assertEquals(Long.valueOf(-1L), restored.getCpu_states().get(1L).peekFromIrqStack());
+		assertEquals(Long.valueOf(1500L), restored.findProcessState(42L, 0L, "Test Trace").getState()
+				.getEntry_LttTime());
+	}
+
+	public void testChangedAttributes() throws Exception {
+		LttngTraceState state = StateModelFactory.getStateEntryInstance(getContext());
+
+		// A new state is entirely modified
+		Map<String, byte[]> changed = state.getChangedAttributeValues();
+		assertEquals(state.getAttributeValues().keySet(), changed.keySet());
+		state.changedAttributesSaved();
+		assertTrue(state.getChangedAttributeValues().isEmpty());
+
+		// Modified entries
+		LttngProcessState process = state.getRunning_process().get(1L);
+		process.getState().setExec_mode(ExecutionMode.LTTV_STATE_SYSCALL);
+		state.getCpu_states().get(0L).pushToIrqStack(3L);
+		changed = state.getChangedAttributeValues();
+		assertEquals(3, changed.size());
+		assertTrue(changed.containsKey("running/1"));
+		assertTrue(changed.containsKey("process/Test Trace/0/1"));
+		assertTrue(changed.containsKey("cpu/0"));
+		state.changedAttributesSaved();
+
+		// Added and removed entries
+		LttngProcessState newProcess = new LttngProcessState(0L, 42L, 42L, "test", 1500L, "Test Trace");
+		newProcess.setName("modified before it is added");
+		state.addProcessState(newProcess);
+		state.removeProcessState(process);
+		changed = state.getChangedAttributeValues();
+		assertEquals(2, changed.size());
+		assertNotNull(changed.get("process/Test Trace/42"));
+		assertNull(changed.get("process/Test Trace/0/1"));
+		assertTrue(changed.containsKey("process/Test Trace/0/1"));
+		state.changedAttributesSaved();
+
+		// The removed process is still running
+		process.setName("running");
+		changed = state.getChangedAttributeValues();
+		assertEquals(1, changed.size());
+		assertTrue(changed.containsKey("running/1"));
+	}
+
+	public void testChangedAttributesNotSaved() throws Exception {
+		LttngTraceState state = StateModelFactory.getStateEntryInstance(getContext());
+		state.getChangedAttributeValues();
+		state.changedAttributesSaved();
+
+		// The changes are returned until they are saved (e.g. the check
+		// point write failed)
+		state.getCpu_states().get(0L).pushToIrqStack(3L);
+		Map<String, byte[]> changed = state.getChangedAttributeValues();
+		assertEquals(1, changed.size());
+		state.getRunning_process().get(1L).setName("running");
+		changed = state.getChangedAttributeValues();
+		assertEquals(3, changed.size());
+		assertTrue(changed.containsKey("cpu/0"));
+		assertTrue(changed.containsKey("running/1"));
+		assertTrue(changed.containsKey("process/Test Trace/0/1"));
+
+		state.changedAttributesSaved();
+		assertTrue(state.getChangedAttributeValues().isEmpty());
+	}
+
+	public void testIncrementalCheckPoints() throws Exception {
+		LttngTraceState state = StateModelFactory.getStateEntryInstance(getContext());
+		List<Map<String, byte[]>> checkPoints = new ArrayList<Map<String, byte[]>>();
+		for (int i = 0; i < 50; i++) {
+			LttngProcessState process = new LttngProcessState(0L, (long) i % 10 + 1, 0L, "p" + i, 1000L + i,
+					"Test Trace");
+			if (i % 3 == 0) {
+				state.addProcessState(process);
+			} else {
+				state.removeProcessState(process);
+			}
+			state.getRunning_process().get((long) i % 2).setFree_events((long) i);
+			state.getIrq_states().get((long) i % 5).pushToIrqStack(IRQMode.LTTV_IRQ_BUSY);
+			history.modifyAttributes(i * 10, state.getChangedAttributeValues());
+			state.changedAttributesSaved();
+			checkPoints.add(state.getAttributeValues());
+		}
+
+		for (int i = 0; i < 50; i++) {
+			Map<String, byte[]> expected = checkPoints.get(i);
+			Map<String, byte[]> values = history.query(i * 10 + 5);
+			assertEquals(expected.keySet(), values.keySet());
+			for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+				assertTrue(entry.getKey(), Arrays.equals(entry.getValue(), values.get(entry.getKey())));
+			}
+		}
+	}
+}
@@ -220,6 +220,33 @@ public class HistogramDataModelTest extends TestCase {
         assertTrue(model.getTimeLimit() == startTime + nbBuckets);
     }
 
+    public void testCountEvent_6() {
+        final int nbBuckets = 100;
+        final int startTime = 25;
+        final int maxHeight = 10;
+
+        // Events counted out of order (e.g. by a shared scan), start time known
+        HistogramDataModel model = new HistogramDataModel(nbBuckets);
+        model.setStartTime(startTime);
+        for (int i = startTime + nbBuckets / 2; i < startTime + nbBuckets; i++) {
+            model.countEvent(i);
+        }
+        for (int i = startTime; i < startTime + nbBuckets / 2; i++) {
+            model.countEvent(i);
+        }
+
+        HistogramScaledData result = model.scaleTo(nbBuckets, maxHeight);
+        for (int i = 0; i < result.fData.length; i++) {
+            assertTrue(result.fData[i] == 1);
+        }
+
+        assertTrue(model.getNbEvents() == nbBuckets);
+        assertTrue(model.getBucketDuration() == 1);
+        assertTrue(model.getStartTime() == startTime);
+        assertTrue(model.getEndTime() == startTime + nbBuckets - 1);
+        assertTrue(model.getTimeLimit() == startTime + nbBuckets);
+    }
+
     /**
      * Test method for
      * {@link org.eclipse.linuxtools.tmf.HistogramDataModel.views.histogram.TmfHistogramDataModel#scaleTo(int,int)}
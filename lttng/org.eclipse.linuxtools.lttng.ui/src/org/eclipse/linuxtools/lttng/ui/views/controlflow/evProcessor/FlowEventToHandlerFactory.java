@@ -12,20 +12,19 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.ui.views.controlflow.evProcessor;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.eclipse.linuxtools.lttng.state.StateStrings;
 import org.eclipse.linuxtools.lttng.state.evProcessor.AbsEventToHandlerResolver;
+import org.eclipse.linuxtools.lttng.state.evProcessor.EventProcessorTable;
 import org.eclipse.linuxtools.lttng.state.evProcessor.ILttngEventProcessor;
 
 /**
- * Builds a Map from string event name to a processing handler object, the
+ * Builds a table from event name to a processing handler object, the
  * processors implement the same interface to facilitate transparent methods
  * call,
  * 
- * The map key STring is the entry point of the raw events, using a hash speeds
- * up the resolution of the appropriate processor
+ * The table is indexed by the id of the event marker name, resolved once per
+ * event type, so the resolution of the appropriate processor does not need to
+ * hash the name of each event
  * 
  * @author alvaro
  * 
@@ -34,8 +33,8 @@ public class FlowEventToHandlerFactory extends AbsEventToHandlerResolver {
 	// ========================================================================
 	// Data
 	// =======================================================================
-	private final Map<String, ILttngEventProcessor> eventNametoBeforeProcessor = new HashMap<String, ILttngEventProcessor>();
-	private final Map<String, ILttngEventProcessor> eventNametoAfterProcessor = new HashMap<String, ILttngEventProcessor>();
+	private final EventProcessorTable eventNametoBeforeProcessor = new EventProcessorTable();
+	private final EventProcessorTable eventNametoAfterProcessor = new EventProcessorTable();
 	private ILttngEventProcessor finishProcesor = null;
 	private static FlowEventToHandlerFactory instance = null;
 	private FlowBeforeUpdateHandlers instantiateBeforeHandler = new FlowBeforeUpdateHandlers();
@@ -161,11 +160,21 @@ public class FlowEventToHandlerFactory extends AbsEventToHandlerResolver {
 		return eventNametoAfterProcessor.get(eventType);
 	}
 
+	@Override
+	public ILttngEventProcessor getAfterProcessor(int eventTypeId) {
+		return eventNametoAfterProcessor.get(eventTypeId);
+	}
+
 	@Override
 	public ILttngEventProcessor getBeforeProcessor(String eventType) {
 		return eventNametoBeforeProcessor.get(eventType);
 	}
 
+	@Override
+	public ILttngEventProcessor getBeforeProcessor(int eventTypeId) {
+		return eventNametoBeforeProcessor.get(eventTypeId);
+	}
+
 	@Override
 	public ILttngEventProcessor getfinishProcessor() {
 		return finishProcesor;
@@ -175,4 +184,9 @@ public class FlowEventToHandlerFactory extends AbsEventToHandlerResolver {
 	public ILttngEventProcessor getStateUpdaterProcessor(String eventType) {
 		return null;
 	}
+
+	@Override
+	public ILttngEventProcessor getStateUpdaterProcessor(int eventTypeId) {
+		return null;
+	}
 }
@@ -156,6 +156,21 @@ public class HistogramDataModel {
         updateEndTime();
     }
 
+    /**
+     * Sets the start time of the histogram when it is known before the events
+     * are counted (e.g. the start time of the experiment). The events can then
+     * be counted in any order, as long as they are not before the start time.
+     * Ignored once events are counted.
+     * 
+     * @param startTime the start time
+     */
+    public void setStartTime(long startTime) {
+        if (fNbEvents == 0) {
+            fFirstEventTime = startTime;
+            updateEndTime();
+        }
+    }
+
     /**
      * Sets the current event time
      * 
@@ -172,7 +187,7 @@ public class HistogramDataModel {
      */
     public void countEvent(long timestamp) {
         // Set the start/end time if not already done
-        if (fLastBucket == 0 && fBuckets[0] == 0 && timestamp > 0) {
+        if (fNbEvents == 0 && fFirstEventTime == 0 && timestamp > 0) {
             fFirstEventTime = timestamp;
             updateEndTime();
         }
@@ -288,9 +288,9 @@ public class HistogramView extends TmfView {
 
             fTimeSpanControl.setValue(endTime - startTime);
 
-            // Send the FW signal
+            // Send the FW signal (coalesced while the window is dragged or zoomed)
             TmfRangeSynchSignal signal = new TmfRangeSynchSignal(this, timeRange, currentTime);
-            TmfSignalManager.dispatchSignal(signal);
+            broadcastAsync(signal);
         }
     }
 
@@ -452,9 +452,19 @@ public class HistogramView extends TmfView {
     private void sendFullRangeRequest(TmfTimeRange fullRange) {
         if (fFullTraceRequest != null && !fFullTraceRequest.isCompleted()) {
             fFullTraceRequest.cancel();
+            if (fFullTraceRequest.isJoinable()) {
+                // The events counted by a shared scan are not the first ones
+                fFullTraceHistogram.clear();
+            }
+        }
+        long nbEvents = fFullTraceHistogram.fDataModel.getNbEvents();
+        fFullTraceRequest = new HistogramRequest(fFullTraceHistogram, fullRange, (int) nbEvents, ExecutionType.BACKGROUND);
+        if (nbEvents == 0) {
+            // With the start time known, the events can be counted in any order:
+            // the request can then share the scan of the other full trace requests
+            fFullTraceHistogram.fDataModel.setStartTime(fullRange.getStartTime().getValue());
+            fFullTraceRequest.setJoinable(true);
         }
-        fFullTraceRequest = new HistogramRequest(fFullTraceHistogram, fullRange,
-                (int) fFullTraceHistogram.fDataModel.getNbEvents(), ExecutionType.BACKGROUND);
         fCurrentExperiment.sendRequest(fFullTraceRequest);
     }
 
@@ -12,24 +12,23 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.ui.views.resources.evProcessor;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.eclipse.linuxtools.lttng.event.LttngEvent;
 import org.eclipse.linuxtools.lttng.event.LttngSyntheticEvent;
 import org.eclipse.linuxtools.lttng.event.LttngSyntheticEvent.SequenceInd;
 import org.eclipse.linuxtools.lttng.state.StateStrings;
 import org.eclipse.linuxtools.lttng.state.evProcessor.AbsEventToHandlerResolver;
+import org.eclipse.linuxtools.lttng.state.evProcessor.EventProcessorTable;
 import org.eclipse.linuxtools.lttng.state.evProcessor.ILttngEventProcessor;
 import org.eclipse.linuxtools.lttng.state.model.LttngTraceState;
 
 /**
- * Builds a Map from string event name to a processing handler object, the
+ * Builds a table from event name to a processing handler object, the
  * processors implement the same interface to facilitate transparent methods
  * call,
  * 
- * The map key String is the entry point of the raw events. Using a hash speeds
- * up the resolution of the appropriate processor
+ * The table is indexed by the id of the event marker name, resolved once per
+ * event type, so the resolution of the appropriate processor does not need to
+ * hash the name of each event
  * 
  * @author alvaro
  * 
@@ -38,8 +37,8 @@ public class ResourcesEventToHandlerFactory extends AbsEventToHandlerResolver {
 	// ========================================================================
 	// Data
 	// =======================================================================
-	private final Map<String, ILttngEventProcessor> eventNametoBeforeProcessor = new HashMap<String, ILttngEventProcessor>();
-	private final Map<String, ILttngEventProcessor> eventNametoAfterProcessor = new HashMap<String, ILttngEventProcessor>();
+	private final EventProcessorTable eventNametoBeforeProcessor = new EventProcessorTable();
+	private final EventProcessorTable eventNametoAfterProcessor = new EventProcessorTable();
 	private ResourcesFinishUpdateHandler finishProcessor = null;
 	private static ResourcesEventToHandlerFactory instance = null;
 	private ResourcesBeforeUpdateHandlers instantiateBeforeHandler = new ResourcesBeforeUpdateHandlers();
@@ -123,11 +122,21 @@ public class ResourcesEventToHandlerFactory extends AbsEventToHandlerResolver {
 		return eventNametoAfterProcessor.get(eventType);
 	}
 
+	@Override
+	public ILttngEventProcessor getAfterProcessor(int eventTypeId) {
+		return eventNametoAfterProcessor.get(eventTypeId);
+	}
+
 	@Override
 	public ILttngEventProcessor getBeforeProcessor(String eventType) {
 		return eventNametoBeforeProcessor.get(eventType);
 	}
 
+	@Override
+	public ILttngEventProcessor getBeforeProcessor(int eventTypeId) {
+		return eventNametoBeforeProcessor.get(eventTypeId);
+	}
+
 	@Override
 	public ILttngEventProcessor getfinishProcessor() {
 		return finishProcessor;
@@ -138,7 +147,7 @@ public class ResourcesEventToHandlerFactory extends AbsEventToHandlerResolver {
 		if (trcEvent instanceof LttngSyntheticEvent) {
 
 			LttngSyntheticEvent synEvent = (LttngSyntheticEvent) trcEvent;
-			String eventType = synEvent.getMarkerName();
+			int eventType = synEvent.getMarkerNameId();
 			ILttngEventProcessor processor = null;
 			if (synEvent.getSynType() == SequenceInd.BEFORE) {
 				processor = getBeforeProcessor(eventType);
@@ -163,4 +172,9 @@ public class ResourcesEventToHandlerFactory extends AbsEventToHandlerResolver {
 	public ILttngEventProcessor getStateUpdaterProcessor(String eventType) {
 		return null;
 	}
+
+	@Override
+	public ILttngEventProcessor getStateUpdaterProcessor(int eventTypeId) {
+		return null;
+	}
 }
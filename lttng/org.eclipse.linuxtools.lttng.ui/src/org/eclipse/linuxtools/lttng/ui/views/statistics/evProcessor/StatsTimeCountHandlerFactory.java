@@ -13,23 +13,22 @@
 
 package org.eclipse.linuxtools.lttng.ui.views.statistics.evProcessor;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.eclipse.linuxtools.lttng.state.StateStrings;
 import org.eclipse.linuxtools.lttng.state.evProcessor.AbsEventToHandlerResolver;
+import org.eclipse.linuxtools.lttng.state.evProcessor.EventProcessorTable;
 import org.eclipse.linuxtools.lttng.state.evProcessor.ILttngEventProcessor;
 
 /**
  * Provide the handlers that will count the CPU Time, Cumulative CPU Time and
  * Elapsed Time and update the appropriate tree.
  * 
- * Builds a Map from string event name to a processing handler object, the
+ * Builds a table from event name to a processing handler object, the
  * processors implement the same interface to facilitate transparent methods
  * call,
  * 
- * The map key STring is the entry point of the raw events, using a hash speeds
- * up the resolution of the appropriate processor
+ * The table is indexed by the id of the event marker name, resolved once per
+ * event type, so the resolution of the appropriate processor does not need to
+ * hash the name of each event
  * 
  * @author alvaro
  * 
@@ -40,7 +39,7 @@ public class StatsTimeCountHandlerFactory extends AbsEventToHandlerResolver {
 	// Data
 	// -----------------------------------------------------------------------
 
-	private final Map<String, ILttngEventProcessor> eventNametoBeforeProcessor = new HashMap<String, ILttngEventProcessor>();
+	private final EventProcessorTable eventNametoBeforeProcessor = new EventProcessorTable();
 	ILttngEventProcessor afterhandler;
 	private static StatsTimeCountHandlerFactory instance = null;
 	private StatsTimeCountHandlers instantiateHandler = new StatsTimeCountHandlers();
@@ -126,11 +125,21 @@ public class StatsTimeCountHandlerFactory extends AbsEventToHandlerResolver {
 		return afterhandler;
 	}
 
+	@Override
+	public ILttngEventProcessor getAfterProcessor(int eventTypeId) {
+		return afterhandler;
+	}
+
 	@Override
 	public ILttngEventProcessor getBeforeProcessor(String eventType) {
 		return eventNametoBeforeProcessor.get(eventType);
 	}
 
+	@Override
+	public ILttngEventProcessor getBeforeProcessor(int eventTypeId) {
+		return eventNametoBeforeProcessor.get(eventTypeId);
+	}
+
 	@Override
 	public ILttngEventProcessor getfinishProcessor() {
 		return instantiateHandler.getTracesetEndHandler();
@@ -140,4 +149,9 @@ public class StatsTimeCountHandlerFactory extends AbsEventToHandlerResolver {
 	public ILttngEventProcessor getStateUpdaterProcessor(String eventType) {
 		return null;
 	}
+
+	@Override
+	public ILttngEventProcessor getStateUpdaterProcessor(int eventTypeId) {
+		return null;
+	}
 }
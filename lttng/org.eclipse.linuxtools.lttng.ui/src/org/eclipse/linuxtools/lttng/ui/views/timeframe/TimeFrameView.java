@@ -194,13 +194,13 @@ public class TimeFrameView extends TmfView {
         if (fupdateExternalListeners) {
             if (!fCurrentTime.equals(currentTime)) {
                 fCurrentTime = currentTime;
-                broadcast(new TmfTimeSynchSignal(this, currentTime));
+                broadcastAsync(new TmfTimeSynchSignal(this, currentTime));
             }
 
             // Notify the views if the time range has been impacted
             if (trangeUpdated) {
                 TmfTimeRange trange = new TmfTimeRange(startTime, endTime);
-                broadcast(new TmfRangeSynchSignal(this, trange, currentTime));
+                broadcastAsync(new TmfRangeSynchSignal(this, trange, currentTime));
             }
         }
     }
@@ -27,6 +27,7 @@ import org.eclipse.linuxtools.lttng.event.LttngSyntheticEvent.SequenceInd;
 import org.eclipse.linuxtools.lttng.event.LttngTimestamp;
 import org.eclipse.linuxtools.lttng.model.LTTngTreeNode;
 import org.eclipse.linuxtools.lttng.request.LttngBaseEventRequest;
+import org.eclipse.linuxtools.lttng.state.LttngStateException;
 import org.eclipse.linuxtools.lttng.state.evProcessor.ITransEventProcessor;
 import org.eclipse.linuxtools.lttng.state.evProcessor.state.StateEventToHandlerFactory;
 import org.eclipse.linuxtools.lttng.state.model.LttngTraceState;
@@ -57,22 +58,16 @@ public class LttngSyntheticEventProvider extends TmfEventProvider<LttngSynthetic
 	// ========================================================================
 	public static final int BLOCK_SIZE = 50000;
 	public static final int NB_EVENTS  = 1;
-	public static final int QUEUE_SIZE = 1; // lttng specific, one event at a time
 
-	private ITmfDataRequest<LttngSyntheticEvent> fmainRequest = null;
+	private volatile ITmfDataRequest<LttngSyntheticEvent> fmainRequest = null;
     private LttngBaseEventRequest fSubRequest = null;
 
 	private final List<IStateTraceManager> fEventProviderRequests = new Vector<IStateTraceManager>();
 
 	private final LttngSyntheticEvent fStatusEvent;
-	volatile boolean startIndSent = false;
 	private LTTngTreeNode fExperiment = null;
 	private ITransEventProcessor fstateUpdateProcessor = StateEventToHandlerFactory.getInstance();
 	private boolean waitForRequest = false;
-	long dispatchTime = 0L;
-	long dispatchIndex = 0L;
-	long eventIndex;
-	private final Map<ITmfTrace, LttngTraceState> traceToTraceStateModel = new HashMap<ITmfTrace, LttngTraceState>();
 
 	private boolean fIsExperimentNotified = false;
 
@@ -85,7 +80,7 @@ public class LttngSyntheticEventProvider extends TmfEventProvider<LttngSynthetic
 	 * @param type
 	 */
 	LttngSyntheticEventProvider(Class<LttngSyntheticEvent> type) {
-		super("LttngSyntheticEventProvider", type, QUEUE_SIZE); //$NON-NLS-1$
+		super("LttngSyntheticEventProvider", type); //$NON-NLS-1$
 
 		// prepare empty instance status indicators and allow them to travel via
 		// the framework
@@ -120,194 +115,220 @@ public class LttngSyntheticEventProvider extends TmfEventProvider<LttngSynthetic
 			return null;
 		}
 
-		// get ready to start processing
-		reset(fExperiment);
-
-		// At least one base provider shall be available
-		if (fEventProviderRequests.size() < 1) {
-			request.cancel();
-			TraceDebug.debug("No Base event providers available"); //$NON-NLS-1$
-			return null;
-		}
+		// The provider lock keeps the state models from being restored while
+		// the sub-request of the previous request processes an event
+		final LttngBaseEventRequest subRequest;
+		synchronized (this) {
+			// get ready to start processing
+			reset(fExperiment);
+
+			// At least one base provider shall be available
+			if (fEventProviderRequests.size() < 1) {
+				request.cancel();
+				TraceDebug.debug("No Base event providers available"); //$NON-NLS-1$
+				return null;
+			}
 
-		fmainRequest = request;
+			fmainRequest = request;
 
-		// define event data handling
-		ITmfEventRequest<LttngSyntheticEvent> eventRequest = (ITmfEventRequest<LttngSyntheticEvent>) fmainRequest;
-		TmfTimeRange reqWindow = eventRequest.getRange();
+			// define event data handling
+			ITmfEventRequest<LttngSyntheticEvent> eventRequest = (ITmfEventRequest<LttngSyntheticEvent>) fmainRequest;
+			TmfTimeRange reqWindow = eventRequest.getRange();
 
-		TraceDebug.debug("Main Synthethic event request started on thread:  " + Thread.currentThread().getName()); //$NON-NLS-1$
+			TraceDebug.debug("Main Synthethic event request started on thread:  " + Thread.currentThread().getName()); //$NON-NLS-1$
 
-		TmfExperiment<LttngEvent> experiment = (TmfExperiment<LttngEvent>) fExperiment.getValue();
-		experiment.startSynch(new TmfStartSynchSignal(0));
+			TmfExperiment<LttngEvent> experiment = (TmfExperiment<LttngEvent>) fExperiment.getValue();
+			experiment.startSynch(new TmfStartSynchSignal(0));
 		
-		TmfTimeRange adjustedRange = reqWindow;
-		long adjustedIndex = eventRequest.getIndex();
-		int nbRequested = eventRequest.getNbRequested();
+			TmfTimeRange adjustedRange = reqWindow;
+			long adjustedIndex = eventRequest.getIndex();
+			int nbRequested = eventRequest.getNbRequested();
 				
-		// Figure-out if we need to increase the range of the request:  if some
-		// checkpoints are before the beginning of the range, increase the 
-		// range to catch them.   We will then exercise the state system of 
-		// those traces until the requested beginning time range, discarding
-		// the unrequested data.   		
-		IStateTraceManager traceManager;
-		Iterator<IStateTraceManager> iter = fEventProviderRequests.iterator();
-		// For each traceManager in the current experiment...
-		while(iter.hasNext()) {
-			traceManager = iter.next();
-			// restore trace state system to nearest check point
-			TmfCheckpoint checkPoint = null;
-			if (eventRequest.getIndex() > 0) {
-				checkPoint = traceManager.restoreCheckPointByIndex(eventRequest.getIndex());
-			} else {
-				checkPoint = traceManager.restoreCheckPointByTimestamp(reqWindow.getStartTime());
-			}
-
-			// validate that the checkpoint restored is within requested bounds
-			// (not outside the current trace's range or after the end of requested range)
-			TmfTimeRange traceRange = traceManager.getTrace().getTimeRange();
-			if ((checkPoint == null) ||
-					checkPoint.getTimestamp().getValue() < traceRange.getStartTime().getValue() ||
-					checkPoint.getTimestamp().getValue() > traceRange.getEndTime().getValue() ||
-					checkPoint.getTimestamp().getValue() >= reqWindow.getEndTime().getValue()
-					) {
-				// checkpoint is out of trace bounds; no need to adjust request for this
-				// trace
-			}
-			else {
-				// use checkpoint time as new startTime for request if it's earlier than
-				// current startTime
-				if (adjustedRange.getStartTime().getValue() > checkPoint.getTimestamp().getValue() || adjustedIndex > (Long) checkPoint.getLocation().getLocation()) {
-					adjustedRange = new TmfTimeRange(checkPoint.getTimestamp(), reqWindow.getEndTime());
-					adjustedIndex = (Long) checkPoint.getLocation().getLocation();
-					if (nbRequested < TmfDataRequest.ALL_DATA) {
-						nbRequested += (eventRequest.getIndex() - adjustedIndex);
+			// Figure-out if we need to increase the range of the request:  if some
+			// checkpoints are before the beginning of the range, increase the 
+			// range to catch them.   We will then exercise the state system of 
+			// those traces until the requested beginning time range, discarding
+			// the unrequested data.   		
+			// The trace state models of this request, a new request gets its own map
+			final Map<ITmfTrace, LttngTraceState> traceModels = new HashMap<ITmfTrace, LttngTraceState>();
+				IStateTraceManager traceManager;
+			Iterator<IStateTraceManager> iter = fEventProviderRequests.iterator();
+			// For each traceManager in the current experiment...
+			while(iter.hasNext()) {
+				traceManager = iter.next();
+				// restore trace state system to nearest check point
+				TmfCheckpoint checkPoint = null;
+				try {
+					if (eventRequest.getIndex() > 0) {
+						checkPoint = traceManager.restoreCheckPointByIndex(eventRequest.getIndex());
+					} else {
+						checkPoint = traceManager.restoreCheckPointByTimestamp(reqWindow.getStartTime());
 					}
-				}	
-			}		
-			// Save which trace state model corresponds to current trace
-			traceToTraceStateModel.put(traceManager.getTrace(), traceManager.getStateModel());
-		}
+				} catch (LttngStateException e) {
+					TraceDebug.debug("The state of trace " + traceManager.getTrace().getName() + " could not be restored: " + e); //$NON-NLS-1$ //$NON-NLS-2$
+					request.fail();
+					return null;
+				}
 
-		dispatchTime = reqWindow.getStartTime().getValue();
-		dispatchIndex = eventRequest.getIndex();
-		eventIndex = adjustedIndex;
-
-		// Create a single request for all traces in the experiment, with coalesced time range.
-		fSubRequest = new LttngBaseEventRequest(adjustedRange, reqWindow.getStartTime(),
-				adjustedIndex, nbRequested, BLOCK_SIZE, eventRequest.getExecType() /*ITmfDataRequest.ExecutionType.FOREGROUND*/) {
-
-			private LttngSyntheticEvent syntheticEvent = null;
-
-			/*
-			 * (non-Javadoc)
-			 * 
-			 * @see org.eclipse.linuxtools.lttng.control.LttngEventRequest#handleData()
-			 */
-			@Override
-			public void handleData(LttngEvent event) {
-				super.handleData(event);
-				if (event != null) {
-				    synchronized (LttngSyntheticEventProvider.this) {
-				        // Check if request was canceled
-				        if ((fmainRequest == null) || (fmainRequest.isCompleted()) ) {
-				            TraceDebug.debug("fmainRequest was canceled. Ignoring event " + event); //$NON-NLS-1$
-				            return;
-				        } 
-
-				        handleIncomingData(event);
-				    }
-				} else {
-					TraceDebug.debug("handle data received with no data"); //$NON-NLS-1$
+				// validate that the checkpoint restored is within requested bounds
+				// (not outside the current trace's range or after the end of requested range)
+				TmfTimeRange traceRange = traceManager.getTrace().getTimeRange();
+				if ((checkPoint == null) ||
+						checkPoint.getTimestamp().getValue() < traceRange.getStartTime().getValue() ||
+						checkPoint.getTimestamp().getValue() > traceRange.getEndTime().getValue() ||
+						checkPoint.getTimestamp().getValue() >= reqWindow.getEndTime().getValue()
+						) {
+					// checkpoint is out of trace bounds; no need to adjust request for this
+					// trace
 				}
+				else {
+					// use checkpoint time as new startTime for request if it's earlier than
+					// current startTime
+					if (adjustedRange.getStartTime().getValue() > checkPoint.getTimestamp().getValue() || adjustedIndex > (Long) checkPoint.getLocation().getLocation()) {
+						adjustedRange = new TmfTimeRange(checkPoint.getTimestamp(), reqWindow.getEndTime());
+						adjustedIndex = (Long) checkPoint.getLocation().getLocation();
+						if (nbRequested < TmfDataRequest.ALL_DATA) {
+							nbRequested += (eventRequest.getIndex() - adjustedIndex);
+						}
+					}	
+				}		
+				// Save which trace state model corresponds to current trace
+				traceModels.put(traceManager.getTrace(), traceManager.getStateModel());
 			}
 
-			/*
-			 * (non-Javadoc)
-			 * 
-			 * @see org.eclipse.linuxtools.tmf.request.TmfDataRequest#handleCompleted()
-			 */
-			@Override
-	         public void handleCompleted() {
-				// mark this sub-request as completed
-                handleProviderDone(!isCancelled() && !isFailed());
-                super.handleCompleted();
-			}
+			// The dispatch bounds and read position of this request, captured by
+			// its sub-request (read on the sub-request thread only)
+			final long dispatchTime = reqWindow.getStartTime().getValue();
+			final long dispatchIndex = eventRequest.getIndex();
+			final long startIndex = adjustedIndex;
+
+			// Create a single request for all traces in the experiment, with coalesced time range.
+			fSubRequest = new LttngBaseEventRequest(adjustedRange, reqWindow.getStartTime(),
+					adjustedIndex, nbRequested, BLOCK_SIZE, eventRequest.getExecType() /*ITmfDataRequest.ExecutionType.FOREGROUND*/) {
+
+				private LttngSyntheticEvent syntheticEvent = null;
+
+				// The main request served by this sub-request
+				private final ITmfDataRequest<LttngSyntheticEvent> mainRequest = fmainRequest;
+
+				// The index of the next event read
+				private long eventIndex = startIndex;
+
+				// The start indication is sent once per request
+				private boolean startIndSent = false;
+
+				/*
+				 * (non-Javadoc)
+				 * 
+				 * @see org.eclipse.linuxtools.lttng.control.LttngEventRequest#handleData()
+				 */
+				@Override
+				public void handleData(LttngEvent event) {
+					super.handleData(event);
+					if (event != null) {
+						// The state models are shared with the next request: a
+						// request replacing this one waits for the event in
+						// progress before restoring them
+						synchronized (LttngSyntheticEventProvider.this) {
+							// Check if request was canceled (or replaced)
+							if (mainRequest != fmainRequest || mainRequest.isCompleted()) {
+								TraceDebug.debug("fmainRequest was canceled. Ignoring event " + event); //$NON-NLS-1$
+								return;
+							}
+
+							handleIncomingData(event);
+						}
+					} else {
+						TraceDebug.debug("handle data received with no data"); //$NON-NLS-1$
+					}
+				}
 
-			/**
-			 * Trigger the Analysis and sequential control of the events.
-			 * 
-			 * @param e
-			 */
-			private void handleIncomingData(LttngEvent e) {
-				long eventTime = e.getTimestamp().getValue();
+				/*
+				 * (non-Javadoc)
+				 * 
+				 * @see org.eclipse.linuxtools.tmf.request.TmfDataRequest#handleCompleted()
+				 */
+				@Override
+		         public void handleCompleted() {
+					// mark this sub-request as completed
+	                handleProviderDone(mainRequest, traceModels, !isCancelled() && !isFailed());
+	                super.handleCompleted();
+				}
+
+				/**
+				 * Trigger the Analysis and sequential control of the events.
+				 * 
+				 * @param e
+				 */
+				private void handleIncomingData(LttngEvent e) {
+					long eventTime = e.getTimestamp().getValue();
 
-				ITmfTrace inTrace = e.getParentTrace();
-				LttngTraceState traceModel = traceToTraceStateModel.get(inTrace);
+					ITmfTrace inTrace = e.getParentTrace();
+					LttngTraceState traceModel = traceModels.get(inTrace);
 				
-				// queue the new event data
-				updateSynEvent(e);
+					// queue the new event data
+					updateSynEvent(e, traceModel);
 				
-				// If time at or above requested time, update application
-				if (eventTime >= dispatchTime && eventIndex >= dispatchIndex) {
-					// Before update
-					syntheticEvent.setSequenceInd(SequenceInd.BEFORE);
-					fmainRequest.handleData(syntheticEvent);
-
-					// Update state locally
-					syntheticEvent.setSequenceInd(SequenceInd.UPDATE);
-					fstateUpdateProcessor.process(syntheticEvent, traceModel);
-
-					// After Update
-					syntheticEvent.setSequenceInd(SequenceInd.AFTER);
-					fmainRequest.handleData(syntheticEvent);
-
-				} else {
-					// event time is between checkpoint adjusted time and
-					// requested time i.e. application does not expect the
-					// event, however the state system needs to be re-built
-					// to the dispatch point
-					syntheticEvent.setSequenceInd(SequenceInd.UPDATE);
-					fstateUpdateProcessor.process(syntheticEvent, traceModel);
+					// If time at or above requested time, update application
+					if (eventTime >= dispatchTime && eventIndex >= dispatchIndex) {
+						// Before update
+						syntheticEvent.setSequenceInd(SequenceInd.BEFORE);
+						mainRequest.handleData(syntheticEvent);
+
+						// Update state locally
+						syntheticEvent.setSequenceInd(SequenceInd.UPDATE);
+						fstateUpdateProcessor.process(syntheticEvent, traceModel);
+
+						// After Update
+						syntheticEvent.setSequenceInd(SequenceInd.AFTER);
+						mainRequest.handleData(syntheticEvent);
+
+					} else {
+						// event time is between checkpoint adjusted time and
+						// requested time i.e. application does not expect the
+						// event, however the state system needs to be re-built
+						// to the dispatch point
+						syntheticEvent.setSequenceInd(SequenceInd.UPDATE);
+						fstateUpdateProcessor.process(syntheticEvent, traceModel);
+					}
+					eventIndex++;
 				}
-				eventIndex++;
-			}
 
-			/**
-			 * Create a synthetic event from the received new reference, if
-			 * the reference is the same there is no need for a new instance
-			 * 
-			 * if this is the first event for this request, call start
-			 * handler
-			 * 
-			 * @param e
-			 * @return
-			 */
-			private LttngSyntheticEvent updateSynEvent(LttngEvent e) {
-				if ((syntheticEvent == null) || (syntheticEvent.getBaseEvent() != e)) {
-					syntheticEvent = new LttngSyntheticEvent(e);
-				}
+				/**
+				 * Create a synthetic event from the received new reference, if
+				 * the reference is the same there is no need for a new instance
+				 * 
+				 * if this is the first event for this request, call start
+				 * handler
+				 * 
+				 * @param e
+				 * @param traceModel
+				 * @return
+				 */
+				private LttngSyntheticEvent updateSynEvent(LttngEvent e, LttngTraceState traceModel) {
+					if ((syntheticEvent == null) || (syntheticEvent.getBaseEvent() != e)) {
+						syntheticEvent = new LttngSyntheticEvent(e);
+					}
 
-				ITmfTrace inTrace = e.getParentTrace();
-				LttngTraceState traceModel = traceToTraceStateModel.get(inTrace);
-				
-				// Trace model needed by application handlers
-				syntheticEvent.setTraceModel(traceModel);
-
-				// send the start request indication once per request thread
-				if (!startIndSent) {
-					TraceDebug.debug("Thread started: " + Thread.currentThread().getName()); //$NON-NLS-1$
-					handleProviderStarted(traceModel);
-					startIndSent = true;
-				}
+					// Trace model needed by application handlers
+					syntheticEvent.setTraceModel(traceModel);
 
-				return syntheticEvent;
-			}
-		};
+					// send the start request indication once per request thread
+					if (!startIndSent) {
+						TraceDebug.debug("Thread started: " + Thread.currentThread().getName()); //$NON-NLS-1$
+						handleProviderStarted(mainRequest);
+						startIndSent = true;
+					}
+
+					return syntheticEvent;
+				}
+			};
+			subRequest = fSubRequest;
+		}
 
 		// start request
 		TmfExperiment<LttngEvent> provider = (TmfExperiment<LttngEvent>) fExperiment.getValue();
-		provider.sendRequest(fSubRequest);
+		provider.sendRequest(subRequest);
 
 		// notify LTTngEvent provider that all requests were sent
 		synchronized (this) {
@@ -315,7 +336,7 @@ public class LttngSyntheticEventProvider extends TmfEventProvider<LttngSynthetic
 		    fIsExperimentNotified = false;
 		}
 
-		experiment.endSynch(new TmfEndSynchSignal(0));
+		provider.endSynch(new TmfEndSynchSignal(0));
 
 		// Return a dummy context, not used for relay provider
 		return new TmfContext();
@@ -324,12 +345,12 @@ public class LttngSyntheticEventProvider extends TmfEventProvider<LttngSynthetic
 	/**
 	 * Notify listeners to prepare to receive data e.g. clean previous data etc.
 	 */
-	public synchronized void handleProviderStarted(LttngTraceState traceModel) {
+	private synchronized void handleProviderStarted(ITmfDataRequest<LttngSyntheticEvent> mainRequest) {
 		LttngSyntheticEvent startIndEvent = new LttngSyntheticEvent(fStatusEvent);
 		startIndEvent.setSequenceInd(SequenceInd.STARTREQ);
 
 		// Notify application
-		fmainRequest.handleData(startIndEvent);
+		mainRequest.handleData(startIndEvent);
 
 		// Notify state event processor
 		fstateUpdateProcessor.process(startIndEvent, null);
@@ -337,28 +358,30 @@ public class LttngSyntheticEventProvider extends TmfEventProvider<LttngSynthetic
 
 	/**
 	 * Notify listeners, no more events for the current request will be
-	 * distributed e.g. update view.
+	 * distributed e.g. update view. The main request and trace state models
+	 * are those of the completed sub-request, a newer request is not affected.
 	 */
-	public synchronized void handleProviderDone(boolean isSuccess) {
+	private synchronized void handleProviderDone(ITmfDataRequest<LttngSyntheticEvent> mainRequest,
+			Map<ITmfTrace, LttngTraceState> traceModels, boolean isSuccess) {
 		// Notify application. One notification per trace so the last state of each trace can be
 		// drawn
-	    for (LttngTraceState traceModel : traceToTraceStateModel.values()) {
-	        // Take the trace model from traceToTraceStateModel list since it has a copy
+	    for (LttngTraceState traceModel : traceModels.values()) {
+	        // Take the trace model from the request trace models since it has a copy
 	        // of the state
 	        LttngSyntheticEvent finishEvent = new LttngSyntheticEvent(fStatusEvent);
             finishEvent.setSequenceInd(SequenceInd.ENDREQ);
             finishEvent.setTraceModel(traceModel);
 
-            fmainRequest.handleData(finishEvent);
+            mainRequest.handleData(finishEvent);
 	    }
 	    
         if(isSuccess) {
             // Finish main request
-            fmainRequest.done();
+            mainRequest.done();
         }
         else {
             // Cancel main request
-            fmainRequest.cancel();
+            mainRequest.cancel();
             
         }
 	}
@@ -373,7 +396,6 @@ public class LttngSyntheticEventProvider extends TmfEventProvider<LttngSynthetic
 	    conditionallyCancelRequests();
 
 		fEventProviderRequests.clear();
-		startIndSent = false;
 
 		// set of base event providers
 		if (fExperiment != null) {
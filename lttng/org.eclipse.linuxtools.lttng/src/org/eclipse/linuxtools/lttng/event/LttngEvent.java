@@ -3,6 +3,7 @@ package org.eclipse.linuxtools.lttng.event;
 import org.eclipse.linuxtools.lttng.jni.JniEvent;
 import org.eclipse.linuxtools.tmf.event.TmfEvent;
 import org.eclipse.linuxtools.tmf.event.TmfEventSource;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
 import org.eclipse.linuxtools.tmf.trace.TmfTrace;
 
 /**
@@ -53,6 +54,26 @@ public class LttngEvent extends TmfEvent {
         setParentTrace(parent);
     }
 
+    /**
+     * Constructor with a primitive timestamp: the LttngTimestamp is only
+     * created if requested.
+     * <p>
+     * 
+     * @param timestamp The timestamp of this event, in nanoseconds
+     * @param source The source of this event
+     * @param type The type of this event
+     * @param content The content of this event
+     * @param reference The reference of this event
+     * @param lttEvent A reference to a valid JniEvent object
+     */
+    public LttngEvent(TmfTrace<LttngEvent> parent, long timestamp, TmfEventSource source, LttngEventType type, LttngEventContent content,
+            LttngEventReference reference, JniEvent lttEvent) {
+        super(parent, -1, timestamp, (byte) -9, source, type, reference);
+
+        fContent = content;
+        jniEventReference = lttEvent;
+    }
+
     /**
      * Copy constructor.
      * <p>
@@ -71,6 +92,11 @@ public class LttngEvent extends TmfEvent {
         		oldEvent.jniEventReference
         	);
     }
+    @Override
+    protected TmfTimestamp newTimestamp(long timestampValue, byte timestampScale) {
+        return new LttngTimestamp(timestampValue);
+    }
+
     /**
      * Set a new parent trace for this event
      * 
@@ -110,6 +136,18 @@ public class LttngEvent extends TmfEvent {
         return this.getType().getMarkerName();
     }
 
+    /**
+     * Id of the marker name of this event, the same for all the events with
+     * the same marker name.
+     * <p>
+     * 
+     * @return Marker name id
+     * @see LttngEventType#internMarkerName(String)
+     */
+    public int getMarkerNameId() {
+        return this.getType().getMarkerNameId();
+    }
+
     /**
      * Marker id of this event.
      * <p>
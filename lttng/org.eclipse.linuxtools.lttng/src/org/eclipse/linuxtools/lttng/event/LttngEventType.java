@@ -12,6 +12,9 @@
 
 package org.eclipse.linuxtools.lttng.event;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.linuxtools.tmf.event.*;
 
 /**
@@ -34,10 +37,14 @@ public class LttngEventType extends TmfEventType {
     };
     public static final LttngEventType DEFAULT_EVENT_TYPE = new LttngEventType(DEFAULT_TYPE_ID, DEFAULT_LABELS);
     
+    // Dense ids of the marker names, shared by all the traces
+    private static final Map<String, Integer> markerNameIds = new HashMap<String, Integer>();
+    
     private String tracefileName    = null;
     private Long   cpuId            = null;
     private String markerName       = null;
     private int markerId            = -1;
+    private int markerNameId        = -1;
     
     /**
      * Default Constructor.<p>
@@ -63,12 +70,17 @@ public class LttngEventType extends TmfEventType {
      * @param thisMarkerfieldsName  MarkerFields related to this marker	
      */
     public LttngEventType(String thisTracefileName, Long thisCpuId, String thisMarkerName, int thisMarkerId, String[] thisMarkerfieldsName) {
+        this(thisTracefileName, thisCpuId, thisMarkerName, thisMarkerId, internMarkerName(thisMarkerName), thisMarkerfieldsName);
+    }
+    
+    private LttngEventType(String thisTracefileName, Long thisCpuId, String thisMarkerName, int thisMarkerId, int thisMarkerNameId, String[] thisMarkerfieldsName) {
         super( thisTracefileName + "/" + thisCpuId + "/" + thisMarkerName, thisMarkerfieldsName); //$NON-NLS-1$ //$NON-NLS-2$
         
         tracefileName   = thisTracefileName;
         cpuId           = thisCpuId;
         markerName      = thisMarkerName;
         markerId        = thisMarkerId;
+        markerNameId    = thisMarkerNameId;
     }
 
     /**
@@ -77,7 +89,44 @@ public class LttngEventType extends TmfEventType {
      * @param oldType   Type we want to copy from
      */
     public LttngEventType(LttngEventType oldType) {
-        this(oldType.tracefileName, oldType.cpuId, oldType.markerName, oldType.markerId, oldType.getLabels());
+        this(oldType.tracefileName, oldType.cpuId, oldType.markerName, oldType.markerId, oldType.markerNameId, oldType.getLabels());
+    }
+    
+    /**
+     * Returns the id of a marker name, a new id is assigned to a name seen
+     * for the first time.<p>
+     * 
+     * The ids are small consecutive numbers, the same in all the traces, 
+     * so that they can be used as array indexes.
+     * 
+     * @param name  Marker name
+     * @return Id of the marker name, -1 for a null name
+     */
+    public static int internMarkerName(String name) {
+        if (name == null) {
+            return -1;
+        }
+        synchronized (markerNameIds) {
+            Integer id = markerNameIds.get(name);
+            if (id == null) {
+                id = markerNameIds.size();
+                markerNameIds.put(name, id);
+            }
+            return id;
+        }
+    }
+    
+    /**
+     * Returns the id of a marker name, without assigning a new id.<p>
+     * 
+     * @param name  Marker name
+     * @return Id of the marker name, -1 if the name was never seen
+     */
+    public static int findMarkerNameId(String name) {
+        synchronized (markerNameIds) {
+            Integer id = markerNameIds.get(name);
+            return (id != null) ? id : -1;
+        }
     }
     
     
@@ -97,6 +146,17 @@ public class LttngEventType extends TmfEventType {
         return markerId;
     }
     
+    /**
+     * Id of the marker name, see internMarkerName().<p>
+     * 
+     * Unlike the marker id, it does not depend on the trace.
+     * 
+     * @return Id of the marker name, -1 if none
+     */
+    public int getMarkerNameId() {
+        return markerNameId;
+    }
+    
     /**
      * toString() method.
      * 
@@ -1,10 +1,14 @@
 package org.eclipse.linuxtools.lttng.event;
 
+import java.io.Serializable;
+
 import org.eclipse.linuxtools.tmf.trace.ITmfLocation;
 
 
-public class LttngLocation implements ITmfLocation<LttngTimestamp>, Comparable<LttngLocation> {
+public class LttngLocation implements ITmfLocation<LttngTimestamp>, Comparable<LttngLocation>, Serializable {
 	
+	private static final long serialVersionUID = -1525393349407395718L;
+
 	private final static long DEFAULT_CURR_TIME =  0L;
 	
 	private boolean isLastOperationParse = false ;
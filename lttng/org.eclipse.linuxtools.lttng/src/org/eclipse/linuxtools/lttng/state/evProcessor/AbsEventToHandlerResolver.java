@@ -57,6 +57,24 @@ public abstract class AbsEventToHandlerResolver implements
 	public abstract ILttngEventProcessor getStateUpdaterProcessor(
 			String eventType);
 
+	/* (non-Javadoc)
+	 * @see org.eclipse.linuxtools.lttng.state.evProcessor.IEventToHandlerResolver#getBeforeProcessor(int)
+	 */
+	@Override
+	public abstract ILttngEventProcessor getBeforeProcessor(int eventTypeId);
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.linuxtools.lttng.state.evProcessor.IEventToHandlerResolver#getAfterProcessor(int)
+	 */
+	@Override
+	public abstract ILttngEventProcessor getAfterProcessor(int eventTypeId);
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.linuxtools.lttng.state.evProcessor.IEventToHandlerResolver#getStateUpdaterProcessor(int)
+	 */
+	@Override
+	public abstract ILttngEventProcessor getStateUpdaterProcessor(int eventTypeId);
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.linuxtools.lttng.state.evProcessor.ILttngEventProcessor#process(org.eclipse.linuxtools.lttng.event.LttngEvent, org.eclipse.linuxtools.lttng.state.model.LttngTraceState)
 	 */
@@ -67,7 +85,8 @@ public abstract class AbsEventToHandlerResolver implements
 			// prepare to dispatch synthetic events to its corresponding handler
 			LttngSyntheticEvent synEvent = (LttngSyntheticEvent) trcEvent;
 			ILttngEventProcessor processor = null;
-			String eventType = synEvent.getMarkerName();
+			// resolved once per event type, not per event
+			int eventType = synEvent.getMarkerNameId();
 
 			switch (synEvent.getSynType()) {
 				case STARTREQ: {
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.linuxtools.lttng.state.evProcessor;
+
+import java.util.Arrays;
+
+import org.eclipse.linuxtools.lttng.event.LttngEventType;
+
+/**
+ * <b><u>EventProcessorTable</u></b>
+ * <p>
+ * Event processors indexed by the id of the event marker name (see
+ * LttngEventType.internMarkerName()), so that resolving the processor of an
+ * event is an array access instead of a string hash.
+ */
+public class EventProcessorTable {
+	// ========================================================================
+	// Data
+	// =======================================================================
+	private ILttngEventProcessor[] fProcessors = new ILttngEventProcessor[0];
+
+	// ========================================================================
+	// Methods
+	// =======================================================================
+	/**
+	 * Sets the processor of an event type
+	 *
+	 * @param eventType
+	 *            the event marker name
+	 * @param processor
+	 */
+	public synchronized void put(String eventType, ILttngEventProcessor processor) {
+		int id = LttngEventType.internMarkerName(eventType);
+		if (id < 0) {
+			return;
+		}
+		if (id >= fProcessors.length) {
+			fProcessors = Arrays.copyOf(fProcessors, Math.max(id + 1, fProcessors.length * 2));
+		}
+		fProcessors[id] = processor;
+	}
+
+	/**
+	 * @param eventTypeId
+	 *            the id of the event marker name
+	 * @return the processor of the event type, null if none
+	 */
+	public ILttngEventProcessor get(int eventTypeId) {
+		ILttngEventProcessor[] processors = fProcessors;
+		if (eventTypeId < 0 || eventTypeId >= processors.length) {
+			return null;
+		}
+		return processors[eventTypeId];
+	}
+
+	/**
+	 * @param eventType
+	 *            the event marker name
+	 * @return the processor of the event type, null if none
+	 */
+	public ILttngEventProcessor get(String eventType) {
+		return get(LttngEventType.findMarkerNameId(eventType));
+	}
+}
@@ -31,4 +31,26 @@ public interface IEventToHandlerResolver {
 	 */
 	public abstract ILttngEventProcessor getStateUpdaterProcessor(String eventType);
 
+	/**
+	 * Same as getBeforeProcessor(String), for the id of the event marker name
+	 * 
+	 * @see org.eclipse.linuxtools.lttng.event.LttngEventType#internMarkerName(String)
+	 */
+	public abstract ILttngEventProcessor getBeforeProcessor(int eventTypeId);
+
+	/**
+	 * Same as getAfterProcessor(String), for the id of the event marker name
+	 * 
+	 * @see org.eclipse.linuxtools.lttng.event.LttngEventType#internMarkerName(String)
+	 */
+	public abstract ILttngEventProcessor getAfterProcessor(int eventTypeId);
+
+	/**
+	 * Same as getStateUpdaterProcessor(String), for the id of the event marker
+	 * name
+	 * 
+	 * @see org.eclipse.linuxtools.lttng.event.LttngEventType#internMarkerName(String)
+	 */
+	public abstract ILttngEventProcessor getStateUpdaterProcessor(int eventTypeId);
+
 }
\ No newline at end of file
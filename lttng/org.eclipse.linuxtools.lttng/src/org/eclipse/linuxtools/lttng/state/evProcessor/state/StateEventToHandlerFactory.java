@@ -12,20 +12,19 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.state.evProcessor.state;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import org.eclipse.linuxtools.lttng.state.StateStrings;
 import org.eclipse.linuxtools.lttng.state.evProcessor.AbsEventToHandlerResolver;
+import org.eclipse.linuxtools.lttng.state.evProcessor.EventProcessorTable;
 import org.eclipse.linuxtools.lttng.state.evProcessor.ILttngEventProcessor;
 
 /**
- * Builds a Map from string event name to a processing handler object, the
+ * Builds a table from event name to a processing handler object, the
  * processors implement the same interface to facilitate transparent methods
  * call,
  * 
- * The map key STring is the entry point of the raw events, using a hash speeds
- * up the resolution of the appropriate processor
+ * The table is indexed by the id of the event marker name, resolved once per
+ * event type, so the resolution of the appropriate processor does not need to
+ * hash the name of each event
  * 
  * @author alvaro
  * 
@@ -34,7 +33,7 @@ public class StateEventToHandlerFactory extends AbsEventToHandlerResolver {
 	// ========================================================================
 	// Data
 	// =======================================================================
-	private final Map<String, ILttngEventProcessor> eventNametoStateProcessor = new HashMap<String, ILttngEventProcessor>();
+	private final EventProcessorTable eventNametoStateProcessor = new EventProcessorTable();
 	private final static StateEventToHandlerFactory instance = new StateEventToHandlerFactory();
 	private StateUpdateHandlers instantiateHandler = new StateUpdateHandlers();
 
@@ -158,6 +157,11 @@ public class StateEventToHandlerFactory extends AbsEventToHandlerResolver {
 		return null;
 	}
 
+	@Override
+	public ILttngEventProcessor getAfterProcessor(int eventTypeId) {
+		return null;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.linuxtools.lttng.state.evProcessor.AbsEventProcessorFactory#getBeforeProcessor(java.lang.String)
 	 */
@@ -165,6 +169,11 @@ public class StateEventToHandlerFactory extends AbsEventToHandlerResolver {
 	public ILttngEventProcessor getBeforeProcessor(String eventType) {
 		return null;
 	}
+
+	@Override
+	public ILttngEventProcessor getBeforeProcessor(int eventTypeId) {
+		return null;
+	}
 	
 	/**
 	 * This is the only event handler to update the State provider
@@ -176,6 +185,11 @@ public class StateEventToHandlerFactory extends AbsEventToHandlerResolver {
 		return eventNametoStateProcessor.get(eventType);
 	}
 
+	@Override
+	public ILttngEventProcessor getStateUpdaterProcessor(int eventTypeId) {
+		return eventNametoStateProcessor.get(eventTypeId);
+	}
+
 	@Override
 	public ILttngEventProcessor getfinishProcessor() {
 		// No finishing processor used
@@ -12,23 +12,27 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.state.experiment;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.linuxtools.lttng.LttngConstants;
 import org.eclipse.linuxtools.lttng.TraceDebug;
 import org.eclipse.linuxtools.lttng.control.LttngCoreProviderFactory;
 import org.eclipse.linuxtools.lttng.event.LttngEvent;
-import org.eclipse.linuxtools.lttng.event.LttngSyntheticEvent;
-import org.eclipse.linuxtools.lttng.event.LttngSyntheticEvent.SequenceInd;
 import org.eclipse.linuxtools.lttng.model.LTTngTreeNode;
 import org.eclipse.linuxtools.lttng.signal.ILttExperimentSelectedListener;
 import org.eclipse.linuxtools.lttng.signal.StateExperimentListener;
-import org.eclipse.linuxtools.lttng.state.model.LttngTraceState;
+import org.eclipse.linuxtools.lttng.state.LttngStateException;
 import org.eclipse.linuxtools.lttng.state.trace.IStateTraceManager;
+import org.eclipse.linuxtools.tmf.component.ITmfDataProvider;
+import org.eclipse.linuxtools.tmf.component.TmfDataProvider;
+import org.eclipse.linuxtools.tmf.component.TmfThread;
 import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
 import org.eclipse.linuxtools.tmf.experiment.TmfExperiment;
 import org.eclipse.linuxtools.tmf.request.ITmfDataRequest;
+import org.eclipse.linuxtools.tmf.request.ITmfDataRequest.ExecutionType;
 import org.eclipse.linuxtools.tmf.request.ITmfEventRequest;
 import org.eclipse.linuxtools.tmf.request.TmfEventRequest;
 import org.eclipse.linuxtools.tmf.signal.TmfExperimentRangeUpdatedSignal;
@@ -52,17 +56,14 @@ public class StateExperimentManager extends LTTngTreeNode implements ILttExperim
     private final StateExperimentListener fexperimentListener;
     private boolean fwaitForCompletion = false;
     /**
-     * Used to route incoming events to proper trace manager, during check point building
+     * The trace managers building their check points, one request per trace
      */
     private final Map<ITmfTrace, StateTraceHelper> ftraceToManagerMap = new HashMap<ITmfTrace, StateTraceHelper>();
 
-    private LttngSyntheticEvent syntheticEvent = null;
-    private ITmfDataRequest<LttngEvent> fStateCheckPointRequest = null;
+    private final List<ITmfDataRequest<LttngEvent>> fStateCheckPointRequests = new ArrayList<ITmfDataRequest<LttngEvent>>();
     private boolean fCheckPointUpdateBusy = false;
     private boolean fCheckPointUpdatePending = false;
-    private int fCheckPointUpdateIndex = 0;
     private TmfTimeRange fCheckPointUpdateRange = null;
-    private long fCheckPointNbEventsHandled = 0;
     private final Object fCheckPointUpdateSyncObj = new Object();
     private boolean fInitial = false;
 
@@ -193,6 +194,14 @@ public class StateExperimentManager extends LTTngTreeNode implements ILttExperim
     }
 
     private void clearExperimentNode(LTTngTreeNode experimentNode) {
+        // Release the trace copies read by the check point requests
+        synchronized (this) {
+            for (StateTraceHelper helper : ftraceToManagerMap.values()) {
+                helper.dispose();
+            }
+            ftraceToManagerMap.clear();
+        }
+
         // Remove checkpoints
         LTTngTreeNode[] traceNodes = experimentNode.getChildren();
 
@@ -200,9 +209,9 @@ public class StateExperimentManager extends LTTngTreeNode implements ILttExperim
             IStateTraceManager traceManager = null;
             try {
                 traceManager = (IStateTraceManager) traceStateManagerNode;
-                // Clear all previously created check points as preparation to
-                // re-build
-                traceManager.clearCheckPoints();
+                // Release the state history of the trace, the nodes are
+                // re-built from scratch
+                traceManager.dispose();
                 experimentNode.removeChild(traceStateManagerNode);
             } catch (ClassCastException e) {
                 // Nothing to do
@@ -227,16 +236,13 @@ public class StateExperimentManager extends LTTngTreeNode implements ILttExperim
             return;
         }
 
-        // If previous request is ongoing, cancel it before requesting a new
-        // one.
-        if (fStateCheckPointRequest != null && !fStateCheckPointRequest.isCompleted()) {
-            fStateCheckPointRequest.cancel();
-        }
+        // If previous requests are ongoing, cancel them before requesting new
+        // ones.
+        cancelCheckPointRequests();
 
         synchronized (fCheckPointUpdateSyncObj) {
             fCheckPointUpdateBusy = false;
             fCheckPointUpdatePending = false;
-            fCheckPointUpdateIndex = 0;
         }
 
         fInitial = true;
@@ -267,17 +273,15 @@ public class StateExperimentManager extends LTTngTreeNode implements ILttExperim
             }
         }
 
-        // If previous request is ongoing, cancel it before requesting a new
-        // one.
-        if (fStateCheckPointRequest != null && !fStateCheckPointRequest.isCompleted()) {
-            fStateCheckPointRequest.cancel();
-        }
+        // If previous requests are ongoing, cancel them before requesting new
+        // ones.
+        cancelCheckPointRequests();
 
-        // trigger data request to build the state system check points
-        fStateCheckPointRequest = buildCheckPoints(experiment, signal.getRange(), fInitial);
+        // trigger data requests to build the state system check points
+        boolean started = buildCheckPoints(experiment, signal.getRange(), fInitial);
         fInitial = false;
 
-        if (fStateCheckPointRequest == null) {
+        if (!started) {
             synchronized (fCheckPointUpdateSyncObj) {
                 fCheckPointUpdateBusy = false;
             }
@@ -327,18 +331,32 @@ public class StateExperimentManager extends LTTngTreeNode implements ILttExperim
         fwaitForCompletion = wait;
     }
 
-    private ITmfDataRequest<LttngEvent> buildCheckPoints(final TmfExperiment<LttngEvent> experiment,
-            final TmfTimeRange range, boolean initial) {
+    /**
+     * Builds the check points of the traces of the experiment, up to the end
+     * of the given range. Each trace depends only on its own events, so one
+     * request is sent to each trace and executed by the trace's own request
+     * executor: the traces are handled in parallel, and the check points of a
+     * trace are available as soon as its request completes.
+     * <p>
+     * The requests read a copy of each trace (see ITmfTrace.copy()): the
+     * traces re-use their event object and position, so they can't be read
+     * at the same time as the experiment reads them.
+     * 
+     * @return true if the requests were sent
+     */
+    @SuppressWarnings("unchecked")
+    private boolean buildCheckPoints(final TmfExperiment<LttngEvent> experiment, final TmfTimeRange range,
+            boolean initial) {
         // validate
         if (experiment == null) {
             TraceDebug.debug("Received experiment is null"); //$NON-NLS-1$
-            return null;
+            return false;
         }
 
         LTTngTreeNode experimentNode = getChildByName(experiment.getName());
         if (experimentNode == null) {
             TraceDebug.debug("Experiment Node " + experiment.getName() + " does not exist"); //$NON-NLS-1$ //$NON-NLS-2$
-            return null;
+            return false;
         }
 
         final boolean waitForCompletion = fwaitForCompletion;
@@ -348,6 +366,9 @@ public class StateExperimentManager extends LTTngTreeNode implements ILttExperim
 
         if (initial) {
             synchronized (this) {
+                for (StateTraceHelper helper : ftraceToManagerMap.values()) {
+                    helper.dispose();
+                }
                 ftraceToManagerMap.clear();
             }
 
@@ -358,17 +379,24 @@ public class StateExperimentManager extends LTTngTreeNode implements ILttExperim
                     traceManager = (IStateTraceManager) traceStateManagerNode;
                 } catch (ClassCastException e) {
                     System.out.println(e.getStackTrace().toString());
-                    return null;
+                    return false;
                 }
 
                 // Clear all previously created check points as preparation to
                 // re-build
                 traceManager.clearCheckPoints();
 
-                // build the trace to manager mapping for event dispatching
+                // build the trace to manager mapping
                 trace = traceManager.getTrace();
+                StateTraceHelper helper;
+                try {
+                    helper = new StateTraceHelper(traceManager);
+                } catch (LttngStateException e) {
+                    TraceDebug.debug("The state of trace " + trace.getName() + " could not be restored: " + e); //$NON-NLS-1$ //$NON-NLS-2$
+                    return false;
+                }
                 synchronized (this) {
-                    ftraceToManagerMap.put(trace, new StateTraceHelper(traceManager));
+                    ftraceToManagerMap.put(trace, helper);
                 }
             }
         }
@@ -376,122 +404,121 @@ public class StateExperimentManager extends LTTngTreeNode implements ILttExperim
         // if no trace mapping
         if (ftraceToManagerMap.size() < 1) {
             TraceDebug.debug("No traces associated to experiment " + experiment.getName()); //$NON-NLS-1$
-            return null;
+            return false;
         }
 
-        fCheckPointNbEventsHandled = 0;
-
-        // Prepare event data request to build state model
-        ITmfEventRequest<LttngEvent> request = new TmfEventRequest<LttngEvent>(LttngEvent.class, range,
-                fCheckPointUpdateIndex, TmfEventRequest.ALL_DATA, LttngConstants.DEFAULT_BLOCK_SIZE,
-                ITmfDataRequest.ExecutionType.BACKGROUND) {
-
-            /*
-             * (non-Javadoc)
-             * 
-             * @see org.eclipse.linuxtools.tmf.request.TmfDataRequest#handleData()
-             */
-            @Override
-            public void handleData(LttngEvent event) {
-                super.handleData(event);
-                if (event != null) {
-//					Tracer.trace("Chk: " + event.getTimestamp());
-                    fCheckPointNbEventsHandled++;
-                    ITmfTrace trace = event.getParentTrace();
-
-                    StateTraceHelper helper = ftraceToManagerMap.get(trace);
-
-                    if (helper != null) {
+        // Prepare one event data request per trace to build its state model,
+        // from the first event not handled yet
+        Map<ITmfTrace, ITmfDataRequest<LttngEvent>> requests = new HashMap<ITmfTrace, ITmfDataRequest<LttngEvent>>();
+        for (final StateTraceHelper helper : ftraceToManagerMap.values()) {
+            ITmfEventRequest<LttngEvent> request = new TmfEventRequest<LttngEvent>(LttngEvent.class, range,
+                    helper.getNumberRead(), TmfEventRequest.ALL_DATA, LttngConstants.DEFAULT_BLOCK_SIZE,
+                    ITmfDataRequest.ExecutionType.BACKGROUND) {
+
+                /*
+                 * (non-Javadoc)
+                 * 
+                 * @see org.eclipse.linuxtools.tmf.request.TmfDataRequest#handleData()
+                 */
+                @Override
+                public void handleData(LttngEvent event) {
+                    super.handleData(event);
+                    if (event != null) {
                         helper.incrementNumberRead();
 
-                        // obtain synthetic event
-                        LttngSyntheticEvent synEvent = updateSynEvent(event, helper.getTraceModel());
-
                         // update state system, and save check points as needed
-                        helper.getStateManager().handleEvent(synEvent, helper.getNumberRead());
-                    } else {
-                        TraceDebug.debug("StateTraceManager not found for trace" //$NON-NLS-1$
-                                + trace.getName());
-                    }
-                }
-            }
-
-            /*
-             * (non-Javadoc)
-             * 
-             * @see org.eclipse.linuxtools.tmf.request.TmfDataRequest#handleCompleted()
-             */
-            @Override
-            public void handleCompleted() {
-                super.handleCompleted();
-                printCompletedMessage();
-
-                if (!waitForCompletion) {
-                    synchronized (fCheckPointUpdateSyncObj) {
-                        fCheckPointUpdateBusy = false;
-                        fCheckPointUpdateIndex += fCheckPointNbEventsHandled;
-                        if (fCheckPointUpdatePending) {
-                            fCheckPointUpdatePending = false;
-                            fCheckPointUpdateBusy = true;
-                            buildCheckPoints(experiment, fCheckPointUpdateRange, false);
+                        try {
+                            helper.getStateManager().handleTraceEvent(event, helper.getNumberRead());
+                        } catch (LttngStateException e) {
+                            // The check points can't be built any further
+                            TraceDebug.debug("Check point building of trace " //$NON-NLS-1$
+                                    + helper.getStateManager().getTrace().getName() + " aborted: " + e); //$NON-NLS-1$
+                            cancel();
                         }
                     }
                 }
-            }
 
-            /*
-             * /**
-             * 
-             * @param header
-             */
-            private void printCompletedMessage() {
-                if (TraceDebug.isDEBUG()) {
-                    TraceDebug
-                            .debug("Trace check point building completed, number of events handled: " + fCheckPointNbEventsHandled + "\n\t\t"); //$NON-NLS-1$ //$NON-NLS-2$
-                    for (StateTraceHelper helper : ftraceToManagerMap.values()) {
-                        TraceDebug.debug(helper.getStateManager().toString() + "\n\t\t"); //$NON-NLS-1$
+                /*
+                 * (non-Javadoc)
+                 * 
+                 * @see org.eclipse.linuxtools.tmf.request.TmfDataRequest#handleCompleted()
+                 */
+                @Override
+                public void handleCompleted() {
+                    super.handleCompleted();
+                    printCompletedMessage(helper);
+
+                    if (!waitForCompletion) {
+                        checkPointRequestCompleted(experiment, this);
                     }
                 }
-            }
-        };
+            };
+            requests.put(helper.getTraceCopy(), request);
+        }
 
-        // Execute event data request
-        experiment.sendRequest(request);
+        synchronized (fCheckPointUpdateSyncObj) {
+            fStateCheckPointRequests.clear();
+            fStateCheckPointRequests.addAll(requests.values());
+        }
+
+        // Execute event data requests, each trace has its own executor
+        for (Map.Entry<ITmfTrace, ITmfDataRequest<LttngEvent>> entry : requests.entrySet()) {
+            ((ITmfDataProvider<LttngEvent>) entry.getKey()).sendRequest(entry.getValue());
+        }
 
         if (waitForCompletion) {
             try {
-                request.waitForCompletion();
-                synchronized (fCheckPointUpdateSyncObj) {
-                    fCheckPointUpdateBusy = false;
-                    fCheckPointUpdateIndex += fCheckPointNbEventsHandled;
-                    if (fCheckPointUpdatePending) {
-                        fCheckPointUpdatePending = false;
-                        fCheckPointUpdateBusy = true;
-                        buildCheckPoints(experiment, fCheckPointUpdateRange, false);
-                    }
+                for (ITmfDataRequest<LttngEvent> request : requests.values()) {
+                    request.waitForCompletion();
+                    checkPointRequestCompleted(experiment, request);
                 }
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
         }
 
-        return request;
+        return true;
     }
 
-    private LttngSyntheticEvent updateSynEvent(LttngEvent e, LttngTraceState stateModel) {
-        if (syntheticEvent == null || syntheticEvent.getBaseEvent() != e) {
-            syntheticEvent = new LttngSyntheticEvent(e);
+    /**
+     * Called when the check point request of a trace completes, the next
+     * update is started when the requests of all the traces are completed.
+     * Cancelled requests that were replaced are ignored.
+     */
+    private void checkPointRequestCompleted(TmfExperiment<LttngEvent> experiment, ITmfDataRequest<LttngEvent> request) {
+        synchronized (fCheckPointUpdateSyncObj) {
+            if (!fStateCheckPointRequests.remove(request) || !fStateCheckPointRequests.isEmpty()) {
+                return;
+            }
+            fCheckPointUpdateBusy = false;
+            if (fCheckPointUpdatePending) {
+                fCheckPointUpdatePending = false;
+                fCheckPointUpdateBusy = true;
+                buildCheckPoints(experiment, fCheckPointUpdateRange, false);
+            }
         }
+    }
 
-        // Trace model needed by application handlers
-        syntheticEvent.setTraceModel(stateModel);
-        syntheticEvent.setSequenceInd(SequenceInd.UPDATE);
+    private void cancelCheckPointRequests() {
+        synchronized (fCheckPointUpdateSyncObj) {
+            for (ITmfDataRequest<LttngEvent> request : fStateCheckPointRequests) {
+                if (!request.isCompleted()) {
+                    request.cancel();
+                }
+            }
+            fStateCheckPointRequests.clear();
+        }
+    }
 
-        return syntheticEvent;
+    private void printCompletedMessage(StateTraceHelper helper) {
+        if (TraceDebug.isDEBUG()) {
+            TraceDebug.debug("Trace check point building completed, number of events handled: " //$NON-NLS-1$
+                    + helper.getNumberRead() + "\n\t\t" + helper.getStateManager().toString() + "\n\t\t"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
     }
 
     /**
-     * Helper class that wraps the StateTraceManager, the current LTTngTraceState and the number of read events
+     * Helper class that wraps the StateTraceManager and the number of read events
      * 
      * @author bHufmann
      * 
@@ -500,19 +527,54 @@ public class StateExperimentManager extends LTTngTreeNode implements ILttExperim
 
         IStateTraceManager stateTraceManager = null;
         long numberEventsRead = 0;
-        LttngTraceState stateTraceModel = null;
+        // The copy of the trace read by the check point requests
+        ITmfTrace traceCopy = null;
 
         /**
          * Constructor
          * 
          * @param stateManager
          *            The StateTraceManager the helper is for
+         * @throws LttngStateException
+         *             if the initial state could not be restored
          */
-        public StateTraceHelper(IStateTraceManager stateManager) {
+        public StateTraceHelper(IStateTraceManager stateManager) throws LttngStateException {
             this.stateTraceManager = stateManager;
             // Get the TraceState at the beginning of the trace
             this.stateTraceManager.restoreCheckPointByTimestamp(stateManager.getTrace().getStartTime());
-            this.stateTraceModel = this.stateTraceManager.getStateModel();
+            this.traceCopy = stateManager.getTrace().copy();
+            if (this.traceCopy == null) {
+                throw new LttngStateException("The trace could not be copied"); //$NON-NLS-1$
+            }
+        }
+
+        /**
+         * Returns the copy of the trace read by the check point requests
+         * 
+         * @return ITmfTrace
+         */
+        public ITmfTrace getTraceCopy() {
+            return traceCopy;
+        }
+
+        /**
+         * Disposes the trace copy. The disposal is queued on the copy's own
+         * (sequential) request executor, so it happens once the request
+         * reading the copy, if any, is done with it.
+         */
+        public void dispose() {
+            final ITmfTrace copy = traceCopy;
+            if (copy instanceof TmfDataProvider<?>) {
+                ((TmfDataProvider<?>) copy).getExecutor().execute(new TmfThread(ExecutionType.BACKGROUND) {
+                    @Override
+                    public void run() {
+                        copy.dispose();
+                    }
+                });
+            } else if (copy != null) {
+                copy.dispose();
+            }
+            traceCopy = null;
         }
 
         /**
@@ -539,14 +601,5 @@ public class StateExperimentManager extends LTTngTreeNode implements ILttExperim
         public void incrementNumberRead() {
             ++numberEventsRead;
         }
-
-        /**
-         * Returns the current LTTngTraceState
-         * 
-         * @return LttngTraceState
-         */
-        public LttngTraceState getTraceModel() {
-            return stateTraceModel;
-        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.linuxtools.lttng.state.model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * <b><u>AbsStateEntity</u></b>
+ * <p>
+ * Base class of the entries of the trace state tables (processes, cpu, irq,
+ * softirq, trap and bdev states). An entry notifies the trace state that
+ * contains it of its first modification since the last check point, so that
+ * a check point only saves the modified entries.
+ * <p>
+ * Every method that modifies the entry must call changed().
+ */
+abstract class AbsStateEntity implements Cloneable {
+	// ========================================================================
+	// Data
+	// =======================================================================
+	// The trace state that contains the entry (null if none)
+	LttngTraceState fOwner = null;
+
+	// The entry was modified since the last check point
+	boolean fChanged = false;
+
+	// ========================================================================
+	// Methods
+	// =======================================================================
+	/**
+	 * A clone is not contained in any trace state
+	 */
+	@Override
+	protected Object clone() throws CloneNotSupportedException {
+		AbsStateEntity newEntity = (AbsStateEntity) super.clone();
+		newEntity.fOwner = null;
+		newEntity.fChanged = false;
+		return newEntity;
+	}
+
+	/**
+	 * Notifies the owner trace state of a modification
+	 */
+	void changed() {
+		if (!fChanged && fOwner != null) {
+			fChanged = true;
+			fOwner.entityChanged(this);
+		}
+	}
+
+	/**
+	 * Writes the entry to a stream
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	abstract void write(DataOutputStream out) throws IOException;
+}
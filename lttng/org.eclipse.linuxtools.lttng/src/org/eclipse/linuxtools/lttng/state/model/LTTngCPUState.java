@@ -11,6 +11,9 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.state.model;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Stack;
 
 import org.eclipse.linuxtools.lttng.state.StateStrings;
@@ -21,7 +24,7 @@ import org.eclipse.linuxtools.lttng.state.StateStrings.CpuMode;
  * <p>
  * 
  */
-public class LTTngCPUState implements Cloneable {
+public class LTTngCPUState extends AbsStateEntity implements Cloneable {
 	// ========================================================================
 	// Data
 	// =======================================================================
@@ -68,9 +71,40 @@ public class LTTngCPUState implements Cloneable {
 		return newState;
 	}
 
+	/**
+	 * Writes the state to a stream
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	@Override
+	void write(DataOutputStream out) throws IOException {
+		StateStreams.writeEnumStack(out, mode_stack);
+		StateStreams.writeLongStack(out, irq_stack);
+		StateStreams.writeLongStack(out, softirq_stack);
+		StateStreams.writeLongStack(out, trap_stack);
+	}
+
+	/**
+	 * Reads a state written by write()
+	 *
+	 * @param in
+	 * @return the state
+	 * @throws IOException
+	 */
+	static LTTngCPUState read(DataInputStream in) throws IOException {
+		LTTngCPUState state = new LTTngCPUState();
+		state.mode_stack = StateStreams.readEnumStack(in, StateStrings.CpuMode.class);
+		state.irq_stack = StateStreams.readLongStack(in);
+		state.softirq_stack = StateStreams.readLongStack(in);
+		state.trap_stack = StateStreams.readLongStack(in);
+		return state;
+	}
+
 	// ========================================================================
 	// Methods
 	public void clearAndSetBaseToCpuStack(StateStrings.CpuMode newCpuMode) {
+		changed();
 		mode_stack.clear();
 		irq_stack.clear();
 		softirq_stack.clear();
@@ -85,23 +119,28 @@ public class LTTngCPUState implements Cloneable {
 
 	// Push to stacks
 	public void pushToCpuStack(StateStrings.CpuMode newCpuMode) {
+		changed();
 		mode_stack.push(newCpuMode);
 	}
 
 	public void pushToIrqStack(Long irqID) {
+		changed();
 		irq_stack.push(irqID);
 	}
 
 	public void pushToSoftIrqStack(Long softIrqID) {
+		changed();
 		softirq_stack.push(softIrqID);
 	}
 
 	public void pushToTrapStack(Long trapID) {
+		changed();
 		trap_stack.push(trapID);
 	}
 
 	// Pop from stacks
 	public StateStrings.CpuMode popFromCpuStack() {
+		changed();
 
 		StateStrings.CpuMode returnedMode = mode_stack.pop();
 
@@ -115,6 +154,7 @@ public class LTTngCPUState implements Cloneable {
 	}
 
 	public Long popFromIrqStack() {
+		changed();
 		Long irq = irq_stack.pop();
 
 		if (irq_stack.size() < 1) {
@@ -125,6 +165,7 @@ public class LTTngCPUState implements Cloneable {
 	}
 
 	public Long popFromSoftIrqStack() {
+		changed();
 		Long softirq = softirq_stack.pop();
 
 		if (softirq_stack.size() < 1) {
@@ -135,6 +176,7 @@ public class LTTngCPUState implements Cloneable {
 	}
 
 	public Long popFromTrapStack() {
+		changed();
 		Long trap = trap_stack.pop();
 
 		if (trap_stack.size() < 1) {
@@ -163,6 +205,7 @@ public class LTTngCPUState implements Cloneable {
 	
 
 	public void reset() {
+		changed();
 		mode_stack.clear();
 		irq_stack.clear();
 		softirq_stack.clear();
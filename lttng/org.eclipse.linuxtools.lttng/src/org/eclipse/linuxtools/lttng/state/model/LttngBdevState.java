@@ -11,6 +11,9 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.state.model;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Stack;
 
 import org.eclipse.linuxtools.lttng.TraceDebug;
@@ -21,7 +24,7 @@ import org.eclipse.linuxtools.lttng.state.StateStrings.BdevMode;
  * <p>
  *
  */
-public class LttngBdevState implements Cloneable {
+public class LttngBdevState extends AbsStateEntity implements Cloneable {
     // ========================================================================
 	// Data
     // =======================================================================
@@ -39,20 +42,24 @@ public class LttngBdevState implements Cloneable {
 	// Methods
 	// =======================================================================
 	public void clearBdevStack() {
+        changed();
         mode_stack.clear();
     }
 	
 	public void clearAndSetBaseToBdevStack(BdevMode newState) {
+        changed();
         mode_stack.clear();
         // Ensure that there is always at least 1 item in the stack
         mode_stack.push(newState);
     }
     
     public void pushToBdevStack(BdevMode newState) {
+        changed();
         mode_stack.push(newState);
     }
     
     public BdevMode popFromBdevStack() {
+       changed();
         
        BdevMode returnedMode = mode_stack.pop();
         
@@ -85,5 +92,29 @@ public class LttngBdevState implements Cloneable {
 	    
 	    return newState;
 	}
+
+	/**
+	 * Writes the state to a stream
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	@Override
+	void write(DataOutputStream out) throws IOException {
+		StateStreams.writeEnumStack(out, mode_stack);
+	}
+
+	/**
+	 * Reads a state written by write()
+	 *
+	 * @param in
+	 * @return the state
+	 * @throws IOException
+	 */
+	static LttngBdevState read(DataInputStream in) throws IOException {
+		LttngBdevState state = new LttngBdevState();
+		state.mode_stack = StateStreams.readEnumStack(in, BdevMode.class);
+		return state;
+	}
 	
 }
\ No newline at end of file
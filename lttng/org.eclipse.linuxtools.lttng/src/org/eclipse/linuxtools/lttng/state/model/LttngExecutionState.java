@@ -11,6 +11,10 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.state.model;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 import org.eclipse.linuxtools.lttng.LttngConstants;
 import org.eclipse.linuxtools.lttng.state.StateStrings;
 
@@ -35,6 +39,10 @@ public class LttngExecutionState implements Cloneable {
     // as well as a bit mask is applied! 
 	private int exec_submode_id = Integer.valueOf(StateStrings.ExecutionSubMode.LTTV_STATE_SUBMODE_UNKNOWN.ordinal() | LttngConstants.STATS_NONE_ID);
 
+	// The process whose execution stack contains this state, notified of
+	// its modifications
+	LttngProcessState fProcess = null;
+
     @Override
 	public LttngExecutionState clone() {
 	    LttngExecutionState newState = null;
@@ -55,6 +63,9 @@ public class LttngExecutionState implements Cloneable {
             newState.exec_mode = this.exec_mode;
             newState.entry_LttTime = this.entry_LttTime;
             newState.change_LttTime = this.change_LttTime;
+
+            // The clone is not in any execution stack yet
+            newState.fProcess = null;
         }
         catch ( CloneNotSupportedException e ) {
             System.out.println("Cloning failed with : " + e.getMessage() ); //$NON-NLS-1$
@@ -62,10 +73,51 @@ public class LttngExecutionState implements Cloneable {
         
         return newState;
     }
+
+	/**
+	 * Writes the state to a stream
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	void write(DataOutputStream out) throws IOException {
+		StateStreams.writeLong(out, entry_LttTime);
+		StateStreams.writeLong(out, change_LttTime);
+		StateStreams.writeLong(out, cum_cpu_time_Timens);
+		StateStreams.writeEnum(out, proc_status);
+		StateStreams.writeEnum(out, exec_mode);
+		StateStreams.writeString(out, exec_submode);
+		out.writeInt(exec_submode_id);
+	}
+
+	/**
+	 * Reads a state written by write()
+	 *
+	 * @param in
+	 * @return the state
+	 * @throws IOException
+	 */
+	static LttngExecutionState read(DataInputStream in) throws IOException {
+		LttngExecutionState state = new LttngExecutionState();
+		state.entry_LttTime = StateStreams.readLong(in);
+		state.change_LttTime = StateStreams.readLong(in);
+		state.cum_cpu_time_Timens = StateStreams.readLong(in);
+		state.proc_status = StateStreams.readEnum(in, StateStrings.ProcessStatus.class);
+		state.exec_mode = StateStreams.readEnum(in, StateStrings.ExecutionMode.class);
+		state.exec_submode = StateStreams.readString(in);
+		state.exec_submode_id = in.readInt();
+		return state;
+	}
 	
 	// ========================================================================
 	// Methods
 	// =======================================================================
+	private void changed() {
+		if (fProcess != null) {
+			fProcess.changed();
+		}
+	}
+
 	/**
 	 * @return the entry_LttTime
 	 */
@@ -78,6 +130,7 @@ public class LttngExecutionState implements Cloneable {
 	 *            the entry_LttTime to set
 	 */
 	public void setEntry_Time(Long entryLttTime) {
+		changed();
 		entry_LttTime = entryLttTime;
 	}
 
@@ -93,6 +146,7 @@ public class LttngExecutionState implements Cloneable {
 	 *            the change_LttTime to set
 	 */
 	public void setChange_Time(Long changeLttTime) {
+		changed();
 		change_LttTime = changeLttTime;
 	}
 
@@ -108,6 +162,7 @@ public class LttngExecutionState implements Cloneable {
 	 *            the cum_cpu_time_LttTime to set
 	 */
 	public void setCum_cpu_time(Long cumCpuTime) {
+		changed();
 		cum_cpu_time_Timens = cumCpuTime;
 	}
 
@@ -123,6 +178,7 @@ public class LttngExecutionState implements Cloneable {
 	 *            the proc_status to set
 	 */
 	public void setProc_status(StateStrings.ProcessStatus procStatus) {
+		changed();
 		proc_status = procStatus;
 	}
 
@@ -138,6 +194,7 @@ public class LttngExecutionState implements Cloneable {
 	 *            the exec_mode to set
 	 */
 	public void setExec_mode(StateStrings.ExecutionMode execMode) {
+		changed();
 		exec_mode = execMode;
 	}
 
@@ -153,6 +210,7 @@ public class LttngExecutionState implements Cloneable {
 	 *            the exec_submode to set
 	 */
     public void setExec_submode(String execSubmode) {
+        changed();
         exec_submode = execSubmode;
     }
 	
@@ -168,6 +226,7 @@ public class LttngExecutionState implements Cloneable {
      *            the exec_submode id to set
      */
     public void setExec_submode_id(int execSubmodeId) {
+        changed();
         exec_submode_id = execSubmodeId;
     }
 
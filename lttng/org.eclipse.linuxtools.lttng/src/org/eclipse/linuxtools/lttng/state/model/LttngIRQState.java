@@ -11,6 +11,9 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.state.model;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Stack;
 
 import org.eclipse.linuxtools.lttng.state.StateStrings;
@@ -21,7 +24,7 @@ import org.eclipse.linuxtools.lttng.state.StateStrings.IRQMode;
  * @author alvaro
  *
  */
-public class LttngIRQState implements Cloneable {
+public class LttngIRQState extends AbsStateEntity implements Cloneable {
     // ========================================================================
 	// Data
     // =======================================================================
@@ -51,25 +54,53 @@ public class LttngIRQState implements Cloneable {
         
         return newState;
     }
+
+	/**
+	 * Writes the state to a stream
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	@Override
+	void write(DataOutputStream out) throws IOException {
+		StateStreams.writeEnumStack(out, mode_stack);
+	}
+
+	/**
+	 * Reads a state written by write()
+	 *
+	 * @param in
+	 * @return the state
+	 * @throws IOException
+	 */
+	static LttngIRQState read(DataInputStream in) throws IOException {
+		LttngIRQState state = new LttngIRQState();
+		state.mode_stack = StateStreams.readEnumStack(in, StateStrings.IRQMode.class);
+		return state;
+	}
 	
     // ========================================================================
     // Methods
     // =======================================================================
 	public void clearIrqStack() {
+        changed();
         mode_stack.clear();
     }
     
     public void clearAndSetBaseToIrqStack(StateStrings.IRQMode newState) {
+        changed();
         mode_stack.clear();
         // Ensure that there is always at least 1 item in the stack
         mode_stack.push(newState);
     }
     
     public void pushToIrqStack(StateStrings.IRQMode newState) {
+        changed();
         mode_stack.push(newState);
     }
     
     public StateStrings.IRQMode popFromIrqStack() {
+        changed();
         
         StateStrings.IRQMode returnedMode = mode_stack.pop();
        if (mode_stack.size() < 1) {
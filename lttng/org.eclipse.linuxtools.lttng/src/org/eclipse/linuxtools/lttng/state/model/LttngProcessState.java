@@ -11,6 +11,9 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.state.model;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Stack;
 
 import org.eclipse.linuxtools.lttng.LttngConstants;
@@ -26,7 +29,7 @@ import org.eclipse.linuxtools.lttng.state.StateStrings.ProcessStatus;
  * @author alvaro
  * 
  */
-public class LttngProcessState implements Cloneable {
+public class LttngProcessState extends AbsStateEntity implements Cloneable {
 	// ========================================================================
 	// Data
 	// =======================================================================
@@ -115,6 +118,9 @@ public class LttngProcessState implements Cloneable {
 		
 		// point state to the top of the stack
 		this.state = es;
+		for (LttngExecutionState stackState : execution_stack) {
+			stackState.fProcess = this;
+		}
 	}
 	
 	@Override
@@ -147,6 +153,7 @@ public class LttngProcessState implements Cloneable {
             
             // Call clone on our own object is safe as Long it implements Clonable
             newState.state = (LttngExecutionState)this.state.clone();
+            newState.state.fProcess = newState;
             
             // Clone should work correctly for all stack object that contain basic java object (String, Long, etc...)
             newState.user_stack = (Stack<Long>)this.user_stack.clone();
@@ -165,6 +172,7 @@ public class LttngProcessState implements Cloneable {
                 tmpStack.push(this.execution_stack.peek());
                 // Push a CLONED copy into the new stack while poping it from the original stack
                 newState.execution_stack.push( this.execution_stack.pop().clone() );
+                newState.execution_stack.peek().fProcess = newState;
             }
             
             // Second, we reinsert back our content into the original stack
@@ -179,6 +187,98 @@ public class LttngProcessState implements Cloneable {
         
         return newState;
     }
+
+	/**
+	 * Writes the state to a stream
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	@Override
+	void write(DataOutputStream out) throws IOException {
+		StateStreams.writeLong(out, cpu);
+		StateStreams.writeLong(out, pid);
+		StateStreams.writeLong(out, tgid);
+		StateStreams.writeString(out, name);
+		StateStreams.writeLong(out, creation_time);
+		StateStreams.writeString(out, brand);
+		StateStreams.writeEnum(out, type);
+		StateStreams.writeLong(out, current_function);
+		StateStreams.writeLong(out, ppid);
+		StateStreams.writeLong(out, insertion_time);
+		StateStreams.writeString(out, pid_time);
+		StateStreams.writeLong(out, free_events);
+		StateStreams.writeString(out, userTrace);
+		StateStreams.writeLong(out, target_pid);
+		StateStreams.writeString(out, trace_id);
+
+		// The execution stack, and the position of the current state in it
+		// (-1 when it is not in the stack, it is then written after it)
+		out.writeInt(execution_stack.size());
+		for (LttngExecutionState es : execution_stack) {
+			es.write(out);
+		}
+		int statePosition = -1;
+		for (int i = execution_stack.size() - 1; i >= 0 && statePosition < 0; i--) {
+			if (execution_stack.get(i) == state) {
+				statePosition = i;
+			}
+		}
+		out.writeInt(statePosition);
+		if (statePosition < 0) {
+			out.writeBoolean(state != null);
+			if (state != null) {
+				state.write(out);
+			}
+		}
+		StateStreams.writeLongStack(out, user_stack);
+	}
+
+	/**
+	 * Reads a state written by write()
+	 *
+	 * @param in
+	 * @return the state
+	 * @throws IOException
+	 */
+	static LttngProcessState read(DataInputStream in) throws IOException {
+		LttngProcessState process = new LttngProcessState(null, null);
+		process.cpu = StateStreams.readLong(in);
+		process.pid = StateStreams.readLong(in);
+		process.tgid = StateStreams.readLong(in);
+		process.name = StateStreams.readString(in);
+		process.creation_time = StateStreams.readLong(in);
+		process.brand = StateStreams.readString(in);
+		process.type = StateStreams.readEnum(in, StateStrings.ProcessType.class);
+		process.current_function = StateStreams.readLong(in);
+		process.ppid = StateStreams.readLong(in);
+		process.insertion_time = StateStreams.readLong(in);
+		process.pid_time = StateStreams.readString(in);
+		process.free_events = StateStreams.readLong(in);
+		process.userTrace = StateStreams.readString(in);
+		process.target_pid = StateStreams.readLong(in);
+		process.trace_id = StateStreams.readString(in);
+
+		int size = in.readInt();
+		process.execution_stack = new Stack<LttngExecutionState>();
+		for (int i = 0; i < size; i++) {
+			process.execution_stack.push(LttngExecutionState.read(in));
+		}
+		int statePosition = in.readInt();
+		if (statePosition >= 0) {
+			process.state = process.execution_stack.get(statePosition);
+		} else {
+			process.state = in.readBoolean() ? LttngExecutionState.read(in) : null;
+		}
+		for (LttngExecutionState es : process.execution_stack) {
+			es.fProcess = process;
+		}
+		if (process.state != null) {
+			process.state.fProcess = process;
+		}
+		process.user_stack = StateStreams.readLongStack(in);
+		return process;
+	}
 	
 	
 	// ========================================================================
@@ -196,6 +296,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the pid to set
 	 */
 	public void setPid(Long pid) {
+		changed();
 		this.pid = pid;
 	}
 
@@ -211,6 +312,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the tgid to set
 	 */
 	public void setTgid(Long tgid) {
+		changed();
 		this.tgid = tgid;
 	}
 
@@ -226,6 +328,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the ppid to set
 	 */
 	public void setPpid(Long ppid) {
+		changed();
 		this.ppid = ppid;
 	}
 
@@ -239,6 +342,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the ppid to set
 	 */
 	public void setPpid(Long ppid, Long creationTime) {
+		changed();
 		if (ppid != null) {
 			this.ppid = ppid;
 		}
@@ -260,6 +364,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the creation_time to set
 	 */
 	public void setCreation_time(Long creationTime) {
+		changed();
 		if ( (creationTime != null) && (pid != null) ) {
 			creation_time = creationTime;
 			StringBuilder sb = new StringBuilder(this.pid.toString() + "-" //$NON-NLS-1$
@@ -280,6 +385,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the insertion_time to set
 	 */
 	public void setInsertion_time(Long insertionTime) {
+		changed();
 		insertion_time = insertionTime;
 	}
 
@@ -295,6 +401,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the name to set
 	 */
 	public void setName(String name) {
+		changed();
 		this.name = name;
 	}
 
@@ -310,6 +417,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the brand to set
 	 */
 	public void setBrand(String brand) {
+		changed();
 		this.brand = brand;
 	}
 
@@ -332,6 +440,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the cpu to set
 	 */
 	public void setCpu(Long cpu) {
+		changed();
 		this.cpu = cpu;
 	}
 
@@ -347,6 +456,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the current_function to set
 	 */
 	public void setCurrent_function(Long currentFunction) {
+		changed();
 		current_function = currentFunction;
 	}
 
@@ -362,6 +472,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the target_pid to set
 	 */
 	public void setTarget_pid(Long targetPid) {
+		changed();
 		target_pid = targetPid;
 	}
 	
@@ -370,6 +481,7 @@ public class LttngProcessState implements Cloneable {
 	}
 
 	public void setTrace_id(String traceId) {
+		changed();
 		trace_id = traceId;
 	}
 	
@@ -385,6 +497,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the free_events to set
 	 */
 	public void setFree_events(Long freeEvents) {
+		changed();
 		free_events = freeEvents;
 	}
 	
@@ -392,6 +505,7 @@ public class LttngProcessState implements Cloneable {
 	 * increment the nuber of free events
 	 */
 	public void incrementFree_events() {
+		changed();
 		++free_events;
 	}
 
@@ -407,6 +521,10 @@ public class LttngProcessState implements Cloneable {
 	 *            the state to set
 	 */
 	public void setState(LttngExecutionState state) {
+		changed();
+		if (state != null) {
+			state.fProcess = this;
+		}
 		this.state = state;
 	}
 
@@ -422,6 +540,7 @@ public class LttngProcessState implements Cloneable {
 	 *            the type to set
 	 */
 	public void setType(StateStrings.ProcessType type) {
+		changed();
 		this.type = type;
 	}
 
@@ -437,19 +556,23 @@ public class LttngProcessState implements Cloneable {
 	 *            the userTrace to set
 	 */
 	public void setUserTrace(String userTrace) {
+		changed();
 		this.userTrace = userTrace;
 	}
 	
 	
 	public void clearUserStack() {
+	    changed();
 	    user_stack.clear();
 	}
 	
 	public void pushToUserStack(Long newState) {
+	    changed();
 	    user_stack.push(newState);
 	}
 	
 	public Long popFromUserStack() {
+       changed();
        if (user_stack.size() <= 1) {
             TraceDebug.debug("Removing last item from user stack is not allowed! (popFromUserStack)"); //$NON-NLS-1$
             return null;
@@ -466,15 +589,19 @@ public class LttngProcessState implements Cloneable {
 	
 	
 	public void clearExecutionStack() {
+        changed();
         execution_stack.clear();
     }
     
     public void pushToExecutionStack(LttngExecutionState newState) {
+        changed();
+        newState.fProcess = this;
         execution_stack.push(newState);
 		setState(newState);
     }
     
     public LttngExecutionState popFromExecutionStack() {
+       changed();
        if (execution_stack.size() <= 1) {
     	   TraceDebug.debug("Removing last item from execution stack is not allowed! (popFromExecutionStack)"); //$NON-NLS-1$
             return null;
@@ -11,13 +11,17 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.state.model;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * <b>LttvSoftIRQState</b>
  * 
  * @author alvaro
  * 
  */
-public class LttngSoftIRQState implements Cloneable {
+public class LttngSoftIRQState extends AbsStateEntity implements Cloneable {
 
 	// ========================================================================
 	// Data
@@ -54,6 +58,32 @@ public class LttngSoftIRQState implements Cloneable {
         return newState;
     }
 
+	/**
+	 * Writes the state to a stream
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	@Override
+	void write(DataOutputStream out) throws IOException {
+		StateStreams.writeLong(out, pending);
+		StateStreams.writeLong(out, running);
+	}
+
+	/**
+	 * Reads a state written by write()
+	 *
+	 * @param in
+	 * @return the state
+	 * @throws IOException
+	 */
+	static LttngSoftIRQState read(DataInputStream in) throws IOException {
+		LttngSoftIRQState state = new LttngSoftIRQState();
+		state.pending = StateStreams.readLong(in);
+		state.running = StateStreams.readLong(in);
+		return state;
+	}
+
 	// ========================================================================
 	// Methods
 	// =======================================================================
@@ -62,6 +92,7 @@ public class LttngSoftIRQState implements Cloneable {
 	 *            the pending to set
 	 */
 	public void setPending(Long pending) {
+		changed();
 		this.pending = pending;
 	}
 
@@ -77,6 +108,7 @@ public class LttngSoftIRQState implements Cloneable {
 	 *            the running to set
 	 */
 	public void setRunning(Long running) {
+		changed();
 		this.running = running;
 	}
 
@@ -88,25 +120,30 @@ public class LttngSoftIRQState implements Cloneable {
 	}
 
 	public void reset() {
+		changed();
 		pending = 0L;
 		running = 0L;
 	}
 	
 	public void incrementRunning() {
+		changed();
 		running ++;
 	}
 	
 	public void incrementPending() {
+		changed();
 		pending ++;
 	}
 	
 	public void decrementRunning() {
+		changed();
 		if (running > 0L) {
 			running--;
 		}
 	}
 	
 	public void decrementPending() {
+		changed();
 		if (pending > 0L) {
 			pending--;
 		}
@@ -11,9 +11,20 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.state.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.linuxtools.lttng.LttngConstants;
 import org.eclipse.linuxtools.lttng.TraceDebug;
@@ -39,23 +50,42 @@ public class LttngTraceState implements Cloneable {
 	// ========================================================================
 	// Data
 	// =======================================================================
+	// State attribute names, see getAttributeValues()
+	private static final String TRACE_ATTRIBUTE = "trace"; //$NON-NLS-1$
+	private static final String PROCESS_ATTRIBUTE = "process/"; //$NON-NLS-1$
+	private static final String RUNNING_ATTRIBUTE = "running/"; //$NON-NLS-1$
+	private static final String CPU_ATTRIBUTE = "cpu/"; //$NON-NLS-1$
+	private static final String IRQ_ATTRIBUTE = "irq/"; //$NON-NLS-1$
+	private static final String SOFT_IRQ_ATTRIBUTE = "softirq/"; //$NON-NLS-1$
+	private static final String TRAP_ATTRIBUTE = "trap/"; //$NON-NLS-1$
+	private static final String BDEV_ATTRIBUTE = "bdev/"; //$NON-NLS-1$
     
 	private Long save_interval = null;
 
 	private Long max_time_state_recomputed_in_seek = null;
 	private boolean has_precomputed_states = false;
 
-	private HashMap<ProcessStateKey, LttngProcessState> processes = new HashMap<ProcessStateKey, LttngProcessState>();
+	// The state tables track their entries, see createTables()
+	private HashMap<ProcessStateKey, LttngProcessState> processes;
 
 	// by cpu
-	private Map<Long, LttngProcessState> running_process = new HashMap<Long, LttngProcessState>();
+	private Map<Long, LttngProcessState> running_process;
 
 	// Get state tables
-	private Map<Long, LTTngCPUState> cpu_states = new HashMap<Long, LTTngCPUState>();
-	private Map<Long, LttngIRQState> irq_states = new HashMap<Long, LttngIRQState>();
-	private Map<Long, LttngSoftIRQState> soft_irq_states = new HashMap<Long, LttngSoftIRQState>();
-	private Map<Long, LttngTrapState> trap_states = new HashMap<Long, LttngTrapState>();
-	private Map<Long, LttngBdevState> bdev_states = new HashMap<Long, LttngBdevState>();
+	private Map<Long, LTTngCPUState> cpu_states;
+	private Map<Long, LttngIRQState> irq_states;
+	private Map<Long, LttngSoftIRQState> soft_irq_states;
+	private Map<Long, LttngTrapState> trap_states;
+	private Map<Long, LttngBdevState> bdev_states;
+
+	// The entry of each state table attribute, and the attributes of each
+	// entry (a process can also be a running process)
+	private Map<String, AbsStateEntity> fAttributeEntities;
+	private IdentityHashMap<AbsStateEntity, List<String>> fEntityAttributes;
+
+	// The entries and attributes modified since the last check point
+	private List<AbsStateEntity> fChangedEntities;
+	private Set<String> fChangedAttributes;
 
 	// Get name tables
 	private Map<Long, String> syscall_names = new HashMap<Long, String>();
@@ -74,6 +104,8 @@ public class LttngTraceState implements Cloneable {
 	// Constructor
 	// =======================================================================
 	LttngTraceState() {
+		createTables();
+
 		// Get name tables
 		StateStrings strings = StateStrings.getInstance();
 
@@ -146,21 +178,19 @@ public class LttngTraceState implements Cloneable {
 			Long mapKey = null;
 			ProcessStateKey processKey = null;
 			
-			newState.processes = new HashMap<ProcessStateKey, LttngProcessState>();
+			newState.createTables();
 			iteratorP = this.processes.keySet().iterator();
 			while (iteratorP.hasNext()) {
 				processKey = iteratorP.next();
 				newState.processes.put(processKey, this.processes.get(processKey).clone());
 			}
 
-			newState.running_process = new HashMap<Long, LttngProcessState>();
 			iteratorL = this.running_process.keySet().iterator();
 			while (iteratorL.hasNext()) {
 				mapKey = iteratorL.next();
 				newState.running_process.put(mapKey, this.running_process.get(mapKey).clone());
 			}
 
-			newState.cpu_states = new HashMap<Long, LTTngCPUState>();
 			iteratorL = this.cpu_states.keySet().iterator();
 			while (iteratorL.hasNext()) {
 				mapKey = iteratorL.next();
@@ -168,7 +198,6 @@ public class LttngTraceState implements Cloneable {
 						.clone());
 			}
 
-			newState.irq_states = new HashMap<Long, LttngIRQState>();
 			iteratorL = this.irq_states.keySet().iterator();
 			while (iteratorL.hasNext()) {
 				mapKey = iteratorL.next();
@@ -176,7 +205,6 @@ public class LttngTraceState implements Cloneable {
 						.clone());
 			}
 
-			newState.soft_irq_states = new HashMap<Long, LttngSoftIRQState>();
 			iteratorL = this.soft_irq_states.keySet().iterator();
 			while (iteratorL.hasNext()) {
 				mapKey = iteratorL.next();
@@ -184,7 +212,6 @@ public class LttngTraceState implements Cloneable {
 						mapKey).clone());
 			}
 
-			newState.trap_states = new HashMap<Long, LttngTrapState>();
 			iteratorL = this.trap_states.keySet().iterator();
 			while (iteratorL.hasNext()) {
 				mapKey = iteratorL.next();
@@ -192,7 +219,6 @@ public class LttngTraceState implements Cloneable {
 						.clone());
 			}
 
-			newState.bdev_states = new HashMap<Long, LttngBdevState>();
 			iteratorL = this.bdev_states.keySet().iterator();
 			while (iteratorL.hasNext()) {
 				mapKey = iteratorL.next();
@@ -207,6 +233,189 @@ public class LttngTraceState implements Cloneable {
 		return newState;
 	}
 
+	/**
+	 * Returns the state as a set of attributes (e.g. to store it in a state
+	 * history): the value of each process, running process, cpu, irq,
+	 * softirq, trap and bdev state, and of the trace scalars, is written to
+	 * its own byte array.
+	 * <p>
+	 * The name tables are not included.
+	 * 
+	 * @return the value of each state attribute
+	 */
+	public Map<String, byte[]> getAttributeValues() {
+		Set<String> attributes = new HashSet<String>(fAttributeEntities.keySet());
+		attributes.add(TRACE_ATTRIBUTE);
+		return getValues(attributes);
+	}
+
+	/**
+	 * Returns the attributes modified since the last call to
+	 * changedAttributesSaved() (or since the state was created), see
+	 * getAttributeValues(). The value of a removed attribute is null.
+	 * <p>
+	 * Only the modified entries of the state tables are written, so that
+	 * saving a check point costs in proportion to the changes since the
+	 * previous one.
+	 * 
+	 * @return the value of each modified state attribute
+	 */
+	public Map<String, byte[]> getChangedAttributeValues() {
+		for (AbsStateEntity entity : fChangedEntities) {
+			entity.fChanged = false;
+			List<String> attributes = fEntityAttributes.get(entity);
+			if (attributes != null) {
+				fChangedAttributes.addAll(attributes);
+			}
+		}
+		fChangedEntities.clear();
+
+		return getValues(fChangedAttributes);
+	}
+
+	/**
+	 * Marks the attributes returned by getChangedAttributeValues() as saved.
+	 * Until then, they are returned again by the next call (e.g. when the
+	 * check point could not be written).
+	 */
+	public void changedAttributesSaved() {
+		fChangedAttributes.clear();
+	}
+
+	/*
+	 * Writes the values of a set of attributes, null for the attributes not
+	 * set
+	 */
+	private Map<String, byte[]> getValues(Set<String> attributes) {
+		Map<String, byte[]> values = new HashMap<String, byte[]>();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		try {
+			for (String attribute : attributes) {
+				if (attribute.equals(TRACE_ATTRIBUTE)) {
+					StateStreams.writeLong(out, save_interval);
+					StateStreams.writeLong(out, max_time_state_recomputed_in_seek);
+					out.writeBoolean(has_precomputed_states);
+					out.writeInt(nb_events);
+				} else {
+					AbsStateEntity entity = fAttributeEntities.get(attribute);
+					if (entity == null) {
+						values.put(attribute, null);
+						continue;
+					}
+					entity.write(out);
+				}
+				out.flush();
+				values.put(attribute, bytes.toByteArray());
+				bytes.reset();
+			}
+		} catch (IOException e) {
+			System.out.println("Writing state failed with : " + e.getMessage()); //$NON-NLS-1$
+		}
+
+		return values;
+	}
+
+	/*
+	 * Called by an entry of the state tables on its first modification since
+	 * the last check point
+	 */
+	void entityChanged(AbsStateEntity entity) {
+		fChangedEntities.add(entity);
+	}
+
+	/**
+	 * Creates a state from attribute values returned by getAttributeValues().
+	 * The new state shares the name tables and context of this state, as a
+	 * clone would.
+	 * <p>
+	 * A running process that is also in the process table is restored as the
+	 * same object.
+	 * 
+	 * @param values
+	 *            the value of each state attribute
+	 * @return the restored state
+	 */
+	public LttngTraceState restore(Map<String, byte[]> values) {
+		LttngTraceState newState = null;
+		Map<String, byte[]> runningValues = new HashMap<String, byte[]>();
+
+		try {
+			// The scalars, name tables and context are copied by the
+			// shallow clone, the state tables are restored below
+			newState = (LttngTraceState) super.clone();
+			newState.createTables();
+
+			for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+				String attribute = entry.getKey();
+				DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.getValue()));
+				if (attribute.equals(TRACE_ATTRIBUTE)) {
+					newState.save_interval = StateStreams.readLong(in);
+					newState.max_time_state_recomputed_in_seek = StateStreams.readLong(in);
+					newState.has_precomputed_states = in.readBoolean();
+					newState.nb_events = in.readInt();
+				} else if (attribute.startsWith(PROCESS_ATTRIBUTE)) {
+					newState.addProcessState(LttngProcessState.read(in));
+				} else if (attribute.startsWith(RUNNING_ATTRIBUTE)) {
+					runningValues.put(attribute, entry.getValue());
+				} else if (attribute.startsWith(CPU_ATTRIBUTE)) {
+					newState.cpu_states.put(getKey(attribute, CPU_ATTRIBUTE), LTTngCPUState.read(in));
+				} else if (attribute.startsWith(IRQ_ATTRIBUTE)) {
+					newState.irq_states.put(getKey(attribute, IRQ_ATTRIBUTE), LttngIRQState.read(in));
+				} else if (attribute.startsWith(SOFT_IRQ_ATTRIBUTE)) {
+					newState.soft_irq_states.put(getKey(attribute, SOFT_IRQ_ATTRIBUTE), LttngSoftIRQState.read(in));
+				} else if (attribute.startsWith(TRAP_ATTRIBUTE)) {
+					newState.trap_states.put(getKey(attribute, TRAP_ATTRIBUTE), LttngTrapState.read(in));
+				} else if (attribute.startsWith(BDEV_ATTRIBUTE)) {
+					newState.bdev_states.put(getKey(attribute, BDEV_ATTRIBUTE), LttngBdevState.read(in));
+				}
+			}
+
+			// The running processes, once the process table is restored
+			for (Map.Entry<String, byte[]> entry : runningValues.entrySet()) {
+				LttngProcessState process = LttngProcessState.read(new DataInputStream(new ByteArrayInputStream(entry
+						.getValue())));
+				LttngProcessState tableProcess = newState.processes.get(new ProcessStateKey(process));
+				if (tableProcess != null && Arrays.equals(entry.getValue(), values.get(PROCESS_ATTRIBUTE
+						+ new ProcessStateKey(process).toAttribute()))) {
+					process = tableProcess;
+				}
+				newState.running_process.put(getKey(entry.getKey(), RUNNING_ATTRIBUTE), process);
+			}
+		} catch (CloneNotSupportedException e) {
+			System.out.println("Cloning failed with : " + e.getMessage()); //$NON-NLS-1$
+		} catch (IOException e) {
+			System.out.println("Reading state failed with : " + e.getMessage()); //$NON-NLS-1$
+		}
+
+		return newState;
+	}
+
+	private static Long getKey(String attribute, String prefix) {
+		return Long.valueOf(attribute.substring(prefix.length()));
+	}
+
+	/*
+	 * Creates the (empty) state tables and the structures that track their
+	 * entries
+	 */
+	private void createTables() {
+		processes = new StateMap<ProcessStateKey, LttngProcessState>(PROCESS_ATTRIBUTE);
+		running_process = new StateMap<Long, LttngProcessState>(RUNNING_ATTRIBUTE);
+		cpu_states = new StateMap<Long, LTTngCPUState>(CPU_ATTRIBUTE);
+		irq_states = new StateMap<Long, LttngIRQState>(IRQ_ATTRIBUTE);
+		soft_irq_states = new StateMap<Long, LttngSoftIRQState>(SOFT_IRQ_ATTRIBUTE);
+		trap_states = new StateMap<Long, LttngTrapState>(TRAP_ATTRIBUTE);
+		bdev_states = new StateMap<Long, LttngBdevState>(BDEV_ATTRIBUTE);
+
+		fAttributeEntities = new HashMap<String, AbsStateEntity>();
+		fEntityAttributes = new IdentityHashMap<AbsStateEntity, List<String>>();
+		fChangedEntities = new ArrayList<AbsStateEntity>();
+		fChangedAttributes = new HashSet<String>();
+		fChangedAttributes.add(TRACE_ATTRIBUTE);
+	}
+
 	public void init(ILttngStateContext context)
 			throws LttngStateException {
 		if (context == null) {
@@ -223,6 +432,7 @@ public class LttngTraceState implements Cloneable {
 
 		// max time
 		max_time_state_recomputed_in_seek = 0L;
+		fChangedAttributes.add(TRACE_ATTRIBUTE);
 
 		// reset cpu_states
 		cpu_states.clear();
@@ -324,6 +534,7 @@ public class LttngTraceState implements Cloneable {
 
 	public void setSave_interval(Long saveInterval) {
 		save_interval = saveInterval;
+		fChangedAttributes.add(TRACE_ATTRIBUTE);
 	}
 
 	/**
@@ -349,6 +560,7 @@ public class LttngTraceState implements Cloneable {
 	public void setMax_time_state_recomputed_in_seek(
 			Long maxTimeStateRecomputedInSeek) {
 		max_time_state_recomputed_in_seek = maxTimeStateRecomputedInSeek;
+		fChangedAttributes.add(TRACE_ATTRIBUTE);
 	}
 
 	public boolean isHas_precomputed_states() {
@@ -357,6 +569,7 @@ public class LttngTraceState implements Cloneable {
 
 	public void setHas_precomputed_states(boolean hasPrecomputedStates) {
 		has_precomputed_states = hasPrecomputedStates;
+		fChangedAttributes.add(TRACE_ATTRIBUTE);
 	}
 
 	public Map<Long, LttngProcessState> getRunning_process() {
@@ -466,6 +679,100 @@ public class LttngTraceState implements Cloneable {
         
         return foundProcess;
     }
+
+	// ========================================================================
+	// Inner Class
+	// =======================================================================
+	/**
+	 * State table that keeps track of its entries: the attribute of each
+	 * entry, the trace state notified of the modifications of the entries and
+	 * the attributes added or removed since the last check point.
+	 * <p>
+	 * The table must be modified with put(), remove() and clear() only.
+	 */
+	private class StateMap<K, V extends AbsStateEntity> extends HashMap<K, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String fPrefix;
+
+		StateMap(String prefix) {
+			fPrefix = prefix;
+		}
+
+		@Override
+		public V put(K key, V value) {
+			String attribute = getAttribute(key);
+			V oldValue = super.put(key, value);
+			unlink(oldValue, attribute);
+			if (value != null) {
+				fAttributeEntities.put(attribute, value);
+				List<String> attributes = fEntityAttributes.get(value);
+				if (attributes == null) {
+					attributes = new ArrayList<String>(1);
+					fEntityAttributes.put(value, attributes);
+				}
+				attributes.add(attribute);
+				if (value.fOwner != LttngTraceState.this) {
+					value.fOwner = LttngTraceState.this;
+					value.fChanged = false;
+				}
+			}
+			fChangedAttributes.add(attribute);
+			return oldValue;
+		}
+
+		@Override
+		public void putAll(Map<? extends K, ? extends V> map) {
+			for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+				put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		@Override
+		public V remove(Object key) {
+			if (!containsKey(key)) {
+				return null;
+			}
+			String attribute = getAttribute(key);
+			V oldValue = super.remove(key);
+			unlink(oldValue, attribute);
+			fChangedAttributes.add(attribute);
+			return oldValue;
+		}
+
+		@Override
+		public void clear() {
+			for (Map.Entry<K, V> entry : entrySet()) {
+				String attribute = getAttribute(entry.getKey());
+				unlink(entry.getValue(), attribute);
+				fChangedAttributes.add(attribute);
+			}
+			super.clear();
+		}
+
+		private String getAttribute(Object key) {
+			if (key instanceof ProcessStateKey) {
+				return fPrefix + ((ProcessStateKey) key).toAttribute();
+			}
+			return fPrefix + key;
+		}
+
+		private void unlink(V value, String attribute) {
+			fAttributeEntities.remove(attribute);
+			if (value == null) {
+				return;
+			}
+			List<String> attributes = fEntityAttributes.get(value);
+			if (attributes != null) {
+				attributes.remove(attribute);
+				if (attributes.isEmpty()) {
+					fEntityAttributes.remove(value);
+					value.fOwner = null;
+				}
+			}
+		}
+	}
 }
 
 final class ProcessStateKey {
@@ -533,4 +840,13 @@ final class ProcessStateKey {
     public String toString() {
         return (String.valueOf(pid) + ":" + traceId);
     }
+
+    /**
+     * @return the key as a state attribute name, the cpu is only significant
+     *         for the pid 0
+     */
+    @SuppressWarnings("nls")
+    String toAttribute() {
+        return traceId + "/" + pid + ((pid == 0L) ? "/" + cpuId : "");
+    }
 }
@@ -11,6 +11,10 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.state.model;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 
 
 /**
@@ -18,7 +22,7 @@ package org.eclipse.linuxtools.lttng.state.model;
  * <p>
  *
  */
-public class LttngTrapState implements Cloneable {
+public class LttngTrapState extends AbsStateEntity implements Cloneable {
     // ========================================================================
 	// Data
     // =======================================================================
@@ -56,6 +60,28 @@ public class LttngTrapState implements Cloneable {
         
         return newState;
     }
+
+	/**
+	 * Writes the state to a stream
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	@Override
+	void write(DataOutputStream out) throws IOException {
+		StateStreams.writeLong(out, running);
+	}
+
+	/**
+	 * Reads a state written by write()
+	 *
+	 * @param in
+	 * @return the state
+	 * @throws IOException
+	 */
+	static LttngTrapState read(DataInputStream in) throws IOException {
+		return new LttngTrapState(StateStreams.readLong(in));
+	}
 	
     // ========================================================================
     // Methods
@@ -65,14 +91,17 @@ public class LttngTrapState implements Cloneable {
 	}
 
 	public void setRunning(Long running) {
+		changed();
 		this.running = running;
 	}
 
 	public void incrementRunning() {
+		changed();
 		running++;
 	}
 	
 	public void decrementRunning() {
+		changed();
 		if (running > 0) {
 			running--;			
 		}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.linuxtools.lttng.state.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Stack;
+
+/**
+ * <b><u>StateStreams</u></b>
+ * <p>
+ * Helpers to write the state model objects to a stream (e.g. to store them in
+ * a state history) and read them back. The object fields may be null.
+ */
+final class StateStreams {
+
+	// ========================================================================
+	// Constructor
+	// =======================================================================
+	private StateStreams() {
+	}
+
+	// ========================================================================
+	// Methods
+	// =======================================================================
+	static void writeLong(DataOutputStream out, Long value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeLong(value);
+		}
+	}
+
+	static Long readLong(DataInputStream in) throws IOException {
+		return in.readBoolean() ? Long.valueOf(in.readLong()) : null;
+	}
+
+	static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	static void writeEnum(DataOutputStream out, Enum<?> value) throws IOException {
+		out.writeInt(value != null ? value.ordinal() : -1);
+	}
+
+	static <E extends Enum<E>> E readEnum(DataInputStream in, Class<E> type) throws IOException {
+		int ordinal = in.readInt();
+		return ordinal >= 0 ? type.getEnumConstants()[ordinal] : null;
+	}
+
+	static void writeLongStack(DataOutputStream out, Stack<Long> stack) throws IOException {
+		out.writeInt(stack.size());
+		for (Long value : stack) {
+			writeLong(out, value);
+		}
+	}
+
+	static Stack<Long> readLongStack(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		Stack<Long> stack = new Stack<Long>();
+		for (int i = 0; i < size; i++) {
+			stack.push(readLong(in));
+		}
+		return stack;
+	}
+
+	static void writeEnumStack(DataOutputStream out, Stack<? extends Enum<?>> stack) throws IOException {
+		out.writeInt(stack.size());
+		for (Enum<?> value : stack) {
+			writeEnum(out, value);
+		}
+	}
+
+	static <E extends Enum<E>> Stack<E> readEnumStack(DataInputStream in, Class<E> type) throws IOException {
+		int size = in.readInt();
+		Stack<E> stack = new Stack<E>();
+		for (int i = 0; i < size; i++) {
+			stack.push(readEnum(in, type));
+		}
+		return stack;
+	}
+}
@@ -1,6 +1,8 @@
 package org.eclipse.linuxtools.lttng.state.trace;
 
+import org.eclipse.linuxtools.lttng.event.LttngEvent;
 import org.eclipse.linuxtools.lttng.event.LttngSyntheticEvent;
+import org.eclipse.linuxtools.lttng.state.LttngStateException;
 import org.eclipse.linuxtools.lttng.state.model.LttngTraceState;
 import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
 import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
@@ -43,9 +45,11 @@ public interface IStateTraceManager {
 	 * 
 	 * @return TmfCheckpoint indicates the nearest checkpoint used to restore the
 	 *         state, null sent if input is invalid
+	 * @throws LttngStateException
+	 *             if the check point state could not be read
 	 */
 	public abstract TmfCheckpoint restoreCheckPointByTimestamp(
-			TmfTimestamp eventTime);
+			TmfTimestamp eventTime) throws LttngStateException;
 
 	/**
 	 * Restore to the closest checkpoint from index
@@ -55,8 +59,10 @@ public interface IStateTraceManager {
 	 * 
 	 * @return TmfCheckpoint indicates the nearest checkpoint used to restore the
 	 *         state, null sent if input is invalid
+	 * @throws LttngStateException
+	 *             if the check point state could not be read
 	 */
-	public abstract TmfCheckpoint restoreCheckPointByIndex(long eventIndex);
+	public abstract TmfCheckpoint restoreCheckPointByIndex(long eventIndex) throws LttngStateException;
 
 	/**
 	 * @return
@@ -87,6 +93,12 @@ public interface IStateTraceManager {
 	 */
 	public void clearCheckPoints();
 
+	/**
+	 * Release the resources of the state history (e.g. its temporary file),
+	 * the manager can not be used afterwards
+	 */
+	public void dispose();
+
 	/**
 	 * handles incoming events used to build the associated check points, The
 	 * user must call clearCheckPoints before the processing the first synthetic
@@ -94,6 +106,23 @@ public interface IStateTraceManager {
 	 * 
 	 * @param synEvent
 	 * @param eventCount
+	 * @throws LttngStateException
+	 *             if a check point could not be saved
+	 */
+	public void handleEvent(LttngSyntheticEvent synEvent, Long eventCount) throws LttngStateException;
+
+	/**
+	 * handles incoming trace events used to build the associated check points,
+	 * the state is updated directly from the event, without a synthetic event.
+	 * The events must be received in order, from the first event of the trace,
+	 * and may be received by a thread of the trace. The user must call
+	 * clearCheckPoints before the processing the first event.
+	 * 
+	 * @param event
+	 * @param eventCount
+	 *            the number of events of the trace handled, this one included
+	 * @throws LttngStateException
+	 *             if a check point could not be saved
 	 */
-	public void handleEvent(LttngSyntheticEvent synEvent, Long eventCount);
+	public void handleTraceEvent(LttngEvent event, long eventCount) throws LttngStateException;
 }
@@ -0,0 +1,394 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.linuxtools.lttng.state.trace;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <b><u>StateHistory</u></b>
+ * <p>
+ * Disk backed history of state attributes. The history is a set of intervals
+ * (attribute, start, end, value): each value of an attribute is valid from
+ * the time it was set until the time it was changed or removed.
+ * <p>
+ * The intervals are stored in the nodes of an implicit interval tree: the
+ * interval [start, end] belongs to the node of level L covering the time
+ * range [p * 2^L, (p + 1) * 2^L - 1] that contains both start and end, with
+ * L the position of the highest bit differing between start and end.
+ * Since the times are increasing, the nodes are completed in order: only the
+ * node being filled at each level is kept in memory, the others are written
+ * to a temporary file. The state at a given time is then read from at most
+ * one node per level.
+ * <p>
+ * The times are positive numbers (e.g. event ranks) and must be given in
+ * increasing order.
+ * <p>
+ * Note that StateTraceManager only records the state at its check points: a
+ * query answers the state of a check point without a full state copy per
+ * check point, but the state of an event between two check points is still
+ * rebuilt by replaying the events from the previous one.
+ */
+public class StateHistory {
+
+	// =======================================================================
+	// Data
+	// =======================================================================
+	private static final int NB_LEVELS = 64;
+
+	// The attribute names and their quarks (index in the list)
+	private final Map<String, Integer> fQuarks = new HashMap<String, Integer>();
+	private final List<String> fAttributes = new ArrayList<String>();
+
+	// The current value of each attribute and the time it was set (null
+	// value when the attribute is not set)
+	private final List<byte[]> fOngoingValues = new ArrayList<byte[]>();
+	private long[] fOngoingStarts = new long[16];
+	private int fNbOngoing = 0;
+
+	// The node being filled at each level
+	private final Node[] fOpenNodes = new Node[NB_LEVELS];
+
+	// The file position and length of the completed nodes, per level
+	private final List<Map<Long, long[]>> fNodeIndex = new ArrayList<Map<Long, long[]>>();
+
+	private final File fFile;
+	private final RandomAccessFile fRaf;
+
+	private long fCurrentTime = 0;
+	private int fMaxLevel = -1;
+	private long fNbIntervals = 0;
+
+	// =======================================================================
+	// Constructor
+	// =======================================================================
+	/**
+	 * Creates a history stored in a temporary file
+	 *
+	 * @throws IOException
+	 *             if the temporary file can not be created
+	 */
+	public StateHistory() throws IOException {
+		fFile = File.createTempFile("lttng-state", ".ht"); //$NON-NLS-1$ //$NON-NLS-2$
+		fFile.deleteOnExit();
+		fRaf = new RandomAccessFile(fFile, "rw"); //$NON-NLS-1$
+		for (int level = 0; level < NB_LEVELS; level++) {
+			fNodeIndex.add(new HashMap<Long, long[]>());
+		}
+	}
+
+	// =======================================================================
+	// Methods
+	// =======================================================================
+	/**
+	 * Sets the value of an attribute from a given time
+	 *
+	 * @param attribute
+	 *            the attribute name
+	 * @param time
+	 *            the time from which the value is valid
+	 * @param value
+	 *            the value, unchanged values are ignored
+	 * @throws IOException
+	 */
+	public synchronized void modifyAttribute(String attribute, long time, byte[] value) throws IOException {
+		checkTime(time);
+		Integer quark = fQuarks.get(attribute);
+		if (quark == null) {
+			quark = fAttributes.size();
+			fQuarks.put(attribute, quark);
+			fAttributes.add(attribute);
+			fOngoingValues.add(null);
+			if (quark == fOngoingStarts.length) {
+				fOngoingStarts = Arrays.copyOf(fOngoingStarts, quark * 2);
+			}
+		}
+		byte[] ongoing = fOngoingValues.get(quark);
+		if (ongoing != null && Arrays.equals(ongoing, value)) {
+			return;
+		}
+		close(quark, time);
+		fOngoingValues.set(quark, value);
+		fOngoingStarts[quark] = time;
+		fNbOngoing++;
+	}
+
+	/**
+	 * Removes an attribute from a given time
+	 *
+	 * @param attribute
+	 *            the attribute name
+	 * @param time
+	 *            the time from which the attribute is not set
+	 * @throws IOException
+	 */
+	public synchronized void removeAttribute(String attribute, long time) throws IOException {
+		checkTime(time);
+		Integer quark = fQuarks.get(attribute);
+		if (quark != null) {
+			close(quark, time);
+		}
+	}
+
+	/**
+	 * Records the state at a given time: the attributes are set to the
+	 * received values, the attributes not received are removed
+	 *
+	 * @param time
+	 *            the time
+	 * @param values
+	 *            the value of each attribute
+	 * @throws IOException
+	 */
+	public synchronized void update(long time, Map<String, byte[]> values) throws IOException {
+		checkTime(time);
+		for (int quark = 0; quark < fAttributes.size(); quark++) {
+			if (fOngoingValues.get(quark) != null && !values.containsKey(fAttributes.get(quark))) {
+				close(quark, time);
+			}
+		}
+		for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+			modifyAttribute(entry.getKey(), time, entry.getValue());
+		}
+	}
+
+	/**
+	 * Records the attributes modified at a given time, the other attributes
+	 * keep their value
+	 *
+	 * @param time
+	 *            the time
+	 * @param values
+	 *            the new value of each modified attribute, null for the
+	 *            removed attributes
+	 * @throws IOException
+	 */
+	public synchronized void modifyAttributes(long time, Map<String, byte[]> values) throws IOException {
+		checkTime(time);
+		for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+			if (entry.getValue() != null) {
+				modifyAttribute(entry.getKey(), time, entry.getValue());
+			} else {
+				removeAttribute(entry.getKey(), time);
+			}
+		}
+	}
+
+	/**
+	 * Returns the state at a given time
+	 *
+	 * @param time
+	 *            the time
+	 * @return the value of each attribute set at that time
+	 * @throws IOException
+	 */
+	public synchronized Map<String, byte[]> query(long time) throws IOException {
+		Map<String, byte[]> values = new HashMap<String, byte[]>();
+
+		// The current values
+		for (int quark = 0; quark < fAttributes.size(); quark++) {
+			byte[] value = fOngoingValues.get(quark);
+			if (value != null && fOngoingStarts[quark] <= time) {
+				values.put(fAttributes.get(quark), value);
+			}
+		}
+
+		// The past values, from the nodes containing the time
+		for (int level = 0; level <= fMaxLevel; level++) {
+			long position = time >>> level;
+			byte[] node = null;
+			Node openNode = fOpenNodes[level];
+			if (openNode != null && openNode.fPosition == position) {
+				node = openNode.fBytes.toByteArray();
+			} else {
+				long[] location = fNodeIndex.get(level).get(position);
+				if (location != null) {
+					node = new byte[(int) location[1]];
+					fRaf.seek(location[0]);
+					fRaf.readFully(node);
+				}
+			}
+			if (node != null) {
+				readNode(node, time, values);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Clears the history
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void reset() throws IOException {
+		fQuarks.clear();
+		fAttributes.clear();
+		fOngoingValues.clear();
+		fOngoingStarts = new long[16];
+		fNbOngoing = 0;
+		Arrays.fill(fOpenNodes, null);
+		for (Map<Long, long[]> index : fNodeIndex) {
+			index.clear();
+		}
+		fRaf.setLength(0);
+		fCurrentTime = 0;
+		fMaxLevel = -1;
+		fNbIntervals = 0;
+	}
+
+	/**
+	 * Releases the temporary file, the history can not be used afterwards
+	 */
+	public synchronized void dispose() {
+		try {
+			fRaf.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		fFile.delete();
+	}
+
+	/**
+	 * @return the number of attributes set at the current time
+	 */
+	public synchronized int getNbOngoing() {
+		return fNbOngoing;
+	}
+
+	/**
+	 * @return the number of completed intervals
+	 */
+	public synchronized long getNbIntervals() {
+		return fNbIntervals;
+	}
+
+	/**
+	 * @return the size of the history file, in bytes
+	 * @throws IOException
+	 */
+	public synchronized long getFileSize() throws IOException {
+		return fRaf.length();
+	}
+
+	// =======================================================================
+	// Helper functions
+	// =======================================================================
+	private void checkTime(long time) {
+		if (time < fCurrentTime) {
+			throw new IllegalArgumentException("Time " + time + " is before " + fCurrentTime); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		fCurrentTime = time;
+	}
+
+	/*
+	 * Ends the current value of an attribute at the time before the given
+	 * time, and stores the interval
+	 */
+	private void close(int quark, long time) throws IOException {
+		byte[] value = fOngoingValues.get(quark);
+		if (value == null) {
+			return;
+		}
+		fOngoingValues.set(quark, null);
+		fNbOngoing--;
+		long start = fOngoingStarts[quark];
+		if (start >= time) {
+			// Replaced at the same time, no interval
+			return;
+		}
+		long end = time - 1;
+		int level = (start == end) ? 0 : NB_LEVELS - Long.numberOfLeadingZeros(start ^ end);
+		long position = start >>> level;
+
+		Node node = fOpenNodes[level];
+		if (node != null && node.fPosition != position) {
+			flush(level, node);
+			node = null;
+		}
+		if (node == null) {
+			node = new Node(position);
+			fOpenNodes[level] = node;
+		}
+		node.fOut.writeInt(quark);
+		node.fOut.writeLong(start);
+		node.fOut.writeLong(end);
+		node.fOut.writeInt(value.length);
+		node.fOut.write(value);
+		fMaxLevel = Math.max(fMaxLevel, level);
+		fNbIntervals++;
+	}
+
+	/*
+	 * Writes a completed node at the end of the file
+	 */
+	private void flush(int level, Node node) throws IOException {
+		byte[] bytes = node.fBytes.toByteArray();
+		long offset = fRaf.length();
+		fRaf.seek(offset);
+		fRaf.write(bytes);
+		fNodeIndex.get(level).put(node.fPosition, new long[] { offset, bytes.length });
+	}
+
+	/*
+	 * Adds the values of the intervals of a node that contain the time
+	 */
+	private void readNode(byte[] node, long time, Map<String, byte[]> values) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(node));
+		int remaining = node.length;
+		while (remaining > 0) {
+			int quark = in.readInt();
+			long start = in.readLong();
+			long end = in.readLong();
+			int length = in.readInt();
+			remaining -= 24 + length;
+			if (start <= time && time <= end) {
+				byte[] value = new byte[length];
+				in.readFully(value);
+				values.put(fAttributes.get(quark), value);
+			} else {
+				in.skipBytes(length);
+			}
+		}
+	}
+
+	// =======================================================================
+	// Inner Class
+	// =======================================================================
+	/*
+	 * The intervals of a tree node being filled
+	 */
+	private static class Node {
+		final long fPosition;
+		final ByteArrayOutputStream fBytes = new ByteArrayOutputStream();
+		final DataOutputStream fOut = new DataOutputStream(fBytes);
+
+		Node(long position) {
+			fPosition = position;
+		}
+	}
+
+	@Override
+	@SuppressWarnings("nls")
+	public String toString() {
+		return "[StateHistory: file=" + fFile + ",attributes=" + fAttributes.size() + ",intervals=" + fNbIntervals + "]";
+	}
+}
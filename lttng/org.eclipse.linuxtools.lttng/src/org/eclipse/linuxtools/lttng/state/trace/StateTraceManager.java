@@ -11,8 +11,8 @@
  *******************************************************************************/
 package org.eclipse.linuxtools.lttng.state.trace;
 
+import java.io.IOException;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Vector;
 
 import org.eclipse.linuxtools.lttng.TraceDebug;
@@ -25,6 +25,8 @@ import org.eclipse.linuxtools.lttng.request.ILttngSyntEventRequest;
 import org.eclipse.linuxtools.lttng.request.IRequestStatusListener;
 import org.eclipse.linuxtools.lttng.request.LttngSyntEventRequest;
 import org.eclipse.linuxtools.lttng.state.LttngStateException;
+import org.eclipse.linuxtools.lttng.state.evProcessor.AbsEventToHandlerResolver;
+import org.eclipse.linuxtools.lttng.state.evProcessor.ILttngEventProcessor;
 import org.eclipse.linuxtools.lttng.state.evProcessor.ITransEventProcessor;
 import org.eclipse.linuxtools.lttng.state.evProcessor.state.StateEventToHandlerFactory;
 import org.eclipse.linuxtools.lttng.state.model.LttngTraceState;
@@ -48,7 +50,7 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 	private static final int DEFAULT_CHUNK = 1;
 
 	// configurable check point interval
-	private static final long LTTNG_CHECK_POINT_INTERVAL = 50000L;
+	private static final long LTTNG_CHECK_POINT_INTERVAL = 5000L;
 	private long fcheckPointInterval = LTTNG_CHECK_POINT_INTERVAL;
 
 	private TmfExperiment<LttngEvent> fExperiment = null;
@@ -56,10 +58,14 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 	// immutable Objects
 	private final ITmfTrace fTrace;
 	private int fcpuNumber = -1;
-	private final ITransEventProcessor fStateUpdateProcessor;
+	private final AbsEventToHandlerResolver fStateUpdateProcessor;
 
 	// potentially thread shared
-	private final HashMap<Long, LttngTraceState> stateCheckpointsList = new HashMap<Long, LttngTraceState>();
+	// The check point states are kept in a disk backed history, indexed by
+	// the event count of the check points. Only the check points are
+	// recorded: the state between two check points is still rebuilt by
+	// replaying the events from the previous one.
+	private final StateHistory fStateHistory;
 	private final Vector<TmfCheckpoint> timestampCheckpointsList = new Vector<TmfCheckpoint>();
 	private LttngTraceState fStateModel;
 	private LttngTraceState fCheckPointStateModel;
@@ -90,6 +96,12 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 		fTrace = trace;
 		fStateUpdateProcessor = StateEventToHandlerFactory.getInstance();
 
+		try {
+			fStateHistory = new StateHistory();
+		} catch (IOException e) {
+			throw new LttngStateException("The state history could not be created", e); //$NON-NLS-1$
+		}
+
 		init();
 
 		fStateModel = StateModelFactory.getStateEntryInstance(this);
@@ -143,25 +155,27 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 	 * @param eventTime
 	 *            The timestamp of this event
 	 * 
-	 * @return boolean True if a checkpoint was saved, false otherwise
+	 * @throws LttngStateException
+	 *             if the check point could not be written to the history
 	 */
-	private void saveCheckPointIfNeeded(Long eventCounter, TmfTimestamp eventTime) {
+	private void saveCheckPointIfNeeded(Long eventCounter, TmfTimestamp eventTime) throws LttngStateException {
 		// Save a checkpoint every LTTNG_STATE_SAVE_INTERVAL event
 		if ((eventCounter.longValue() % fcheckPointInterval) == 0) {
 
-			LttngTraceState stateCheckPoint;
-			synchronized (fCheckPointsLock) {
-				stateCheckPoint = fCheckPointStateModel.clone();
-			}
-
 			TraceDebug.debug("Check point created here: " + eventCounter //$NON-NLS-1$
 					+ " -> " + eventTime.toString() + "************" //$NON-NLS-1$ //$NON-NLS-2$
 					+ getTrace().getName() + "   >>>>> Thread: " //$NON-NLS-1$
 					+ Thread.currentThread().getId());
 
 			synchronized (fCheckPointsLock) {
-				// Save the checkpoint
-				stateCheckpointsList.put(eventCounter, stateCheckPoint);
+				// Save the checkpoint, only the state attributes modified
+				// since the previous check point are added to the history
+				try {
+					fStateHistory.modifyAttributes(eventCounter, fCheckPointStateModel.getChangedAttributeValues());
+				} catch (IOException e) {
+					throw new LttngStateException("The check point at event " + eventCounter + " could not be saved", e); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				fCheckPointStateModel.changedAttributesSaved();
 				// Save correlation between timestamp and checkpoint index
 
 				timestampCheckpointsList.add(new TmfCheckpoint(new TmfTimestamp(eventTime), new TmfLocation<Long>(
@@ -194,7 +208,7 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 	 */
 	@Override
 	@SuppressWarnings("unchecked")
-	public TmfCheckpoint restoreCheckPointByTimestamp(TmfTimestamp eventTime) {
+	public TmfCheckpoint restoreCheckPointByTimestamp(TmfTimestamp eventTime) throws LttngStateException {
 		TmfTimeRange experimentRange = fExperiment.getTimeRange();
 		TmfCheckpoint checkpoint = new TmfCheckpoint(fTrace.getStartTime(), new TmfLocation<Long>(0L));
 
@@ -233,8 +247,8 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 		        checkpoint = timestampCheckpointsList.get(index);
 		        // get the location associated with the checkpoint
 		        TmfLocation<Long> location = (TmfLocation<Long>) checkpoint.getLocation();
-		        // reference a new copy of the checkpoint template
-		        traceState = stateCheckpointsList.get(location.getLocation()).clone();
+		        // rebuild the checkpoint state from the state history
+		        traceState = restoreState(location.getLocation());
 		    }
 
 		}
@@ -251,7 +265,7 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 	 * @see org.eclipse.linuxtools.lttng.state.trace.IStateTraceManager#restoreCheckPointByIndex(long)
 	 */
 	@Override
-	public TmfCheckpoint restoreCheckPointByIndex(long eventIndex) {
+	public TmfCheckpoint restoreCheckPointByIndex(long eventIndex) throws LttngStateException {
 		TmfCheckpoint checkpoint = new TmfCheckpoint(fTrace.getStartTime(), new TmfLocation<Long>(0L));
 
 	    LttngTraceState traceState;
@@ -275,8 +289,8 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 		        // get the location associated with the checkpoint
 		        @SuppressWarnings("unchecked")
 				TmfLocation<Long> location = (TmfLocation<Long>) checkpoint.getLocation();
-		        // reference a new copy of the checkpoint template
-		        traceState = stateCheckpointsList.get(location.getLocation()).clone();
+		        // rebuild the checkpoint state from the state history
+		        traceState = restoreState(location.getLocation());
 		    }
 
 		}
@@ -289,6 +303,23 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 		return checkpoint;
 	}
 
+	/**
+	 * Rebuild the state of a check point from the state history
+	 * 
+	 * @param eventCounter
+	 *            the event count of the check point
+	 * @return the check point state
+	 * @throws LttngStateException
+	 *             if the state history could not be read
+	 */
+	private LttngTraceState restoreState(Long eventCounter) throws LttngStateException {
+		try {
+			return fCheckPointStateModel.restore(fStateHistory.query(eventCounter));
+		} catch (IOException e) {
+			throw new LttngStateException("The state of check point " + eventCounter + " could not be read", e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
 	/**
 	 * Adjust the result from a binary search to the round down position
 	 * 
@@ -358,10 +389,10 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 	}
 
 	/**
-	 * @return the stateCheckpointsList
+	 * @return the state history of the check points
 	 */
-	HashMap<Long, LttngTraceState> getStateCheckpointsList() {
-		return stateCheckpointsList;
+	StateHistory getStateHistory() {
+		return fStateHistory;
 	}
 
 	/**
@@ -527,7 +558,11 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 	@Override
     public void clearCheckPoints() {
 		synchronized (fCheckPointsLock) {
-			stateCheckpointsList.clear();
+			try {
+				fStateHistory.reset();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 			timestampCheckpointsList.clear();
 
 			fCheckPointStateModel = StateModelFactory.getStateEntryInstance(this);
@@ -540,6 +575,20 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.eclipse.linuxtools.lttng.state.trace.IStateTraceManager#dispose()
+	 */
+	@Override
+	public void dispose() {
+		synchronized (fCheckPointsLock) {
+			timestampCheckpointsList.clear();
+			fStateHistory.dispose();
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -548,13 +597,31 @@ public class StateTraceManager extends LTTngTreeNode implements IStateTraceManag
 	 * (org.eclipse.linuxtools.lttng.event.LttngSyntheticEvent, java.lang.Long)
 	 */
 	@Override
-	public void handleEvent(LttngSyntheticEvent synEvent, Long eventCount) {
+	public void handleEvent(LttngSyntheticEvent synEvent, Long eventCount) throws LttngStateException {
 		fStateUpdateProcessor.process(synEvent, fCheckPointStateModel);
 
 		// Save checkpoint as needed
 		saveCheckPointIfNeeded(eventCount - 1, synEvent.getTimestamp());
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.eclipse.linuxtools.lttng.state.trace.IStateTraceManager#handleTraceEvent
+	 * (org.eclipse.linuxtools.lttng.event.LttngEvent, long)
+	 */
+	@Override
+	public void handleTraceEvent(LttngEvent event, long eventCount) throws LttngStateException {
+		ILttngEventProcessor processor = fStateUpdateProcessor.getStateUpdaterProcessor(event.getMarkerNameId());
+		if (processor != null) {
+			processor.process(event, fCheckPointStateModel);
+		}
+
+		// Save checkpoint as needed
+		saveCheckPointIfNeeded(eventCount - 1, event.getTimestamp());
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -26,7 +26,6 @@ import org.eclipse.linuxtools.tmf.request.ITmfDataRequest.ExecutionType;
 import org.eclipse.linuxtools.tmf.request.TmfEventRequest;
 import org.eclipse.linuxtools.tmf.signal.TmfExperimentRangeUpdatedSignal;
 import org.eclipse.linuxtools.tmf.signal.TmfSignalHandler;
-import org.eclipse.linuxtools.tmf.signal.TmfSignalManager;
 import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
 import org.eclipse.linuxtools.tmf.trace.TmfContext;
 
@@ -96,9 +95,7 @@ public class LTTngExperiment<T extends TmfEvent> extends TmfExperiment<T> {
 
     @Override
 	public LTTngExperiment<T> copy() {
-        LTTngExperiment<T> experiment = new LTTngExperiment<T>(this);
-        TmfSignalManager.deregister(experiment);
-        return experiment;
+        return completeCopy(new LTTngExperiment<T>(this));
     }
 
     // ------------------------------------------------------------------------
@@ -113,24 +110,25 @@ public class LTTngExperiment<T extends TmfEvent> extends TmfExperiment<T> {
             return null; // Throw an exception?
         }
 
+        TmfExperimentContext expContext = (TmfExperimentContext) context;
+
         if (!context.equals(fExperimentContext)) {
 //    		Tracer.trace("Ctx: Restoring context");
             fExperimentContext = seekLocation(context.getLocation());
+            expContext.resetEventQueue();
         }
 
-        TmfExperimentContext expContext = (TmfExperimentContext) context;
-
 //		dumpContext(expContext, true);
 
         // If an event was consumed previously, get the next one from that trace
         int lastTrace = expContext.getLastTrace();
         if (lastTrace != TmfExperimentContext.NO_TRACE) {
             TmfContext traceContext = expContext.getContexts()[lastTrace];
-            expContext.getEvents()[lastTrace] = expContext.getTraces()[lastTrace].getNextEvent(traceContext);
+            expContext.setEvent(lastTrace, expContext.getTraces()[lastTrace].getNextEvent(traceContext));
             expContext.setLastTrace(TmfExperimentContext.NO_TRACE);
         }
 
-        // Scan the candidate events and identify the "next" trace to read from
+        // Identify the "next" trace to read from
         TmfEvent eventArray[] = expContext.getEvents();
         if (eventArray == null) {
             return null;
@@ -143,15 +141,9 @@ public class LTTngExperiment<T extends TmfEvent> extends TmfExperiment<T> {
                 trace = 0;
             }
         } else {
-            for (int i = 0; i < eventArray.length; i++) {
-                TmfEvent event = eventArray[i];
-                if (event != null && event.getTimestamp() != null) {
-                    TmfTimestamp otherTS = event.getTimestamp();
-                    if (otherTS.compareTo(timestamp, true) < 0) {
-                        trace = i;
-                        timestamp = otherTS;
-                    }
-                }
+            trace = expContext.getNextTrace();
+            if (trace != TmfExperimentContext.NO_TRACE) {
+                timestamp = eventArray[trace].getTimestamp();
             }
         }
 
@@ -883,13 +883,13 @@ public class LTTngTrace extends TmfTrace<LttngEvent> {
         // Below : the "fix" with all the new and the full-parse
         // Allocating new memory is slow.
         // Parsing every events is very slow.
-        eventTimestamp = new LttngTimestamp(jniEvent.getEventTime().getTime());
         eventSource = new LttngEventSource(jniEvent.requestEventSource());
         eventReference = new LttngEventReference(jniEvent.getParentTracefile().getTracefilePath(), this.getName());
         eventType = new LttngEventType(traceTypes.get(EventTypeKey.getEventTypeHash(jniEvent)));
         eventContent = new LttngEventContent(currentLttngEvent);
-        currentLttngEvent = new LttngEvent(this, eventTimestamp, eventSource, eventType, eventContent, eventReference,
-                null);
+        // The timestamp object is only created if requested
+        currentLttngEvent = new LttngEvent(this, jniEvent.getEventTime().getTime(), eventSource, eventType, eventContent,
+                eventReference, null);
 
         // The jni reference is no longer reliable but we will keep it anyhow
         currentLttngEvent.updateJniEventReference(jniEvent);
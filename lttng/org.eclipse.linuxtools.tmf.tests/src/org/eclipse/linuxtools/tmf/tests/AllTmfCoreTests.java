@@ -31,6 +31,10 @@ public class AllTmfCoreTests {
 		suite.addTest(org.eclipse.linuxtools.tmf.tests.component.AllTests.suite());
 		suite.addTest(org.eclipse.linuxtools.tmf.tests.trace.AllTests.suite());
 		suite.addTest(org.eclipse.linuxtools.tmf.tests.experiment.AllTests.suite());
+		suite.addTest(org.eclipse.linuxtools.tmf.tests.filter.AllTests.suite());
+		suite.addTest(org.eclipse.linuxtools.tmf.tests.io.AllTests.suite());
+		suite.addTest(org.eclipse.linuxtools.tmf.tests.signal.AllTests.suite());
+		suite.addTest(org.eclipse.linuxtools.tmf.tests.statistics.AllTests.suite());
 		suite.addTest(org.eclipse.linuxtools.tmf.tests.uml2sd.AllTests.suite());
 		suite.addTest(org.eclipse.linuxtools.tmf.tests.util.AllTests.suite());
 		//$JUnit-END$
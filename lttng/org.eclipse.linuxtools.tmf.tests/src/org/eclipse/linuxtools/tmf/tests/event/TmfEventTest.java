@@ -111,6 +111,42 @@ public class TmfEventTest extends TestCase {
 		assertEquals("getReference",         fReference,  event.getReference());
 	}
 
+	public void testTmfEventLazyTimestamp() {
+		TmfEvent event = new TmfEvent(null, 3, 12345, (byte) -3, fSource, fType, fReference);
+		TmfTimestamp expected = new TmfTimestamp(12345, (byte) -3);
+
+		assertTrue("hasTimestamp",               event.hasTimestamp());
+		assertEquals("getTimestampValue",        12345, event.getTimestampValue());
+		assertEquals("getTimestampScale",        -3, event.getTimestampScale());
+		assertEquals("getTimestampPrecision",    0, event.getTimestampPrecision());
+		assertEquals("getNormalizedTimestamp",   12345000000L, event.getNormalizedTimestamp());
+		assertTrue("isNormalizedTimestampExact", event.isNormalizedTimestampExact());
+		assertEquals("compareTimestampTo",       0, event.compareTimestampTo(expected, false));
+		assertTrue("compareTimestampTo",         event.compareTimestampTo(fTimestamp1, false) < 0);
+
+		assertEquals("getTimestamp",             expected, event.getTimestamp());
+		assertEquals("getOriginalTimestamp",     expected, event.getOriginalTimestamp());
+		assertSame("getTimestamp",               event.getTimestamp(), event.getTimestamp());
+		assertEquals("getSource",                fSource, event.getSource());
+		assertEquals("getType",                  fType, event.getType());
+		assertEquals("getReference",             fReference, event.getReference());
+
+		// Same values after the timestamps are created
+		assertEquals("getTimestampValue",        12345, event.getTimestampValue());
+		assertEquals("getNormalizedTimestamp",   12345000000L, event.getNormalizedTimestamp());
+	}
+
+	public void testTimestampAccessors() {
+		assertTrue("hasTimestamp",               fEvent2.hasTimestamp());
+		assertEquals("getTimestampValue",        fTimestamp2.getValue(), fEvent2.getTimestampValue());
+		assertEquals("getTimestampScale",        fTimestamp2.getScale(), fEvent2.getTimestampScale());
+		assertEquals("getTimestampPrecision",    fTimestamp2.getPrecision(), fEvent2.getTimestampPrecision());
+		assertEquals("getNormalizedTimestamp",   fTimestamp2.getNormalizedValue(), fEvent2.getNormalizedTimestamp());
+		assertFalse("isNormalizedTimestampExact", fEvent2.isNormalizedTimestampExact());
+		assertTrue("compareTimestampTo",         fEvent2.compareTimestampTo(fTimestamp1, false) > 0);
+		assertEquals("compareTimestampTo",       0, fEvent2.compareTimestampTo(fTimestamp1, true));
+	}
+
 	public void testEventCopy2() throws Exception {
 		try {
 			new TmfEvent(null);
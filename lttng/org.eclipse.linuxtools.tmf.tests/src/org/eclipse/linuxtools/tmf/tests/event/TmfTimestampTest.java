@@ -492,4 +492,59 @@ public class TmfTimestampTest extends TestCase {
         assertEquals("getDelta", 0, delta.compareTo(exp, true));
         assertEquals("precision", 2, delta.getPrecision());
 	}
+
+    // ------------------------------------------------------------------------
+    // getNormalizedValue
+    // ------------------------------------------------------------------------
+
+	public void testGetNormalizedValue() throws Exception {
+		assertEquals("getNormalizedValue", 12345, new TmfTimestamp(12345, (byte) -9).getNormalizedValue());
+		assertEquals("getNormalizedValue", 12345000000L, new TmfTimestamp(12345, (byte) -3).getNormalizedValue());
+		assertEquals("getNormalizedValue", 12345000000000L, new TmfTimestamp(12345, (byte) 0).getNormalizedValue());
+		assertEquals("getNormalizedValue", -12345000, new TmfTimestamp(-12345, (byte) -6).getNormalizedValue());
+		assertEquals("getNormalizedValue", 12, new TmfTimestamp(12345, (byte) -12).getNormalizedValue());
+		assertEquals("getNormalizedValue", 0, new TmfTimestamp(0, Byte.MAX_VALUE).getNormalizedValue());
+
+		assertEquals("getNormalizedValue", Long.MIN_VALUE, TmfTimestamp.BigBang.getNormalizedValue());
+		assertEquals("getNormalizedValue", Long.MAX_VALUE, TmfTimestamp.BigCrunch.getNormalizedValue());
+		assertEquals("getNormalizedValue", Long.MAX_VALUE, new TmfTimestamp(Long.MAX_VALUE / 10, (byte) -7).getNormalizedValue());
+
+		// Same as synchronize() when it applies
+		TmfTimestamp ts = new TmfTimestamp(1234567, (byte) -6);
+		assertEquals("getNormalizedValue", ts.synchronize(0, TmfTimestamp.NORMALIZED_SCALE).getValue(), ts.getNormalizedValue());
+	}
+
+	public void testIsNormalizedValueExact() throws Exception {
+		assertTrue("isNormalizedValueExact", new TmfTimestamp(12345, (byte) -9).isNormalizedValueExact());
+		assertTrue("isNormalizedValueExact", new TmfTimestamp(12345, (byte) -3).isNormalizedValueExact());
+		assertTrue("isNormalizedValueExact", new TmfTimestamp(12000, (byte) -12).isNormalizedValueExact());
+		assertTrue("isNormalizedValueExact", new TmfTimestamp(0, Byte.MAX_VALUE).isNormalizedValueExact());
+
+		assertFalse("isNormalizedValueExact", new TmfTimestamp(12345, (byte) -12).isNormalizedValueExact());
+		assertFalse("isNormalizedValueExact", new TmfTimestamp(12345, (byte) -3, 1).isNormalizedValueExact());
+		assertFalse("isNormalizedValueExact", TmfTimestamp.BigBang.isNormalizedValueExact());
+		assertFalse("isNormalizedValueExact", TmfTimestamp.BigCrunch.isNormalizedValueExact());
+	}
+
+	public void testCompareNormalizedValues() throws Exception {
+		TmfTimestamp[] timestamps = new TmfTimestamp[] {
+				new TmfTimestamp(-5,     (byte) -3),
+				new TmfTimestamp(12345,  (byte) -9),
+				new TmfTimestamp(12346,  (byte) -9),
+				new TmfTimestamp(13,     (byte) -6),
+				new TmfTimestamp(1,      (byte) 0),
+				new TmfTimestamp(1001,   (byte) -3),
+		};
+		// For exact values, comparing the normalized values is the same as compareTo()
+		for (TmfTimestamp ts1 : timestamps) {
+			for (TmfTimestamp ts2 : timestamps) {
+				long value1 = ts1.getNormalizedValue();
+				long value2 = ts2.getNormalizedValue();
+				int expected = ts1.compareTo(ts2, false);
+				assertEquals("compare", expected, (value1 < value2) ? -1 : (value1 == value2) ? 0 : 1);
+				assertEquals("compare", expected, TmfTimestamp.compare(ts1.getValue(), ts1.getScale(), ts1.getPrecision(),
+						ts2.getValue(), ts2.getScale(), ts2.getPrecision(), false));
+			}
+		}
+	}
 }
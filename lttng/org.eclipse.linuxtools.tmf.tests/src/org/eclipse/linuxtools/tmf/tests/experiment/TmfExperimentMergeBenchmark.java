@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.tests.experiment;
+
+import java.io.File;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.experiment.TmfExperiment;
+import org.eclipse.linuxtools.tmf.experiment.TmfExperimentContext;
+import org.eclipse.linuxtools.tmf.experiment.TmfExperimentLocation;
+import org.eclipse.linuxtools.tmf.tests.TmfCoreTestPlugin;
+import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
+import org.eclipse.linuxtools.tmf.trace.TmfContext;
+import org.eclipse.linuxtools.tmf.trace.TmfTraceStub;
+
+/**
+ * <b><u>TmfExperimentMergeBenchmark</u></b>
+ * <p>
+ * Compares the event merge of TmfExperiment.getNextEvent() (min-heap) with
+ * the former linear scan of the traces, for experiments of increasing size.
+ * <p>
+ * This is a benchmark, not a unit test: it is not part of the test suite
+ * and has to be run explicitly (as a JUnit plug-in test).
+ */
+@SuppressWarnings("nls")
+public class TmfExperimentMergeBenchmark extends TestCase {
+
+    private static final String DIRECTORY    = "testfiles";
+    private static final String TEST_STREAM1 = "O-Test-10K";
+    private static final String TEST_STREAM2 = "E-Test-10K";
+
+    private static final int[] NB_TRACES  = { 2, 8, 32, 128 };
+    private static final int   NB_EVENTS  = 200000;
+    private static final int   NB_RUNS    = 5;
+    private static final int   BLOCK_SIZE = 1000;
+
+    // ------------------------------------------------------------------------
+    // Housekeeping
+    // ------------------------------------------------------------------------
+
+    public TmfExperimentMergeBenchmark(String name) {
+        super(name);
+    }
+
+    private static String getPath(String name) throws Exception {
+        URL location = FileLocator.find(TmfCoreTestPlugin.getDefault().getBundle(), new Path(DIRECTORY + File.separator + name), null);
+        return new File(FileLocator.toFileURL(location).toURI()).getPath();
+    }
+
+    private static ITmfTrace[] createTraces(int nbTraces) throws Exception {
+        String path1 = getPath(TEST_STREAM1);
+        String path2 = getPath(TEST_STREAM2);
+        ITmfTrace[] traces = new ITmfTrace[nbTraces];
+        for (int i = 0; i < nbTraces; i++) {
+            traces[i] = new TmfTraceStub((i % 2 == 0) ? path1 : path2);
+        }
+        return traces;
+    }
+
+    // ------------------------------------------------------------------------
+    // Benchmark
+    // ------------------------------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    public void testMerge() throws Exception {
+        for (int nbTraces : NB_TRACES) {
+            TmfExperiment<TmfEvent> heapExperiment = new TmfExperiment<TmfEvent>(TmfEvent.class, "Heap", createTraces(nbTraces), TmfTimestamp.Zero, BLOCK_SIZE, false);
+            TmfExperiment<TmfEvent> scanExperiment = new LinearScanExperiment(createTraces(nbTraces));
+
+            // Both merges have to produce the same sequence
+            assertEquals("checksum", read(scanExperiment), read(heapExperiment));
+
+            long heapTime = Long.MAX_VALUE;
+            long scanTime = Long.MAX_VALUE;
+            for (int run = 0; run < NB_RUNS; run++) {
+                long start = System.nanoTime();
+                read(heapExperiment);
+                heapTime = Math.min(heapTime, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                read(scanExperiment);
+                scanTime = Math.min(scanTime, System.nanoTime() - start);
+            }
+
+            System.out.println("Merge of " + nbTraces + " traces: heap " + (heapTime / NB_EVENTS) + " ns/event, linear scan " + (scanTime / NB_EVENTS) + " ns/event");
+
+            heapExperiment.dispose();
+            scanExperiment.dispose();
+        }
+    }
+
+    /*
+     * Reads NB_EVENTS events and returns a checksum of the (timestamp, trace) sequence
+     */
+    private static long read(TmfExperiment<TmfEvent> experiment) {
+        TmfExperimentContext context = experiment.seekLocation(null);
+        long checksum = 0;
+        for (int i = 0; i < NB_EVENTS; i++) {
+            TmfEvent event = experiment.getNextEvent(context);
+            if (event == null) {
+                break;
+            }
+            checksum = 31 * checksum + event.getTimestamp().getValue();
+            checksum = 31 * checksum + context.getLastTrace();
+        }
+        return checksum;
+    }
+
+    /**
+     * The event merge as it was: a linear scan of the traces pending events
+     */
+    private static class LinearScanExperiment extends TmfExperiment<TmfEvent> {
+
+        @SuppressWarnings("unchecked")
+        public LinearScanExperiment(ITmfTrace[] traces) {
+            super(TmfEvent.class, "LinearScan", traces, TmfTimestamp.Zero, BLOCK_SIZE, false);
+        }
+
+        @Override
+        public synchronized TmfEvent getNextEvent(TmfContext context) {
+            TmfExperimentContext expContext = (TmfExperimentContext) context;
+            if (!context.equals(fExperimentContext)) {
+                fExperimentContext = seekLocation(context.getLocation());
+            }
+
+            int lastTrace = expContext.getLastTrace();
+            if (lastTrace != TmfExperimentContext.NO_TRACE) {
+                TmfContext traceContext = expContext.getContexts()[lastTrace];
+                expContext.getEvents()[lastTrace] = expContext.getTraces()[lastTrace].getNextEvent(traceContext);
+                expContext.setLastTrace(TmfExperimentContext.NO_TRACE);
+            }
+
+            TmfEvent eventArray[] = expContext.getEvents();
+            int trace = TmfExperimentContext.NO_TRACE;
+            TmfTimestamp timestamp = TmfTimestamp.BigCrunch;
+            for (int i = 0; i < eventArray.length; i++) {
+                TmfEvent event = eventArray[i];
+                if (event != null && event.getTimestamp() != null) {
+                    TmfTimestamp otherTS = event.getTimestamp();
+                    if (otherTS.compareTo(timestamp, true) < 0) {
+                        trace = i;
+                        timestamp = otherTS;
+                    }
+                }
+            }
+
+            TmfEvent event = null;
+            if (trace != TmfExperimentContext.NO_TRACE) {
+                updateIndex(expContext, timestamp);
+                TmfContext traceContext = expContext.getContexts()[trace];
+                TmfExperimentLocation expLocation = (TmfExperimentLocation) expContext.getLocation();
+                expLocation.getLocation().locations[trace] = traceContext.getLocation();
+                expLocation.getRanks()[trace] = traceContext.getRank();
+                expContext.setLastTrace(trace);
+                expContext.updateRank(1);
+                event = expContext.getEvents()[trace];
+                fExperimentContext = expContext;
+            }
+            return event;
+        }
+    }
+
+}
@@ -27,6 +27,7 @@ import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
 import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
 import org.eclipse.linuxtools.tmf.experiment.TmfExperiment;
 import org.eclipse.linuxtools.tmf.experiment.TmfExperimentContext;
+import org.eclipse.linuxtools.tmf.experiment.TmfExperimentLocation;
 import org.eclipse.linuxtools.tmf.request.TmfEventRequest;
 import org.eclipse.linuxtools.tmf.tests.TmfCoreTestPlugin;
 import org.eclipse.linuxtools.tmf.trace.ITmfContext;
@@ -139,6 +140,48 @@ public class TmfMultiTraceExperimentTest extends TestCase {
 		}        	
     }
 
+    public void testParallelIndexing() throws Exception {
+
+        // Build the experiment index sequentially, as for a single trace
+        ITmfTrace[] traces = new ITmfTrace[fTraces.length];
+        for (int i = 0; i < fTraces.length; i++) {
+            traces[i] = new TmfTraceStub(fTraces[i].getPath(), true);
+        }
+        SequentialExperiment experiment = new SequentialExperiment(traces);
+        try {
+            Vector<TmfCheckpoint> expected = experiment.getCheckpoints();
+            Vector<TmfCheckpoint> checkpoints = fExperiment.getCheckpoints();
+            int pageSize = fExperiment.getCacheSize();
+
+            assertEquals("GetNbEvents", experiment.getNbEvents(), fExperiment.getNbEvents());
+            assertEquals("Nb checkpoints", expected.size(), checkpoints.size());
+            for (int i = 0; i < checkpoints.size(); i++) {
+                TmfCheckpoint checkpoint = checkpoints.get(i);
+                assertEquals("Timestamp", 0, expected.get(i).getTimestamp().compareTo(checkpoint.getTimestamp(), false));
+
+                TmfExperimentLocation expectedLocation = (TmfExperimentLocation) expected.get(i).getLocation();
+                TmfExperimentLocation location = (TmfExperimentLocation) checkpoint.getLocation();
+                long rank = 0;
+                for (int j = 0; j < fTraces.length; j++) {
+                    assertEquals("Trace location", expectedLocation.getLocation().locations[j], location.getLocation().locations[j]);
+                    assertEquals("Trace rank", expectedLocation.getRanks()[j], location.getRanks()[j]);
+                    rank += location.getRanks()[j];
+                }
+                assertEquals("Checkpoint rank", i * pageSize, rank);
+            }
+        } finally {
+            experiment.dispose();
+        }
+    }
+
+    private static class SequentialExperiment extends TmfExperiment<TmfEvent> {
+        @SuppressWarnings("unchecked")
+        public SequentialExperiment(ITmfTrace[] traces) {
+            super(TmfEvent.class, "SequentialExperiment", traces, TmfTimestamp.Zero, BLOCK_SIZE, false);
+            indexExperiment(true, 0, TmfTimeRange.Eternity);
+        }
+    }
+
     // ------------------------------------------------------------------------
     // seekLocation
     // ------------------------------------------------------------------------
@@ -555,6 +598,42 @@ public class TmfMultiTraceExperimentTest extends TestCase {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    public void testGetNextEventManyTraces() throws Exception {
+
+        // Alternate the odd and even timestamps traces
+        int nbTraces = 6;
+        ITmfTrace[] traces = new ITmfTrace[nbTraces];
+        for (int i = 0; i < nbTraces; i++) {
+            traces[i] = new TmfTraceStub(fTraces[i % 2].getPath());
+        }
+        TmfExperiment<TmfEvent> experiment = new TmfExperiment<TmfEvent>(TmfEvent.class, "ManyTraces", traces, TmfTimestamp.Zero, BLOCK_SIZE, false);
+
+        try {
+            TmfExperimentContext context = experiment.seekLocation(null);
+            long lastTimestamp = Long.MIN_VALUE;
+            int lastTrace = -1;
+            int nbEvents = 0;
+            TmfEvent event = experiment.getNextEvent(context);
+            while (event != null) {
+                long timestamp = event.getTimestamp().getValue();
+                int trace = context.getLastTrace();
+                assertTrue("Event timestamp", timestamp >= lastTimestamp);
+                if (timestamp == lastTimestamp) {
+                    // Ties are broken by trace index
+                    assertTrue("Trace index", trace > lastTrace);
+                }
+                lastTimestamp = timestamp;
+                lastTrace = trace;
+                nbEvents++;
+                event = experiment.getNextEvent(context);
+            }
+            assertEquals("Nb events", nbTraces * NB_EVENTS / 2, nbEvents);
+        } finally {
+            experiment.dispose();
+        }
+    }
+
     // ------------------------------------------------------------------------
     // processRequest
     // ------------------------------------------------------------------------
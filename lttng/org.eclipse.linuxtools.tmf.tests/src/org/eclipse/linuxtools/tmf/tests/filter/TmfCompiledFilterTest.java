@@ -0,0 +1,402 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.tests.filter;
+
+import junit.framework.TestCase;
+
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.event.TmfEventContent;
+import org.eclipse.linuxtools.tmf.event.TmfEventContentStub;
+import org.eclipse.linuxtools.tmf.event.TmfEventReference;
+import org.eclipse.linuxtools.tmf.event.TmfEventSource;
+import org.eclipse.linuxtools.tmf.event.TmfEventType;
+import org.eclipse.linuxtools.tmf.event.TmfEventTypeStub;
+import org.eclipse.linuxtools.tmf.event.TmfNoSuchFieldException;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.filter.ITmfFilter;
+import org.eclipse.linuxtools.tmf.filter.TmfCompiledFilter;
+import org.eclipse.linuxtools.tmf.filter.model.ITmfFilterTreeNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterAndNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterCompareNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterContainsNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterEqualsNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterEventTypeNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterMatchesNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterOrNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterRootNode;
+
+/**
+ * <b><u>TmfCompiledFilterTest</u></b>
+ * <p>
+ * Test suite for the TmfCompiledFilter class: the compiled filters must give
+ * the same results as the filter trees they are compiled from.
+ */
+@SuppressWarnings("nls")
+public class TmfCompiledFilterTest extends TestCase {
+
+	// ------------------------------------------------------------------------
+	// Variables
+	// ------------------------------------------------------------------------
+
+	private static final String EVENT_CLASS = TmfEvent.class.getCanonicalName();
+
+	private final TmfEvent fStubEvent;
+	private final TmfEvent fOtherEvent;
+	private final TmfEvent[] fEvents;
+
+	// ------------------------------------------------------------------------
+	// Housekeeping
+	// ------------------------------------------------------------------------
+
+	/**
+	 * @param name the test name
+	 */
+	public TmfCompiledFilterTest(String name) {
+		super(name);
+
+		// Fields: 1, -10, true, "some string", TmfTimestamp(1, 2, 3)
+		fStubEvent = new TmfEvent(new TmfTimestamp(12345, (byte) -3, 0), new TmfEventSource("Source"),
+				new TmfEventTypeStub(), new TmfEventReference("Reference"));
+		fStubEvent.setContent(new TmfEventContentStub(fStubEvent, "Some content"));
+
+		// Fields: "12.5"
+		fOtherEvent = new TmfEvent(new TmfTimestamp(2, (byte) 0, 0), new TmfEventSource("Other source"),
+				new TmfEventType("OtherType", new String[] { "Field1" }), new TmfEventReference("Other reference"));
+		fOtherEvent.setContent(new TmfEventContent(fOtherEvent, "12.5"));
+
+		fEvents = new TmfEvent[] { fStubEvent, fOtherEvent };
+	}
+
+	// ------------------------------------------------------------------------
+	// Helper functions
+	// ------------------------------------------------------------------------
+
+	/*
+	 * Checks that the compiled filter matches the same events as the filter
+	 * tree, and returns the results (one per test event)
+	 */
+	private boolean[] compare(ITmfFilterTreeNode filter) {
+		TmfCompiledFilter compiledFilter = new TmfCompiledFilter(filter);
+		boolean[] results = new boolean[fEvents.length];
+		// Twice, to go through the cached predicates
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 0; i < fEvents.length; i++) {
+				results[i] = compiledFilter.matches(fEvents[i]);
+				assertEquals("matches", filter.matches(fEvents[i]), results[i]);
+			}
+		}
+		return results;
+	}
+
+	private void assertResults(ITmfFilterTreeNode filter, boolean stubEvent, boolean otherEvent) {
+		boolean[] results = compare(filter);
+		assertEquals("stub event", stubEvent, results[0]);
+		assertEquals("other event", otherEvent, results[1]);
+	}
+
+	private TmfFilterEqualsNode equals(ITmfFilterTreeNode parent, String field, String value) {
+		TmfFilterEqualsNode node = new TmfFilterEqualsNode(parent);
+		node.setField(field);
+		node.setValue(value);
+		return node;
+	}
+
+	private TmfFilterCompareNode compare(ITmfFilterTreeNode parent, String field, TmfFilterCompareNode.Type type, int result, String value) {
+		TmfFilterCompareNode node = new TmfFilterCompareNode(parent);
+		node.setField(field);
+		node.setType(type);
+		node.setResult(result);
+		node.setValue(value);
+		return node;
+	}
+
+	// ------------------------------------------------------------------------
+	// Field nodes
+	// ------------------------------------------------------------------------
+
+	public void testEquals() {
+		TmfFilterEqualsNode node = equals(null, "Field4", "some string");
+		assertResults(node, true, false);
+
+		node.setValue("SOME STRING");
+		assertResults(node, false, false);
+		node.setIgnoreCase(true);
+		assertResults(node, true, false);
+
+		node.setNot(true);
+		assertResults(node, false, true);
+
+		node = equals(null, "Field1", "12.5");
+		assertResults(node, false, true);
+	}
+
+	public void testContains() {
+		TmfFilterContainsNode node = new TmfFilterContainsNode(null);
+		node.setField("Field4");
+		node.setValue("STRING");
+		assertResults(node, false, false);
+
+		node.setIgnoreCase(true);
+		assertResults(node, true, false);
+
+		node.setNot(true);
+		assertResults(node, false, true);
+	}
+
+	public void testMatches() {
+		TmfFilterMatchesNode node = new TmfFilterMatchesNode(null);
+		node.setField("Field1");
+		node.setRegex("[0-9]+\\.[0-9]+");
+		assertResults(node, false, true);
+
+		node.setNot(true);
+		assertResults(node, true, false);
+
+		// Invalid pattern
+		node.setRegex("(");
+		assertResults(node, true, true);
+		node.setNot(false);
+		assertResults(node, false, false);
+	}
+
+	public void testCompareNum() {
+		TmfFilterCompareNode node = compare(null, "Field1", TmfFilterCompareNode.Type.NUM, 1, "5");
+		assertResults(node, false, true);
+
+		node.setResult(-1);
+		assertResults(node, true, false);
+
+		node.setValue("12.5");
+		node.setResult(0);
+		assertResults(node, false, true);
+
+		node = compare(null, "Field2", TmfFilterCompareNode.Type.NUM, -1, "-9");
+		assertResults(node, true, false);
+
+		// Invalid constant
+		node.setValue("abc");
+		assertResults(node, false, false);
+		node.setNot(true);
+		assertResults(node, true, true);
+	}
+
+	public void testCompareAlpha() {
+		TmfFilterCompareNode node = compare(null, "Field4", TmfFilterCompareNode.Type.ALPHA, 1, "some strinf");
+		assertResults(node, true, false);
+
+		node.setValue("some string");
+		node.setResult(0);
+		assertResults(node, true, false);
+	}
+
+	public void testCompareTimestamp() {
+		// Field5 is a TmfTimestamp(1, 2, 3), i.e. 100 seconds
+		TmfFilterCompareNode node = compare(null, "Field5", TmfFilterCompareNode.Type.TIMESTAMP, -1, "1000");
+		assertResults(node, true, false);
+
+		// The event timestamp value, as a number of seconds
+		node = compare(null, TmfEventContent.FIELD_ID_TIMESTAMP, TmfFilterCompareNode.Type.TIMESTAMP, 0, "12345");
+		assertResults(node, true, false);
+
+		node.setValue("2");
+		assertResults(node, false, true);
+		node.setResult(1);
+		assertResults(node, true, false);
+	}
+
+	public void testSpecialFields() {
+		assertResults(equals(null, TmfEventContent.FIELD_ID_TYPE, "OtherType"), false, true);
+		assertResults(equals(null, TmfEventContent.FIELD_ID_SOURCE, "Source"), true, false);
+		assertResults(equals(null, TmfEventContent.FIELD_ID_REFERENCE, "Other reference"), false, true);
+		assertResults(equals(null, TmfEventContent.FIELD_ID_CONTENT, fStubEvent.getContent().toString()), true, false);
+	}
+
+	/*
+	 * A content that maps its own column names in getField(String), as
+	 * LttngEventContent does
+	 */
+	private static class ColumnNamesContent extends TmfEventContent {
+		public ColumnNamesContent(TmfEvent parent, Object content) {
+			super(parent, content);
+		}
+
+		@Override
+		public Object getField(String id) throws TmfNoSuchFieldException {
+			if (id.equals("Timestamp")) {
+				return Long.toString(getEvent().getTimestamp().getValue());
+			} else if (id.equals("Trace")) {
+				return getEvent().getReference().getReference().toString();
+			} else if (id.equals("Marker")) {
+				return getEvent().getType().getTypeId().toString();
+			} else if (id.equals("Content")) {
+				return toString();
+			}
+			return super.getField(id);
+		}
+	}
+
+	public void testOverriddenGetField() {
+		TmfEvent event = new TmfEvent(new TmfTimestamp(7, (byte) 0, 0), new TmfEventSource("Source"),
+				new TmfEventType("OtherType", new String[] { "Field1" }), new TmfEventReference("Trace 1"));
+		event.setContent(new ColumnNamesContent(event, "12.5"));
+
+		ITmfFilterTreeNode[] filters = new ITmfFilterTreeNode[] { equals(null, "Trace", "Trace 1"),
+				equals(null, "Marker", "OtherType"), equals(null, "Content", event.getContent().toString()),
+				compare(null, "Timestamp", TmfFilterCompareNode.Type.NUM, 0, "7"),
+				equals(null, "Field1", "12.5"), equals(null, TmfEventContent.FIELD_ID_SOURCE, "Source") };
+		for (ITmfFilterTreeNode filter : filters) {
+			TmfCompiledFilter compiledFilter = new TmfCompiledFilter(filter);
+			assertTrue("matches", filter.matches(event));
+			assertTrue("matches", compiledFilter.matches(event));
+			assertTrue("matches", compiledFilter.matches(event));
+		}
+
+		// The other events don't have these fields
+		assertResults(equals(null, "Trace", "Trace 1"), false, false);
+
+		TmfFilterEqualsNode node = equals(null, "Trace", "Other trace");
+		assertFalse("matches", new TmfCompiledFilter(node).matches(event));
+		node = equals(null, "Field9", "12.5");
+		assertFalse("matches", new TmfCompiledFilter(node).matches(event));
+	}
+
+	public void testNoSuchField() {
+		TmfFilterEqualsNode node = equals(null, "Field9", "some string");
+		assertResults(node, false, false);
+
+		node.setNot(true);
+		assertResults(node, true, true);
+	}
+
+	// ------------------------------------------------------------------------
+	// Logical nodes
+	// ------------------------------------------------------------------------
+
+	public void testAnd() {
+		TmfFilterAndNode node = new TmfFilterAndNode(null);
+		assertResults(node, true, true);
+
+		equals(node, "Field4", "some string");
+		compare(node, "Field1", TmfFilterCompareNode.Type.NUM, 0, "1");
+		assertResults(node, true, false);
+
+		node.setNot(true);
+		assertResults(node, false, true);
+	}
+
+	public void testOr() {
+		TmfFilterOrNode node = new TmfFilterOrNode(null);
+		assertResults(node, false, false);
+
+		equals(node, "Field4", "some string");
+		equals(node, "Field1", "12.5");
+		assertResults(node, true, true);
+
+		node.setNot(true);
+		assertResults(node, false, false);
+
+		TmfFilterOrNode notNode = new TmfFilterOrNode(null);
+		notNode.setNot(true);
+		equals(notNode, "Field4", "some string");
+		assertResults(notNode, false, true);
+	}
+
+	public void testFilterNode() {
+		TmfFilterRootNode root = new TmfFilterRootNode();
+		TmfFilterNode filter1 = new TmfFilterNode(root, "filter1");
+		equals(filter1, "Field4", "some string");
+		equals(filter1, "Field1", "12.5");
+		assertResults(root, true, true);
+
+		TmfFilterNode filter2 = new TmfFilterNode(root, "filter2");
+		equals(filter2, TmfEventContent.FIELD_ID_TYPE, "OtherType");
+		assertResults(root, false, true);
+	}
+
+	// ------------------------------------------------------------------------
+	// Event type nodes
+	// ------------------------------------------------------------------------
+
+	public void testEventType() {
+		TmfFilterEventTypeNode node = new TmfFilterEventTypeNode(null);
+		node.setEventType(EVENT_CLASS);
+		assertResults(node, true, true);
+
+		equals(node, "Field4", "some string");
+		assertResults(node, true, false);
+
+		node.setEventType("org.eclipse.linuxtools.tmf.event.TmfEventStub");
+		assertResults(node, false, false);
+	}
+
+	public void testCustomEventType() {
+		TmfFilterEventTypeNode node = new TmfFilterEventTypeNode(null);
+		node.setEventType(EVENT_CLASS + ":OtherType");
+		assertResults(node, false, true);
+
+		node.setEventType(EVENT_CLASS + ":TmfEventTypeStub");
+		assertResults(node, true, false);
+	}
+
+	// ------------------------------------------------------------------------
+	// Predicates
+	// ------------------------------------------------------------------------
+
+	public void testGetPredicate() {
+		TmfFilterRootNode root = new TmfFilterRootNode();
+		TmfFilterEventTypeNode node = new TmfFilterEventTypeNode(root);
+		node.setEventType(EVENT_CLASS + ":TmfEventTypeStub");
+		equals(node, "Field4", "some string");
+		TmfCompiledFilter filter = new TmfCompiledFilter(root);
+
+		ITmfFilter predicate = filter.getPredicate(fStubEvent);
+		assertSame("getPredicate", predicate, filter.getPredicate(fStubEvent));
+
+		// Another event of the same type (but another type instance)
+		TmfEvent event = new TmfEvent(new TmfTimestamp(), new TmfEventSource(), new TmfEventTypeStub(), new TmfEventReference());
+		event.setContent(new TmfEventContentStub(event, "Some content"));
+		filter.getPredicate(fOtherEvent);
+		assertSame("getPredicate", predicate, filter.getPredicate(event));
+		assertTrue("matches", filter.matches(event));
+
+		// The events of other types are rejected without looking at their content
+		ITmfFilter otherPredicate = filter.getPredicate(fOtherEvent);
+		assertNotSame("getPredicate", predicate, otherPredicate);
+		assertFalse("matches", otherPredicate.matches(new TmfEvent()));
+	}
+
+	public void testFilterSnapshot() {
+		TmfFilterEqualsNode node = equals(null, "Field4", "some string");
+		TmfCompiledFilter filter = new TmfCompiledFilter(node);
+		node.setValue("other string");
+		assertTrue("matches", filter.matches(fStubEvent));
+	}
+
+	// ------------------------------------------------------------------------
+	// parseNumber
+	// ------------------------------------------------------------------------
+
+	public void testParseNumber() {
+		assertEquals("parseNumber", 123L, TmfCompiledFilter.parseNumber("123").longValue());
+		assertEquals("parseNumber", -45L, TmfCompiledFilter.parseNumber("-45").longValue());
+		assertEquals("parseNumber", 12.5, TmfCompiledFilter.parseNumber("12.5").doubleValue());
+		assertEquals("parseNumber", 12L, TmfCompiledFilter.parseNumber("12abc").longValue());
+		assertEquals("parseNumber", 1E21, TmfCompiledFilter.parseNumber("1000000000000000000000").doubleValue());
+		assertEquals("parseNumber", -0.0, TmfCompiledFilter.parseNumber("-0").doubleValue());
+		assertNull("parseNumber", TmfCompiledFilter.parseNumber("abc"));
+		assertNull("parseNumber", TmfCompiledFilter.parseNumber(""));
+		assertNull("parseNumber", TmfCompiledFilter.parseNumber("-"));
+	}
+
+}
@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.tests.filter;
+
+import java.io.File;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.experiment.TmfExperiment;
+import org.eclipse.linuxtools.tmf.filter.ITmfFilter;
+import org.eclipse.linuxtools.tmf.filter.TmfFilterIndex;
+import org.eclipse.linuxtools.tmf.request.TmfEventRequest;
+import org.eclipse.linuxtools.tmf.tests.TmfCoreTestPlugin;
+import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
+import org.eclipse.linuxtools.tmf.trace.TmfTraceStub;
+
+/**
+ * <b><u>TmfFilterIndexTest</u></b>
+ * <p>
+ * Test suite for the TmfFilterIndex class.
+ */
+@SuppressWarnings("nls")
+public class TmfFilterIndexTest extends TestCase {
+
+	// ------------------------------------------------------------------------
+	// Variables
+	// ------------------------------------------------------------------------
+
+	private static final String DIRECTORY   = "testfiles";
+	private static final String TEST_STREAM = "A-Test-10K";
+	private static final int    BLOCK_SIZE  = 500;
+	private static final int    NB_EVENTS   = 10000;
+
+	private String fPath;
+	private TmfTraceStub fTrace;
+
+	// Matches the events with a timestamp multiple of 3 (event rank = timestamp - 1)
+	private static final ITmfFilter FILTER = new ITmfFilter() {
+		@Override
+		public boolean matches(TmfEvent event) {
+			return event.getTimestamp().getValue() % 3 == 0;
+		}
+	};
+
+	// ------------------------------------------------------------------------
+	// Housekeeping
+	// ------------------------------------------------------------------------
+
+	public TmfFilterIndexTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		URL location = FileLocator.find(TmfCoreTestPlugin.getDefault().getBundle(), new Path(DIRECTORY + File.separator + TEST_STREAM), null);
+		File test = new File(FileLocator.toFileURL(location).toURI());
+		fPath = test.getPath();
+		fTrace = new TmfTraceStub(fPath, BLOCK_SIZE);
+		indexTrace(fTrace);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		fTrace.dispose();
+	}
+
+	// ------------------------------------------------------------------------
+	// Helper functions
+	// ------------------------------------------------------------------------
+
+	private static void indexTrace(TmfTraceStub trace) throws InterruptedException {
+		// Dummy request to force the trace indexing
+		TmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class) {
+			@Override
+			public void handleData(TmfEvent event) {
+				super.handleData(event);
+			}
+		};
+		trace.sendRequest(request);
+		request.waitForCompletion();
+	}
+
+	private void validateIndex(TmfFilterIndex index) {
+		assertTrue("isComplete", index.isComplete());
+		assertFalse("isCancelled", index.isCancelled());
+		assertEquals("getNbEvents", NB_EVENTS, index.getNbEvents());
+		assertEquals("getNbMatches", NB_EVENTS / 3, index.getNbMatches());
+		for (int i = 0; i < index.getNbMatches(); i++) {
+			assertEquals("getRank", 3 * i + 2, index.getRank(i));
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// build
+	// ------------------------------------------------------------------------
+
+	public void testBuild() throws Exception {
+		TmfFilterIndex index = new TmfFilterIndex(fTrace, FILTER);
+		assertFalse("isComplete", index.isComplete());
+		index.build(4);
+		validateIndex(index);
+	}
+
+	public void testBuildSingleThread() throws Exception {
+		TmfFilterIndex index = new TmfFilterIndex(fTrace, FILTER);
+		index.build(1);
+		validateIndex(index);
+	}
+
+	public void testBuildNoMatch() throws Exception {
+		TmfFilterIndex index = new TmfFilterIndex(fTrace, new ITmfFilter() {
+			@Override
+			public boolean matches(TmfEvent event) {
+				return false;
+			}
+		});
+		index.build(4);
+		assertTrue("isComplete", index.isComplete());
+		assertEquals("getNbMatches", 0, index.getNbMatches());
+		assertEquals("getRank", -1, index.getRank(0));
+		assertEquals("getIndex", 0, index.getIndex(NB_EVENTS / 2));
+	}
+
+	public void testBuildDisposesCopies() throws Exception {
+		final AtomicInteger nbCopies = new AtomicInteger(0);
+		final AtomicInteger nbDisposed = new AtomicInteger(0);
+		TmfTraceStub trace = new TmfTraceStub(fPath, BLOCK_SIZE) {
+			@Override
+			public ITmfTrace copy() {
+				nbCopies.incrementAndGet();
+				return super.copy();
+			}
+			@Override
+			public void dispose() {
+				nbDisposed.incrementAndGet();
+				super.dispose();
+			}
+		};
+		indexTrace(trace);
+		TmfFilterIndex index = new TmfFilterIndex(trace, FILTER);
+		index.build(4);
+		validateIndex(index);
+		assertEquals("copies", 4, nbCopies.get());
+		assertEquals("disposed copies", 4, nbDisposed.get());
+		trace.dispose();
+	}
+
+	public void testBuildTraceNotCopyable() throws Exception {
+		TmfTraceStub trace = new TmfTraceStub(fPath, BLOCK_SIZE) {
+			@Override
+			public ITmfTrace copy() {
+				return null;
+			}
+		};
+		indexTrace(trace);
+		TmfFilterIndex index = new TmfFilterIndex(trace, FILTER);
+		index.build(4);
+		validateIndex(index);
+		trace.dispose();
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testBuildExperimentNotCopyable() throws Exception {
+		TmfTraceStub trace = new TmfTraceStub(fPath, BLOCK_SIZE) {
+			@Override
+			public ITmfTrace copy() {
+				return null;
+			}
+		};
+		TmfExperiment<TmfEvent> experiment = new TmfExperiment<TmfEvent>(TmfEvent.class, "experiment",
+				new ITmfTrace[] { trace }, TmfTimestamp.Zero, BLOCK_SIZE, true);
+		assertNull("copy", experiment.copy());
+		TmfFilterIndex index = new TmfFilterIndex(experiment, FILTER);
+		index.build(4);
+		validateIndex(index);
+		experiment.dispose();
+	}
+
+	public void testBuildError() throws Exception {
+		final RuntimeException error = new RuntimeException("filter error");
+		TmfFilterIndex index = new TmfFilterIndex(fTrace, new ITmfFilter() {
+			@Override
+			public boolean matches(TmfEvent event) {
+				throw error;
+			}
+		});
+		assertNull("getError", index.getError());
+		index.build(4);
+		assertFalse("isComplete", index.isComplete());
+		assertTrue("isCancelled", index.isCancelled());
+		assertSame("getError", error, index.getError());
+	}
+
+	public void testCancel() throws Exception {
+		TmfFilterIndex index = new TmfFilterIndex(fTrace, FILTER);
+		index.cancel();
+		index.build(4);
+		assertFalse("isComplete", index.isComplete());
+		assertTrue("isCancelled", index.isCancelled());
+		assertEquals("getNbMatches", 0, index.getNbMatches());
+	}
+
+	// ------------------------------------------------------------------------
+	// Lookups
+	// ------------------------------------------------------------------------
+
+	public void testGetRank() throws Exception {
+		TmfFilterIndex index = new TmfFilterIndex(fTrace, FILTER);
+		index.build(4);
+		assertEquals("getRank", 2, index.getRank(0));
+		assertEquals("getRank", 9998, index.getRank(NB_EVENTS / 3 - 1));
+		assertEquals("getRank", -1, index.getRank(NB_EVENTS / 3));
+		assertEquals("getRank", -1, index.getRank(-1));
+	}
+
+	public void testGetIndex() throws Exception {
+		TmfFilterIndex index = new TmfFilterIndex(fTrace, FILTER);
+		index.build(4);
+		assertEquals("getIndex", 0, index.getIndex(0));
+		assertEquals("getIndex", 0, index.getIndex(2));
+		assertEquals("getIndex", 1, index.getIndex(3));
+		assertEquals("getIndex", 1, index.getIndex(5));
+		assertEquals("getIndex", 2, index.getIndex(6));
+		assertEquals("getIndex", NB_EVENTS / 3, index.getIndex(NB_EVENTS));
+		assertEquals("getIndex", NB_EVENTS / 3, index.getIndex(Long.MAX_VALUE));
+	}
+
+}
@@ -0,0 +1,18 @@
+package org.eclipse.linuxtools.tmf.tests.io;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.linuxtools.tmf.TmfCorePlugin;
+
+@SuppressWarnings("nls")
+public class AllTests {
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite("Test suite for " + TmfCorePlugin.PLUGIN_ID + ".io"); //$NON-NLS-1$);
+		//$JUnit-BEGIN$
+		suite.addTestSuite(MappedFileReaderTest.class);
+		//$JUnit-END$
+		return suite;
+	}
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.tests.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.eclipse.linuxtools.tmf.io.MappedFile;
+import org.eclipse.linuxtools.tmf.io.MappedFileReader;
+
+/**
+ * <b><u>MappedFileReaderTest</u></b>
+ * <p>
+ * Test suite for the MappedFile and MappedFileReader classes. A small window
+ * size is used so that the lines and reads span several windows.
+ */
+@SuppressWarnings("nls")
+public class MappedFileReaderTest extends TestCase {
+
+	// ------------------------------------------------------------------------
+	// Variables
+	// ------------------------------------------------------------------------
+
+	private static final int WINDOW_SIZE = 16;
+
+	private static final String CONTENT =
+		"first line\n" +
+		"second line, longer than a window\r\n" +
+		"\n" +
+		"caf\u00e9 cr\u00e8me br\u00fbl\u00e9e\n" +
+		"last line";
+
+	private File fFile;
+	private MappedFile fMappedFile;
+
+	// ------------------------------------------------------------------------
+	// Housekeeping
+	// ------------------------------------------------------------------------
+
+	public MappedFileReaderTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		fFile = File.createTempFile("mapped", ".txt");
+		fFile.deleteOnExit();
+		write(CONTENT, false);
+		fMappedFile = new MappedFile(fFile, WINDOW_SIZE);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		fMappedFile.close();
+		fFile.delete();
+	}
+
+	private void write(String text, boolean append) throws IOException {
+		FileOutputStream out = new FileOutputStream(fFile, append);
+		out.write(text.getBytes("UTF-8"));
+		out.close();
+	}
+
+	// ------------------------------------------------------------------------
+	// getNextLine
+	// ------------------------------------------------------------------------
+
+	public void testGetNextLine() throws Exception {
+		MappedFileReader reader = fMappedFile.newReader();
+		assertEquals("getNextLine", "first line", reader.getNextLine());
+		assertEquals("getFilePointer", 11, reader.getFilePointer());
+		assertEquals("getNextLine", "second line, longer than a window", reader.getNextLine());
+		assertEquals("getNextLine", "", reader.getNextLine());
+		assertEquals("getNextLine", "caf\u00e9 cr\u00e8me br\u00fbl\u00e9e", reader.getNextLine());
+		assertEquals("getNextLine", "last line", reader.getNextLine());
+		assertEquals("getFilePointer", fFile.length(), reader.getFilePointer());
+		assertNull("getNextLine", reader.getNextLine());
+	}
+
+	public void testSeek() throws Exception {
+		MappedFileReader reader = fMappedFile.newReader();
+		reader.seek(18);
+		assertEquals("getNextLine", "line, longer than a window", reader.getNextLine());
+		reader.seek(0);
+		assertEquals("getNextLine", "first line", reader.getNextLine());
+		reader.seek(fFile.length());
+		assertNull("getNextLine", reader.getNextLine());
+		assertEquals("read", -1, reader.read());
+	}
+
+	public void testConcurrentReaders() throws Exception {
+		MappedFileReader reader1 = fMappedFile.newReader();
+		MappedFileReader reader2 = fMappedFile.newReader();
+		assertEquals("getNextLine", "first line", reader1.getNextLine());
+		assertEquals("getNextLine", "first line", reader2.getNextLine());
+		assertEquals("getNextLine", "second line, longer than a window", reader1.getNextLine());
+		assertEquals("getFilePointer", 11, reader2.getFilePointer());
+	}
+
+	// ------------------------------------------------------------------------
+	// read
+	// ------------------------------------------------------------------------
+
+	public void testRead() throws Exception {
+		MappedFileReader reader = fMappedFile.newReader();
+		assertEquals("read", 'f', reader.read());
+		reader.seek(WINDOW_SIZE - 1);
+		assertEquals("read", CONTENT.charAt(WINDOW_SIZE - 1), reader.read());
+		assertEquals("read", CONTENT.charAt(WINDOW_SIZE), reader.read());
+
+		// Bytes over 127 are returned as positive values
+		byte[] bytes = CONTENT.getBytes("UTF-8");
+		int pos = CONTENT.indexOf('\u00e9');
+		reader.seek(pos);
+		assertEquals("read", bytes[pos] & 0xFF, reader.read());
+	}
+
+	public void testReadArray() throws Exception {
+		MappedFileReader reader = fMappedFile.newReader();
+		byte[] expected = CONTENT.getBytes("UTF-8");
+		byte[] buffer = new byte[expected.length + 10];
+		reader.seek(5);
+		int n = reader.read(buffer, 1, 3 * WINDOW_SIZE);
+		assertEquals("read", 3 * WINDOW_SIZE, n);
+		for (int i = 0; i < n; i++) {
+			assertEquals("read", expected[5 + i], buffer[1 + i]);
+		}
+
+		// Up to the end of the file
+		reader.seek(0);
+		n = reader.read(buffer, 0, buffer.length);
+		assertEquals("read", expected.length, n);
+		assertEquals("read", -1, reader.read(buffer, 0, buffer.length));
+	}
+
+	// ------------------------------------------------------------------------
+	// Growing file
+	// ------------------------------------------------------------------------
+
+	public void testGrowingFile() throws Exception {
+		MappedFileReader reader = fMappedFile.newReader();
+		long length = fFile.length();
+		while (reader.getNextLine() != null) {
+		}
+
+		write("\nappended line\n", true);
+		assertEquals("length", length + 15, reader.length());
+		reader.seek(length + 1);
+		assertEquals("getNextLine", "appended line", reader.getNextLine());
+		assertNull("getNextLine", reader.getNextLine());
+	}
+
+	public void testEmptyFile() throws Exception {
+		write("", false);
+		MappedFile file = new MappedFile(fFile, WINDOW_SIZE);
+		MappedFileReader reader = file.newReader();
+		assertNull("getNextLine", reader.getNextLine());
+		assertEquals("read", -1, reader.read());
+		file.close();
+	}
+
+}
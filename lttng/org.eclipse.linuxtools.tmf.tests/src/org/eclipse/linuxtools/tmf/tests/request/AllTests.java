@@ -16,6 +16,7 @@ public class AllTests {
 		suite.addTestSuite(TmfCoalescedDataRequestTest.class);
 		suite.addTestSuite(TmfCoalescedEventRequestTest.class);
 		suite.addTestSuite(TmfRequestExecutorTest.class);
+		suite.addTestSuite(TmfSharedScanRequestTest.class);
 		//$JUnit-END$
 		return suite;
 	}
@@ -12,10 +12,15 @@
 
 package org.eclipse.linuxtools.tmf.tests.request;
 
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import junit.framework.TestCase;
 
+import org.eclipse.linuxtools.tmf.component.TmfThread;
+import org.eclipse.linuxtools.tmf.request.ITmfDataRequest.ExecutionType;
 import org.eclipse.linuxtools.tmf.request.TmfRequestExecutor;
 
 /**
@@ -93,8 +98,151 @@ public class TmfRequestExecutorTest extends TestCase {
 	/**
 	 * Test method for {@link org.eclipse.linuxtools.tmf.request.TmfRequestExecutor#execute(java.lang.Runnable)}.
 	 */
-	public void testExecute() {
-//		fail("Not yet implemented");
+	public void testExecute() throws InterruptedException {
+		TmfRequestExecutor executor = new TmfRequestExecutor();
+		RequestThread thread = new RequestThread(ExecutionType.FOREGROUND, "F", null, null);
+		executor.execute(thread);
+		assertTrue("completed", thread.fCompleted.await(10, TimeUnit.SECONDS));
+		waitForCompletion(executor, ExecutionType.FOREGROUND, 1);
+		assertEquals("nbPendingRequests", 0, executor.getNbPendingRequests());
+		assertEquals("nbRunningRequests", 0, executor.getNbRunningRequests());
+		executor.stop();
+	}
+
+	public void testExecuteOrder() throws InterruptedException {
+		TmfRequestExecutor executor = new TmfRequestExecutor();
+		Vector<String> order = new Vector<String>();
+		CountDownLatch gate = new CountDownLatch(1);
+
+		executor.execute(new RequestThread(ExecutionType.FOREGROUND, "F0", order, gate));
+		executor.execute(new RequestThread(ExecutionType.BACKGROUND, "B1", order, null));
+		executor.execute(new RequestThread(ExecutionType.FOREGROUND, "F1", order, null));
+		executor.execute(new RequestThread(ExecutionType.BACKGROUND, "B2", order, null));
+		executor.execute(new RequestThread(ExecutionType.FOREGROUND, "F2", order, null));
+		assertEquals("nbRunningRequests", 1, executor.getNbRunningRequests());
+		assertEquals("nbPendingRequests", 4, executor.getNbPendingRequests());
+
+		// Foreground requests first, then in order of arrival
+		gate.countDown();
+		waitForCompletion(executor, ExecutionType.BACKGROUND, 2);
+		assertEquals("order", "[F0, F1, F2, B1, B2]", order.toString());
+		assertEquals("nbCompletedRequests", 3, executor.getNbCompletedRequests(ExecutionType.FOREGROUND));
+		executor.stop();
+	}
+
+	public void testConcurrentRequests() throws InterruptedException {
+		TmfRequestExecutor executor = new TmfRequestExecutor(3);
+		CountDownLatch gate = new CountDownLatch(1);
+
+		// One slot is kept for the foreground requests
+		RequestThread b1 = new RequestThread(ExecutionType.BACKGROUND, "B1", null, gate);
+		RequestThread b2 = new RequestThread(ExecutionType.BACKGROUND, "B2", null, gate);
+		RequestThread b3 = new RequestThread(ExecutionType.BACKGROUND, "B3", null, gate);
+		executor.execute(b1);
+		executor.execute(b2);
+		executor.execute(b3);
+		assertTrue("started", b1.fStarted.await(10, TimeUnit.SECONDS));
+		assertTrue("started", b2.fStarted.await(10, TimeUnit.SECONDS));
+		assertEquals("nbRunningRequests", 2, executor.getNbRunningRequests());
+		assertEquals("nbPendingRequests", 1, executor.getNbPendingRequests());
+
+		// A foreground request gets serviced while the background ones run
+		RequestThread f1 = new RequestThread(ExecutionType.FOREGROUND, "F1", null, null);
+		executor.execute(f1);
+		assertTrue("completed", f1.fCompleted.await(10, TimeUnit.SECONDS));
+		assertEquals("started", 1, b3.fStarted.getCount());
+
+		gate.countDown();
+		waitForCompletion(executor, ExecutionType.BACKGROUND, 3);
+		executor.stop();
+	}
+
+	public void testTimeSlice() throws InterruptedException {
+		TmfRequestExecutor executor = new TmfRequestExecutor();
+		executor.setTimeSlice(10);
+
+		// A long background request, yielding when asked to
+		final CountDownLatch backgroundStarted = new CountDownLatch(1);
+		final int[] progress = new int[1];
+		final int[] nbYields = new int[1];
+		TmfThread background = new TmfThread(ExecutionType.BACKGROUND) {
+			@Override
+			public void run() {
+				backgroundStarted.countDown();
+				while (progress[0] < 200) {
+					if (shouldYield()) {
+						nbYields[0]++;
+						setSuspended(true);
+						return;
+					}
+					progress[0]++;
+					try {
+						Thread.sleep(5);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		};
+		executor.execute(background);
+		assertTrue("started", backgroundStarted.await(10, TimeUnit.SECONDS));
+
+		// The foreground request doesn't wait for the background one to complete
+		RequestThread foreground = new RequestThread(ExecutionType.FOREGROUND, "F", null, null);
+		executor.execute(foreground);
+		assertTrue("completed", foreground.fCompleted.await(10, TimeUnit.SECONDS));
+		assertTrue("progress", progress[0] < 200);
+
+		// The background request is then resumed
+		waitForCompletion(executor, ExecutionType.BACKGROUND, 1);
+		assertEquals("progress", 200, progress[0]);
+		assertEquals("nbYields", 1, nbYields[0]);
+		assertEquals("nbCompletedRequests", 1, executor.getNbCompletedRequests(ExecutionType.FOREGROUND));
+		assertTrue("waitTime", executor.getMaxWaitTime(ExecutionType.FOREGROUND) < 10000);
+		assertTrue("executionTime", executor.getAverageExecutionTime(ExecutionType.BACKGROUND) >= 1000);
+		executor.stop();
+	}
+
+	// ------------------------------------------------------------------------
+	// Helper functions
+	// ------------------------------------------------------------------------
+
+	private static class RequestThread extends TmfThread {
+		private final String fName;
+		private final Vector<String> fOrder;
+		private final CountDownLatch fGate;
+		final CountDownLatch fStarted = new CountDownLatch(1);
+		final CountDownLatch fCompleted = new CountDownLatch(1);
+
+		public RequestThread(ExecutionType execType, String name, Vector<String> order, CountDownLatch gate) {
+			super(execType);
+			fName = name;
+			fOrder = order;
+			fGate = gate;
+		}
+
+		@Override
+		public void run() {
+			fStarted.countDown();
+			if (fOrder != null) {
+				fOrder.add(fName);
+			}
+			try {
+				if (fGate != null) {
+					fGate.await();
+				}
+			} catch (InterruptedException e) {
+			}
+			fCompleted.countDown();
+		}
+	}
+
+	private static void waitForCompletion(TmfRequestExecutor executor, ExecutionType execType, int nbRequests) throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 10000;
+		while (executor.getNbCompletedRequests(execType) < nbRequests && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+		assertEquals("nbCompletedRequests", nbRequests, executor.getNbCompletedRequests(execType));
 	}
 
 	// ------------------------------------------------------------------------
@@ -0,0 +1,211 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.tests.request;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
+import org.eclipse.linuxtools.tmf.request.TmfDataRequest;
+import org.eclipse.linuxtools.tmf.request.TmfEventRequest;
+import org.eclipse.linuxtools.tmf.request.TmfEventRequestStub;
+import org.eclipse.linuxtools.tmf.request.TmfSharedScanRequest;
+import org.eclipse.linuxtools.tmf.tests.TmfCoreTestPlugin;
+import org.eclipse.linuxtools.tmf.trace.TmfTraceStub;
+
+/**
+ * <b><u>TmfSharedScanRequestTest</u></b>
+ * <p>
+ * Test suite for the TmfSharedScanRequest class.
+ */
+@SuppressWarnings("nls")
+public class TmfSharedScanRequestTest extends TestCase {
+
+    private static final String DIRECTORY   = "testfiles";
+    private static final String TEST_STREAM = "A-Test-10K";
+    private static final int    NB_EVENTS   = 10000;
+    private static final int    BLOCK_SIZE  = 100;
+    private static final int    JOIN_AT     = 3000;
+
+    private static TmfTimeRange range = new TmfTimeRange(TmfTimeRange.Eternity);
+
+	// ------------------------------------------------------------------------
+	// Housekeeping
+	// ------------------------------------------------------------------------
+
+	public TmfSharedScanRequestTest(String name) {
+		super(name);
+	}
+
+	private TmfTraceStub setupTrace(String path) throws Exception {
+        URL location = FileLocator.find(TmfCoreTestPlugin.getDefault().getBundle(), new Path(path), null);
+        File test = new File(FileLocator.toFileURL(location).toURI());
+        return new TmfTraceStub(test.getPath(), 500);
+	}
+
+	// ------------------------------------------------------------------------
+	// isShareable
+	// ------------------------------------------------------------------------
+
+	public void testIsShareable() {
+		TmfEventRequest<TmfEvent> request = new TmfEventRequestStub<TmfEvent>(TmfEvent.class, range);
+		assertFalse("isShareable", TmfSharedScanRequest.isShareable(request));
+
+		request.setJoinable(true);
+		assertTrue("isShareable", TmfSharedScanRequest.isShareable(request));
+
+		request = new TmfEventRequestStub<TmfEvent>(TmfEvent.class, range, 100);
+		request.setJoinable(true);
+		assertFalse("isShareable", TmfSharedScanRequest.isShareable(request));
+	}
+
+	// ------------------------------------------------------------------------
+	// join
+	// ------------------------------------------------------------------------
+
+	public void testJoin() {
+		TmfSharedScanRequest<TmfEvent> scan = new TmfSharedScanRequest<TmfEvent>(TmfEvent.class);
+
+		TmfEventRequest<TmfEvent> request1 = new TmfEventRequestStub<TmfEvent>(TmfEvent.class, range);
+		assertFalse("join", scan.join(request1));
+
+		request1.setJoinable(true);
+		request1.setFlyweight(true);
+		assertTrue("join", scan.join(request1));
+		assertTrue("isFlyweight", scan.isFlyweight());
+
+		TmfEventRequest<TmfEvent> request2 = new TmfEventRequestStub<TmfEvent>(TmfEvent.class, range);
+		request2.setJoinable(true);
+		assertTrue("join", scan.join(request2));
+		assertFalse("isFlyweight", scan.isFlyweight());
+		assertEquals("getNbSharingRequests", 2, scan.getNbSharingRequests());
+	}
+
+	public void testJoinClosedScan() {
+		TmfSharedScanRequest<TmfEvent> scan = new TmfSharedScanRequest<TmfEvent>(TmfEvent.class);
+		TmfEventRequest<TmfEvent> request1 = new TmfEventRequestStub<TmfEvent>(TmfEvent.class, range);
+		request1.setJoinable(true);
+		assertTrue("join", scan.join(request1));
+
+		scan.cancel();
+		assertTrue("isCancelled", request1.isCancelled());
+
+		TmfEventRequest<TmfEvent> request2 = new TmfEventRequestStub<TmfEvent>(TmfEvent.class, range);
+		request2.setJoinable(true);
+		assertFalse("join", scan.join(request2));
+	}
+
+	// ------------------------------------------------------------------------
+	// Shared scan
+	// ------------------------------------------------------------------------
+
+    public void testSharedScan() throws Exception {
+
+    	final TmfTraceStub trace = setupTrace(DIRECTORY + File.separator + TEST_STREAM);
+
+    	final Vector<TmfEvent> requestedEvents1 = new Vector<TmfEvent>();
+    	final Vector<TmfEvent> requestedEvents2 = new Vector<TmfEvent>();
+
+    	final TmfEventRequest<TmfEvent> request2 = new TmfEventRequest<TmfEvent>(TmfEvent.class, range, TmfDataRequest.ALL_DATA, BLOCK_SIZE) {
+            @Override
+            public void handleData(TmfEvent event) {
+        		super.handleData(event);
+        		requestedEvents2.add(event);
+            }
+        };
+        request2.setJoinable(true);
+
+    	TmfEventRequest<TmfEvent> request1 = new TmfEventRequest<TmfEvent>(TmfEvent.class, range, TmfDataRequest.ALL_DATA, BLOCK_SIZE) {
+            @Override
+            public void handleData(TmfEvent event) {
+        		super.handleData(event);
+        		requestedEvents1.add(event);
+        		// Join the scan in progress
+        		if (requestedEvents1.size() == JOIN_AT) {
+        			trace.sendRequest(request2);
+        		}
+            }
+        };
+        request1.setJoinable(true);
+
+        trace.sendRequest(request1);
+        request1.waitForCompletion();
+        request2.waitForCompletion();
+
+        assertEquals("Request1: nbEvents", NB_EVENTS, requestedEvents1.size());
+        assertTrue  ("Request1: isCompleted", request1.isCompleted());
+        assertFalse ("Request1: isCancelled", request1.isCancelled());
+
+        assertEquals("Request2: nbEvents", NB_EVENTS, requestedEvents2.size());
+        assertTrue  ("Request2: isCompleted", request2.isCompleted());
+        assertFalse ("Request2: isCancelled", request2.isCancelled());
+
+        // Request2 joined the scan after JOIN_AT events and got the first events last
+        for (int i = 0; i < NB_EVENTS; i++) {
+            assertEquals("Distinct events", i + 1, requestedEvents1.get(i).getTimestamp().getValue());
+            assertEquals("Distinct events", (i + JOIN_AT) % NB_EVENTS + 1, requestedEvents2.get(i).getTimestamp().getValue());
+        }
+
+        trace.dispose();
+    }
+
+    public void testCancelSharedRequest() throws Exception {
+
+    	final TmfTraceStub trace = setupTrace(DIRECTORY + File.separator + TEST_STREAM);
+
+    	final Vector<TmfEvent> requestedEvents1 = new Vector<TmfEvent>();
+    	final Vector<TmfEvent> requestedEvents2 = new Vector<TmfEvent>();
+
+    	TmfEventRequest<TmfEvent> request1 = new TmfEventRequest<TmfEvent>(TmfEvent.class, range, TmfDataRequest.ALL_DATA, BLOCK_SIZE) {
+            @Override
+            public void handleData(TmfEvent event) {
+        		super.handleData(event);
+        		requestedEvents1.add(event);
+        		if (requestedEvents1.size() == BLOCK_SIZE) {
+        			cancel();
+        		}
+            }
+        };
+        request1.setJoinable(true);
+
+    	TmfEventRequest<TmfEvent> request2 = new TmfEventRequest<TmfEvent>(TmfEvent.class, range, TmfDataRequest.ALL_DATA, BLOCK_SIZE) {
+            @Override
+            public void handleData(TmfEvent event) {
+        		super.handleData(event);
+        		requestedEvents2.add(event);
+            }
+        };
+        request2.setJoinable(true);
+
+        trace.sendRequest(request1);
+        trace.sendRequest(request2);
+        request1.waitForCompletion();
+        request2.waitForCompletion();
+
+        assertEquals("Request1: nbEvents", BLOCK_SIZE, requestedEvents1.size());
+        assertTrue  ("Request1: isCancelled", request1.isCancelled());
+
+        assertEquals("Request2: nbEvents", NB_EVENTS, requestedEvents2.size());
+        assertTrue  ("Request2: isCompleted", request2.isCompleted());
+        assertFalse ("Request2: isCancelled", request2.isCancelled());
+
+        trace.dispose();
+    }
+
+}
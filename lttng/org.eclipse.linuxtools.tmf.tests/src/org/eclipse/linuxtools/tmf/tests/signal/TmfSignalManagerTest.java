@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.tests.signal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.eclipse.linuxtools.tmf.signal.TmfEndSynchSignal;
+import org.eclipse.linuxtools.tmf.signal.TmfSignal;
+import org.eclipse.linuxtools.tmf.signal.TmfSignalHandler;
+import org.eclipse.linuxtools.tmf.signal.TmfSignalManager;
+import org.eclipse.linuxtools.tmf.signal.TmfStartSynchSignal;
+
+/**
+ * <b><u>TmfSignalManagerTest</u></b>
+ * <p>
+ * Test suite for the TmfSignalManager class.
+ */
+@SuppressWarnings("nls")
+public class TmfSignalManagerTest extends TestCase {
+
+    // ------------------------------------------------------------------------
+    // Test signals and listeners
+    // ------------------------------------------------------------------------
+
+    public static class TestSignal extends TmfSignal {
+        public TestSignal(Object source) {
+            super(source);
+        }
+    }
+
+    public static class TestSubSignal extends TestSignal {
+        public TestSubSignal(Object source) {
+            super(source);
+        }
+    }
+
+    // The sequence of handler calls, shared by all the listeners
+    private static final List<String> fCalls = new ArrayList<String>();
+
+    public static class TestListener {
+        private final String fName;
+        public int fStartId = -1;
+        public int fEndId = -1;
+
+        public TestListener(String name) {
+            fName = name;
+        }
+
+        @TmfSignalHandler
+        public void testSignal(TestSignal signal) {
+            fCalls.add(fName + ":" + signal.getClass().getSimpleName() + ":" + signal.getReference());
+        }
+
+        @TmfSignalHandler
+        public void startSynch(TmfStartSynchSignal signal) {
+            fStartId = signal.getReference();
+        }
+
+        @TmfSignalHandler
+        public void endSynch(TmfEndSynchSignal signal) {
+            fEndId = signal.getReference();
+        }
+    }
+
+    public static class SubListener {
+        @TmfSignalHandler
+        public void subSignal(TestSubSignal signal) {
+            fCalls.add("sub");
+        }
+    }
+
+    private final List<Object> fListeners = new ArrayList<Object>();
+
+    // Runs the async deliveries on demand
+    private final List<Runnable> fDeliveries = new ArrayList<Runnable>();
+    private final Executor fExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            fDeliveries.add(command);
+        }
+    };
+
+    // ------------------------------------------------------------------------
+    // Housekeeping
+    // ------------------------------------------------------------------------
+
+    public TmfSignalManagerTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        fCalls.clear();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        for (Object listener : fListeners) {
+            TmfSignalManager.deregister(listener);
+        }
+        fListeners.clear();
+        TmfSignalManager.setAsyncExecutor(null);
+    }
+
+    private void runDeliveries() {
+        while (!fDeliveries.isEmpty()) {
+            fDeliveries.remove(0).run();
+        }
+    }
+
+    private <T> T register(T listener, boolean vip) {
+        fListeners.add(listener);
+        if (vip) {
+            TmfSignalManager.registerVIP(listener);
+        } else {
+            TmfSignalManager.register(listener);
+        }
+        return listener;
+    }
+
+    // ------------------------------------------------------------------------
+    // dispatchSignal
+    // ------------------------------------------------------------------------
+
+    public void testDispatchSignal() {
+        TestListener listener = register(new TestListener("a"), false);
+        TestSignal signal = new TestSignal(this);
+        TmfSignalManager.dispatchSignal(signal);
+
+        int id = signal.getReference();
+        assertEquals("calls", 1, fCalls.size());
+        assertEquals("calls", "a:TestSignal:" + id, fCalls.get(0));
+        assertEquals("startSynch", id, listener.fStartId);
+        assertEquals("endSynch", id, listener.fEndId);
+
+        TmfSignalManager.dispatchSignal(new TestSignal(this));
+        assertEquals("calls", "a:TestSignal:" + (id + 1), fCalls.get(1));
+    }
+
+    public void testDispatchSubclass() {
+        register(new TestListener("a"), false);
+        register(new SubListener(), false);
+
+        TmfSignalManager.dispatchSignal(new TestSignal(this));
+        assertEquals("calls", 1, fCalls.size());
+
+        TestSignal signal = new TestSubSignal(this);
+        TmfSignalManager.dispatchSignal(signal);
+        assertEquals("calls", 3, fCalls.size());
+        assertEquals("calls", "a:TestSubSignal:" + signal.getReference(), fCalls.get(1));
+        assertEquals("calls", "sub", fCalls.get(2));
+    }
+
+    public void testVIPListenersFirst() {
+        register(new TestListener("a"), false);
+        register(new TestListener("b"), true);
+        register(new TestListener("c"), false);
+
+        TestSignal signal = new TestSignal(this);
+        TmfSignalManager.dispatchSignal(signal);
+        int id = signal.getReference();
+        assertEquals("calls", 3, fCalls.size());
+        assertEquals("calls", "b:TestSignal:" + id, fCalls.get(0));
+        assertEquals("calls", "a:TestSignal:" + id, fCalls.get(1));
+        assertEquals("calls", "c:TestSignal:" + id, fCalls.get(2));
+    }
+
+    public void testRegisterAfterDispatch() {
+        register(new TestListener("a"), false);
+        TmfSignalManager.dispatchSignal(new TestSignal(this));
+        assertEquals("calls", 1, fCalls.size());
+
+        // The dispatch table already holds the TestSignal handlers
+        register(new TestListener("b"), false);
+        TmfSignalManager.dispatchSignal(new TestSignal(this));
+        assertEquals("calls", 3, fCalls.size());
+        assertTrue("calls", fCalls.get(2).startsWith("b:"));
+    }
+
+    public void testDeregister() {
+        TestListener listener = register(new TestListener("a"), true);
+        register(new TestListener("b"), false);
+        TmfSignalManager.dispatchSignal(new TestSignal(this));
+        assertEquals("calls", 2, fCalls.size());
+
+        TmfSignalManager.deregister(listener);
+        TmfSignalManager.dispatchSignal(new TestSignal(this));
+        assertEquals("calls", 3, fCalls.size());
+        assertTrue("calls", fCalls.get(2).startsWith("b:"));
+    }
+
+    public void testRegisterDuringDispatch() {
+        final TestListener late = new TestListener("late");
+        register(new Object() {
+            @TmfSignalHandler
+            public void register(TestSignal signal) {
+                if (!fListeners.contains(late)) {
+                    TmfSignalManagerTest.this.register(late, false);
+                }
+            }
+        }, false);
+
+        // The new listener only gets the next signals
+        TmfSignalManager.dispatchSignal(new TestSignal(this));
+        assertEquals("calls", 0, fCalls.size());
+        TmfSignalManager.dispatchSignal(new TestSignal(this));
+        assertEquals("calls", 1, fCalls.size());
+        assertTrue("calls", fCalls.get(0).startsWith("late:"));
+    }
+
+    // ------------------------------------------------------------------------
+    // dispatchSignalAsync
+    // ------------------------------------------------------------------------
+
+    public void testDispatchSignalAsync() {
+        TmfSignalManager.setAsyncExecutor(fExecutor);
+        TestListener listener = register(new TestListener("a"), false);
+        long count = TmfSignalManager.getAsyncSignalCount();
+
+        TestSignal signal = new TestSignal(this);
+        TmfSignalManager.dispatchSignalAsync(signal);
+        assertEquals("calls", 0, fCalls.size());
+        assertEquals("getAsyncSignalCount", count + 1, TmfSignalManager.getAsyncSignalCount());
+
+        runDeliveries();
+        assertEquals("calls", 1, fCalls.size());
+        assertEquals("calls", "a:TestSignal:" + signal.getReference(), fCalls.get(0));
+        assertEquals("startSynch", signal.getReference(), listener.fStartId);
+        assertEquals("endSynch", signal.getReference(), listener.fEndId);
+    }
+
+    public void testCoalescing() {
+        TmfSignalManager.setAsyncExecutor(fExecutor);
+        register(new TestListener("a"), false);
+        long coalesced = TmfSignalManager.getCoalescedSignalCount();
+        Object source1 = new Object();
+        Object source2 = new Object();
+
+        TmfSignalManager.dispatchSignalAsync(new TestSignal(source1));
+        TmfSignalManager.dispatchSignalAsync(new TestSignal(source2));
+        TmfSignalManager.dispatchSignalAsync(new TestSubSignal(source1));
+        TestSignal last = new TestSignal(source1);
+        TmfSignalManager.dispatchSignalAsync(last);
+        assertEquals("deliveries", 1, fDeliveries.size());
+        assertEquals("getCoalescedSignalCount", coalesced + 1, TmfSignalManager.getCoalescedSignalCount());
+
+        // The superseding signal takes the place of the superseded one
+        runDeliveries();
+        assertEquals("calls", 3, fCalls.size());
+        assertTrue("calls", fCalls.get(0).startsWith("a:TestSignal:"));
+        assertTrue("calls", fCalls.get(1).startsWith("a:TestSubSignal:"));
+        assertEquals("calls", "a:TestSignal:" + last.getReference(), fCalls.get(2));
+    }
+
+    public void testSignalQueuedDuringDelivery() {
+        TmfSignalManager.setAsyncExecutor(fExecutor);
+        register(new TestListener("a"), false);
+        register(new Object() {
+            @TmfSignalHandler
+            public void forward(TestSignal signal) {
+                if (!(signal instanceof TestSubSignal)) {
+                    TmfSignalManager.dispatchSignalAsync(new TestSubSignal(this));
+                }
+            }
+        }, false);
+
+        TmfSignalManager.dispatchSignalAsync(new TestSignal(this));
+        fDeliveries.remove(0).run();
+        assertEquals("calls", 1, fCalls.size());
+
+        // The delivery task was re-scheduled for the new signal
+        assertEquals("deliveries", 1, fDeliveries.size());
+        runDeliveries();
+        assertEquals("calls", 2, fCalls.size());
+        assertTrue("calls", fCalls.get(1).startsWith("a:TestSubSignal:"));
+    }
+
+    public void testDroppedSignals() {
+        TmfSignalManager.setAsyncExecutor(fExecutor);
+        register(new TestListener("a"), false);
+        TestListener source = register(new TestListener("b"), false);
+        long dropped = TmfSignalManager.getDroppedSignalCount();
+
+        TmfSignalManager.dispatchSignalAsync(new TestSignal(source));
+        TmfSignalManager.dispatchSignalAsync(new TestSignal(this));
+        TmfSignalManager.deregister(source);
+        assertEquals("getDroppedSignalCount", dropped + 1, TmfSignalManager.getDroppedSignalCount());
+
+        runDeliveries();
+        assertEquals("calls", 1, fCalls.size());
+    }
+
+    public void testDispatcherThread() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Thread[] thread = new Thread[1];
+        register(new Object() {
+            @TmfSignalHandler
+            public void handle(TestSignal signal) {
+                thread[0] = Thread.currentThread();
+                latch.countDown();
+            }
+        }, false);
+
+        TmfSignalManager.dispatchSignalAsync(new TestSignal(this));
+        assertTrue("delivered", latch.await(10, TimeUnit.SECONDS));
+        assertNotSame("thread", Thread.currentThread(), thread[0]);
+    }
+
+}
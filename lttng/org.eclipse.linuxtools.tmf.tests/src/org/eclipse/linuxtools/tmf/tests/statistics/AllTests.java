@@ -0,0 +1,18 @@
+package org.eclipse.linuxtools.tmf.tests.statistics;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.linuxtools.tmf.TmfCorePlugin;
+
+@SuppressWarnings("nls")
+public class AllTests {
+
+	public static Test suite() {
+		TestSuite suite = new TestSuite("Test suite for " + TmfCorePlugin.PLUGIN_ID + ".statistics"); //$NON-NLS-1$);
+		//$JUnit-BEGIN$
+		suite.addTestSuite(TmfStatisticsCacheTest.class);
+		//$JUnit-END$
+		return suite;
+	}
+}
@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.tests.statistics;
+
+import java.io.File;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.request.TmfEventRequest;
+import org.eclipse.linuxtools.tmf.statistics.TmfPartialStatistics;
+import org.eclipse.linuxtools.tmf.statistics.TmfStatisticsCache;
+import org.eclipse.linuxtools.tmf.tests.TmfCoreTestPlugin;
+import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
+import org.eclipse.linuxtools.tmf.trace.TmfContext;
+import org.eclipse.linuxtools.tmf.trace.TmfTraceStub;
+
+/**
+ * <b><u>TmfStatisticsCacheTest</u></b>
+ * <p>
+ * Test suite for the TmfStatisticsCache and TmfPartialStatistics classes.
+ */
+@SuppressWarnings("nls")
+public class TmfStatisticsCacheTest extends TestCase {
+
+	// ------------------------------------------------------------------------
+	// Variables
+	// ------------------------------------------------------------------------
+
+	private static final String DIRECTORY   = "testfiles";
+	private static final String TEST_STREAM = "A-Test-10K";
+	private static final int    BLOCK_SIZE  = 500;
+	private static final int    NB_EVENTS   = 10000;
+	private static final int    NB_TYPES    = 7;
+	private static final byte   SCALE       = (byte) -3;
+
+	private String fPath;
+	private TmfTraceStub fTrace;
+
+	// ------------------------------------------------------------------------
+	// Housekeeping
+	// ------------------------------------------------------------------------
+
+	public TmfStatisticsCacheTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		URL location = FileLocator.find(TmfCoreTestPlugin.getDefault().getBundle(), new Path(DIRECTORY + File.separator + TEST_STREAM), null);
+		File test = new File(FileLocator.toFileURL(location).toURI());
+		fPath = test.getPath();
+		fTrace = new TmfTraceStub(fPath, BLOCK_SIZE);
+		indexTrace(fTrace);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		fTrace.dispose();
+	}
+
+	// ------------------------------------------------------------------------
+	// Helper functions
+	// ------------------------------------------------------------------------
+
+	private static void indexTrace(TmfTraceStub trace) throws InterruptedException {
+		// Dummy request to force the trace indexing
+		TmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class) {
+			@Override
+			public void handleData(TmfEvent event) {
+				super.handleData(event);
+			}
+		};
+		trace.sendRequest(request);
+		request.waitForCompletion();
+	}
+
+	// The event of timestamp t (t = rank + 1) has type (rank % NB_TYPES)
+	private static void validateStatistics(TmfPartialStatistics statistics, long firstTime, long lastTime) {
+		assertEquals("getNbEvents", lastTime - firstTime + 1, statistics.getNbEvents());
+		assertEquals("getStartTime", new TmfTimestamp(firstTime, SCALE), statistics.getStartTime());
+		assertEquals("getEndTime", new TmfTimestamp(lastTime, SCALE), statistics.getEndTime());
+
+		assertEquals("getTraceNames", 1, statistics.getTraceNames().size());
+		String traceName = statistics.getTraceNames().iterator().next();
+		assertEquals("getNbEvents", statistics.getNbEvents(), statistics.getNbEvents(traceName));
+		assertEquals("getTypeNames", Math.min(NB_TYPES, lastTime - firstTime + 1), statistics.getTypeNames(traceName).size());
+		long[] expected = new long[NB_TYPES];
+		for (long time = firstTime; time <= lastTime; time++) {
+			expected[(int) ((time - 1) % NB_TYPES)]++;
+		}
+		for (int type = 0; type < NB_TYPES; type++) {
+			assertEquals("getNbEvents", expected[type], statistics.getNbEvents(traceName, "[TmfEventType:Type-" + type + "]"));
+		}
+	}
+
+	private static TmfTimeRange range(long start, long end) {
+		return new TmfTimeRange(new TmfTimestamp(start, SCALE), new TmfTimestamp(end, SCALE));
+	}
+
+	// ------------------------------------------------------------------------
+	// update
+	// ------------------------------------------------------------------------
+
+	public void testUpdate() throws Exception {
+		TmfStatisticsCache cache = new TmfStatisticsCache(fTrace);
+		assertEquals("getNbEvents", 0, cache.getNbEvents());
+		cache.update(4);
+		assertFalse("isCancelled", cache.isCancelled());
+		assertEquals("getNbEvents", NB_EVENTS, cache.getNbEvents());
+		validateStatistics(cache.getStatistics(), 1, NB_EVENTS);
+
+		// Nothing to do
+		cache.update(4);
+		assertEquals("getNbEvents", NB_EVENTS, cache.getNbEvents());
+		validateStatistics(cache.getStatistics(), 1, NB_EVENTS);
+	}
+
+	public void testUpdateSingleThread() throws Exception {
+		TmfStatisticsCache cache = new TmfStatisticsCache(fTrace);
+		cache.update(1);
+		assertEquals("getNbEvents", NB_EVENTS, cache.getNbEvents());
+		validateStatistics(cache.getStatistics(), 1, NB_EVENTS);
+	}
+
+	public void testUpdateDisposesCopies() throws Exception {
+		final AtomicInteger nbCopies = new AtomicInteger(0);
+		final AtomicInteger nbDisposed = new AtomicInteger(0);
+		TmfTraceStub trace = new TmfTraceStub(fPath, BLOCK_SIZE) {
+			@Override
+			public ITmfTrace copy() {
+				nbCopies.incrementAndGet();
+				return super.copy();
+			}
+			@Override
+			public void dispose() {
+				nbDisposed.incrementAndGet();
+				super.dispose();
+			}
+		};
+		indexTrace(trace);
+		TmfStatisticsCache cache = new TmfStatisticsCache(trace);
+		cache.update(4);
+		validateStatistics(cache.getStatistics(), 1, NB_EVENTS);
+		assertEquals("copies", 4, nbCopies.get());
+		assertEquals("disposed copies", 4, nbDisposed.get());
+		trace.dispose();
+	}
+
+	public void testUpdateTraceNotCopyable() throws Exception {
+		TmfTraceStub trace = new TmfTraceStub(fPath, BLOCK_SIZE) {
+			@Override
+			public ITmfTrace copy() {
+				return null;
+			}
+		};
+		indexTrace(trace);
+		TmfStatisticsCache cache = new TmfStatisticsCache(trace);
+		cache.update(4);
+		assertEquals("getNbEvents", NB_EVENTS, cache.getNbEvents());
+		validateStatistics(cache.getStatistics(), 1, NB_EVENTS);
+		trace.dispose();
+	}
+
+	public void testUpdateShortPage() throws Exception {
+		// Once indexed, the trace ends at rank 1200 (within the third page)
+		// until the stop is cleared
+		final boolean[] stop = { false };
+		TmfTraceStub trace = new TmfTraceStub(fPath, BLOCK_SIZE) {
+			@Override
+			public TmfEvent getNextEvent(TmfContext context) {
+				TmfEvent event = super.getNextEvent(context);
+				if (stop[0] && event != null && event.getTimestamp().getValue() == 1201) {
+					return null;
+				}
+				return event;
+			}
+		};
+		indexTrace(trace);
+		stop[0] = true;
+		TmfStatisticsCache cache = new TmfStatisticsCache(trace);
+		cache.update(4);
+		assertEquals("getNbEvents", 1200, cache.getNbEvents());
+		validateStatistics(cache.getStatistics(), 1, 1200);
+		validateStatistics(cache.getStatistics(range(1, 1500)), 1, 1200);
+
+		// The pages after the short page are scanned again
+		stop[0] = false;
+		cache.update(4);
+		assertEquals("getNbEvents", NB_EVENTS, cache.getNbEvents());
+		validateStatistics(cache.getStatistics(), 1, NB_EVENTS);
+		validateStatistics(cache.getStatistics(range(777, 8421)), 777, 8421);
+		trace.dispose();
+	}
+
+	public void testUpdateError() throws Exception {
+		final RuntimeException error = new RuntimeException("read error");
+		final boolean[] fail = { false };
+		TmfTraceStub trace = new TmfTraceStub(fPath, BLOCK_SIZE) {
+			@Override
+			public TmfEvent getNextEvent(TmfContext context) {
+				TmfEvent event = super.getNextEvent(context);
+				if (fail[0] && event != null && event.getTimestamp().getValue() == 1201) {
+					throw error;
+				}
+				return event;
+			}
+		};
+		indexTrace(trace);
+		fail[0] = true;
+		TmfStatisticsCache cache = new TmfStatisticsCache(trace);
+		assertNull("getError", cache.getError());
+		cache.update(4);
+		assertTrue("isCancelled", cache.isCancelled());
+		assertSame("getError", error, cache.getError());
+		assertEquals("getNbEvents", 0, cache.getNbEvents());
+		trace.dispose();
+	}
+
+	// ------------------------------------------------------------------------
+	// getStatistics(TmfTimeRange)
+	// ------------------------------------------------------------------------
+
+	public void testRangeStatistics() throws Exception {
+		TmfStatisticsCache cache = new TmfStatisticsCache(fTrace);
+		cache.update(4);
+
+		// Page bounds
+		validateStatistics(cache.getStatistics(range(501, 1500)), 501, 1500);
+		// Partial pages at both ends
+		validateStatistics(cache.getStatistics(range(777, 8421)), 777, 8421);
+		// Within a page
+		validateStatistics(cache.getStatistics(range(1234, 1240)), 1234, 1240);
+		// Beyond the trace
+		validateStatistics(cache.getStatistics(range(9990, 20000)), 9990, NB_EVENTS);
+		validateStatistics(cache.getStatistics(TmfTimeRange.Eternity), 1, NB_EVENTS);
+
+		TmfPartialStatistics statistics = cache.getStatistics(range(20000, 30000));
+		assertEquals("getNbEvents", 0, statistics.getNbEvents());
+		assertNull("getStartTime", statistics.getStartTime());
+	}
+
+	// ------------------------------------------------------------------------
+	// merge
+	// ------------------------------------------------------------------------
+
+	public void testMerge() throws Exception {
+		TmfStatisticsCache cache = new TmfStatisticsCache(fTrace);
+		cache.update(2);
+
+		TmfPartialStatistics statistics = cache.getStatistics(range(2001, 5000));
+		statistics.merge(cache.getStatistics(range(1, 2000)));
+		statistics.merge(new TmfPartialStatistics());
+		statistics.merge(cache.getStatistics(range(5001, NB_EVENTS)));
+		validateStatistics(statistics, 1, NB_EVENTS);
+	}
+
+}
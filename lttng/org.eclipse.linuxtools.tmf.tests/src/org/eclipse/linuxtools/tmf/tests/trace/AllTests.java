@@ -15,6 +15,8 @@ public class AllTests {
 		suite.addTestSuite(TmfCheckpointTest.class);
 		suite.addTestSuite(TmfContextTest.class);
 		suite.addTestSuite(TmfTraceTest.class);
+		suite.addTestSuite(TmfLiveTraceTest.class);
+		suite.addTestSuite(TmfChunkedIndexingTest.class);
 		//$JUnit-END$
 		return suite;
 	}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.tests.trace;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.trace.TmfCheckpoint;
+import org.eclipse.linuxtools.tmf.trace.TmfContext;
+import org.eclipse.linuxtools.tmf.trace.TmfTextTraceStub;
+
+/**
+ * <b><u>TmfChunkedIndexingTest</u></b>
+ * <p>
+ * Test suite for the chunked indexing of the TmfTrace class. The test trace
+ * has multi-line events whose continuation lines often look like the start
+ * of an event, so that many chunks start on the wrong line.
+ */
+@SuppressWarnings("nls")
+public class TmfChunkedIndexingTest extends TestCase {
+
+	// ------------------------------------------------------------------------
+	// Variables
+	// ------------------------------------------------------------------------
+
+    private static final int  BLOCK_SIZE = 100;
+    private static final int  NB_EVENTS  = 2000;
+    private static final int  NB_THREADS = 4;
+    private static final long CHUNK_SIZE = 997;
+
+    private File fFile;
+    private TmfTextTraceStub fReference;
+    private TmfTextTraceStub fTrace;
+
+    // ------------------------------------------------------------------------
+    // Housekeeping
+    // ------------------------------------------------------------------------
+
+    public TmfChunkedIndexingTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+        fFile = File.createTempFile("chunked", ".trace");
+        fFile.deleteOnExit();
+        FileWriter writer = new FileWriter(fFile);
+        writer.write("header line\n");
+        for (int i = 0; i < NB_EVENTS; i++) {
+            int nbLines = i % 4;
+            writer.write("E " + (10 * i + 1) + " " + nbLines + "\n");
+            for (int j = 0; j < nbLines; j++) {
+                writer.write((j % 2 == 0) ? "E 999999 0\n" : "  detail " + i + "\n");
+            }
+        }
+        writer.close();
+        fReference = new TmfTextTraceStub(fFile.getPath(), BLOCK_SIZE);
+        fReference.indexSequentially();
+        fTrace = new TmfTextTraceStub(fFile.getPath(), BLOCK_SIZE);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+		fReference.dispose();
+		fTrace.dispose();
+		fFile.delete();
+	}
+
+    // ------------------------------------------------------------------------
+    // Helper functions
+    // ------------------------------------------------------------------------
+
+    private void validateIndex(TmfTextTraceStub trace) {
+        assertEquals("getNbEvents", NB_EVENTS, fReference.getNbEvents());
+        assertEquals("getNbEvents", fReference.getNbEvents(), trace.getNbEvents());
+        assertEquals("getStartTime", fReference.getStartTime(), trace.getStartTime());
+        assertEquals("getEndTime", fReference.getEndTime(), trace.getEndTime());
+
+        Vector<TmfCheckpoint> expected = fReference.getCheckpoints();
+        Vector<TmfCheckpoint> checkpoints = trace.getCheckpoints();
+        assertEquals("getCheckpoints", NB_EVENTS / BLOCK_SIZE, expected.size());
+        assertEquals("getCheckpoints", expected.size(), checkpoints.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("getTimestamp", expected.get(i).getTimestamp(), checkpoints.get(i).getTimestamp());
+            assertEquals("getLocation", expected.get(i).getLocation(), checkpoints.get(i).getLocation());
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // indexTraceInChunks
+    // ------------------------------------------------------------------------
+
+    public void testIndexInChunks() throws Exception {
+        fTrace.indexInChunks(NB_THREADS, CHUNK_SIZE);
+        validateIndex(fTrace);
+    }
+
+    public void testIndexInChunksSingleThread() throws Exception {
+        fTrace.indexInChunks(1, CHUNK_SIZE);
+        validateIndex(fTrace);
+    }
+
+    public void testIndexInOneChunk() throws Exception {
+        fTrace.indexInChunks(NB_THREADS, fFile.length() * 2);
+        validateIndex(fTrace);
+    }
+
+    public void testSeekEvent() throws Exception {
+        fTrace.indexInChunks(NB_THREADS, CHUNK_SIZE);
+        for (int rank = 0; rank < NB_EVENTS; rank += 97) {
+            TmfContext context = fTrace.seekEvent(rank);
+            assertEquals("getRank", rank, context.getRank());
+            TmfEvent event = fTrace.getNextEvent(context);
+            assertEquals("getTimestamp", 10 * rank + 1, event.getTimestamp().getValue());
+        }
+    }
+
+    public void testEmptyTrace() throws Exception {
+        File file = File.createTempFile("empty", ".trace");
+        file.deleteOnExit();
+        TmfTextTraceStub trace = new TmfTextTraceStub(file.getPath(), BLOCK_SIZE);
+        trace.indexInChunks(NB_THREADS, CHUNK_SIZE);
+        assertEquals("getNbEvents", 0, trace.getNbEvents());
+        assertEquals("getCheckpoints", 0, trace.getCheckpoints().size());
+        trace.dispose();
+        file.delete();
+    }
+
+}
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.tests.trace;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
+import org.eclipse.linuxtools.tmf.request.TmfDataRequest;
+import org.eclipse.linuxtools.tmf.request.TmfEventRequest;
+import org.eclipse.linuxtools.tmf.signal.TmfSignalHandler;
+import org.eclipse.linuxtools.tmf.signal.TmfSignalManager;
+import org.eclipse.linuxtools.tmf.signal.TmfTraceUpdatedSignal;
+import org.eclipse.linuxtools.tmf.trace.TmfContext;
+import org.eclipse.linuxtools.tmf.trace.TmfTextTraceStub;
+
+/**
+ * <b><u>TmfLiveTraceTest</u></b>
+ * <p>
+ * Test suite for the live trace support of the TmfTrace class: the test text
+ * trace is written by a separate thread while it is being followed, in chunks
+ * that end in the middle of a line.
+ */
+@SuppressWarnings("nls")
+public class TmfLiveTraceTest extends TestCase {
+
+	// ------------------------------------------------------------------------
+	// Variables
+	// ------------------------------------------------------------------------
+
+    private static final int    BLOCK_SIZE  = 500;
+    private static final int    NB_EVENTS   = 10000;
+    private static final int    NB_CHUNKS   = 10;
+    private static final long   PERIOD      = 10;
+    private static final long   TIMEOUT     = 30000;
+
+    private File fLiveFile;
+    private TmfTextTraceStub fLiveTrace;
+
+    private int fNbSignals;
+    private TmfTimeRange fLastRange;
+
+    // ------------------------------------------------------------------------
+    // Housekeeping
+    // ------------------------------------------------------------------------
+
+    public TmfLiveTraceTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+        fLiveFile = File.createTempFile("live", ".trace");
+        fLiveFile.deleteOnExit();
+        fLiveTrace = new TmfTextTraceStub(fLiveFile.getPath(), BLOCK_SIZE);
+        fNbSignals = 0;
+        fLastRange = null;
+        TmfSignalManager.register(this);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		super.tearDown();
+        TmfSignalManager.deregister(this);
+		fLiveTrace.stopFollowing();
+		fLiveTrace.dispose();
+		fLiveFile.delete();
+	}
+
+    @TmfSignalHandler
+    public synchronized void traceUpdated(TmfTraceUpdatedSignal signal) {
+        if (signal.getTrace() == fLiveTrace) {
+            fNbSignals++;
+            fLastRange = signal.getRange();
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Helper functions
+    // ------------------------------------------------------------------------
+
+    /*
+     * Returns the content of the text trace: event i has the timestamp i + 1
+     * and (i % 4) continuation lines, some of them looking like an event
+     */
+    private static byte[] getTraceContent() {
+        StringBuilder content = new StringBuilder();
+        content.append("header line\n");
+        for (int i = 0; i < NB_EVENTS; i++) {
+            int nbLines = i % 4;
+            content.append("E " + (i + 1) + " " + nbLines + "\n");
+            for (int j = 0; j < nbLines; j++) {
+                content.append((j % 2 == 0) ? "E 999999 0\n" : "  detail " + i + "\n");
+            }
+        }
+        return content.toString().getBytes();
+    }
+
+    /*
+     * Appends a part of the content to the live trace
+     */
+    private void append(byte[] content, int from, int to) throws Exception {
+        RandomAccessFile target = new RandomAccessFile(fLiveFile, "rw");
+        target.seek(from);
+        target.write(content, from, to - from);
+        target.close();
+    }
+
+    /*
+     * Appends the trace content to the live trace, in chunks that don't end
+     * at a line boundary
+     */
+    private Thread startWriter(final byte[] content) {
+        Thread writer = new Thread("Live trace writer") {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < NB_CHUNKS; i++) {
+                        append(content, content.length * i / NB_CHUNKS, content.length * (i + 1) / NB_CHUNKS);
+                        Thread.sleep(5 * PERIOD);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+        writer.start();
+        return writer;
+    }
+
+    private void waitForPolls() throws InterruptedException {
+        Thread.sleep(10 * PERIOD);
+    }
+
+    private void waitForEvents(long nbEvents) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (fLiveTrace.getNbEvents() < nbEvents && System.currentTimeMillis() < deadline) {
+            Thread.sleep(PERIOD);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Following
+    // ------------------------------------------------------------------------
+
+    public void testIsLive() throws Exception {
+        assertFalse("isLive", fLiveTrace.isLive());
+        fLiveTrace.startFollowing(PERIOD);
+        assertTrue("isLive", fLiveTrace.isLive());
+        fLiveTrace.stopFollowing();
+        assertFalse("isLive", fLiveTrace.isLive());
+    }
+
+    public void testFollowTrace() throws Exception {
+        fLiveTrace.startFollowing(PERIOD);
+        Thread writer = startWriter(getTraceContent());
+        writer.join();
+        waitForEvents(NB_EVENTS);
+
+        assertEquals("getNbEvents", NB_EVENTS, fLiveTrace.getNbEvents());
+        assertEquals("getCheckpoints", NB_EVENTS / BLOCK_SIZE, fLiveTrace.getCheckpoints().size());
+        assertEquals("getStartTime", 1, fLiveTrace.getStartTime().getValue());
+        assertEquals("getEndTime", NB_EVENTS, fLiveTrace.getEndTime().getValue());
+
+        synchronized (this) {
+            assertTrue("nbSignals", fNbSignals > 0);
+            assertEquals("getRange", NB_EVENTS, fLastRange.getEndTime().getValue());
+        }
+
+        // The index is usable
+        TmfEvent event = fLiveTrace.getNextEvent(fLiveTrace.seekEvent(NB_EVENTS - 1));
+        assertEquals("Event timestamp", NB_EVENTS, event.getTimestamp().getValue());
+    }
+
+    public void testPartialLines() throws Exception {
+        byte[] content = "E 1 0\nE 2 1\n  detail 2\nE 3 0\n".getBytes();
+        int detail = new String(content).indexOf("detail");
+        int event3 = new String(content).indexOf("E 3");
+        fLiveTrace.startFollowing(PERIOD);
+
+        // The continuation line of event 2 is half-written
+        append(content, 0, detail);
+        waitForPolls();
+        assertEquals("getNbEvents", 1, fLiveTrace.getNbEvents());
+
+        // Event 2 is complete, the header line of event 3 is half-written
+        append(content, detail, event3 + 3);
+        waitForPolls();
+        assertEquals("getNbEvents", 2, fLiveTrace.getNbEvents());
+        assertEquals("getEndTime", 2, fLiveTrace.getEndTime().getValue());
+
+        // Event 3 is complete
+        append(content, event3 + 3, content.length);
+        waitForEvents(3);
+        assertEquals("getNbEvents", 3, fLiveTrace.getNbEvents());
+        assertEquals("getEndTime", 3, fLiveTrace.getEndTime().getValue());
+
+        // The events are read back as written
+        TmfContext context = fLiveTrace.seekEvent(0);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("Event timestamp", i + 1, fLiveTrace.getNextEvent(context).getTimestamp().getValue());
+        }
+        assertNull("End of trace", fLiveTrace.getNextEvent(context));
+    }
+
+    public void testFollowModeRequest() throws Exception {
+        final Vector<TmfEvent> requestedEvents = new Vector<TmfEvent>();
+        TmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class, TmfTimeRange.Eternity, TmfDataRequest.ALL_DATA, BLOCK_SIZE) {
+            @Override
+            public void handleData(TmfEvent event) {
+                super.handleData(event);
+                requestedEvents.add(event);
+            }
+        };
+        request.setFollowMode(true);
+
+        fLiveTrace.startFollowing(PERIOD);
+        fLiveTrace.sendRequest(request);
+        Thread writer = startWriter(getTraceContent());
+        writer.join();
+        waitForEvents(NB_EVENTS);
+
+        // The request waits for more data until the trace stops being live
+        assertFalse("isCompleted", request.isCompleted());
+        fLiveTrace.stopFollowing();
+        request.waitForCompletion();
+
+        assertTrue ("isCompleted", request.isCompleted());
+        assertFalse("isCancelled", request.isCancelled());
+        assertEquals("nbEvents", NB_EVENTS, requestedEvents.size());
+        for (int i = 0; i < NB_EVENTS; i++) {
+            assertEquals("Distinct events", i + 1, requestedEvents.get(i).getTimestamp().getValue());
+        }
+    }
+
+    public void testCancelFollowModeRequest() throws Exception {
+        final Vector<TmfEvent> requestedEvents = new Vector<TmfEvent>();
+        TmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class, TmfTimeRange.Eternity, TmfDataRequest.ALL_DATA, BLOCK_SIZE) {
+            @Override
+            public void handleData(TmfEvent event) {
+                super.handleData(event);
+                requestedEvents.add(event);
+            }
+        };
+        request.setFollowMode(true);
+
+        fLiveTrace.startFollowing(PERIOD);
+        fLiveTrace.sendRequest(request);
+        Thread writer = startWriter(getTraceContent());
+        writer.join();
+        waitForEvents(NB_EVENTS);
+
+        // Cancel the request while it waits for more data
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (requestedEvents.size() < NB_EVENTS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(PERIOD);
+        }
+        assertFalse("isCompleted", request.isCompleted());
+        request.cancel();
+        request.waitForCompletion();
+
+        assertTrue("isCompleted", request.isCompleted());
+        assertTrue("isCancelled", request.isCancelled());
+        assertEquals("nbEvents", NB_EVENTS, requestedEvents.size());
+    }
+
+    public void testRequestNotFollowing() throws Exception {
+        final Vector<TmfEvent> requestedEvents = new Vector<TmfEvent>();
+        TmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class, TmfTimeRange.Eternity, TmfDataRequest.ALL_DATA, BLOCK_SIZE) {
+            @Override
+            public void handleData(TmfEvent event) {
+                super.handleData(event);
+                requestedEvents.add(event);
+            }
+        };
+
+        // A regular request completes at the end of the live trace
+        fLiveTrace.startFollowing(PERIOD);
+        fLiveTrace.sendRequest(request);
+        request.waitForCompletion();
+
+        assertTrue ("isCompleted", request.isCompleted());
+        assertFalse("isCancelled", request.isCancelled());
+        assertEquals("nbEvents", 0, requestedEvents.size());
+    }
+
+}
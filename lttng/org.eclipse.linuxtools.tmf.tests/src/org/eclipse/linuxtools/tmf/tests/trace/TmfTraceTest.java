@@ -13,6 +13,7 @@
 package org.eclipse.linuxtools.tmf.tests.trace;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -236,6 +237,109 @@ public class TmfTraceTest extends TestCase {
 		}
     }
 
+    // ------------------------------------------------------------------------
+    // Index persistence
+    // ------------------------------------------------------------------------
+
+    private static class PersistentTraceStub extends TmfTraceStub {
+        private final File fIndexFile;
+
+        public PersistentTraceStub(String path, File indexFile) throws FileNotFoundException {
+            this(path, BLOCK_SIZE, indexFile);
+        }
+
+        public PersistentTraceStub(String path, int cacheSize, File indexFile) throws FileNotFoundException {
+            super(path, cacheSize, false);
+            fIndexFile = indexFile;
+        }
+
+        @Override
+        protected File getIndexFile() {
+            return fIndexFile;
+        }
+
+        public boolean save() {
+            return saveIndex();
+        }
+
+        public boolean load() {
+            return loadIndex();
+        }
+    }
+
+    public void testTmfTraceIndexPersistence() throws Exception {
+        File indexFile = File.createTempFile("TmfTraceTest", ".idx");
+        try {
+            // Build and save the index
+            PersistentTraceStub trace = new PersistentTraceStub(fTrace.getPath(), indexFile);
+            TmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class) {
+            };
+            trace.sendRequest(request);
+            request.waitForCompletion();
+            assertTrue("saveIndex", trace.save());
+            trace.dispose();
+
+            // Restore it in a fresh trace
+            trace = new PersistentTraceStub(fTrace.getPath(), indexFile);
+            assertTrue("loadIndex", trace.load());
+            assertEquals("getNbEvents",  NB_EVENTS, trace.getNbEvents());
+            assertEquals("getStartTime", 1,         trace.getStartTime().getValue());
+            assertEquals("getEndTime",   NB_EVENTS, trace.getEndTime().getValue());
+
+            Vector<TmfCheckpoint> expected = fTrace.getCheckpoints();
+            Vector<TmfCheckpoint> checkpoints = trace.getCheckpoints();
+            assertEquals("Checkpoints", expected.size(), checkpoints.size());
+            for (int i = 0; i < checkpoints.size(); i++) {
+                assertEquals("Timestamp", expected.get(i).getTimestamp(), checkpoints.get(i).getTimestamp());
+                assertEquals("Location",  expected.get(i).getLocation(),  checkpoints.get(i).getLocation());
+            }
+
+            // Random access works without re-reading the trace
+            long rank = 3 * BLOCK_SIZE + 7;
+            TmfContext context = trace.seekEvent(rank);
+            assertEquals("Event rank", rank, context.getRank());
+            TmfEvent event = trace.getNextEvent(context);
+            assertEquals("Event timestamp", rank + 1, event.getTimestamp().getValue());
+            trace.dispose();
+        } finally {
+            indexFile.delete();
+        }
+    }
+
+    public void testTmfTraceIndexPersistenceInvalidated() throws Exception {
+        File indexFile = File.createTempFile("TmfTraceTest", ".idx");
+        try {
+            PersistentTraceStub trace = new PersistentTraceStub(fTrace.getPath(), indexFile);
+            TmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class) {
+            };
+            trace.sendRequest(request);
+            request.waitForCompletion();
+            assertTrue("saveIndex", trace.save());
+            trace.dispose();
+
+            // An index built with another page size is not re-used
+            trace = new PersistentTraceStub(fTrace.getPath(), 2 * BLOCK_SIZE, indexFile);
+            assertFalse("loadIndex", trace.load());
+            assertEquals("getNbEvents", 0, trace.getNbEvents());
+            trace.dispose();
+
+            // An index built for another trace is not re-used
+            PersistentTraceStub other = new PersistentTraceStub(new File(fTrace.getPath()).getParent() + File.separator + "O-Test-10K", indexFile);
+            assertFalse("loadIndex", other.load());
+            assertEquals("getNbEvents", 0, other.getNbEvents());
+            other.dispose();
+
+            // A corrupted index is not re-used
+            indexFile.delete();
+            assertTrue("createNewFile", indexFile.createNewFile());
+            trace = new PersistentTraceStub(fTrace.getPath(), indexFile);
+            assertFalse("loadIndex", trace.load());
+            trace.dispose();
+        } finally {
+            indexFile.delete();
+        }
+    }
+
     // ------------------------------------------------------------------------
     // parseEvent - make sure parseEvent doesn't update the context
     // ------------------------------------------------------------------------
@@ -755,6 +859,46 @@ public class TmfTraceTest extends TestCase {
             assertEquals("Distinct events", i+1, requestedEvents.get(i).getTimestamp().getValue());
         }
     }
+
+    @SuppressWarnings("unchecked")
+	public void testProcessFlyweightRequest() throws Exception {
+        final int BLOCK_SIZE = 100;
+        final Vector<TmfEvent> requestedEvents = new Vector<TmfEvent>();
+        final Vector<TmfEvent> clonedEvents = new Vector<TmfEvent>();
+        final long[] timestamps = new long[NB_EVENTS];
+
+        TmfTimeRange range = new TmfTimeRange(TmfTimestamp.BigBang, TmfTimestamp.BigCrunch);
+        final TmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class, range, NB_EVENTS, BLOCK_SIZE) {
+        	@Override
+        	public void handleData(TmfEvent event) {
+        		super.handleData(event);
+        		timestamps[requestedEvents.size()] = event.getTimestamp().getValue();
+        		requestedEvents.add(event);
+        		clonedEvents.add(event.clone());
+        	}
+        };
+        request.setFlyweight(true);
+        ITmfDataProvider<TmfEvent>[] providers = (ITmfDataProvider<TmfEvent>[]) TmfProviderManager.getProviders(TmfEvent.class, TmfTraceStub.class);
+        providers[0].sendRequest(request);
+        request.waitForCompletion();
+
+        assertEquals("nbEvents", NB_EVENTS, requestedEvents.size());
+        assertTrue("isCompleted",  request.isCompleted());
+        assertFalse("isCancelled", request.isCancelled());
+
+        // The same event object is re-used...
+        for (int i = 1; i < NB_EVENTS; i++) {
+            assertSame("Flyweight event", requestedEvents.get(0), requestedEvents.get(i));
+        }
+
+        // ...but it had the right values when handled, and the clones keep them
+        for (int i = 0; i < NB_EVENTS; i++) {
+            assertEquals("Distinct events", i+1, timestamps[i]);
+            TmfEvent event = clonedEvents.get(i);
+            assertEquals("Cloned events", i+1, event.getTimestamp().getValue());
+            assertSame("Cloned events", event, event.getContent().getEvent());
+        }
+    }
     
     // ------------------------------------------------------------------------
     // cancel
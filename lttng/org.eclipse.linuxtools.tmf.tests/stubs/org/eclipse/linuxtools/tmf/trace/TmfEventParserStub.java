@@ -22,7 +22,6 @@ import org.eclipse.linuxtools.tmf.event.TmfEventContent;
 import org.eclipse.linuxtools.tmf.event.TmfEventReference;
 import org.eclipse.linuxtools.tmf.event.TmfEventSource;
 import org.eclipse.linuxtools.tmf.event.TmfEventType;
-import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
 import org.eclipse.linuxtools.tmf.parser.ITmfEventParser;
 
 /**
@@ -102,11 +101,31 @@ public class TmfEventParserStub implements ITmfEventParser {
        	    }
        	    content += "]";
 
-       	    TmfEvent event = new TmfEvent(
-       	            new TmfTimestamp(ts, (byte) -3, 0),     // millisecs
-       	            new TmfEventSource(source),
-       	            fTypes[typeIndex],
-       	            new TmfEventReference(name));
+       	    TmfEvent event = (context != null) ? context.getFlyweightEvent() : null;
+       	    if (event != null) {
+       	        // Re-use the (immutable) source and reference when unchanged
+       	        TmfEventSource eventSource = event.getSource();
+       	        if (!source.equals(eventSource.getSourceId())) {
+       	            eventSource = new TmfEventSource(source);
+       	        }
+       	        TmfEventReference eventReference = event.getReference();
+       	        if (!name.equals(eventReference.getReference())) {
+       	            eventReference = new TmfEventReference(name);
+       	        }
+       	        event.reset(null, -1,
+       	                ts, (byte) -3,                     // millisecs
+       	                eventSource,
+       	                fTypes[typeIndex],
+       	                eventReference);
+       	    } else {
+       	        event = new TmfEvent(null, -1,
+       	                ts, (byte) -3,                     // millisecs
+       	                new TmfEventSource(source),
+       	                fTypes[typeIndex],
+       	                new TmfEventReference(name));
+       	        if (context != null)
+       	            context.setFlyweightEvent(event);
+       	    }
        	    TmfEventContent cnt = new TmfEventContent(event, content);
        	    event.setContent(cnt);
        	    return event;
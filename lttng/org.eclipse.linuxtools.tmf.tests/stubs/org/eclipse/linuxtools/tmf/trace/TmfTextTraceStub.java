@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.trace;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.event.TmfEventReference;
+import org.eclipse.linuxtools.tmf.event.TmfEventSource;
+import org.eclipse.linuxtools.tmf.event.TmfEventType;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.io.MappedFile;
+import org.eclipse.linuxtools.tmf.io.MappedFileReader;
+
+/**
+ * <b><u>TmfTextTraceStub</u></b>
+ * <p>
+ * Dummy text trace, located by file offsets. An event starts with a line
+ * "E &lt;timestamp&gt; &lt;n&gt;" and is followed by n continuation lines of
+ * any content (which may look like the start of an event). The other lines
+ * are ignored. While the trace is followed, only its complete lines are read.
+ */
+@SuppressWarnings("nls")
+public class TmfTextTraceStub extends TmfTrace<TmfEvent> {
+
+    // ------------------------------------------------------------------------
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private static final TmfLocation<Long> NULL_LOCATION = new TmfLocation<Long>((Long) null);
+    private static final String EVENT_START = "E ";
+
+    private static final TmfEventSource SOURCE = new TmfEventSource("stub");
+    private static final TmfEventType TYPE = new TmfEventType();
+    private static final TmfEventReference REFERENCE = new TmfEventReference("stub");
+
+    // The trace file, shared by all the contexts
+    private final MappedFile fFile;
+
+    // ------------------------------------------------------------------------
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param filename
+     * @param cacheSize
+     * @throws IOException
+     */
+    public TmfTextTraceStub(String filename, int cacheSize) throws IOException {
+        super(filename, TmfEvent.class, filename, cacheSize, false);
+        fFile = new MappedFile(filename);
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        try {
+            fFile.close();
+        } catch (IOException e) {
+        }
+    }
+
+    @Override
+    public ITmfTrace<TmfEvent> copy() {
+        return null;
+    }
+
+    // ------------------------------------------------------------------------
+    // Indexing
+    // ------------------------------------------------------------------------
+
+    /**
+     * Indexes the trace sequentially (see TmfTrace.indexTrace())
+     */
+    public void indexSequentially() {
+        indexTrace(true);
+    }
+
+    /**
+     * Indexes the trace in chunks (see TmfTrace.indexTraceInChunks())
+     *
+     * @param nbThreads
+     * @param chunkSize
+     */
+    public void indexInChunks(int nbThreads, long chunkSize) {
+        indexTraceInChunks(true, nbThreads, chunkSize);
+    }
+
+    @Override
+    protected File getIndexFile() {
+        // Always re-index
+        return null;
+    }
+
+    // ------------------------------------------------------------------------
+    // Operators
+    // ------------------------------------------------------------------------
+
+    @Override
+    public TmfContext seekLocation(ITmfLocation<?> location) {
+        TmfContext context = new TmfContext(NULL_LOCATION, ITmfContext.INITIAL_RANK);
+        if (NULL_LOCATION.equals(location)) {
+            return context;
+        }
+        try {
+            MappedFileReader reader = fFile.newReader();
+            if (location != null && location.getLocation() instanceof Long) {
+                reader.seek((Long) location.getLocation());
+            }
+            context.setLocation(new TmfLocation<Long>(skipToEvent(reader)));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return context;
+    }
+
+    @Override
+    public TmfContext seekLocation(double ratio) {
+        try {
+            TmfContext context = seekLocation(new TmfLocation<Long>((long) (ratio * fFile.length())));
+            context.setRank(ITmfContext.UNKNOWN_RANK);
+            return context;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new TmfContext(NULL_LOCATION, ITmfContext.INITIAL_RANK);
+        }
+    }
+
+    @Override
+    public double getLocationRatio(ITmfLocation<?> location) {
+        try {
+            if (location.getLocation() instanceof Long) {
+                return (double) ((Long) location.getLocation()) / fFile.length();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    @Override
+    public ITmfLocation<?> getCurrentLocation() {
+        return null;
+    }
+
+    @Override
+    public synchronized TmfEvent getNextEvent(TmfContext context) {
+        ITmfContext savedContext = context.clone();
+        TmfEvent event = parseEvent(context);
+        if (event != null) {
+            updateIndex(savedContext, savedContext.getRank(), event.getTimestamp());
+            context.updateRank(1);
+        }
+        return event;
+    }
+
+    @Override
+    public TmfEvent parseEvent(TmfContext context) {
+        if (!(context.getLocation().getLocation() instanceof Long)) {
+            return null;
+        }
+        try {
+            MappedFileReader reader = fFile.newReader();
+            reader.seek((Long) context.getLocation().getLocation());
+            reader.seek(skipToEvent(reader));
+            String line = getNextLine(reader);
+            if (line == null) {
+                // At the end of the trace
+                return null;
+            }
+            String[] fields = line.split(" ");
+            long timestamp = Long.parseLong(fields[1]);
+            int nbLines = Integer.parseInt(fields[2]);
+            for (int i = 0; i < nbLines; i++) {
+                if (getNextLine(reader) == null) {
+                    // The event is not completely written yet
+                    return null;
+                }
+            }
+            context.setLocation(new TmfLocation<Long>(skipToEvent(reader)));
+            return new TmfEvent(this, new TmfTimestamp(timestamp, (byte) -3), SOURCE, TYPE, REFERENCE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            context.setLocation(NULL_LOCATION);
+            return null;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Helper functions
+    // ------------------------------------------------------------------------
+
+    /*
+     * Returns the position of the first event that starts at or after the
+     * reader position (the lines that don't start an event are ignored), or
+     * the end of the last line read if there is none
+     */
+    private long skipToEvent(MappedFileReader reader) throws IOException {
+        long position = reader.getFilePointer();
+        String line;
+        while ((line = getNextLine(reader)) != null && !line.startsWith(EVENT_START)) {
+            position = reader.getFilePointer();
+        }
+        return position;
+    }
+
+    /*
+     * Reads the next line. While the trace is followed, only the complete
+     * lines are read since the last one may be partially written.
+     */
+    private String getNextLine(MappedFileReader reader) throws IOException {
+        return isLive() ? reader.getNextCompleteLine() : reader.getNextLine();
+    }
+
+}
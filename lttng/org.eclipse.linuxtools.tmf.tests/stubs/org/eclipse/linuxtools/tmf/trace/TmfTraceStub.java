@@ -219,9 +219,9 @@ public class TmfTraceStub extends TmfTrace<TmfEvent> {
 	public TmfEvent parseEvent(TmfContext context) {
 	    fLock.lock();
        	try {
-   			// parseNextEvent will update the context
+   			// parseNextEvent doesn't update the context (but can re-use its flyweight event)
        	    if (fTrace != null) {
-       	        TmfEvent event = fParser.parseNextEvent(this, context.clone());
+       	        TmfEvent event = fParser.parseNextEvent(this, context);
        	        return event;
        	    }
        	}
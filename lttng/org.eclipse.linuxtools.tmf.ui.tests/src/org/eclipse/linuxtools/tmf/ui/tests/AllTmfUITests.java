@@ -28,6 +28,9 @@ public class AllTmfUITests {
 		TestSuite suite = new TestSuite(AllTmfUITests.class.getName());
 		//$JUnit-BEGIN$
 		suite.addTest(org.eclipse.linuxtools.tmf.ui.tests.statistics.AllTests.suite());
+        suite.addTest(org.eclipse.linuxtools.tmf.ui.tests.parsers.AllTests.suite());
+        suite.addTest(org.eclipse.linuxtools.tmf.ui.tests.viewers.timeAnalysis.AllTests.suite());
+        suite.addTest(org.eclipse.linuxtools.tmf.ui.tests.views.timechart.AllTests.suite());
         suite.addTest(org.eclipse.linuxtools.tmf.ui.tests.views.uml2sd.handlers.widgets.AllTests.suite());
         suite.addTest(org.eclipse.linuxtools.tmf.ui.tests.views.uml2sd.impl.AllTests.suite());
         suite.addTest(org.eclipse.linuxtools.tmf.ui.tests.views.uml2sd.load.AllTests.suite());
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.ui.tests.parsers;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.eclipse.linuxtools.tmf.event.TmfEventReference;
+import org.eclipse.linuxtools.tmf.event.TmfEventSource;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
+import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomEventContent;
+import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomTraceDefinition;
+import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomTraceDefinition.OutputColumn;
+import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomXmlEvent;
+import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomXmlEventType;
+import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomXmlRecordParser;
+import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomXmlTraceDefinition;
+import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomXmlTraceDefinition.InputAttribute;
+import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomXmlTraceDefinition.InputElement;
+
+/**
+ * <b><u>CustomXmlRecordParserTest</u></b>
+ * <p>
+ * Test suite for the CustomXmlRecordParser class. The expected values are
+ * those extracted from the DOM of the records.
+ */
+@SuppressWarnings("nls")
+public class CustomXmlRecordParserTest extends TestCase {
+
+    // ------------------------------------------------------------------------
+    // Variables
+    // ------------------------------------------------------------------------
+
+    // The output columns
+    private static final String[] OUTPUTS = { "Message", "A", "B", "K", "Q", "D", "X" };
+
+    private CustomXmlTraceDefinition fDefinition;
+    private InputElement fRecord;
+    private File fFile;
+
+    // ------------------------------------------------------------------------
+    // Housekeeping
+    // ------------------------------------------------------------------------
+
+    public CustomXmlRecordParserTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        fRecord = element("rec", null, CustomTraceDefinition.ACTION_SET,
+                element("msg", "Message", CustomTraceDefinition.ACTION_SET),
+                element("a", "A", CustomTraceDefinition.ACTION_APPEND,
+                        element("b", "B", CustomTraceDefinition.ACTION_APPEND_WITH_SEPARATOR)),
+                element("n", CustomXmlTraceDefinition.TAG_IGNORE, CustomTraceDefinition.ACTION_SET,
+                        element("x", "X", CustomTraceDefinition.ACTION_APPEND_WITH_SEPARATOR)),
+                element("d", "D", CustomTraceDefinition.ACTION_SET));
+        fRecord.logEntry = true;
+        fRecord.addAttribute(new InputAttribute("k", "K", CustomTraceDefinition.ACTION_APPEND_WITH_SEPARATOR, ""));
+        fRecord.childElements.get(1).addAttribute(new InputAttribute("q", "Q", CustomTraceDefinition.ACTION_APPEND, ""));
+
+        fDefinition = new CustomXmlTraceDefinition();
+        fDefinition.rootInputElement = fRecord;
+        fDefinition.outputs = new ArrayList<OutputColumn>();
+        for (String output : OUTPUTS) {
+            fDefinition.outputs.add(new OutputColumn(output));
+        }
+        fFile = File.createTempFile("record", ".xml");
+        fFile.deleteOnExit();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        fFile.delete();
+    }
+
+    // ------------------------------------------------------------------------
+    // Helper functions
+    // ------------------------------------------------------------------------
+
+    private static InputElement element(String name, String inputName, int inputAction, InputElement... children) {
+        InputElement element = new InputElement(name, false, inputName, inputAction, "", null);
+        if (children.length > 0) {
+            element.childElements = new ArrayList<InputElement>(Arrays.asList(children));
+        }
+        return element;
+    }
+
+    /*
+     * Parses the first record of the file content, and checks the position
+     * after the record and the event content
+     */
+    private CustomXmlEvent parse(String record, String following) throws Exception {
+        FileOutputStream out = new FileOutputStream(fFile);
+        out.write((record + following).getBytes("UTF-8"));
+        out.close();
+        CustomXmlEvent event = new CustomXmlEvent(fDefinition, (ITmfTrace<?>) null, TmfTimestamp.Zero,
+                new TmfEventSource(""), new CustomXmlEventType(fDefinition), new TmfEventReference(""));
+        event.setContent(new CustomEventContent(event, new StringBuffer()));
+        RandomAccessFile file = new RandomAccessFile(fFile, "r");
+        try {
+            assertTrue("parse", new CustomXmlRecordParser(fRecord).parse(file, event));
+            assertEquals("getFilePointer", record.getBytes("UTF-8").length, file.getFilePointer());
+        } finally {
+            file.close();
+        }
+        assertEquals("getContent", record, event.getContent().getContent().toString());
+        return event;
+    }
+
+    private static void validate(CustomXmlEvent event, String... expected) {
+        String[] fields = event.extractItemFields();
+        for (int i = 0; i < OUTPUTS.length; i++) {
+            assertEquals(OUTPUTS[i], expected[i], fields[i]);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // parse
+    // ------------------------------------------------------------------------
+
+    public void testElementsAndAttributes() throws Exception {
+        CustomXmlEvent event = parse("<rec k='a &amp; b\r\n c'><msg>hello &lt;world&gt; &#x41;&#66;</msg>" +
+                "<a q=\"1\"><b>one</b><b/><b>  two  </b></a><a q='2'>text<b>three</b>tail</a></rec>", "\n<rec/>");
+        validate(event, "hello <world> AB", "b:one | b | b:twotextb:threetail", "one | two | three", "a & b  c", "12", "", "");
+    }
+
+    public void testEmptyRecord() throws Exception {
+        CustomXmlEvent event = parse("<rec k = \"v\tw\nx\" />", "<rec/>");
+        validate(event, "", "", "", "v w x", "", "", "");
+    }
+
+    public void testNestedText() throws Exception {
+        CustomXmlEvent event = parse("<rec>\r\n  <msg>\r\n    multi\r\n    line\r\n  </msg>\r\n" +
+                "  <d><!-- c -->x<![CDATA[y]]><?pi z?>w</d>\r\n  <d>  </d><d></d><d><e/></d>" +
+                "<d><e>t</e><f><g>h</g> i </f></d>\r\n</rec>", "");
+        validate(event, "multi\n    line", "", "", "", "", "e:t | f [ g:hi ]", "");
+    }
+
+    public void testIgnoredAndUnknownElements() throws Exception {
+        CustomXmlEvent event = parse("<rec><n><x>1</x></n><n><x>2</x><y>z</y></n><unk><msg>no</msg></unk>" +
+                "<msg>caf\u00e9 \u2603</msg></rec>", "");
+        validate(event, "caf\u00e9 \u2603", "", "", "", "", "", "1 | 2");
+    }
+
+    public void testIncompleteRecord() throws Exception {
+        FileOutputStream out = new FileOutputStream(fFile);
+        out.write("<rec><msg>truncated</ms".getBytes("UTF-8"));
+        out.close();
+        CustomXmlEvent event = new CustomXmlEvent(fDefinition, (ITmfTrace<?>) null, TmfTimestamp.Zero,
+                new TmfEventSource(""), new CustomXmlEventType(fDefinition), new TmfEventReference(""));
+        event.setContent(new CustomEventContent(event, new StringBuffer()));
+        RandomAccessFile file = new RandomAccessFile(fFile, "r");
+        try {
+            assertFalse("parse", new CustomXmlRecordParser(fRecord).parse(file, event));
+        } finally {
+            file.close();
+        }
+    }
+
+}
@@ -25,6 +25,7 @@ import org.eclipse.linuxtools.tmf.event.TmfEventReference;
 import org.eclipse.linuxtools.tmf.event.TmfEventSource;
 import org.eclipse.linuxtools.tmf.event.TmfEventType;
 import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.statistics.TmfPartialStatistics;
 import org.eclipse.linuxtools.tmf.ui.views.statistics.ITmfExtraEventInfo;
 import org.eclipse.linuxtools.tmf.ui.views.statistics.model.Messages;
 import org.eclipse.linuxtools.tmf.ui.views.statistics.model.TmfBaseStatisticsTree;
@@ -211,6 +212,93 @@ public class TmfBaseStatisticsDataTest extends TestCase {
         }
     }
     
+    public void testRegisterManyEvents() {
+        final String[] traceNames = new String[5];
+        for (int i = 0; i < traceNames.length; i++) {
+            traceNames[i] = "trace" + i;
+        }
+        final int[] current = new int[1];
+        ITmfExtraEventInfo extraInfo = new ITmfExtraEventInfo() {
+            @Override
+            public String getTraceName() {
+                return traceNames[current[0]];
+            }
+        };
+
+        // A new type instance for every event of some types, shared for the others
+        TmfBaseStatisticsTree statsData = new TmfBaseStatisticsTree();
+        TmfEventType[] types = new TmfEventType[40];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = new TmfEventType("type" + i, fLabels);
+        }
+        for (int i = 0; i < 1000; i++) {
+            current[0] = i % traceNames.length;
+            int type = i % types.length;
+            TmfEventType eventType = (type % 2 == 0) ? types[type] : new TmfEventType("type" + type, fLabels);
+            statsData.registerEvent(new TmfEvent(fTimestamp1, fSource, eventType, fReference), extraInfo);
+        }
+
+        assertEquals("getChildren", traceNames.length, statsData.getChildren(AbsTmfStatisticsTree.ROOT).size());
+        for (int trace = 0; trace < traceNames.length; trace++) {
+            TmfStatisticsTreeNode traceNode = statsData.get(new TmfFixedArray<String>(traceNames[trace]));
+            assertEquals("nbEvents", 200, traceNode.getValue().nbEvents);
+            Collection<TmfStatisticsTreeNode> typeNodes = statsData.getChildren(new TmfFixedArray<String>(traceNames[trace], Messages.TmfStatisticsData_EventTypes));
+            // 40 types over 5 traces: each trace gets 8 types, 25 events each
+            assertEquals("getChildren", 8, typeNodes.size());
+            for (TmfStatisticsTreeNode typeNode : typeNodes) {
+                assertEquals("nbEvents", 25, typeNode.getValue().nbEvents);
+            }
+        }
+
+        // The nodes are updated by the events registered afterwards
+        TmfFixedArray<String> path = new TmfFixedArray<String>(traceNames[0], Messages.TmfStatisticsData_EventTypes, types[0].toString());
+        TmfStatisticsTreeNode typeNode = statsData.get(path);
+        current[0] = 0;
+        statsData.registerEvent(new TmfEvent(fTimestamp1, fSource, types[0], fReference), extraInfo);
+        assertEquals("nbEvents", 26, statsData.get(path).getValue().nbEvents);
+        assertSame("get", typeNode, statsData.get(path));
+
+        // The reset counters stay reset
+        typeNode.reset();
+        assertEquals("nbEvents", 0, statsData.get(path).getValue().nbEvents);
+        assertEquals("nbEvents", 201, statsData.get(new TmfFixedArray<String>(traceNames[0])).getValue().nbEvents);
+        statsData.registerEvent(new TmfEvent(fTimestamp1, fSource, types[0], fReference), extraInfo);
+        assertEquals("nbEvents", 1, statsData.get(path).getValue().nbEvents);
+    }
+
+    // ------------------------------------------------------------------------
+    // SetStatistics
+    // ------------------------------------------------------------------------
+
+    public void testSetStatistics() {
+        assertTrue("supportsStatistics", fStatsData.supportsStatistics());
+        TmfFixedArray<String> tracePath = new TmfFixedArray<String>(fTestName);
+        assertEquals("nbEvents", 3, fStatsData.get(tracePath).getValue().nbEvents);
+
+        // The events have no trace
+        TmfPartialStatistics statistics = new TmfPartialStatistics();
+        statistics.addEvent(fEvent1);
+        statistics.addEvent(fEvent3);
+        TmfPartialStatistics other = new TmfPartialStatistics();
+        other.addEvent(fEvent2);
+        other.addEvent(fEvent3);
+        statistics.merge(other);
+        fStatsData.setStatistics(statistics, "unknown");
+
+        // The previous counts are replaced
+        assertEquals("nbEvents", 0, fStatsData.get(tracePath).getValue().nbEvents);
+        assertEquals("nbEvents", 4, fStatsData.get(new TmfFixedArray<String>("unknown")).getValue().nbEvents);
+        TmfFixedArray<String> path = new TmfFixedArray<String>("unknown", Messages.TmfStatisticsData_EventTypes, fType1.toString());
+        assertEquals("nbEvents", 2, fStatsData.get(path).getValue().nbEvents);
+        path = new TmfFixedArray<String>("unknown", Messages.TmfStatisticsData_EventTypes, fType3.toString());
+        assertEquals("nbEvents", 2, fStatsData.get(path).getValue().nbEvents);
+
+        // The events registered afterwards are added
+        fStatsData.registerEvent(fEvent3, fExtraInfo);
+        assertEquals("nbEvents", 1, fStatsData.get(tracePath).getValue().nbEvents);
+        assertEquals("nbEvents", 4, fStatsData.get(new TmfFixedArray<String>("unknown")).getValue().nbEvents);
+    }
+
     // ------------------------------------------------------------------------
     // Get a node
     // ------------------------------------------------------------------------
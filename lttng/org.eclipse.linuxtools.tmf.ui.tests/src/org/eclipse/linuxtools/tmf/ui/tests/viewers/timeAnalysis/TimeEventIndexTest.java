@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.ui.tests.viewers.timeAnalysis;
+
+import java.util.Random;
+import java.util.Vector;
+
+import junit.framework.TestCase;
+
+import org.eclipse.linuxtools.tmf.ui.viewers.timeAnalysis.model.ITmfTimeAnalysisEntry;
+import org.eclipse.linuxtools.tmf.ui.viewers.timeAnalysis.model.TimeEvent;
+import org.eclipse.linuxtools.tmf.ui.viewers.timeAnalysis.widgets.TimeEventIndex;
+
+/**
+ * <b><u>TimeEventIndexTest</u></b>
+ * <p>
+ * Test suite for the TimeEventIndex class. The longest events are compared to
+ * those found by scanning the events.
+ */
+@SuppressWarnings("nls")
+public class TimeEventIndexTest extends TestCase {
+
+    // ------------------------------------------------------------------------
+    // Variables
+    // ------------------------------------------------------------------------
+
+    private static final int NB_EVENTS = 300000;
+
+    private Vector<TimeEvent> fEvents;
+    private TimeEventIndex fIndex;
+
+    // ------------------------------------------------------------------------
+    // Housekeeping
+    // ------------------------------------------------------------------------
+
+    public TimeEventIndexTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        fEvents = new Vector<TimeEvent>();
+        fIndex = new TimeEventIndex(fEvents);
+    }
+
+    // ------------------------------------------------------------------------
+    // Helper functions
+    // ------------------------------------------------------------------------
+
+    private static class Event extends TimeEvent {
+        private final long fTime;
+        private final long fDuration;
+
+        Event(long time, long duration) {
+            fTime = time;
+            fDuration = duration;
+        }
+
+        @Override
+        public ITmfTimeAnalysisEntry getEntry() {
+            return null;
+        }
+
+        @Override
+        public long getTime() {
+            return fTime;
+        }
+
+        @Override
+        public long getDuration() {
+            return fDuration;
+        }
+    }
+
+    // Adds events at increasing times, of random durations (-1 for some)
+    private void addEvents(Random random, int count) {
+        long time = fEvents.isEmpty() ? 1000 : fEvents.lastElement().getTime();
+        for (int i = 0; i < count; i++) {
+            time += 1 + random.nextInt(100);
+            long duration = (random.nextInt(10) == 0) ? -1 : random.nextInt(1000);
+            fEvents.add(new Event(time, duration));
+        }
+    }
+
+    private long getDuration(int rank) {
+        long duration = fEvents.get(rank).getDuration();
+        if (duration < 0) {
+            return (rank + 1 < fEvents.size()) ? fEvents.get(rank + 1).getTime() - fEvents.get(rank).getTime() : 0;
+        }
+        return duration;
+    }
+
+    private void validateLongest(int from, int to) {
+        int expected = from;
+        for (int rank = from + 1; rank < to; rank++) {
+            if (getDuration(rank) > getDuration(expected)) {
+                expected = rank;
+            }
+        }
+        assertEquals("getLongest [" + from + ", " + to + "[", expected, fIndex.getLongest(from, to));
+    }
+
+    // ------------------------------------------------------------------------
+    // update
+    // ------------------------------------------------------------------------
+
+    public void testUpdate() throws Exception {
+        assertEquals("update", 0, fIndex.update());
+        addEvents(new Random(1), 1000);
+        assertEquals("update", 1000, fIndex.update());
+        assertEquals("size", 1000, fIndex.size());
+        // The last event is not indexed
+        assertEquals("getNbIndexed", 999, fIndex.getNbIndexed());
+
+        addEvents(new Random(2), 5000);
+        assertEquals("update", 6000, fIndex.update());
+        assertEquals("getNbIndexed", 5999, fIndex.getNbIndexed());
+        validateLongest(0, 6000);
+        validateLongest(998, 1001);
+    }
+
+    public void testClearedList() throws Exception {
+        addEvents(new Random(3), 5000);
+        fIndex.update();
+        fEvents.clear();
+        addEvents(new Random(4), 6000);
+        assertEquals("update", 6000, fIndex.update());
+        validateLongest(0, 6000);
+
+        // Same size, but different events
+        fEvents.clear();
+        addEvents(new Random(5), 6000);
+        fIndex.update();
+        validateLongest(0, 6000);
+        validateLongest(4096, 4096 + 64);
+    }
+
+    // ------------------------------------------------------------------------
+    // getLongest
+    // ------------------------------------------------------------------------
+
+    public void testGetLongest() throws Exception {
+        Random random = new Random(6);
+        addEvents(random, NB_EVENTS);
+        fIndex.update();
+        validateLongest(0, NB_EVENTS);
+        validateLongest(0, 1);
+        validateLongest(NB_EVENTS - 1, NB_EVENTS);
+        validateLongest(4095, 4097);
+        validateLongest(64, 64 * 64 * 3 + 17);
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(NB_EVENTS);
+            int to = from + 1 + random.nextInt(NB_EVENTS - from);
+            validateLongest(from, to);
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // indexOf
+    // ------------------------------------------------------------------------
+
+    public void testIndexOf() throws Exception {
+        addEvents(new Random(7), 1000);
+        int size = fIndex.update();
+        long first = fEvents.firstElement().getTime();
+        long last = fEvents.lastElement().getTime();
+        assertEquals("indexOf", 0, fIndex.indexOf(0, 0, size));
+        assertEquals("indexOf", 0, fIndex.indexOf(first, 0, size));
+        assertEquals("indexOf", 1, fIndex.indexOf(first + 1, 0, size));
+        assertEquals("indexOf", size - 1, fIndex.indexOf(last, 0, size));
+        assertEquals("indexOf", size, fIndex.indexOf(last + 1, 0, size));
+        for (int rank = 0; rank < size; rank += 37) {
+            assertEquals("indexOf", rank, fIndex.indexOf(fEvents.get(rank).getTime(), 0, size));
+            assertEquals("indexOf", rank + 1, fIndex.indexOf(fEvents.get(rank).getTime() + 1, rank, size));
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.ui.tests.views.timechart;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.eclipse.linuxtools.tmf.ui.views.timechart.TimeChartTaskQueue;
+
+/**
+ * <b><u>TimeChartTaskQueueTest</u></b>
+ * <p>
+ * Test suite for the TimeChartTaskQueue class.
+ */
+@SuppressWarnings("nls")
+public class TimeChartTaskQueueTest extends TestCase {
+
+    // ------------------------------------------------------------------------
+    // Variables
+    // ------------------------------------------------------------------------
+
+    private static final long TIMEOUT = 10000;
+
+    private TimeChartTaskQueue fQueue;
+
+    // ------------------------------------------------------------------------
+    // Housekeeping
+    // ------------------------------------------------------------------------
+
+    public TimeChartTaskQueueTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        fQueue = new TimeChartTaskQueue("Test Worker", 2);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+        fQueue.dispose();
+    }
+
+    // ------------------------------------------------------------------------
+    // Helper classes
+    // ------------------------------------------------------------------------
+
+    /*
+     * Task that runs a number of slices, optionally blocking on a latch, and
+     * records the slices run
+     */
+    private static class TestTask extends TimeChartTaskQueue.Task {
+
+        private final CountDownLatch fGate;
+        private final CountDownLatch fStarted = new CountDownLatch(1);
+        private final CountDownLatch fDone = new CountDownLatch(1);
+        private final List<String> fLog;
+        private final AtomicInteger fConcurrent;
+        private final AtomicInteger fMaxConcurrent;
+        private int fSlices;
+
+        public TestTask(Object stage, Object target, int slices, CountDownLatch gate, List<String> log,
+                AtomicInteger concurrent, AtomicInteger maxConcurrent) {
+            super(stage, target);
+            fSlices = slices;
+            fGate = gate;
+            fLog = log;
+            fConcurrent = concurrent;
+            fMaxConcurrent = maxConcurrent;
+        }
+
+        public TestTask(Object stage, Object target, int slices, CountDownLatch gate, List<String> log) {
+            this(stage, target, slices, gate, log, new AtomicInteger(), new AtomicInteger());
+        }
+
+        @Override
+        public boolean run() {
+            int concurrent = fConcurrent.incrementAndGet();
+            synchronized (fMaxConcurrent) {
+                fMaxConcurrent.set(Math.max(fMaxConcurrent.get(), concurrent));
+            }
+            fStarted.countDown();
+            try {
+                if (fGate != null) {
+                    fGate.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+            }
+            fLog.add(getStage() + ":" + getTarget());
+            fSlices--;
+            fConcurrent.decrementAndGet();
+            if (fSlices == 0) {
+                fDone.countDown();
+            }
+            return fSlices > 0;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // submit
+    // ------------------------------------------------------------------------
+
+    public void testBoundedThreads() throws Exception {
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        CountDownLatch gate = new CountDownLatch(1);
+        List<TestTask> tasks = new ArrayList<TestTask>();
+        for (int i = 0; i < 6; i++) {
+            TestTask task = new TestTask("stage", i, 1, gate, log, concurrent, maxConcurrent);
+            tasks.add(task);
+            fQueue.submit(task);
+        }
+        assertTrue("started", tasks.get(0).fStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue("started", tasks.get(1).fStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals("getNbThreads", 2, fQueue.getNbThreads());
+        assertEquals("getNbRunningTasks", 2, fQueue.getNbRunningTasks());
+        assertEquals("getQueueDepth", 4, fQueue.getQueueDepth());
+        gate.countDown();
+        for (TestTask task : tasks) {
+            assertTrue("done", task.fDone.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        }
+        assertEquals("log", 6, log.size());
+        assertEquals("maxConcurrent", 2, maxConcurrent.get());
+        assertEquals("getQueueDepth", 0, fQueue.getQueueDepth());
+    }
+
+    public void testSlices() throws Exception {
+        fQueue = new TimeChartTaskQueue("Test Worker", 1);
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch gate = new CountDownLatch(1);
+        TestTask task1 = new TestTask("process", "a", 3, gate, log);
+        TestTask task2 = new TestTask("process", "b", 2, gate, log);
+        fQueue.submit(task1);
+        fQueue.submit(task2);
+        gate.countDown();
+        assertTrue("done", task1.fDone.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue("done", task2.fDone.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        // The slices of the tasks are interleaved
+        assertEquals("log", "[process:a, process:b, process:a, process:b, process:a]", log.toString());
+    }
+
+    // ------------------------------------------------------------------------
+    // cancel
+    // ------------------------------------------------------------------------
+
+    public void testSupersedePending() throws Exception {
+        fQueue = new TimeChartTaskQueue("Test Worker", 1);
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch gate = new CountDownLatch(1);
+        TestTask blocker = new TestTask("other", "x", 1, gate, log);
+        fQueue.submit(blocker);
+        assertTrue("started", blocker.fStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        TestTask old = new TestTask("itemize", "a", 1, null, log);
+        TestTask other = new TestTask("decorate", "a", 1, null, log);
+        fQueue.submit(old);
+        fQueue.submit(other);
+        assertEquals("getQueueDepth", 2, fQueue.getQueueDepth());
+        TestTask newer = new TestTask("itemize", "a", 1, null, log);
+        fQueue.submit(newer);
+        assertTrue("isCancelled", old.isCancelled());
+        assertFalse("isCancelled", other.isCancelled());
+        assertEquals("getQueueDepth", 2, fQueue.getQueueDepth());
+        gate.countDown();
+        assertTrue("done", newer.fDone.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertTrue("done", other.fDone.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals("log", "[other:x, decorate:a, itemize:a]", log.toString());
+    }
+
+    public void testSupersedeRunning() throws Exception {
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch gate = new CountDownLatch(1);
+        TestTask old = new TestTask("process", "a", 5, gate, log);
+        fQueue.submit(old);
+        assertTrue("started", old.fStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        TestTask newer = new TestTask("process", "a", 1, null, log);
+        fQueue.submit(newer);
+        assertTrue("isCancelled", old.isCancelled());
+        assertTrue("done", newer.fDone.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        gate.countDown();
+        // The cancelled task is not run again after its current slice
+        Thread.sleep(100);
+        assertEquals("log", "[process:a, process:a]", log.toString());
+        assertEquals("getQueueDepth", 0, fQueue.getQueueDepth());
+    }
+
+    public void testCancelTarget() throws Exception {
+        fQueue = new TimeChartTaskQueue("Test Worker", 1);
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch gate = new CountDownLatch(1);
+        TestTask blocker = new TestTask("other", "x", 1, gate, log);
+        fQueue.submit(blocker);
+        assertTrue("started", blocker.fStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        TestTask task1 = new TestTask("process", "a", 1, null, log);
+        TestTask task2 = new TestTask("itemize", "a", 1, null, log);
+        TestTask task3 = new TestTask("process", "b", 1, null, log);
+        fQueue.submit(task1);
+        fQueue.submit(task2);
+        fQueue.submit(task3);
+        fQueue.cancel(null, "a");
+        assertTrue("isCancelled", task1.isCancelled());
+        assertTrue("isCancelled", task2.isCancelled());
+        assertFalse("isCancelled", task3.isCancelled());
+        assertEquals("getQueueDepth", 1, fQueue.getQueueDepth());
+        gate.countDown();
+        assertTrue("done", task3.fDone.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals("log", "[other:x, process:b]", log.toString());
+    }
+
+    // ------------------------------------------------------------------------
+    // dispose
+    // ------------------------------------------------------------------------
+
+    public void testDispose() throws Exception {
+        List<String> log = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch gate = new CountDownLatch(1);
+        TestTask running = new TestTask("process", "a", 5, gate, log);
+        fQueue.submit(running);
+        assertTrue("started", running.fStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        fQueue.dispose();
+        assertTrue("isCancelled", running.isCancelled());
+        TestTask late = new TestTask("process", "b", 1, null, log);
+        fQueue.submit(late);
+        assertTrue("isCancelled", late.isCancelled());
+        gate.countDown();
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (fQueue.getNbThreads() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("getNbThreads", 0, fQueue.getNbThreads());
+        assertEquals("log", "[process:a]", log.toString());
+    }
+
+}
@@ -25,6 +25,7 @@ public class AllTests {
         suite.addTestSuite(TmfUml2SDSyncLoaderSignalTest.class);
         suite.addTestSuite(TmfUml2SDSyncLoaderFindTest.class);
         suite.addTestSuite(TmfUml2SDSyncLoaderFilterTest.class);
+        suite.addTestSuite(TmfUml2SDSyncLoaderIndexTest.class);
         //$JUnit-END$
         return new Uml2SDTestSetup(suite);
     }
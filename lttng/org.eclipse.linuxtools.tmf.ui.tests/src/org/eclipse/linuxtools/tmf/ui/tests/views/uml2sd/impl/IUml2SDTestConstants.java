@@ -25,6 +25,7 @@ public interface IUml2SDTestConstants {
     final static public int TOTAL_NUMBER_OF_PAGES  = 9;
     final static public int MAX_MESSEAGES_PER_PAGE = 10000;
     final static public int NUM_MESSAGES_OF_LAST_PAGE = 32;
+    final static public int PAGE_CACHE_SIZE = 5;
     
     final static public int DEFAULT_NUM_LIFELINES = 2;
     final static public int NUM_OF_ALL_LIFELINES = 3;
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.linuxtools.tmf.ui.tests.views.uml2sd.impl;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
+import org.eclipse.linuxtools.tmf.ui.views.uml2sd.core.Frame;
+import org.eclipse.linuxtools.tmf.ui.views.uml2sd.core.GraphNode;
+import org.eclipse.linuxtools.tmf.ui.views.uml2sd.core.SyncMessage;
+import org.eclipse.linuxtools.tmf.ui.views.uml2sd.handlers.widgets.Criteria;
+import org.eclipse.linuxtools.tmf.ui.views.uml2sd.handlers.widgets.FilterCriteria;
+import org.eclipse.linuxtools.tmf.ui.views.uml2sd.impl.TmfSyncMessage;
+import org.eclipse.linuxtools.tmf.ui.views.uml2sd.impl.TmfUml2SDSyncLoader;
+
+/**
+ * Tests of the page index of the loader: the rank of the first event of each
+ * page, the page cache and the name index used by find.
+ */
+@SuppressWarnings("nls")
+public class TmfUml2SDSyncLoaderIndexTest extends TestCase {
+
+    // ------------------------------------------------------------------------
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    // Test case 005 expected values
+    final static private int    TC_005_PAGE_VALUE     = 4;
+    final static private String TC_005_LIFELINE_NAME  = IUml2SDTestConstants.SECOND_PLAYER_NAME;
+
+    // Test case 008 expected values
+    final static private int    TC_008_PAGE_VALUE     = 4;
+    final static private String TC_008_MESSAGE_NAME   = "GAME_REQUEST";
+    final static private String TC_008_START_LIFELINE = IUml2SDTestConstants.SECOND_PLAYER_NAME;
+
+    private Uml2SDTestFacility fFacility;
+
+    // ------------------------------------------------------------------------
+    // Static methods
+    // ------------------------------------------------------------------------
+
+    /**
+     * Returns test setup used when executing test case stand-alone.
+     * @return Test setup class
+     */
+    public static Test suite() {
+        return new Uml2SDTestSetup(new TestSuite(TmfUml2SDSyncLoaderIndexTest.class));
+    }
+
+    // ------------------------------------------------------------------------
+    // Constructors
+    // ------------------------------------------------------------------------
+    public TmfUml2SDSyncLoaderIndexTest() {
+    }
+
+    // ------------------------------------------------------------------------
+    // Operations
+    // ------------------------------------------------------------------------
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        fFacility = Uml2SDTestFacility.getInstance();
+        fFacility.selectExperiment();
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        fFacility.getLoader().filter(new ArrayList<FilterCriteria>());
+        fFacility.disposeExperiment();
+        fFacility = null;
+        super.tearDown();
+    }
+
+    public void testIndexHandling() throws Exception {
+        verifyRankPaging();
+        verifyPageCache();
+        verifyFindWithFilters();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyRankPaging() throws Exception {
+        TmfUml2SDSyncLoader loader = fFacility.getLoader();
+        List<Long> ranks = (List<Long>) getLoaderField(loader, "fCheckPointRanks");
+        List<TmfTimeRange> checkPoints = (List<TmfTimeRange>) getLoaderField(loader, "fCheckPoints");
+
+        /*
+         * Test Case: 001
+         * Description: Verify the rank of the first event of each page.
+         * Verified Methods: loader.fIndexRequest.handleData(), loader.fIndexRequest.handleSuccess()
+         * Expected result: One rank per page, in increasing order
+         */
+        assertEquals("ranks", IUml2SDTestConstants.TOTAL_NUMBER_OF_PAGES, ranks.size());
+        assertTrue("ranks", ranks.get(0) >= 0);
+        for (int i = 1; i < ranks.size(); i++) {
+            assertTrue("ranks", ranks.get(i) - ranks.get(i - 1) >= IUml2SDTestConstants.MAX_MESSEAGES_PER_PAGE);
+        }
+
+        /*
+         * Test Case: 002
+         * Description: Verify the page boundaries when reading the pages by rank.
+         * Verified Methods: loader.pageNumberChanged(), loader.moveToPage(), loader.requestPage()
+         * Expected result: Each page holds exactly the messages between its first and
+         *                  last checkpoint time
+         */
+        for (int page = IUml2SDTestConstants.TOTAL_NUMBER_OF_PAGES - 1; page >= 0; page--) {
+            fFacility.setPage(page);
+            Frame frame = fFacility.getSdView().getFrame();
+            int nbMessages = (page == IUml2SDTestConstants.TOTAL_NUMBER_OF_PAGES - 1) ?
+                    IUml2SDTestConstants.NUM_MESSAGES_OF_LAST_PAGE : IUml2SDTestConstants.MAX_MESSEAGES_PER_PAGE;
+            assertEquals("page", page, loader.currentPage());
+            assertEquals("page", nbMessages, frame.syncMessageCount());
+            SyncMessage first = frame.getSyncMessage(0);
+            SyncMessage last = frame.getSyncMessage(nbMessages - 1);
+            assertEquals("page", 0, checkPoints.get(page).getStartTime().compareTo(first.getStartTime(), false));
+            assertEquals("page", 0, checkPoints.get(page).getEndTime().compareTo(last.getStartTime(), false));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyPageCache() throws Exception {
+        TmfUml2SDSyncLoader loader = fFacility.getLoader();
+        Map<Integer, ?> cache = (Map<Integer, ?>) getLoaderField(loader, "fPageCache");
+
+        /*
+         * Test Case: 003
+         * Description: Verify the eviction of the least recently displayed page.
+         * Verified Methods: loader.cachePage(), PageCache.removeEldestEntry()
+         * Expected result: Only the last PAGE_CACHE_SIZE displayed pages are kept
+         */
+        fFacility.firstPage();
+        for (int page = 1; page <= IUml2SDTestConstants.PAGE_CACHE_SIZE; page++) {
+            fFacility.nextPage();
+        }
+        assertEquals("cache", IUml2SDTestConstants.PAGE_CACHE_SIZE, cache.size());
+        assertFalse("cache", cache.containsKey(0));
+        for (int page = 1; page <= IUml2SDTestConstants.PAGE_CACHE_SIZE; page++) {
+            assertTrue("cache", cache.containsKey(page));
+        }
+
+        /*
+         * Test Case: 004
+         * Description: Verify that displaying a cached page makes it the most recent one.
+         * Verified Methods: loader.moveToPage(), PageCache.removeEldestEntry()
+         * Expected result: The page displayed again is kept, the next least recent one is evicted
+         */
+        fFacility.setPage(1);
+        assertEquals("cache", IUml2SDTestConstants.MAX_MESSEAGES_PER_PAGE, fFacility.getSdView().getFrame().syncMessageCount());
+        fFacility.setPage(IUml2SDTestConstants.PAGE_CACHE_SIZE + 1);
+        assertEquals("cache", IUml2SDTestConstants.PAGE_CACHE_SIZE, cache.size());
+        assertTrue("cache", cache.containsKey(1));
+        assertFalse("cache", cache.containsKey(2));
+        assertTrue("cache", cache.containsKey(IUml2SDTestConstants.PAGE_CACHE_SIZE + 1));
+
+        fFacility.firstPage();
+    }
+
+    private void verifyFindWithFilters() {
+        TmfUml2SDSyncLoader loader = fFacility.getLoader();
+
+        /*
+         * Test Case: 005
+         * Description: Verify find of a lifeline in the next pages using the name index.
+         * Verified Methods: loader.find(), loader.findInNextPages(), loader.findPage()
+         * Expected result: The first page of the lifeline is displayed
+         */
+        Criteria criteria = new Criteria();
+        criteria.setLifeLineSelected(true);
+        criteria.setExpression(TC_005_LIFELINE_NAME);
+        assertTrue("find", loader.find(criteria));
+        loader.waitForCompletion();
+        fFacility.delay(IUml2SDTestConstants.GUI_REFESH_DELAY);
+        assertEquals("find", TC_005_PAGE_VALUE, loader.currentPage());
+        fFacility.firstPage();
+
+        /*
+         * Test Case: 006
+         * Description: Verify find of a lifeline hidden by a filter.
+         * Verified Methods: loader.find(), loader.findInNextPages(), loader.findPage()
+         * Expected result: Nothing is found, the current page is unchanged
+         */
+        List<FilterCriteria> filters = new ArrayList<FilterCriteria>();
+        Criteria filter = new Criteria();
+        filter.setLifeLineSelected(true);
+        filter.setExpression(TC_005_LIFELINE_NAME);
+        filters.add(new FilterCriteria(filter, true, false));
+        loader.filter(filters);
+        fFacility.delay(IUml2SDTestConstants.GUI_REFESH_DELAY);
+
+        criteria = new Criteria();
+        criteria.setLifeLineSelected(true);
+        criteria.setExpression(TC_005_LIFELINE_NAME);
+        assertFalse("find", loader.find(criteria));
+        assertEquals("find", 0, loader.currentPage());
+
+        /*
+         * Test Case: 007
+         * Description: Verify find of a message hidden by a message filter.
+         * Verified Methods: loader.find(), loader.findInNextPages(), loader.findPage()
+         * Expected result: Nothing is found, the current page is unchanged
+         */
+        filters.get(0).setActive(false);
+        filter = new Criteria();
+        filter.setSyncMessageSelected(true);
+        filter.setExpression("GAME_.*");
+        filters.add(new FilterCriteria(filter, true, false));
+        loader.filter(filters);
+        fFacility.delay(IUml2SDTestConstants.GUI_REFESH_DELAY);
+
+        criteria = new Criteria();
+        criteria.setSyncMessageSelected(true);
+        criteria.setExpression(TC_008_MESSAGE_NAME);
+        assertFalse("find", loader.find(criteria));
+        assertEquals("find", 0, loader.currentPage());
+
+        /*
+         * Test Case: 008
+         * Description: Verify find of a message whose lifeline is hidden on the first pages.
+         * Verified Methods: loader.find(), loader.findInNextPages(), loader.findPage()
+         * Expected result: The first page where the message is visible is displayed and
+         *                  the message is selected
+         */
+        filters.get(1).setActive(false);
+        filter = new Criteria();
+        filter.setLifeLineSelected(true);
+        filter.setExpression(IUml2SDTestConstants.FIRST_PLAYER_NAME);
+        filters.add(new FilterCriteria(filter, true, false));
+        loader.filter(filters);
+        fFacility.delay(IUml2SDTestConstants.GUI_REFESH_DELAY);
+
+        criteria = new Criteria();
+        criteria.setSyncMessageSelected(true);
+        criteria.setExpression(TC_008_MESSAGE_NAME);
+        assertTrue("find", loader.find(criteria));
+        loader.waitForCompletion();
+        fFacility.delay(IUml2SDTestConstants.GUI_REFESH_DELAY);
+        assertEquals("find", TC_008_PAGE_VALUE, loader.currentPage());
+
+        // The selection is done by the next find on the displayed page
+        assertTrue("find", loader.find(criteria));
+        List<GraphNode> selection = fFacility.getSdView().getSDWidget().getSelection();
+        assertNotNull(selection);
+        assertEquals("find", 1, selection.size());
+        assertTrue(selection.get(0) instanceof TmfSyncMessage);
+        TmfSyncMessage msg = (TmfSyncMessage) selection.get(0);
+        assertEquals("find", TC_008_MESSAGE_NAME, msg.getName());
+        assertEquals("find", TC_008_START_LIFELINE, msg.getStartLifeline().getName());
+
+        loader.cancel();
+        loader.filter(new ArrayList<FilterCriteria>());
+        fFacility.firstPage();
+    }
+
+    /*
+     * Returns the value of a (protected) field of the loader
+     */
+    private static Object getLoaderField(TmfUml2SDSyncLoader loader, String name) throws Exception {
+        Field field = TmfUml2SDSyncLoader.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(loader);
+    }
+}
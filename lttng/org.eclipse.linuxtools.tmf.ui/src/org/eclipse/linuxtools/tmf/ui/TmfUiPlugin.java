@@ -12,10 +12,14 @@
 
 package org.eclipse.linuxtools.tmf.ui;
 
+import java.util.concurrent.Executor;
+
 import org.eclipse.jface.resource.ImageDescriptor;
 import org.eclipse.jface.resource.ImageRegistry;
+import org.eclipse.linuxtools.tmf.signal.TmfSignalManager;
 import org.eclipse.linuxtools.tmf.ui.project.model.TmfTraceElement;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
@@ -61,10 +65,18 @@ public class TmfUiPlugin extends AbstractUIPlugin {
 		plugin = this;
 		TmfUiTracer.init();
 		TmfTraceElement.init();
+		// The views update their widgets from their signal handlers
+		TmfSignalManager.setAsyncExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				Display.getDefault().asyncExec(command);
+			}
+		});
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+	    TmfSignalManager.setAsyncExecutor(null);
 	    TmfUiTracer.stop();
 		plugin = null;
 		super.stop(context);
@@ -35,6 +35,7 @@ public class CustomEvent extends TmfEvent {
     protected CustomTraceDefinition fDefinition;
     protected Map<String, String> fData;
     private String[] fColumnData;
+    private Map<String, String> fSpareData; // the processed data map, kept for re-use
 
     public CustomEvent(CustomTraceDefinition definition) {
         fDefinition = definition;
@@ -60,15 +61,32 @@ public class CustomEvent extends TmfEvent {
     }
     
     @Override
-    public TmfTimestamp getTimestamp() {
+    protected void parseTimestamp() {
         if (fData != null) processData();
-        return super.getTimestamp();
     }
 
-    @Override
-    public TmfTimestamp getOriginalTimestamp() {
-        if (fData != null) processData();
-        return super.getOriginalTimestamp();
+    /**
+     * Re-initializes a flyweight event with the next event read (see
+     * TmfEvent.reset()): the data is cleared and the content, kept, is reset
+     * to the raw text.
+     * 
+     * @param parentTrace the parent trace
+     * @param source the event source
+     * @param type the event type
+     * @param reference the event reference
+     * @param rawText the raw text of the event content
+     */
+    protected void reset(ITmfTrace<?> parentTrace, TmfEventSource source, TmfEventType type, TmfEventReference reference, String rawText) {
+        CustomEventContent content = (CustomEventContent) getContent();
+        reset(parentTrace, -1, 0, (byte) 0, source, type, reference);
+        if (fData == null) {
+            fData = (fSpareData != null) ? fSpareData : new HashMap<String, String>();
+            fSpareData = null;
+        }
+        fData.clear();
+        fColumnData = null;
+        content.reset(rawText);
+        setContent(content);
     }
 
     public String[] extractItemFields() {
@@ -84,7 +102,7 @@ public class CustomEvent extends TmfEvent {
             SimpleDateFormat dateFormat = new SimpleDateFormat(timeStampInputFormat);
             try {
                 date = dateFormat.parse(timeStampString);
-                fOriginalTimestamp = fEffectiveTimestamp = new TmfTimestamp(date.getTime(), TIMESTAMP_SCALE);
+                setTimestamp(date.getTime(), TIMESTAMP_SCALE);
             } catch (ParseException e) {
                 fOriginalTimestamp = fEffectiveTimestamp = TmfTimestamp.Zero;
             }
@@ -103,6 +121,18 @@ public class CustomEvent extends TmfEvent {
                 fColumnData[i++] = (value != null ? value : ""); //$NON-NLS-1$
             }
         }
+        fSpareData = fData;
         fData = null;
     }
+
+    @Override
+    public CustomEvent clone() {
+        CustomEvent clone = (CustomEvent) super.clone();
+        // The data map of a flyweight event is re-used by the next read
+        if (fData != null) {
+            clone.fData = new HashMap<String, String>(fData);
+        }
+        clone.fSpareData = null;
+        return clone;
+    }
 }
@@ -10,12 +10,34 @@ public class CustomEventContent extends TmfEventContent {
         super(parent, content);
     }
 
+    /**
+     * Re-initializes the content of a flyweight event
+     * 
+     * @param rawText the new raw text
+     */
+    public void reset(String rawText) {
+        StringBuffer buffer = (StringBuffer) fRawContent;
+        buffer.setLength(0);
+        buffer.append(rawText);
+        fFields = null;
+    }
+
     @Override
     protected void parseContent() {
         CustomEvent event = (CustomEvent) fParentEvent;
         fFields = event.extractItemFields();
     }
 
+    @Override
+    public CustomEventContent clone() {
+        CustomEventContent clone = (CustomEventContent) super.clone();
+        // The raw text of a flyweight event is re-used by the next read
+        if (fRawContent instanceof StringBuffer) {
+            clone.fRawContent = new StringBuffer((StringBuffer) fRawContent);
+        }
+        return clone;
+    }
+
     @Override
     public String toString() {
         return Arrays.toString(getFields());
@@ -25,7 +25,8 @@ import org.eclipse.linuxtools.tmf.event.TmfEvent;
 import org.eclipse.linuxtools.tmf.event.TmfEventReference;
 import org.eclipse.linuxtools.tmf.event.TmfEventSource;
 import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
-import org.eclipse.linuxtools.tmf.io.BufferedRandomAccessFile;
+import org.eclipse.linuxtools.tmf.io.MappedFile;
+import org.eclipse.linuxtools.tmf.io.MappedFileReader;
 import org.eclipse.linuxtools.tmf.trace.ITmfContext;
 import org.eclipse.linuxtools.tmf.trace.ITmfLocation;
 import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
@@ -37,9 +38,12 @@ import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomTxtTraceDefinition.Inp
 public class CustomTxtTrace extends TmfTrace<CustomTxtEvent> {
 
     private static final TmfLocation<Long> NULL_LOCATION = new TmfLocation<Long>((Long) null);
+    private static final TmfEventSource EVENT_SOURCE = new TmfEventSource(""); //$NON-NLS-1$
+    private static final TmfEventReference EVENT_REFERENCE = new TmfEventReference(""); //$NON-NLS-1$
     
     private CustomTxtTraceDefinition fDefinition;
     private CustomTxtEventType fEventType;
+    private MappedFile fFile; // shared by all the contexts
 
     public CustomTxtTrace(CustomTxtTraceDefinition definition) {
         fDefinition = definition;
@@ -59,6 +63,37 @@ public class CustomTxtTrace extends TmfTrace<CustomTxtEvent> {
         return null;
     }
 
+    /*
+     * Returns the trace file, opened on first use
+     */
+    private synchronized MappedFile getMappedFile() throws IOException {
+        if (fFile == null) {
+            fFile = new MappedFile(getPath());
+        }
+        return fFile;
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+        synchronized (this) {
+            if (fFile != null) {
+                try {
+                    fFile.close();
+                } catch (IOException e) {
+                }
+                fFile = null;
+            }
+        }
+    }
+
+    @Override
+    protected void indexTrace(boolean waitForCompletion) {
+        // The events are located by file offset and seekLocation() re-synchronizes
+        // on the next first line: the file chunks can be parsed concurrently
+        indexTraceInChunks(waitForCompletion);
+    }
+
     @Override
     public TmfContext seekLocation(ITmfLocation<?> location) {
         //System.out.println(Thread.currentThread().getName() + "::" + getName() + " seekLocation(" + ((location == null || location.getLocation() == null) ? "null" : location) + ")");
@@ -68,7 +103,7 @@ public class CustomTxtTrace extends TmfTrace<CustomTxtEvent> {
             return context;
         }
         try {
-            BufferedRandomAccessFile raFile = new BufferedRandomAccessFile(getPath(), "r"); //$NON-NLS-1$
+            MappedFileReader raFile = getMappedFile().newReader();
             if (location != null && location.getLocation() instanceof Long) {
                 raFile.seek((Long)location.getLocation());
             }
@@ -103,7 +138,7 @@ public class CustomTxtTrace extends TmfTrace<CustomTxtEvent> {
     @Override
     public TmfContext seekLocation(double ratio) {
         try {
-            BufferedRandomAccessFile raFile = new BufferedRandomAccessFile(getPath(), "r"); //$NON-NLS-1$
+            MappedFileReader raFile = getMappedFile().newReader();
             long pos = (long) (ratio * raFile.length());
             while (pos > 0) {
                 raFile.seek(pos - 1);
@@ -127,8 +162,7 @@ public class CustomTxtTrace extends TmfTrace<CustomTxtEvent> {
     public double getLocationRatio(ITmfLocation<?> location) {
         try {
             if (location.getLocation() instanceof Long) {
-            	BufferedRandomAccessFile raFile = new BufferedRandomAccessFile(getPath(), "r"); //$NON-NLS-1$
-                return (double) ((Long) location.getLocation()) / raFile.length();
+                return (double) ((Long) location.getLocation()) / getMappedFile().length();
             }
         } catch (FileNotFoundException e) {
             e.printStackTrace();
@@ -308,9 +342,17 @@ public class CustomTxtTrace extends TmfTrace<CustomTxtEvent> {
     }
     
     public CustomTxtEvent parseFirstLine(CustomTxtTraceContext context) {
-        CustomTxtEvent event = new CustomTxtEvent(fDefinition, this, TmfTimestamp.Zero, new TmfEventSource(""), fEventType, new TmfEventReference("")); //$NON-NLS-1$ //$NON-NLS-2$
+        CustomTxtEvent event;
+        if (context.getFlyweightEvent() instanceof CustomTxtEvent) {
+            // Re-use the event of the previous read
+            event = (CustomTxtEvent) context.getFlyweightEvent();
+            event.reset(this, EVENT_SOURCE, fEventType, EVENT_REFERENCE, context.firstLine);
+        } else {
+            event = new CustomTxtEvent(fDefinition, this, TmfTimestamp.Zero, EVENT_SOURCE, fEventType, EVENT_REFERENCE);
+            event.setContent(new CustomEventContent(event, new StringBuffer(context.firstLine)));
+            context.setFlyweightEvent(event);
+        }
         event.processGroups(context.inputLine, context.firstLineMatcher);
-        event.setContent(new CustomEventContent(event, new StringBuffer(context.firstLine)));
         return event;
     }
     
@@ -12,16 +12,15 @@
 
 package org.eclipse.linuxtools.tmf.ui.parsers.custom;
 
-import java.io.IOException;
 import java.util.regex.Matcher;
 
-import org.eclipse.linuxtools.tmf.io.BufferedRandomAccessFile;
+import org.eclipse.linuxtools.tmf.io.MappedFileReader;
 import org.eclipse.linuxtools.tmf.trace.ITmfLocation;
 import org.eclipse.linuxtools.tmf.trace.TmfContext;
 import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomTxtTraceDefinition.InputLine;
 
 public class CustomTxtTraceContext extends TmfContext {
-    public BufferedRandomAccessFile raFile;
+    public MappedFileReader raFile;
     public Matcher firstLineMatcher;
     public String firstLine;
     public long nextLineLocation;
@@ -34,10 +33,7 @@ public class CustomTxtTraceContext extends TmfContext {
     @Override
     public void dispose() {
         if (raFile != null) {
-            try {
-                raFile.close();
-            } catch (IOException e) {
-            }
+            raFile.close();
         }
         super.dispose();
     }
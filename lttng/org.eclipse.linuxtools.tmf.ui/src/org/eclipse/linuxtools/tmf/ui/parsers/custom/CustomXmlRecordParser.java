@@ -0,0 +1,448 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.ui.parsers.custom;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomXmlTraceDefinition.InputAttribute;
+import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomXmlTraceDefinition.InputElement;
+
+/**
+ * <b><u>CustomXmlRecordParser</u></b>
+ * <p>
+ * Streaming parser of the record elements of a custom XML trace. The record
+ * element is read from the file in a single pass and matched against the
+ * input element tree of the definition as its tags are read: no document is
+ * built. The values are the same as those extracted from a DOM element (see
+ * CustomXmlTrace.parseElement()), and the text of an element is only
+ * collected when it, or one of its ancestors, is an input.
+ * <p>
+ * The parser reads well-formed records: the DTD is ignored and the entities
+ * other than the predefined ones and the character references are kept as is.
+ */
+public class CustomXmlRecordParser {
+
+    private static final Charset CHARSET_UTF8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+    private final InputElement fRecordInputElement;
+    private RandomAccessFile fFile;
+
+    // The raw bytes of the record (the event content)
+    private byte[] fRaw = new byte[1024];
+    private int fRawLength;
+
+    // The bytes of the token being read
+    private byte[] fToken = new byte[256];
+    private int fTokenLength;
+
+    // The open elements, and the inputs in document order
+    private final List<Frame> fStack = new ArrayList<Frame>();
+    private final List<Input> fInputs = new ArrayList<Input>();
+
+    /**
+     * An open element
+     */
+    private static class Frame {
+        final String name;
+        final InputElement input;
+        final boolean collect; // the element text is needed
+        final boolean report;  // the element is reported in its parent text
+        StringBuffer text;
+        boolean hasElement = false;
+        int nbChildren = 0;
+        String firstText = null;
+        Input elementInput = null;
+
+        Frame(String name, InputElement input, boolean collect, boolean report) {
+            this.name = name;
+            this.input = input;
+            this.collect = collect;
+            this.report = report;
+            if (collect) {
+                text = new StringBuffer();
+            }
+        }
+    }
+
+    /**
+     * A value to be parsed by the event
+     */
+    private static class Input {
+        final String name;
+        final int action;
+        final String format;
+        String value;
+
+        Input(String name, int action, String format, String value) {
+            this.name = name;
+            this.action = action;
+            this.format = format;
+            this.value = value;
+        }
+    }
+
+    public CustomXmlRecordParser(InputElement recordInputElement) {
+        fRecordInputElement = recordInputElement;
+    }
+
+    /**
+     * Parses the record element that starts ('&lt;') at the current file
+     * position into an event. On return, the file is positioned after the
+     * record end tag.
+     *
+     * @param file the trace file
+     * @param event the event, with an empty content
+     * @return true if the record was parsed, false if the end of the file was
+     *         reached first
+     * @throws IOException
+     */
+    public boolean parse(RandomAccessFile file, CustomXmlEvent event) throws IOException {
+        fFile = file;
+        fRawLength = 0;
+        fStack.clear();
+        fInputs.clear();
+        try {
+            if (!readRecord()) {
+                return false;
+            }
+            for (Input input : fInputs) {
+                event.parseInput(input.value, input.name, input.action, input.format);
+            }
+            ((StringBuffer) event.getContent().getContent()).append(new String(fRaw, 0, fRawLength, CHARSET_UTF8));
+            return true;
+        } finally {
+            fFile = null;
+            fStack.clear();
+            fInputs.clear();
+        }
+    }
+
+    private boolean readRecord() throws IOException {
+        if (read() != '<' || !readStartTag(read())) {
+            return false;
+        }
+        if (fStack.isEmpty()) {
+            return true; // empty record element
+        }
+        int c = read();
+        while (c != -1) {
+            if (c == '<') {
+                c = read();
+                if (c == '/') {
+                    if (!skipTo('>')) {
+                        return false;
+                    }
+                    endElement();
+                } else if (c == '!') {
+                    if (!readDeclaration()) {
+                        return false;
+                    }
+                    otherNode();
+                } else if (c == '?') {
+                    if (!skipTo("?>")) { //$NON-NLS-1$
+                        return false;
+                    }
+                    otherNode();
+                } else {
+                    if (!readStartTag(c)) {
+                        return false;
+                    }
+                }
+                if (fStack.isEmpty()) {
+                    return true;
+                }
+                c = read();
+            } else {
+                fTokenLength = 0;
+                while (c != '<' && c != -1) {
+                    token(c);
+                    c = read();
+                }
+                textNode(decode(tokenString(), false));
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Reads a start tag, from the first character of the element name. Returns
+     * false at the end of the file.
+     */
+    private boolean readStartTag(int first) throws IOException {
+        fTokenLength = 0;
+        int c = first;
+        while (c != -1 && c != '>' && c != '/' && !isWhitespace(c)) {
+            token(c);
+            c = read();
+        }
+        String name = tokenString();
+        Map<String, String> attributes = null;
+        while (true) {
+            while (isWhitespace(c)) {
+                c = read();
+            }
+            if (c == -1) {
+                return false;
+            } else if (c == '>') {
+                startElement(name, attributes);
+                return true;
+            } else if (c == '/') {
+                if (!skipTo('>')) {
+                    return false;
+                }
+                startElement(name, attributes);
+                endElement();
+                return true;
+            }
+
+            // Attribute
+            fTokenLength = 0;
+            while (c != -1 && c != '=' && c != '>' && !isWhitespace(c)) {
+                token(c);
+                c = read();
+            }
+            String attributeName = tokenString();
+            while (isWhitespace(c)) {
+                c = read();
+            }
+            if (c != '=') {
+                continue;
+            }
+            c = read();
+            while (isWhitespace(c)) {
+                c = read();
+            }
+            if (c != '"' && c != '\'') {
+                continue;
+            }
+            int quote = c;
+            fTokenLength = 0;
+            while ((c = read()) != quote) {
+                if (c == -1) {
+                    return false;
+                }
+                token(c);
+            }
+            if (attributes == null) {
+                attributes = new HashMap<String, String>();
+            }
+            attributes.put(attributeName, decode(tokenString(), true));
+            c = read();
+        }
+    }
+
+    /*
+     * Reads a comment, a CDATA section or a declaration, after the "<!".
+     * Returns false at the end of the file.
+     */
+    private boolean readDeclaration() throws IOException {
+        int c = read();
+        if (c == '-') {
+            read(); // the second '-'
+            return skipTo("-->"); //$NON-NLS-1$
+        } else if (c == '[') {
+            return skipTo("]]>"); //$NON-NLS-1$
+        }
+        return skipTo('>');
+    }
+
+    private void startElement(String name, Map<String, String> attributes) {
+        Frame parent = fStack.isEmpty() ? null : fStack.get(fStack.size() - 1);
+        InputElement input = null;
+        if (parent == null) {
+            input = fRecordInputElement;
+        } else {
+            parent.nbChildren++;
+            if (parent.input != null && parent.input.childElements != null) {
+                for (InputElement child : parent.input.childElements) {
+                    if (name.equals(child.elementName)) {
+                        input = child;
+                        break;
+                    }
+                }
+            }
+        }
+        boolean isInput = input != null && input.inputName != null && !input.inputName.equals(CustomXmlTraceDefinition.TAG_IGNORE);
+        boolean report = parent != null && parent.collect;
+        Frame frame = new Frame(name, input, report || isInput, report);
+        if (isInput) {
+            frame.elementInput = new Input(input.inputName, input.inputAction, input.inputFormat, ""); //$NON-NLS-1$
+            fInputs.add(frame.elementInput);
+        }
+        if (input != null && input.attributes != null) {
+            for (InputAttribute attribute : input.attributes) {
+                String value = (attributes != null) ? attributes.get(attribute.attributeName) : null;
+                fInputs.add(new Input(attribute.inputName, attribute.inputAction, attribute.inputFormat, (value != null) ? value : "")); //$NON-NLS-1$
+            }
+        }
+        fStack.add(frame);
+    }
+
+    private void endElement() {
+        Frame frame = fStack.remove(fStack.size() - 1);
+        if (frame.elementInput != null) {
+            frame.elementInput.value = frame.text.toString();
+        }
+        if (frame.report) {
+            Frame parent = fStack.get(fStack.size() - 1);
+            if (parent.hasElement) {
+                parent.text.append(" | "); //$NON-NLS-1$
+            } else {
+                parent.hasElement = true;
+            }
+            if (frame.nbChildren == 0) {
+                parent.text.append(frame.name);
+            } else if (frame.nbChildren == 1 && frame.firstText != null) {
+                parent.text.append(frame.name).append(':').append(frame.firstText.trim());
+            } else {
+                parent.text.append(frame.name).append(" [ ").append(frame.text).append(" ]"); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+        }
+    }
+
+    private void textNode(String text) {
+        Frame frame = fStack.get(fStack.size() - 1);
+        frame.nbChildren++;
+        if (frame.nbChildren == 1 && frame.report) {
+            frame.firstText = text;
+        }
+        if (frame.collect) {
+            String trimmed = text.trim();
+            if (trimmed.length() != 0) {
+                frame.text.append(trimmed);
+            }
+        }
+    }
+
+    private void otherNode() {
+        if (!fStack.isEmpty()) {
+            fStack.get(fStack.size() - 1).nbChildren++;
+        }
+    }
+
+    private int read() throws IOException {
+        int c = fFile.read();
+        if (c != -1) {
+            if (fRawLength == fRaw.length) {
+                fRaw = Arrays.copyOf(fRaw, 2 * fRaw.length);
+            }
+            fRaw[fRawLength++] = (byte) c;
+        }
+        return c;
+    }
+
+    private boolean skipTo(char end) throws IOException {
+        int c;
+        while ((c = read()) != end) {
+            if (c == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean skipTo(String end) throws IOException {
+        int matched = 0;
+        while (matched < end.length()) {
+            int c = read();
+            if (c == -1) {
+                return false;
+            } else if (c == end.charAt(matched)) {
+                matched++;
+            } else {
+                matched = (c == end.charAt(0)) ? 1 : 0;
+            }
+        }
+        return true;
+    }
+
+    private void token(int c) {
+        if (fTokenLength == fToken.length) {
+            fToken = Arrays.copyOf(fToken, 2 * fToken.length);
+        }
+        fToken[fTokenLength++] = (byte) c;
+    }
+
+    private String tokenString() {
+        return new String(fToken, 0, fTokenLength, CHARSET_UTF8);
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    /*
+     * Replaces the entity and character references and normalizes the line
+     * ends (text) or the whitespace characters (attribute value) as an XML
+     * parser does.
+     */
+    static String decode(String value, boolean attribute) {
+        if (value.indexOf('&') == -1 && value.indexOf('\r') == -1 && (!attribute || (value.indexOf('\n') == -1 && value.indexOf('\t') == -1))) {
+            return value;
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '&') {
+                int end = value.indexOf(';', i);
+                String replacement = (end != -1) ? getEntity(value.substring(i + 1, end)) : null;
+                if (replacement != null) {
+                    builder.append(replacement);
+                    i = end;
+                } else {
+                    builder.append(c);
+                }
+            } else if (c == '\r') {
+                if (i + 1 < length && value.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                builder.append(attribute ? ' ' : '\n');
+            } else if (attribute && (c == '\n' || c == '\t')) {
+                builder.append(' ');
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String getEntity(String name) {
+        if (name.equals("lt")) { //$NON-NLS-1$
+            return "<"; //$NON-NLS-1$
+        } else if (name.equals("gt")) { //$NON-NLS-1$
+            return ">"; //$NON-NLS-1$
+        } else if (name.equals("amp")) { //$NON-NLS-1$
+            return "&"; //$NON-NLS-1$
+        } else if (name.equals("quot")) { //$NON-NLS-1$
+            return "\""; //$NON-NLS-1$
+        } else if (name.equals("apos")) { //$NON-NLS-1$
+            return "'"; //$NON-NLS-1$
+        } else if (name.startsWith("#")) { //$NON-NLS-1$
+            try {
+                int codePoint = name.startsWith("#x") ? Integer.parseInt(name.substring(2), 16) : Integer.parseInt(name.substring(1)); //$NON-NLS-1$
+                return new String(Character.toChars(codePoint));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -12,16 +12,11 @@
 
 package org.eclipse.linuxtools.tmf.ui.parsers.custom;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
 import org.eclipse.linuxtools.tmf.event.TmfEvent;
 import org.eclipse.linuxtools.tmf.event.TmfEventReference;
 import org.eclipse.linuxtools.tmf.event.TmfEventSource;
@@ -33,21 +28,16 @@ import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
 import org.eclipse.linuxtools.tmf.trace.TmfContext;
 import org.eclipse.linuxtools.tmf.trace.TmfLocation;
 import org.eclipse.linuxtools.tmf.trace.TmfTrace;
-import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomXmlTraceDefinition.InputAttribute;
 import org.eclipse.linuxtools.tmf.ui.parsers.custom.CustomXmlTraceDefinition.InputElement;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.EntityResolver;
-import org.xml.sax.ErrorHandler;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
-import org.xml.sax.SAXParseException;
 
 public class CustomXmlTrace extends TmfTrace<CustomXmlEvent> {
 
     private static final TmfLocation<Long> NULL_LOCATION = new TmfLocation<Long>((Long) null);
+    private static final TmfEventSource EVENT_SOURCE = new TmfEventSource(""); //$NON-NLS-1$
+    private static final TmfEventReference EVENT_REFERENCE = new TmfEventReference(""); //$NON-NLS-1$
     
     private CustomXmlTraceDefinition fDefinition;
     private CustomXmlEventType fEventType;
@@ -66,6 +56,13 @@ public class CustomXmlTrace extends TmfTrace<CustomXmlEvent> {
         fRecordInputElement = getRecordInputElement(fDefinition.rootInputElement);
     }
 
+    @Override
+    protected void indexTrace(boolean waitForCompletion) {
+        // The events are located by file offset and seekLocation() re-synchronizes
+        // on the next record element: the file chunks can be parsed concurrently
+        indexTraceInChunks(waitForCompletion);
+    }
+
     @Override
     public TmfContext seekLocation(ITmfLocation<?> location) {
         //System.out.println(Thread.currentThread().getName() + "::" + getName() + " seekLocation(" + ((location == null || location.getLocation() == null) ? "null" : location) + ")");
@@ -180,15 +177,26 @@ public class CustomXmlTrace extends TmfTrace<CustomXmlEvent> {
         synchronized (context.raFile) {
             CustomXmlEvent event = null;
             try {
-                if (context.raFile.getFilePointer() != (Long)context.getLocation().getLocation() + 1) {
-                    context.raFile.seek((Long)context.getLocation().getLocation() + 1); // +1 is for the <
+                if (context.raFile.getFilePointer() != (Long)context.getLocation().getLocation()) {
+                    context.raFile.seek((Long)context.getLocation().getLocation());
+                }
+                if (context.getFlyweightEvent() instanceof CustomXmlEvent) {
+                    // Re-use the event of the previous read
+                    event = (CustomXmlEvent) context.getFlyweightEvent();
+                    event.reset(this, EVENT_SOURCE, fEventType, EVENT_REFERENCE, ""); //$NON-NLS-1$
+                } else {
+                    event = new CustomXmlEvent(fDefinition, this, TmfTimestamp.Zero, EVENT_SOURCE, fEventType, EVENT_REFERENCE);
+                    event.setContent(new CustomEventContent(event, new StringBuffer()));
+                    context.setFlyweightEvent(event);
+                }
+                if (context.parser == null) {
+                    context.parser = new CustomXmlRecordParser(fRecordInputElement);
+                }
+                if (!context.parser.parse(context.raFile, event)) {
+                    // Incomplete record
+                    context.setLocation(NULL_LOCATION);
+                    return null;
                 }
-                StringBuffer elementBuffer = new StringBuffer("<"); //$NON-NLS-1$
-                readElement(elementBuffer, context.raFile);
-                Element element = parseElementBuffer(elementBuffer);
-                
-                event = extractEvent(element, fRecordInputElement);
-                ((StringBuffer) event.getContent().getContent()).append(elementBuffer);
                 
                 String line;
                 String recordElementStart = "<" + fRecordInputElement.elementName; //$NON-NLS-1$
@@ -210,114 +218,6 @@ public class CustomXmlTrace extends TmfTrace<CustomXmlEvent> {
         }
     }
 
-    private Element parseElementBuffer(StringBuffer elementBuffer) {
-        try {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            DocumentBuilder db = dbf.newDocumentBuilder();
-
-            // The following allows xml parsing without access to the dtd
-            EntityResolver resolver = new EntityResolver () {
-                @Override
-				public InputSource resolveEntity (String publicId, String systemId) {
-                    String empty = ""; //$NON-NLS-1$
-                    ByteArrayInputStream bais = new ByteArrayInputStream(empty.getBytes());
-                    return new InputSource(bais);
-                }
-            };
-            db.setEntityResolver(resolver);
-
-            // The following catches xml parsing exceptions
-            db.setErrorHandler(new ErrorHandler(){
-                @Override
-				public void error(SAXParseException saxparseexception) throws SAXException {}
-                @Override
-				public void warning(SAXParseException saxparseexception) throws SAXException {}
-                @Override
-				public void fatalError(SAXParseException saxparseexception) throws SAXException {
-                    throw saxparseexception;
-                }});
-            
-            Document doc = db.parse(new ByteArrayInputStream(elementBuffer.toString().getBytes()));
-            return doc.getDocumentElement();
-        } catch (ParserConfigurationException e) {
-            e.printStackTrace();
-        } catch (SAXException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
-    private void readElement(StringBuffer buffer, RandomAccessFile raFile) {
-        try {
-            int numRead = 0;
-            boolean startTagClosed = false;
-            int i;
-            while ((i = raFile.read()) != -1) {
-                numRead++;
-                char c = (char)i;
-                buffer.append(c);
-                if (c == '"') {
-                    readQuote(buffer, raFile, '"');
-                } else if (c == '\'') {
-                    readQuote(buffer, raFile, '\'');
-                } else if (c == '<') {
-                    readElement(buffer, raFile);
-                } else if (c == '/' && numRead == 1) {
-                    break; // found "</"
-                } else if (c == '-' && numRead == 3 && buffer.substring(buffer.length() - 3, buffer.length() - 1).equals("!-")) { //$NON-NLS-1$
-                    readComment(buffer, raFile); // found "<!--"
-                } else if (i == '>') {
-                    if (buffer.charAt(buffer.length() - 2) == '/') {
-                        break; // found "/>"
-                    } else if (startTagClosed) {
-                        break; // found "<...>...</...>"
-                    } else {
-                        startTagClosed = true; // found "<...>"
-                    }
-                }
-            }
-            return;
-        } catch (IOException e) {
-            return;
-        }
-    }
-
-    private void readQuote(StringBuffer buffer, RandomAccessFile raFile, char eq) {
-        try {
-            int i;
-            while ((i = raFile.read()) != -1) {
-                char c = (char)i;
-                buffer.append(c);
-                if (c == eq) {
-                    break; // found matching end-quote
-                }
-            }
-            return;
-        } catch (IOException e) {
-            return;
-        }
-    }
-
-    private void readComment(StringBuffer buffer, RandomAccessFile raFile) {
-        try {
-            int numRead = 0;
-            int i;
-            while ((i = raFile.read()) != -1) {
-                numRead++;
-                char c = (char)i;
-                buffer.append(c);
-                if (c == '>' && numRead >= 2 && buffer.substring(buffer.length() - 3, buffer.length() - 1).equals("--")) { //$NON-NLS-1$
-                    break; // found "-->"
-                }
-            }
-            return;
-        } catch (IOException e) {
-            return;
-        }
-    }
-
     public static StringBuffer parseElement(Element parentElement, StringBuffer buffer) {
         NodeList nodeList = parentElement.getChildNodes();
         String separator = null;
@@ -363,39 +263,6 @@ public class CustomXmlTrace extends TmfTrace<CustomXmlEvent> {
         return null;
     }
     
-    public CustomXmlEvent extractEvent(Element element, InputElement inputElement) {
-        CustomXmlEvent event = new CustomXmlEvent(fDefinition, this, TmfTimestamp.Zero, new TmfEventSource(""), fEventType, new TmfEventReference("")); //$NON-NLS-1$ //$NON-NLS-2$
-        event.setContent(new CustomEventContent(event, new StringBuffer()));
-        parseElement(element, event, inputElement);
-        return event;
-    }
-    
-    private void parseElement(Element element, CustomXmlEvent event, InputElement inputElement) {
-        if (inputElement.inputName != null && !inputElement.inputName.equals(CustomXmlTraceDefinition.TAG_IGNORE)) {
-            event.parseInput(parseElement(element, new StringBuffer()).toString(), inputElement.inputName, inputElement.inputAction, inputElement.inputFormat);
-        }
-        if (inputElement.attributes != null) {
-            for (InputAttribute attribute : inputElement.attributes) {
-                event.parseInput(element.getAttribute(attribute.attributeName), attribute.inputName, attribute.inputAction, attribute.inputFormat);
-            }
-        }
-        NodeList childNodes = element.getChildNodes();
-        if (inputElement.childElements != null) {
-            for (int i = 0; i < childNodes.getLength(); i++) {
-                Node node = childNodes.item(i);
-                if (node instanceof Element) {
-                    for (InputElement child : inputElement.childElements) {
-                        if (node.getNodeName().equals(child.elementName)) {
-                            parseElement((Element) node, event, child);
-                            break;
-                        }
-                    }
-                }
-            }
-        }
-        return;
-    }
-
     public CustomTraceDefinition getDefinition() {
         return fDefinition;
     }
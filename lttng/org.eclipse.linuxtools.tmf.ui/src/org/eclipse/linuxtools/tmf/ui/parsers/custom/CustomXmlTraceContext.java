@@ -20,6 +20,8 @@ import org.eclipse.linuxtools.tmf.trace.TmfContext;
 
 public class CustomXmlTraceContext extends TmfContext {
     public BufferedRandomAccessFile raFile;
+    // The record parser, re-used for each event read with this context
+    public CustomXmlRecordParser parser;
 
     public CustomXmlTraceContext(ITmfLocation<?> location, long rank) {
         super(location, rank);
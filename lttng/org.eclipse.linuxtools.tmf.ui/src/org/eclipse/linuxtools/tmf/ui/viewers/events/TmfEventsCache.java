@@ -21,8 +21,12 @@ import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.linuxtools.tmf.component.ITmfDataProvider;
 import org.eclipse.linuxtools.tmf.event.TmfEvent;
 import org.eclipse.linuxtools.tmf.filter.ITmfFilter;
+import org.eclipse.linuxtools.tmf.filter.TmfCompiledFilter;
+import org.eclipse.linuxtools.tmf.filter.TmfFilterIndex;
+import org.eclipse.linuxtools.tmf.filter.model.ITmfFilterTreeNode;
 import org.eclipse.linuxtools.tmf.request.TmfDataRequest;
 import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
+import org.eclipse.linuxtools.tmf.ui.TmfUiPlugin;
 
 public class TmfEventsCache {
 
@@ -44,6 +48,8 @@ public class TmfEventsCache {
     private TmfEventsTable fTable;
     private ITmfFilter fFilter;
     private ArrayList<Integer> fFilterIndex = new ArrayList<Integer>(); // contains the event rank at each 'cache size' filtered events
+    private TmfFilterIndex fFilterRankIndex; // contains the rank of every filtered event, once built
+    private TmfFilterIndex fPendingFilterRankIndex;
 
     public TmfEventsCache(int cacheSize, TmfEventsTable table) {
     	fCache = new CachedEvent[cacheSize];
@@ -53,6 +59,7 @@ public class TmfEventsCache {
     public void setTrace(ITmfTrace trace) {
     	fTrace = trace;
     	clear();
+    	startFilterIndexJob();
     }
     
     public void clear() {
@@ -62,13 +69,18 @@ public class TmfEventsCache {
     }
 
     public void applyFilter(ITmfFilter filter) {
+    	if (filter instanceof ITmfFilterTreeNode) {
+    		filter = new TmfCompiledFilter((ITmfFilterTreeNode) filter);
+    	}
     	fFilter = filter;
     	clear();
+    	startFilterIndexJob();
     }
     
     public void clearFilter() {
     	fFilter = null;
     	clear();
+    	startFilterIndexJob();
     }
     
     public CachedEvent getEvent(int index) {
@@ -112,6 +124,10 @@ public class TmfEventsCache {
     	int startRank;
     	TmfDataRequest<TmfEvent> request;
     	synchronized (this) {
+    		if (fFilterRankIndex != null && rank <= fFilterRankIndex.getNbEvents()) {
+    			return fFilterRankIndex.getIndex(rank);
+    		}
+    		
     		int start = 0;
     		int end = fFilterIndex.size();
     		
@@ -184,6 +200,69 @@ public class TmfEventsCache {
     	return 0;
     }
     
+    // ------------------------------------------------------------------------
+    // Filtered events index
+    // ------------------------------------------------------------------------
+
+    // The filtered events index building job
+    private Job indexJob;
+    private synchronized void startFilterIndexJob() {
+    	if (indexJob != null) {
+    		indexJob.cancel();
+    		indexJob = null;
+    	}
+    	if (fPendingFilterRankIndex != null) {
+    		fPendingFilterRankIndex.cancel();
+    	}
+    	fFilterRankIndex = null;
+    	fPendingFilterRankIndex = null;
+    	if (fTrace == null || fFilter == null) {
+    		return;
+    	}
+
+    	final TmfFilterIndex filterIndex = new TmfFilterIndex(fTrace, fFilter);
+    	fPendingFilterRankIndex = filterIndex;
+    	indexJob = new Job("Indexing Filtered Events") { //$NON-NLS-1$
+    		@Override
+    		protected IStatus run(IProgressMonitor monitor) {
+    			try {
+    				filterIndex.build();
+    			} catch (InterruptedException e) {
+    			}
+    			if (filterIndex.getError() != null) {
+    				return new Status(IStatus.ERROR, TmfUiPlugin.PLUGIN_ID, "Error indexing filtered events", filterIndex.getError()); //$NON-NLS-1$
+    			}
+    			synchronized (TmfEventsCache.this) {
+    				if (filterIndex != fPendingFilterRankIndex || !filterIndex.isComplete()) {
+    					return Status.CANCEL_STATUS;
+    				}
+    				fFilterRankIndex = filterIndex;
+    				fPendingFilterRankIndex = null;
+    			}
+    			return Status.OK_STATUS;
+    		}
+
+    		@Override
+    		protected void canceling() {
+    			filterIndex.cancel();
+    		}
+    	};
+    	indexJob.setSystem(true);
+    	indexJob.setPriority(Job.LONG);
+    	indexJob.schedule();
+    }
+
+    /*
+     * Returns the rank of the filtered event at the given index, or -1 if
+     * it is not known yet
+     */
+    private synchronized long getFilteredEventRank(int index) {
+    	if (fFilterRankIndex == null) {
+    		return -1;
+    	}
+    	return fFilterRankIndex.getRank(index);
+    }
+
     // ------------------------------------------------------------------------
     // Event cache population
     // ------------------------------------------------------------------------
@@ -228,7 +307,10 @@ public class TmfEventsCache {
             	} else {
             		nbRequested = TmfDataRequest.ALL_DATA;
             		int i = index / fCache.length;
-            		if (i < fFilterIndex.size()) {
+            		long rank = getFilteredEventRank(index);
+            		if (rank >= 0) {
+            			startIndex = (int) rank;
+            		} else if (i < fFilterIndex.size()) {
             			startIndex = fFilterIndex.get(i);
             			skipCount = index - (i * fCache.length);
             		}
@@ -49,6 +49,7 @@ import org.eclipse.linuxtools.tmf.event.TmfEventContent;
 import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
 import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
 import org.eclipse.linuxtools.tmf.filter.ITmfFilter;
+import org.eclipse.linuxtools.tmf.filter.TmfCompiledFilter;
 import org.eclipse.linuxtools.tmf.filter.model.ITmfFilterTreeNode;
 import org.eclipse.linuxtools.tmf.filter.model.TmfFilterAndNode;
 import org.eclipse.linuxtools.tmf.filter.model.TmfFilterMatchesNode;
@@ -954,7 +955,7 @@ public class TmfEventsTable extends TmfComponent implements IGotoMarker, IColorS
     }
 
     protected class FilterThread extends Thread {
-        private final ITmfFilterTreeNode filter;
+        private final ITmfFilter filter;
         private TmfEventRequest<TmfEvent> request;
         private boolean refreshBusy = false;
         private boolean refreshPending = false;
@@ -962,7 +963,7 @@ public class TmfEventsTable extends TmfComponent implements IGotoMarker, IColorS
 
         public FilterThread(ITmfFilterTreeNode filter) {
             super("Filter Thread"); //$NON-NLS-1$
-            this.filter = filter;
+            this.filter = new TmfCompiledFilter(filter);
         }
 
         @SuppressWarnings("unchecked")
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.ui.viewers.timeAnalysis.widgets;
+
+import java.util.List;
+
+import org.eclipse.linuxtools.tmf.ui.viewers.timeAnalysis.model.ITimeEvent;
+
+/**
+ * <b><u>TimeEventIndex</u></b>
+ * <p>
+ * Level of detail index of the time events of an entry, used to draw only one
+ * event per pixel column when many events fall in the same column.
+ * <p>
+ * The events must be appended to the list in time order. They are grouped in
+ * blocks of 64 events, then blocks of 64 blocks, and so on, and each block
+ * remembers its longest event. The longest event of any range of events is
+ * then found by visiting at most 64 blocks per level. The index is updated
+ * incrementally with the events appended since the previous update.
+ * <p>
+ * The last event of the list is not indexed, since its duration may still
+ * change and, for a duration of -1, depends on the next event.
+ */
+public class TimeEventIndex {
+
+    // ------------------------------------------------------------------------
+    // Constants
+    // ------------------------------------------------------------------------
+
+    // Each block of a level contains 64 blocks (or events) of the level below
+    private static final int LEVEL_SHIFT = 6;
+    private static final int LEVEL_MASK = (1 << LEVEL_SHIFT) - 1;
+
+    // Enough levels for any list size
+    private static final int NB_LEVELS = 5;
+
+    // ------------------------------------------------------------------------
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    // The events of the entry (appended to by the entry owner)
+    private final List<? extends ITimeEvent> fEvents;
+
+    // The number of indexed events, and the events used to detect a reset
+    private int fNbIndexed = 0;
+    private ITimeEvent fFirstEvent = null;
+    private ITimeEvent fLastIndexedEvent = null;
+
+    // For each level, the longest event of the complete blocks and its duration
+    private final int[][] fLongest = new int[NB_LEVELS][];
+    private final long[][] fLongestDuration = new long[NB_LEVELS][];
+
+    // For each level, the longest event of the block being filled
+    private final int[] fOpenLongest = new int[NB_LEVELS];
+    private final long[] fOpenDuration = new long[NB_LEVELS];
+
+    // The size of the list at the last update
+    private int fSize = 0;
+
+    // ------------------------------------------------------------------------
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param events the (growing) list of events, in time order
+     */
+    public TimeEventIndex(List<? extends ITimeEvent> events) {
+        fEvents = events;
+        clear();
+    }
+
+    // ------------------------------------------------------------------------
+    // Accessors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return the indexed list of events
+     */
+    public List<? extends ITimeEvent> getEvents() {
+        return fEvents;
+    }
+
+    /**
+     * @return the number of events at the last update
+     */
+    public int size() {
+        return fSize;
+    }
+
+    /**
+     * @return the number of indexed events
+     */
+    public int getNbIndexed() {
+        return fNbIndexed;
+    }
+
+    /**
+     * @param rank the event rank
+     * @return the event
+     */
+    public ITimeEvent get(int rank) {
+        return fEvents.get(rank);
+    }
+
+    // ------------------------------------------------------------------------
+    // Operations
+    // ------------------------------------------------------------------------
+
+    /**
+     * Indexes the events appended to the list since the previous update. The
+     * index is rebuilt if the list was cleared or its events replaced.
+     *
+     * @return the number of events in the list
+     */
+    public synchronized int update() {
+        int size = fEvents.size();
+        if (size < fNbIndexed + 1
+                || (fNbIndexed > 0 && (fEvents.get(0) != fFirstEvent || fEvents.get(fNbIndexed - 1) != fLastIndexedEvent))) {
+            clear();
+        }
+        if (size > 0) {
+            fFirstEvent = fEvents.get(0);
+        }
+        for (int rank = fNbIndexed; rank < size - 1; rank++) {
+            add(rank, getDuration(rank, size));
+        }
+        if (fNbIndexed > 0) {
+            fLastIndexedEvent = fEvents.get(fNbIndexed - 1);
+        }
+        fSize = size;
+        return size;
+    }
+
+    /**
+     * Returns the rank of the first event at or after a given time (binary
+     * search of the events of the last update).
+     *
+     * @param time the time
+     * @param from the first rank to consider
+     * @param to the rank after the last rank to consider
+     * @return the rank of the first event in [from, to[ whose time is not
+     *         before the time, or to if there is none
+     */
+    public int indexOf(long time, int from, int to) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (fEvents.get(mid).getTime() < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the longest event of a range of events. The duration of an
+     * event of duration -1 is the time until the next event.
+     *
+     * @param from the rank of the first event
+     * @param to the rank after the last event
+     * @return the rank of the first longest event in [from, to[
+     */
+    public synchronized int getLongest(int from, int to) {
+        int longest = from;
+        long longestDuration = -1;
+        int rank = from;
+        while (rank < to) {
+            // Use the largest complete block that starts at this rank
+            int level = -1;
+            int blockSize = 1;
+            while (level + 1 < NB_LEVELS && (rank & ((blockSize << LEVEL_SHIFT) - 1)) == 0
+                    && rank + (blockSize << LEVEL_SHIFT) <= Math.min(to, fNbIndexed)) {
+                blockSize <<= LEVEL_SHIFT;
+                level++;
+            }
+            int candidate;
+            long duration;
+            if (level < 0) {
+                candidate = rank;
+                duration = getDuration(rank, fSize);
+            } else {
+                int block = rank / blockSize;
+                candidate = fLongest[level][block];
+                duration = fLongestDuration[level][block];
+            }
+            if (duration > longestDuration) {
+                longest = candidate;
+                longestDuration = duration;
+            }
+            rank += blockSize;
+        }
+        return longest;
+    }
+
+    // ------------------------------------------------------------------------
+    // Helper functions
+    // ------------------------------------------------------------------------
+
+    private void clear() {
+        fNbIndexed = 0;
+        fFirstEvent = null;
+        fLastIndexedEvent = null;
+        fSize = 0;
+        for (int level = 0; level < NB_LEVELS; level++) {
+            fLongest[level] = new int[16];
+            fLongestDuration[level] = new long[16];
+            fOpenDuration[level] = -1;
+        }
+    }
+
+    /*
+     * Returns the drawn duration of an event that has a next event
+     */
+    private long getDuration(int rank, int size) {
+        ITimeEvent event = fEvents.get(rank);
+        long duration = event.getDuration();
+        if (duration < 0) {
+            return (rank + 1 < size) ? fEvents.get(rank + 1).getTime() - event.getTime() : 0;
+        }
+        return duration;
+    }
+
+    /*
+     * Adds the next event to the open blocks, and closes the blocks that it
+     * completes
+     */
+    private void add(int rank, long duration) {
+        int candidate = rank;
+        long candidateDuration = duration;
+        int count = rank + 1;
+        for (int level = 0; level < NB_LEVELS; level++) {
+            if (candidateDuration > fOpenDuration[level]) {
+                fOpenLongest[level] = candidate;
+                fOpenDuration[level] = candidateDuration;
+            }
+            if ((count & LEVEL_MASK) != 0) {
+                break;
+            }
+            // The block of this level is complete
+            count >>>= LEVEL_SHIFT;
+            int block = count - 1;
+            if (block == fLongest[level].length) {
+                int[] longest = new int[block * 2];
+                System.arraycopy(fLongest[level], 0, longest, 0, block);
+                fLongest[level] = longest;
+                long[] durations = new long[block * 2];
+                System.arraycopy(fLongestDuration[level], 0, durations, 0, block);
+                fLongestDuration[level] = durations;
+            }
+            candidate = fOpenLongest[level];
+            candidateDuration = fOpenDuration[level];
+            fLongest[level][block] = candidate;
+            fLongestDuration[level][block] = candidateDuration;
+            fOpenDuration[level] = -1;
+        }
+        fNbIndexed++;
+    }
+
+}
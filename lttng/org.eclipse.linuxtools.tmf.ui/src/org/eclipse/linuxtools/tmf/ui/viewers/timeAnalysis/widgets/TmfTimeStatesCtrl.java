@@ -20,7 +20,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.Vector;
+import java.util.WeakHashMap;
 
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
@@ -112,6 +114,9 @@ public class TmfTimeStatesCtrl extends TraceCtrl implements FocusListener, KeyLi
 
     private Listener mouseScrollFilterListener;
 
+    // The level of detail indexes of the entries that have a list of events
+    private final Map<ITmfTimeAnalysisEntry, TimeEventIndex> _eventIndexes = new WeakHashMap<ITmfTimeAnalysisEntry, TimeEventIndex>();
+
     public TmfTimeStatesCtrl(Composite parent, TraceColorScheme colors, TmfTimeAnalysisProvider rutilImp) {
 
         super(parent, colors, SWT.NO_BACKGROUND | SWT.V_SCROLL | SWT.H_SCROLL | SWT.DOUBLE_BUFFERED);
@@ -912,6 +917,108 @@ public class TmfTimeStatesCtrl extends TraceCtrl implements FocusListener, KeyLi
         // }
     }
 
+    /**
+     * Returns the level of detail index of an entry, if its events are kept in
+     * a random access list.
+     * 
+     * @param trace
+     *            the entry
+     * @return the index, or null if the entry doesn't have a list of events
+     */
+    @SuppressWarnings("deprecation")
+    private TimeEventIndex getEventIndex(ITmfTimeAnalysisEntry trace) {
+        Vector<ITimeEvent> events = trace.getTraceEvents();
+        if (!(events instanceof RandomAccess)) {
+            return null;
+        }
+        TimeEventIndex index = _eventIndexes.get(trace);
+        if (index == null || index.getEvents() != events) {
+            index = new TimeEventIndex(events);
+            _eventIndexes.put(trace, index);
+        }
+        return index;
+    }
+
+    /**
+     * Draws the events of an entry with durations, using its level of detail
+     * index. When several events start in the same pixel column, only the
+     * longest one is drawn, so that the drawing time depends on the number of
+     * pixel columns rather than on the number of events.
+     * 
+     * @param index
+     *            - The level of detail index of the entry
+     * @param rect
+     *            - The container rectangle to be colored to different states
+     * @param time0
+     *            - Start of visible window
+     * @param endTime
+     *            - End time of all events
+     * @param selectedTime
+     * @param pixelsPerNanoSec
+     * @param selected
+     * @param gc
+     */
+    void drawIndexedEvents(TimeEventIndex index, Rectangle rect, long time0, long endTime, long selectedTime, double pixelsPerNanoSec, boolean selected, GC gc) {
+        if (pixelsPerNanoSec == 0) {
+            return;
+        }
+        int xEnd = rect.x + rect.width;
+        try {
+            int size = index.update();
+            // Start with the last event starting before the visible window
+            int rank = Math.max(0, index.indexOf(time0 + 1, 0, size) - 1);
+            while (rank < size) {
+                ITimeEvent currEvent = index.get(rank);
+                long currEventTime = currEvent.getTime();
+                double x0 = rect.x + (double) ((currEventTime - time0) * pixelsPerNanoSec);
+                if (x0 > xEnd) {
+                    break;
+                }
+
+                // The events starting in the same pixel column are drawn as their longest event
+                long columnEndTime = time0 + (long) Math.ceil((Math.floor(x0) + 1 - rect.x) / pixelsPerNanoSec);
+                int next = index.indexOf(Math.max(columnEndTime, currEventTime + 1), rank + 1, size);
+                long nextEventTime = (next < size) ? index.get(next).getTime() : endTime;
+                long currEventDuration = currEvent.getDuration();
+                if (next - rank > 1) {
+                    currEvent = index.get(index.getLongest(rank, next));
+                    currEventDuration = currEvent.getDuration();
+                    if (currEventDuration > 0) {
+                        currEventDuration += currEvent.getTime() - currEventTime;
+                    }
+                }
+
+                // Calculate position to next event, and end position of current event
+                double xNext = rect.x + (double) ((nextEventTime - time0) * pixelsPerNanoSec);
+                double x1;
+                if (currEventDuration < 0) {
+                    x1 = xNext;
+                } else if (currEventDuration == 0) {
+                    x1 = x0;
+                } else {
+                    x1 = Math.min(xNext, x0 + (double) (currEventDuration * pixelsPerNanoSec));
+                }
+
+                // if event end boundary is within time range
+                if (x1 >= rect.x && x0 <= xEnd) {
+                    if (currEventDuration != 0) {
+                        x0 = (double) (x0 >= rect.x ? x0 : rect.x);
+                        _rect1.width = (int) ((x1 <= xEnd ? x1 : xEnd) - x0);
+                    } else {
+                        _rect1.width = 1;
+                    }
+                    _rect1.width = Math.max(_minimumItemWidth, _rect1.width);
+                    _rect1.x = (int) x0;
+                    boolean timeSelected = currEventTime <= selectedTime && selectedTime < nextEventTime;
+                    utilImpl.drawState(_colors, currEvent, _rect1, gc, selected, false, timeSelected);
+                }
+                rank = next;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            // The events were cleared while drawing, the next refresh redraws them
+        }
+    }
+
     @Override
     void paint(Rectangle bound, PaintEvent e) {
         GC gc = e.gc;
@@ -1340,8 +1447,6 @@ public class TmfTimeStatesCtrl extends TraceCtrl implements FocusListener, KeyLi
             ITmfTimeAnalysisEntry trace = ((TraceItem) item)._trace;
 
             double x0 = rect.x;
-            long maxDuration = (_timeProvider.getTimeSpace() == 0) ? Long.MAX_VALUE : 1 * (_timeProvider.getTime1() - _timeProvider.getTime0()) / _timeProvider.getTimeSpace();
-            Iterator<ITimeEvent> iterator = trace.getTraceEventsIterator(_timeProvider.getTime0(), _timeProvider.getTime1(), maxDuration);
             // ITimeEvent lastEvent = null;
             // if (Trace.isDEBUG()) {
             // Trace.debug("\n\t\t\tTrace: " + trace.getName()
@@ -1355,95 +1460,104 @@ public class TmfTimeStatesCtrl extends TraceCtrl implements FocusListener, KeyLi
             // Clean up to empty line to draw on top
             int xEnd = rect.x + rect.width;
             fillSpace(rect, gc, selected);
-            if (iterator.hasNext()) {
-                ITimeEvent currEvent = iterator.next();
-                ITimeEvent nextEvent = null;
-                long currEventTime = currEvent.getTime();
-                long currEventDuration = currEvent.getDuration();
-                // initial value
-                long nextEventTime = currEventTime;
-                // x0 - Points to the beginning of the event being drawn
-                double step = (double) ((currEventTime - time0) * pixelsPerNanoSec);
-                x0 = rect.x + step;
-                // xEnd - Points to the end of the events rectangle
-                double x1 = -1;
-                double xNext = 0;
 
-                // draw event states
-                while (/* x0 <= xEnd && */null != currEvent) {
-                    boolean stopped = false;// currEvent instanceof
-                    // refresh current event duration as the loop moves
-                    currEventDuration = currEvent.getDuration();
-                    // TsfTmTraceDeadEvent;
-                    if (iterator.hasNext()) {
-                        nextEvent = iterator.next();
-                        nextEventTime = nextEvent.getTime();
-                    } else if (stopped) {
-                        nextEvent = null;
-                        nextEventTime = time1;
-                    } else {
-                        nextEvent = null;
-                        nextEventTime = endTime;
-                        // Trace
-                        // .debug("nexEventTime is endTime: "
-                        // + nextEventTime);
-                    }
-
-                    // Calculate position to next event
-                    xNext = rect.x + (double) ((nextEventTime - time0) * pixelsPerNanoSec);
+            // Draw one event per pixel column from the level of detail index, if possible
+            TimeEventIndex index = getEventIndex(trace);
+            if (index != null) {
+                drawIndexedEvents(index, rect, time0, endTime, selectedTime, pixelsPerNanoSec, selected, gc);
+            } else {
+                long maxDuration = (_timeProvider.getTimeSpace() == 0) ? Long.MAX_VALUE : 1 * (_timeProvider.getTime1() - _timeProvider.getTime0()) / _timeProvider.getTimeSpace();
+                Iterator<ITimeEvent> iterator = trace.getTraceEventsIterator(_timeProvider.getTime0(), _timeProvider.getTime1(), maxDuration);
+                if (iterator.hasNext()) {
+                    ITimeEvent currEvent = iterator.next();
+                    ITimeEvent nextEvent = null;
+                    long currEventTime = currEvent.getTime();
+                    long currEventDuration = currEvent.getDuration();
+                    // initial value
+                    long nextEventTime = currEventTime;
+                    // x0 - Points to the beginning of the event being drawn
+                    double step = (double) ((currEventTime - time0) * pixelsPerNanoSec);
+                    x0 = rect.x + step;
+                    // xEnd - Points to the end of the events rectangle
+                    double x1 = -1;
+                    double xNext = 0;
+
+                    // draw event states
+                    while (/* x0 <= xEnd && */null != currEvent) {
+                        boolean stopped = false;// currEvent instanceof
+                        // refresh current event duration as the loop moves
+                        currEventDuration = currEvent.getDuration();
+                        // TsfTmTraceDeadEvent;
+                        if (iterator.hasNext()) {
+                            nextEvent = iterator.next();
+                            nextEventTime = nextEvent.getTime();
+                        } else if (stopped) {
+                            nextEvent = null;
+                            nextEventTime = time1;
+                        } else {
+                            nextEvent = null;
+                            nextEventTime = endTime;
+                            // Trace
+                            // .debug("nexEventTime is endTime: "
+                            // + nextEventTime);
+                        }
 
-                    // Calculate end position of current event
-                    if (currEventDuration < 0) {
-                        x1 = rect.x + (double) ((nextEventTime - time0) * pixelsPerNanoSec);
-                    } else if (currEventDuration == 0) {
-                        x1 = x0;
-                    } else {
-                        x1 = x0 + (double) ((currEventDuration) * pixelsPerNanoSec);
-                    }
+                        // Calculate position to next event
+                        xNext = rect.x + (double) ((nextEventTime - time0) * pixelsPerNanoSec);
 
-                    // If event end position x1 further away than start position
-                    // of
-                    // next event, cut width till next event
-                    // Trace.debug("Next Event Pos: " + xNext
-                    // + " End Of Current at: " + x1 + " Event Duration: "
-                    // + currEventDuration);
-                    if (currEventDuration != 0) {
-                        x1 = x1 > xNext ? xNext : x1;
-                    }
-                    // if event end boundary is within time range
-                    if (x1 >= rect.x && x0 <= xEnd) {
-                        if (currEventDuration != 0) {
-                            x0 = (double) (x0 >= rect.x ? x0 : rect.x);
-                            _rect1.width = (int) ((x1 <= xEnd ? x1 : xEnd) - x0);
+                        // Calculate end position of current event
+                        if (currEventDuration < 0) {
+                            x1 = rect.x + (double) ((nextEventTime - time0) * pixelsPerNanoSec);
+                        } else if (currEventDuration == 0) {
+                            x1 = x0;
                         } else {
-                            _rect1.width = 1;
+                            x1 = x0 + (double) ((currEventDuration) * pixelsPerNanoSec);
                         }
-                        _rect1.width = Math.max(_minimumItemWidth, _rect1.width);
-                        _rect1.x = (int) x0;
-                        boolean timeSelected = currEventTime <= selectedTime && selectedTime < nextEventTime;
-                        utilImpl.drawState(_colors, currEvent, _rect1, gc, selected, false, timeSelected);
-                        // Trace.debug("Drawing rectangle: " + _rect1.x + ","
-                        // + _rect1.y + "," + _rect1.height + ", "
-                        // + _rect1.width + "-->"
-                        // + ((int) _rect1.x + (int) _rect1.width));
-                        // Advance rectangle to next start position and Fill
-                        // with space until next event
-                        _rect1.x += _rect1.width;
-                        x0 = _rect1.x;
-                    }
 
-                    // Fill space till next event
-                    // fillSpace(rect, gc, selected, x0, xNext, xEnd);
+                        // If event end position x1 further away than start position
+                        // of
+                        // next event, cut width till next event
+                        // Trace.debug("Next Event Pos: " + xNext
+                        // + " End Of Current at: " + x1 + " Event Duration: "
+                        // + currEventDuration);
+                        if (currEventDuration != 0) {
+                            x1 = x1 > xNext ? xNext : x1;
+                        }
+                        // if event end boundary is within time range
+                        if (x1 >= rect.x && x0 <= xEnd) {
+                            if (currEventDuration != 0) {
+                                x0 = (double) (x0 >= rect.x ? x0 : rect.x);
+                                _rect1.width = (int) ((x1 <= xEnd ? x1 : xEnd) - x0);
+                            } else {
+                                _rect1.width = 1;
+                            }
+                            _rect1.width = Math.max(_minimumItemWidth, _rect1.width);
+                            _rect1.x = (int) x0;
+                            boolean timeSelected = currEventTime <= selectedTime && selectedTime < nextEventTime;
+                            utilImpl.drawState(_colors, currEvent, _rect1, gc, selected, false, timeSelected);
+                            // Trace.debug("Drawing rectangle: " + _rect1.x + ","
+                            // + _rect1.y + "," + _rect1.height + ", "
+                            // + _rect1.width + "-->"
+                            // + ((int) _rect1.x + (int) _rect1.width));
+                            // Advance rectangle to next start position and Fill
+                            // with space until next event
+                            _rect1.x += _rect1.width;
+                            x0 = _rect1.x;
+                        }
 
-                    // lastEvent = currEvent;
-                    currEvent = nextEvent;
-                    currEventTime = nextEventTime;
-                    // Move x0 to the beginning of next event
-                    x0 = rect.x + (double) ((nextEventTime - time0) * pixelsPerNanoSec);
-                    // Trace.debug("rect.x: " + rect.x + " + " +
-                    // "(nextEvenTime: "
-                    // + nextEventTime + "- time0: " + time0 + ") * K: "
-                    // + K + " = " + x0);
+                        // Fill space till next event
+                        // fillSpace(rect, gc, selected, x0, xNext, xEnd);
+
+                        // lastEvent = currEvent;
+                        currEvent = nextEvent;
+                        currEventTime = nextEventTime;
+                        // Move x0 to the beginning of next event
+                        x0 = rect.x + (double) ((nextEventTime - time0) * pixelsPerNanoSec);
+                        // Trace.debug("rect.x: " + rect.x + " + " +
+                        // "(nextEvenTime: "
+                        // + nextEventTime + "- time0: " + time0 + ") * K: "
+                        // + K + " = " + x0);
+                    }
                 }
             }
         }
@@ -57,6 +57,17 @@ public abstract class TmfView extends ViewPart implements ITmfComponent {
 		TmfSignalManager.dispatchSignal(signal);
 	}
 
+	/**
+	 * Broadcasts a high-frequency signal (e.g. while the user drags a time
+	 * cursor). The signal is delivered later on the UI thread, unless it is
+	 * superseded by a newer signal of the same class from this view.
+	 *
+	 * @param signal
+	 */
+	public void broadcastAsync(TmfSignal signal) {
+		TmfSignalManager.dispatchSignalAsync(signal);
+	}
+
 	// ------------------------------------------------------------------------
 	// ViewPart
 	// ------------------------------------------------------------------------
@@ -20,6 +20,7 @@ public class Messages extends NLS {
     public static String TmfStatisticsView_LevelColumnTip;
     public static String TmfStatisticsView_NbEventsColumn;
     public static String TmfStatisticsView_NbEventsTip;
+    public static String TmfStatisticsView_StatisticsJobName;
     public static String TmfStatisticsView_UnknownTraceName;
     static {
         // initialize resource bundle
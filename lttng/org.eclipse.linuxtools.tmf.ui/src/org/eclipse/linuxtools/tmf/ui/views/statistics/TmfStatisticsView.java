@@ -13,8 +13,15 @@
 
 package org.eclipse.linuxtools.tmf.ui.views.statistics;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Vector;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.TreeViewerColumn;
 import org.eclipse.jface.viewers.Viewer;
@@ -31,7 +38,10 @@ import org.eclipse.linuxtools.tmf.signal.TmfExperimentDisposedSignal;
 import org.eclipse.linuxtools.tmf.signal.TmfExperimentRangeUpdatedSignal;
 import org.eclipse.linuxtools.tmf.signal.TmfExperimentSelectedSignal;
 import org.eclipse.linuxtools.tmf.signal.TmfSignalHandler;
+import org.eclipse.linuxtools.tmf.statistics.TmfPartialStatistics;
+import org.eclipse.linuxtools.tmf.statistics.TmfStatisticsCache;
 import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
+import org.eclipse.linuxtools.tmf.ui.TmfUiPlugin;
 import org.eclipse.linuxtools.tmf.ui.views.TmfView;
 import org.eclipse.linuxtools.tmf.ui.views.statistics.model.AbsTmfStatisticsTree;
 import org.eclipse.linuxtools.tmf.ui.views.statistics.model.ITmfColumnDataProvider;
@@ -87,6 +97,11 @@ public class TmfStatisticsView extends TmfView {
     protected TmfTimeRange fStatisticsUpdateRange = null;
     protected final Object fStatisticsUpdateSyncObj = new Object();
 
+    // The statistics caches of the traces of the current experiment
+    private final Map<ITmfTrace<?>, TmfStatisticsCache> fStatisticsCaches = new HashMap<ITmfTrace<?>, TmfStatisticsCache>();
+    // The job computing the statistics from the caches (if any)
+    private StatisticsJob fStatisticsJob = null;
+
     // Object to store the cursor while waiting for the experiment to load
     private Cursor fWaitCursor = null;
 
@@ -282,6 +297,9 @@ public class TmfStatisticsView extends TmfView {
     @TmfSignalHandler
     public void experimentDisposed(TmfExperimentDisposedSignal<? extends TmfEvent> signal) {
         cancelOngoingRequest();
+        synchronized (fStatisticsCaches) {
+            fStatisticsCaches.clear();
+        }
     }
 
     /**
@@ -456,32 +474,36 @@ public class TmfStatisticsView extends TmfView {
                 return;
             }
 
+            // Compute the statistics from the trace caches if the model allows it
+            AbsTmfStatisticsTree statisticsTree = TmfStatisticsTreeRootFactory.getStatTree(getTreeID(experiment.getName()));
+            if (statisticsTree != null && statisticsTree.supportsStatistics()) {
+                fStatisticsJob = new StatisticsJob(experiment, statisticsTree);
+                fStatisticsJob.schedule();
+                waitCursor(true);
+                return;
+            }
+
             int index = 0;
             for (TmfStatisticsTreeNode node : ((TmfStatisticsTreeNode) fTreeViewer.getInput()).getChildren()) {
                 index += (int) node.getValue().nbEvents;
             }
 
             // Preparation of the event request
+            final String treeID = getTreeID(experiment.getName());
             fRequest = new TmfEventRequest<TmfEvent>(TmfEvent.class, timeRange, index, TmfDataRequest.ALL_DATA, getIndexPageSize(), ExecutionType.BACKGROUND) {
 
+                // Reused for every event
+                private final ExtraEventInfo fExtraInfo = new ExtraEventInfo();
+
                 @Override
                 public void handleData(TmfEvent data) {
                     super.handleData(data);
                     if (data != null) {
-                        AbsTmfStatisticsTree statisticsData = TmfStatisticsTreeRootFactory.getStatTree(getTreeID(experiment.getName()));
-                        
-                        final String traceName = data.getParentTrace().getName();
-                        ITmfExtraEventInfo extraInfo = new ITmfExtraEventInfo() {
-                            @Override
-                            public String getTraceName() {
-                                if (traceName == null) {
-                                    return Messages.TmfStatisticsView_UnknownTraceName;
-                                }
-                                return traceName;
-                            }
-                        };
-                        statisticsData.registerEvent(data, extraInfo);
-                        statisticsData.increase(data, extraInfo, 1);
+                        AbsTmfStatisticsTree statisticsData = TmfStatisticsTreeRootFactory.getStatTree(treeID);
+
+                        fExtraInfo.fTraceName = data.getParentTrace().getName();
+                        statisticsData.registerEvent(data, fExtraInfo);
+                        statisticsData.increase(data, fExtraInfo, 1);
                         // Refresh View
                         if ((getNbRead() % getInputChangedRefresh()) == 0) {
                             modelInputChanged(false);
@@ -508,6 +530,10 @@ public class TmfStatisticsView extends TmfView {
                     modelIncomplete(experiment.getName());
                 }
             };
+            // The statistics don't keep the events
+            ((TmfDataRequest<TmfEvent>) fRequest).setFlyweight(true);
+            // The statistics don't depend on the order of the events
+            ((TmfDataRequest<TmfEvent>) fRequest).setJoinable(index == 0);
             ((TmfExperiment<TmfEvent>) experiment).sendRequest((ITmfDataRequest<TmfEvent>) fRequest);
             waitCursor(true);
         }
@@ -520,6 +546,9 @@ public class TmfStatisticsView extends TmfView {
         if (fRequest != null && !fRequest.isCompleted()) {
             fRequest.cancel();
         }
+        if (fStatisticsJob != null) {
+            fStatisticsJob.cancel();
+        }
     }
     
     /**
@@ -563,4 +592,87 @@ public class TmfStatisticsView extends TmfView {
         }
     }
 
+    /**
+     * Job that brings the statistics caches of the experiment traces up to
+     * date, and sets the merged statistics in the tree. Only the pages added
+     * to the traces since the previous update are scanned.
+     */
+    private class StatisticsJob extends Job {
+        private final TmfExperiment<?> fExperiment;
+        private final AbsTmfStatisticsTree fStatisticsTree;
+        private TmfStatisticsCache fCurrentCache = null;
+
+        public StatisticsJob(TmfExperiment<?> experiment, AbsTmfStatisticsTree statisticsTree) {
+            super(Messages.TmfStatisticsView_StatisticsJobName);
+            fExperiment = experiment;
+            fStatisticsTree = statisticsTree;
+            setSystem(true);
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            TmfPartialStatistics statistics = new TmfPartialStatistics();
+            Throwable error = null;
+            try {
+                for (ITmfTrace<?> trace : fExperiment.getTraces()) {
+                    TmfStatisticsCache cache;
+                    synchronized (fStatisticsCaches) {
+                        cache = fStatisticsCaches.get(trace);
+                        if (cache == null) {
+                            cache = new TmfStatisticsCache(trace);
+                            fStatisticsCaches.put(trace, cache);
+                        }
+                        fCurrentCache = cache;
+                    }
+                    if (monitor.isCanceled()) {
+                        break;
+                    }
+                    cache.update();
+                    if (cache.isCancelled()) {
+                        error = cache.getError();
+                        break;
+                    }
+                    statistics.merge(cache.getStatistics());
+                }
+            } catch (InterruptedException e) {
+                monitor.setCanceled(true);
+            }
+            if (error != null) {
+                modelIncomplete(fExperiment.getName());
+                return new Status(IStatus.ERROR, TmfUiPlugin.PLUGIN_ID, Messages.TmfStatisticsView_StatisticsJobName, error);
+            }
+            if (monitor.isCanceled() || (fCurrentCache != null && fCurrentCache.isCancelled())) {
+                modelIncomplete(fExperiment.getName());
+                return Status.CANCEL_STATUS;
+            }
+            fStatisticsTree.setStatistics(statistics, Messages.TmfStatisticsView_UnknownTraceName);
+            modelInputChanged(true);
+            waitCursor(false);
+            return Status.OK_STATUS;
+        }
+
+        @Override
+        protected void canceling() {
+            synchronized (fStatisticsCaches) {
+                if (fCurrentCache != null) {
+                    fCurrentCache.cancel();
+                }
+            }
+        }
+    }
+
+    /**
+     * Extra event information of the event being registered
+     */
+    private static class ExtraEventInfo implements ITmfExtraEventInfo {
+        String fTraceName;
+
+        @Override
+        public String getTraceName() {
+            if (fTraceName == null) {
+                return Messages.TmfStatisticsView_UnknownTraceName;
+            }
+            return fTraceName;
+        }
+    }
 }
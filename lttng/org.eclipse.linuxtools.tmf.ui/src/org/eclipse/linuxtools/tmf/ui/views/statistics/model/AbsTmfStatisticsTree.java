@@ -18,6 +18,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.statistics.TmfPartialStatistics;
 import org.eclipse.linuxtools.tmf.ui.views.statistics.ITmfExtraEventInfo;
 import org.eclipse.linuxtools.tmf.util.TmfFixedArray;
 
@@ -84,6 +85,7 @@ public abstract class AbsTmfStatisticsTree {
      * @return The node or null.
      */
     public TmfStatisticsTreeNode get(final TmfFixedArray<String> path) {
+        synchronizeNodes();
         return fNodes.get(path);
     }
 
@@ -122,6 +124,7 @@ public abstract class AbsTmfStatisticsTree {
      * @return The node.
      */
     public TmfStatisticsTreeNode getOrCreate(final TmfFixedArray<String> path) {
+        synchronizeNodes();
         TmfStatisticsTreeNode current = fNodes.get(path);
         if (current == null) {
             registerName(path);
@@ -186,6 +189,41 @@ public abstract class AbsTmfStatisticsTree {
      */
     protected abstract void registerName(final TmfFixedArray<String> path);
 
+    /**
+     * <h4>Bring the nodes up to date before they are accessed.</h4>
+     * <p>
+     * Subclasses that keep their counters outside of the nodes must create
+     * and update the nodes here. Nothing to do by default.
+     * </p>
+     */
+    protected void synchronizeNodes() {
+    }
+
+    /**
+     * <h4>Indicate if the tree can be filled from partial statistics.</h4>
+     * <p>
+     * The trees that can't are filled event by event, with
+     * {@link #registerEvent(TmfEvent, ITmfExtraEventInfo)} and
+     * {@link #increase(TmfEvent, ITmfExtraEventInfo, int)}.
+     * </p>
+     * 
+     * @return true if {@link #setStatistics(TmfPartialStatistics, String)} is supported.
+     */
+    public abstract boolean supportsStatistics();
+
+    /**
+     * <h4>Replace the event counts by those of computed statistics.</h4>
+     * <p>
+     * Only called if {@link #supportsStatistics()} returns true.
+     * </p>
+     * 
+     * @param statistics
+     *            Statistics of all the events to show.
+     * @param unknownTraceName
+     *            Name to use for the events that have no trace.
+     */
+    public abstract void setStatistics(TmfPartialStatistics statistics, String unknownTraceName);
+
     /**
      * <h4>Reset a node.</h4>
      * <p>
@@ -13,18 +13,28 @@
 package org.eclipse.linuxtools.tmf.ui.views.statistics.model;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.event.TmfEventType;
+import org.eclipse.linuxtools.tmf.statistics.TmfPartialStatistics;
 import org.eclipse.linuxtools.tmf.ui.views.statistics.ITmfExtraEventInfo;
 import org.eclipse.linuxtools.tmf.util.TmfFixedArray;
 
 /**
  * <h4>Store information about base statistics data</h4>
  * <p>This class provides a way to represent statistics data that is compatible to every kind of traces</p>
+ * <p>
+ * The trace names and event types are interned to int ids and the events are
+ * counted in primitive arrays indexed by (trace, type), so that registering
+ * an event doesn't allocate anything. The tree nodes are only created and
+ * updated from the counters when the tree is accessed.
+ * </p>
  */
 public class TmfBaseStatisticsTree extends AbsTmfStatisticsTree {
 
@@ -46,6 +56,37 @@ public class TmfBaseStatisticsTree extends AbsTmfStatisticsTree {
     protected static final String NODE = "z"; //$NON-NLS-1$
     protected static final String ROOT_NODE_KEY = mergeString(ROOT.get(0), NODE);
 
+    /**
+     * <h4>Maximum number of event type instances remembered.</h4>
+     * <p>
+     * Event types are usually shared by the events, but some parsers create
+     * one per event.
+     * </p>
+     */
+    private static final int TYPE_CACHE_SIZE = 1024;
+
+    // The interned trace names and event type names
+    private final Map<String, Integer> fTraceIds = new HashMap<String, Integer>();
+    private final Map<String, Integer> fTypeIds = new HashMap<String, Integer>();
+    private String[] fTraceNames = new String[2];
+    private String[] fTypeNames = new String[16];
+    private int fNbTraces = 0;
+    private int fNbTypes = 0;
+
+    // The type ids by event type instance, and the last ids looked up
+    private final Map<TmfEventType, Integer> fTypeCache = new IdentityHashMap<TmfEventType, Integer>();
+    private String fLastTraceName = null;
+    private int fLastTraceId = -1;
+    private TmfEventType fLastType = null;
+    private int fLastTypeId = -1;
+
+    // The number of events per trace, and per trace and type
+    private long[] fEventCounts = new long[2];
+    private long[][] fTypeCounts = new long[2][];
+
+    // Set when the counters have changed since the nodes were updated
+    private boolean fNodesOutdated = false;
+
     public TmfBaseStatisticsTree() {
         super();
         Map<String, Set<String>> keys = getKeys();
@@ -74,6 +115,7 @@ public class TmfBaseStatisticsTree extends AbsTmfStatisticsTree {
      */
     @Override
     public Collection<TmfStatisticsTreeNode> getChildren(TmfFixedArray<String> path) {
+        synchronizeNodes();
         LinkedList<TmfStatisticsTreeNode> result = new LinkedList<TmfStatisticsTreeNode>();
 
         if (path.size() % 2 == 0) { // if we are at a Category
@@ -106,6 +148,7 @@ public class TmfBaseStatisticsTree extends AbsTmfStatisticsTree {
      */
     @Override
     public Collection<TmfStatisticsTreeNode> getAllChildren(TmfFixedArray<String> path) {
+        synchronizeNodes();
         LinkedList<TmfStatisticsTreeNode> result = new LinkedList<TmfStatisticsTreeNode>();
 
         if (path.size() % 2 == 0) { // if we are at a Category
@@ -131,66 +174,224 @@ public class TmfBaseStatisticsTree extends AbsTmfStatisticsTree {
         return result;
     }
 
+    /*
+     * (non-Javadoc)
+     * @see org.eclipse.linuxtools.tmf.ui.views.statistics.model.TmfStatisticsData#increase(org.eclipse.linuxtools.tmf.event.TmfEvent, org.eclipse.linuxtools.tmf.ui.views.statistics.ITmfEventInfo, int)
+     */
+    @Override
+    public void increase(TmfEvent event, ITmfExtraEventInfo extraInfo, int values) {
+        // Do nothing
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.eclipse.linuxtools.tmf.ui.views.statistics.model.TmfStatisticsData#registerEvent(org.eclipse.linuxtools.tmf.event.TmfEvent, org.eclipse.linuxtools.tmf.ui.views.statistics.ITmfEventInfo)
+     */
+    @Override
+    public void registerEvent(TmfEvent event, ITmfExtraEventInfo extraInfo) {
+        int trace = getTraceId(extraInfo.getTraceName());
+        int type = getTypeId(event.getType());
+        long[] typeCounts = fTypeCounts[trace];
+        if (type >= typeCounts.length) {
+            typeCounts = growTypeCounts(trace);
+        }
+        ++fEventCounts[trace];
+        ++typeCounts[type];
+        fNodesOutdated = true;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.eclipse.linuxtools.tmf.ui.views.statistics.model.AbsTmfStatisticsTree#supportsStatistics()
+     */
+    @Override
+    public boolean supportsStatistics() {
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.eclipse.linuxtools.tmf.ui.views.statistics.model.AbsTmfStatisticsTree#setStatistics(org.eclipse.linuxtools.tmf.statistics.TmfPartialStatistics, java.lang.String)
+     */
+    @Override
+    public void setStatistics(TmfPartialStatistics statistics, String unknownTraceName) {
+        for (int trace = 0; trace < fNbTraces; trace++) {
+            fEventCounts[trace] = 0;
+            fTypeCounts[trace] = new long[fTypeNames.length];
+        }
+        for (String traceName : statistics.getTraceNames()) {
+            int trace = getTraceId((traceName != null) ? traceName : unknownTraceName);
+            fEventCounts[trace] += statistics.getNbEvents(traceName);
+            for (String typeName : statistics.getTypeNames(traceName)) {
+                int type = getTypeId(typeName);
+                long[] typeCounts = fTypeCounts[trace];
+                if (type >= typeCounts.length) {
+                    typeCounts = growTypeCounts(trace);
+                }
+                typeCounts[type] += statistics.getNbEvents(traceName, typeName);
+            }
+        }
+        fNodesOutdated = true;
+    }
+
+    /**
+     * <h4>Get the id of a trace name, interning it if needed.</h4>
+     * 
+     * @param traceName
+     *            Name of the trace.
+     * @return The trace id.
+     */
+    protected int getTraceId(String traceName) {
+        if (traceName == fLastTraceName) {
+            return fLastTraceId;
+        }
+        Integer id = fTraceIds.get(traceName);
+        if (id == null) {
+            if (fNbTraces == fTraceNames.length) {
+                int size = fNbTraces * 2;
+                String[] names = new String[size];
+                System.arraycopy(fTraceNames, 0, names, 0, fNbTraces);
+                fTraceNames = names;
+                long[] counts = new long[size];
+                System.arraycopy(fEventCounts, 0, counts, 0, fNbTraces);
+                fEventCounts = counts;
+                long[][] typeCounts = new long[size][];
+                System.arraycopy(fTypeCounts, 0, typeCounts, 0, fNbTraces);
+                fTypeCounts = typeCounts;
+            }
+            id = fNbTraces;
+            fTraceNames[fNbTraces] = traceName;
+            fTypeCounts[fNbTraces] = new long[fTypeNames.length];
+            fNbTraces++;
+            fTraceIds.put(traceName, id);
+        }
+        fLastTraceName = traceName;
+        fLastTraceId = id;
+        return id;
+    }
+
     /**
-     * <h4>Get the event types paths.</h4>
+     * <h4>Get the id of an event type, interning its name if needed.</h4>
+     * <p>
+     * The event types are identified by their name (toString()), which is
+     * only computed the first time a type instance is seen.
+     * </p>
      * 
-     * @param event
-     *            Event to get the path for.
-     * @param extraInfo
-     *            Extra information to pass along with the event
-     * @return Array of FixedArray representing the paths.
-     */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    protected TmfFixedArray<String>[] getTypePaths(TmfEvent event, ITmfExtraEventInfo extraInfo) {
-        String trace = extraInfo.getTraceName();
-        // String type = event.getType().getTypeId(); // Add too much
-        // informations
-        String type = event.getType().toString();
-
-        TmfFixedArray[] paths = { new TmfFixedArray<String>(trace, HEADER_EVENT_TYPES, type) };
-
-        return paths;
+     * @param type
+     *            Event type.
+     * @return The type id.
+     */
+    protected int getTypeId(TmfEventType type) {
+        if (type == fLastType) {
+            return fLastTypeId;
+        }
+        Integer id = fTypeCache.get(type);
+        if (id == null) {
+            id = getTypeId(type.toString());
+            if (fTypeCache.size() == TYPE_CACHE_SIZE) {
+                fTypeCache.clear();
+            }
+            fTypeCache.put(type, id);
+        }
+        fLastType = type;
+        fLastTypeId = id;
+        return id;
     }
 
     /**
-     * <h4>Get the standard paths for an event.</h4>
+     * <h4>Get the id of an event type name, interning it if needed.</h4>
      * 
-     * @param event
-     *            Event to get the path for.
-     * @param extraInfo
-     *            Extra information to pass along with the event
-     * @return Array of FixedArray representing the paths.
-     */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
-    protected TmfFixedArray<String>[] getNormalPaths(TmfEvent event, ITmfExtraEventInfo extraInfo) {
-        String trace = extraInfo.getTraceName();
-
-        TmfFixedArray[] paths = { new TmfFixedArray<String>(trace) };
-        return paths;
+     * @param typeName
+     *            Name of the event type.
+     * @return The type id.
+     */
+    protected int getTypeId(String typeName) {
+        Integer id = fTypeIds.get(typeName);
+        if (id == null) {
+            if (fNbTypes == fTypeNames.length) {
+                String[] names = new String[fNbTypes * 2];
+                System.arraycopy(fTypeNames, 0, names, 0, fNbTypes);
+                fTypeNames = names;
+            }
+            id = fNbTypes;
+            fTypeNames[fNbTypes++] = typeName;
+            fTypeIds.put(typeName, id);
+        }
+        return id;
+    }
+
+    private long[] growTypeCounts(int trace) {
+        long[] counts = new long[fTypeNames.length];
+        System.arraycopy(fTypeCounts[trace], 0, counts, 0, fTypeCounts[trace].length);
+        fTypeCounts[trace] = counts;
+        return counts;
     }
-    
+
     /*
      * (non-Javadoc)
-     * @see org.eclipse.linuxtools.tmf.ui.views.statistics.model.TmfStatisticsData#increase(org.eclipse.linuxtools.tmf.event.TmfEvent, org.eclipse.linuxtools.tmf.ui.views.statistics.ITmfEventInfo, int)
+     * @see org.eclipse.linuxtools.tmf.ui.views.statistics.model.AbsTmfStatisticsTree#synchronizeNodes()
      */
     @Override
-    public void increase(TmfEvent event, ITmfExtraEventInfo extraInfo, int values) {
-        // Do nothing
+    protected void synchronizeNodes() {
+        if (!fNodesOutdated) {
+            return;
+        }
+        fNodesOutdated = false;
+        for (int trace = 0; trace < fNbTraces; trace++) {
+            String traceName = fTraceNames[trace];
+            updateNode(new TmfFixedArray<String>(traceName), fEventCounts[trace]);
+            long[] typeCounts = fTypeCounts[trace];
+            for (int type = 0; type < fNbTypes && type < typeCounts.length; type++) {
+                updateNode(new TmfFixedArray<String>(traceName, HEADER_EVENT_TYPES, fTypeNames[type]), typeCounts[type]);
+            }
+        }
+    }
+
+    /**
+     * <h4>Update the value of a node, creating it if it has events.</h4>
+     */
+    private void updateNode(TmfFixedArray<String> path, long nbEvents) {
+        TmfStatisticsTreeNode node = fNodes.get(path);
+        if (node == null) {
+            if (nbEvents == 0) {
+                return;
+            }
+            registerName(path);
+            node = new TmfStatisticsTreeNode(path, this);
+            fNodes.put(path, node);
+        }
+        node.getValue().nbEvents = nbEvents;
     }
 
     /*
      * (non-Javadoc)
-     * @see org.eclipse.linuxtools.tmf.ui.views.statistics.model.TmfStatisticsData#registerEvent(org.eclipse.linuxtools.tmf.event.TmfEvent, org.eclipse.linuxtools.tmf.ui.views.statistics.ITmfEventInfo)
+     * @see org.eclipse.linuxtools.tmf.ui.views.statistics.model.AbsTmfStatisticsTree#reset(org.eclipse.linuxtools.tmf.util.TmfFixedArray)
      */
     @Override
-    public void registerEvent(TmfEvent event, ITmfExtraEventInfo extraInfo) {
-        TmfFixedArray<String>[] paths = getNormalPaths(event, extraInfo);
-        for (TmfFixedArray<String> path : paths)
-            ++(getOrCreate(path).getValue().nbEvents);
-
-        paths = getTypePaths(event, extraInfo);
-        for (TmfFixedArray<String> path : paths)
-            ++(getOrCreate(path).getValue().nbEvents);
+    public void reset(TmfFixedArray<String> path) {
+        // Clear the counters of the node and of its children
+        if (path.equals(ROOT)) {
+            for (int trace = 0; trace < fNbTraces; trace++) {
+                fEventCounts[trace] = 0;
+                fTypeCounts[trace] = new long[fTypeNames.length];
+            }
+        } else {
+            Integer trace = fTraceIds.get(path.get(0));
+            if (trace != null) {
+                if (path.size() == 1) {
+                    fEventCounts[trace] = 0;
+                    fTypeCounts[trace] = new long[fTypeNames.length];
+                } else if (path.size() == 2 && path.get(1).equals(HEADER_EVENT_TYPES)) {
+                    fTypeCounts[trace] = new long[fTypeNames.length];
+                } else if (path.size() == 3 && path.get(1).equals(HEADER_EVENT_TYPES)) {
+                    Integer type = fTypeIds.get(path.get(2));
+                    if (type != null && type < fTypeCounts[trace].length) {
+                        fTypeCounts[trace][type] = 0;
+                    }
+                }
+            }
+        }
+        super.reset(path);
     }
 
     /*
@@ -22,7 +22,6 @@ import org.eclipse.linuxtools.tmf.ui.views.colors.ColorSettingsManager;
 
 public class TimeChartEvent implements ITimeEvent {
 
-    private static final byte TIMESTAMP_SCALE = -9;
     
     private TimeChartAnalysisEntry fParentEntry;
     private long fTime;
@@ -40,7 +39,7 @@ public class TimeChartEvent implements ITimeEvent {
 
     public TimeChartEvent(TimeChartAnalysisEntry parentEntry, TmfEvent event, long rank, TimeChartDecorationProvider decorationProvider) {
         fParentEntry = parentEntry;
-        fTime = event.getTimestamp().synchronize((long) 0, TIMESTAMP_SCALE).getValue();
+        fTime = event.getNormalizedTimestamp();
         fDuration = 0;
         fFirstRank = fLastRank = rank;
         fRankRangeList = new RankRangeList(rank);
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.ui.views.timechart;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * <b><u>TimeChartTaskQueue</u></b>
+ * <p>
+ * Bounded pool of worker threads that run the processing tasks of the time
+ * chart. A task is identified by its stage (e.g. process, itemize, decorate)
+ * and its target (e.g. a trace entry): submitting a task cancels the pending
+ * or running task of the same stage and target, so that stale work is
+ * discarded.
+ * <p>
+ * A task performs its work in slices: after each slice it is queued again,
+ * behind the other pending tasks, until it is done or cancelled.
+ */
+public class TimeChartTaskQueue {
+
+    // ------------------------------------------------------------------------
+    // Task
+    // ------------------------------------------------------------------------
+
+    /**
+     * A cancellable task, run in slices
+     */
+    public static abstract class Task {
+
+        private final Object fStage;
+        private final Object fTarget;
+        private volatile boolean fCancelled = false;
+
+        /**
+         * @param stage the processing stage
+         * @param target the object processed
+         */
+        public Task(Object stage, Object target) {
+            fStage = stage;
+            fTarget = target;
+        }
+
+        /**
+         * @return the processing stage
+         */
+        public Object getStage() {
+            return fStage;
+        }
+
+        /**
+         * @return the object processed
+         */
+        public Object getTarget() {
+            return fTarget;
+        }
+
+        /**
+         * @return true if the task was cancelled (the work in progress should
+         *         be abandoned)
+         */
+        public boolean isCancelled() {
+            return fCancelled;
+        }
+
+        /**
+         * Cancels the task
+         */
+        public void cancel() {
+            fCancelled = true;
+        }
+
+        /**
+         * Performs the next slice of the work. Long slices should check
+         * isCancelled() regularly.
+         *
+         * @return true if there is more work to do
+         */
+        public abstract boolean run();
+
+        private boolean matches(Object stage, Object target) {
+            return (stage == null || stage.equals(fStage)) && (target == null || target.equals(fTarget));
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final String fName;
+    private final int fMaxThreads;
+
+    // The pending tasks, in order, and the running tasks
+    private final LinkedList<Task> fPendingTasks = new LinkedList<Task>();
+    private final List<Task> fRunningTasks = new ArrayList<Task>();
+
+    private int fNbThreads = 0;
+    private int fNbIdleThreads = 0;
+    private boolean fDisposed = false;
+
+    // ------------------------------------------------------------------------
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param name the name of the worker threads
+     * @param maxThreads the maximum number of worker threads
+     */
+    public TimeChartTaskQueue(String name, int maxThreads) {
+        fName = name;
+        fMaxThreads = Math.max(1, maxThreads);
+    }
+
+    /**
+     * Stops the worker threads and cancels all the tasks
+     */
+    public synchronized void dispose() {
+        fDisposed = true;
+        cancel(null, null);
+        notifyAll();
+    }
+
+    // ------------------------------------------------------------------------
+    // Accessors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return the number of tasks waiting for a worker thread
+     */
+    public synchronized int getQueueDepth() {
+        return fPendingTasks.size();
+    }
+
+    /**
+     * @return the number of tasks being run
+     */
+    public synchronized int getNbRunningTasks() {
+        return fRunningTasks.size();
+    }
+
+    /**
+     * @return the number of worker threads
+     */
+    public synchronized int getNbThreads() {
+        return fNbThreads;
+    }
+
+    // ------------------------------------------------------------------------
+    // Operations
+    // ------------------------------------------------------------------------
+
+    /**
+     * Queues a task, cancelling the task of the same stage and target (if any)
+     *
+     * @param task the task
+     */
+    public synchronized void submit(Task task) {
+        if (fDisposed) {
+            task.cancel();
+            return;
+        }
+        cancel(task.getStage(), task.getTarget());
+        fPendingTasks.add(task);
+        if (fNbIdleThreads > 0) {
+            notify();
+        }
+        if (fPendingTasks.size() > fNbIdleThreads && fNbThreads < fMaxThreads) {
+            fNbThreads++;
+            Thread thread = new Worker(fName + " " + fNbThreads); //$NON-NLS-1$
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Cancels the pending and running tasks of a stage and target
+     *
+     * @param stage the stage (null for any stage)
+     * @param target the target (null for any target)
+     */
+    public synchronized void cancel(Object stage, Object target) {
+        Iterator<Task> iterator = fPendingTasks.iterator();
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            if (task.matches(stage, target)) {
+                task.cancel();
+                iterator.remove();
+            }
+        }
+        for (Task task : fRunningTasks) {
+            if (task.matches(stage, target)) {
+                task.cancel();
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Worker
+    // ------------------------------------------------------------------------
+
+    private class Worker extends Thread {
+
+        public Worker(String name) {
+            super(name);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Task task = nextTask();
+                if (task == null) {
+                    return;
+                }
+                boolean more = false;
+                try {
+                    more = !task.isCancelled() && task.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+                synchronized (TimeChartTaskQueue.this) {
+                    fRunningTasks.remove(task);
+                    if (more && !task.isCancelled() && !fDisposed) {
+                        fPendingTasks.add(task);
+                    }
+                }
+            }
+        }
+
+        /*
+         * Waits for the next task. Returns null when the queue is disposed.
+         */
+        private Task nextTask() {
+            synchronized (TimeChartTaskQueue.this) {
+                while (fPendingTasks.isEmpty() && !fDisposed) {
+                    fNbIdleThreads++;
+                    try {
+                        TimeChartTaskQueue.this.wait();
+                    } catch (InterruptedException e) {
+                        fNbIdleThreads--;
+                        fNbThreads--;
+                        return null;
+                    }
+                    fNbIdleThreads--;
+                }
+                if (fDisposed) {
+                    fNbThreads--;
+                    return null;
+                }
+                Task task = fPendingTasks.removeFirst();
+                fRunningTasks.add(task);
+                return task;
+            }
+        }
+    }
+
+}
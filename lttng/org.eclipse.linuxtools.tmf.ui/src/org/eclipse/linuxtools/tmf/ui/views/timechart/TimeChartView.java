@@ -70,13 +70,18 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
     private ITimeAnalysisViewer fViewer;
     private final ArrayList<TimeChartAnalysisEntry> fTimeAnalysisEntries = new ArrayList<TimeChartAnalysisEntry>();
     private final Map<ITmfTrace, TimeChartDecorationProvider> fDecorationProviders = new HashMap<ITmfTrace, TimeChartDecorationProvider>();
-    private ArrayList<DecorateThread> fDecorateThreads;
+    private final TimeChartTaskQueue fTaskQueue = new TimeChartTaskQueue("Time Chart Worker", Runtime.getRuntime().availableProcessors()); //$NON-NLS-1$
     private long fStartTime = 0;
     private long fStopTime = Long.MAX_VALUE;
     private boolean fRefreshBusy = false;
     private boolean fRefreshPending = false;
     private final Object fSyncObj = new Object();
 
+    // The processing stages of the trace entries
+    private static final String PROCESS_STAGE = "process"; //$NON-NLS-1$
+    private static final String ITEMIZE_STAGE = "itemize"; //$NON-NLS-1$
+    private static final String DECORATE_STAGE = "decorate"; //$NON-NLS-1$
+
     public TimeChartView() {
         super("Time Chart"); //$NON-NLS-1$
         fDisplayWidth = Display.getDefault().getBounds().width;
@@ -108,14 +113,12 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
                     TimeChartAnalysisEntry timeAnalysisEntry = new TimeChartAnalysisEntry(trace, fDisplayWidth * 2);
                     fTimeAnalysisEntries.add(timeAnalysisEntry);
                     fDecorationProviders.put(trace, new TimeChartDecorationProvider(resource));
-                    Thread thread = new ProcessTraceThread(timeAnalysisEntry);
-                    thread.start();
+                    fTaskQueue.submit(new ProcessTraceTask(timeAnalysisEntry));
                 }
             }
         }
         fViewer.display(fTimeAnalysisEntries.toArray(new TimeChartAnalysisEntry[0]));
 
-        fDecorateThreads = new ArrayList<DecorateThread>();
         ColorSettingsManager.addColorSettingsListener(this);
         ResourcesPlugin.getWorkspace().addResourceChangeListener(this, IResourceChangeEvent.POST_CHANGE);
     }
@@ -123,9 +126,7 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
     @Override
     public void dispose() {
         ResourcesPlugin.getWorkspace().removeResourceChangeListener(this);
-        for (DecorateThread thread : fDecorateThreads) {
-            thread.cancel();
-        }
+        fTaskQueue.dispose();
         ColorSettingsManager.removeColorSettingsListener(this);
         super.dispose();
     }
@@ -136,80 +137,85 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
         fViewer.setFocus();
     }
 
-    private class ProcessTraceThread extends Thread {
+    /**
+     * Returns the number of processing tasks waiting for a worker thread
+     * 
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return fTaskQueue.getQueueDepth();
+    }
+
+    private class ProcessTraceTask extends TimeChartTaskQueue.Task {
 
         private final TimeChartAnalysisEntry fTimeAnalysisEntry;
 
-        public ProcessTraceThread(TimeChartAnalysisEntry timeAnalysisEntry) {
-            super("ProcessTraceJob:" + timeAnalysisEntry.getName()); //$NON-NLS-1$
+        public ProcessTraceTask(TimeChartAnalysisEntry timeAnalysisEntry) {
+            super(PROCESS_STAGE, timeAnalysisEntry);
             fTimeAnalysisEntry = timeAnalysisEntry;
         }
 
         @Override
-        public void run() {
-            updateTraceEntry(fTimeAnalysisEntry, Long.MAX_VALUE, 0, Long.MAX_VALUE);
+        public boolean run() {
+            // One chunk at a time, to share the workers with the other traces
+            return updateTraceEntry(fTimeAnalysisEntry, Long.MAX_VALUE, 0, Long.MAX_VALUE);
         }
     }
 
-    private void updateTraceEntry(TimeChartAnalysisEntry timeAnalysisEntry, long stopRank, long startTime, long stopTime) {
+    /*
+     * Adds the events of the next chunk of the trace to the entry, and
+     * returns true if there are more events to process
+     */
+    private boolean updateTraceEntry(TimeChartAnalysisEntry timeAnalysisEntry, long stopRank, long startTime, long stopTime) {
         ITmfTrace trace = timeAnalysisEntry.getTrace();
         TimeChartDecorationProvider decorationProvider = fDecorationProviders.get(trace);
         if (decorationProvider == null) {
-            return; // the trace has been closed
+            return false; // the trace has been closed
         }
         TmfContext context = null;
         // TmfTimestamp lastTimestamp = null;
         boolean done = false;
-        while (!done) {
-            synchronized (timeAnalysisEntry) {
-                if (timeAnalysisEntry.getLastRank() >= trace.getNbEvents()) {
+        synchronized (timeAnalysisEntry) {
+            if (timeAnalysisEntry.getLastRank() >= trace.getNbEvents()) {
+                return false;
+            }
+            if (timeAnalysisEntry.getLastRank() != -1) {
+                context = trace.seekEvent(timeAnalysisEntry.getLastRank());
+            } else {
+                // context = trace.seekLocation(null);
+                context = trace.seekEvent(0);
+            }
+            while (true) {
+                long rank = context.getRank();
+                TmfEvent event = trace.getNextEvent(context);
+                if (event == null) {
                     done = true;
                     break;
                 }
-                if (context == null || context.getRank() != timeAnalysisEntry.getLastRank()) {
-                    if (context != null) {
-                        context.dispose();
-                    }
-                    if (timeAnalysisEntry.getLastRank() != -1) {
-                        context = trace.seekEvent(timeAnalysisEntry.getLastRank());
-                    } else {
-                        // context = trace.seekLocation(null);
-                        context = trace.seekEvent(0);
-                    }
+                // if (!event.getTimestamp().equals(lastTimestamp)) {
+                TimeChartEvent timeEvent = new TimeChartEvent(timeAnalysisEntry, event, rank, decorationProvider);
+                if (timeEvent.getTime() >= startTime && timeEvent.getTime() <= stopTime) {
+                    timeAnalysisEntry.addTraceEvent(timeEvent);
                 }
-                while (true) {
-                    long rank = context.getRank();
-                    TmfEvent event = trace.getNextEvent(context);
-                    if (event == null) {
-                        done = true;
-                        break;
-                    }
-                    // if (!event.getTimestamp().equals(lastTimestamp)) {
-                    TimeChartEvent timeEvent = new TimeChartEvent(timeAnalysisEntry, event, rank, decorationProvider);
-                    if (timeEvent.getTime() >= startTime && timeEvent.getTime() <= stopTime) {
-                        timeAnalysisEntry.addTraceEvent(timeEvent);
-                    }
-                    // lastTimestamp = event.getTimestamp();
-                    // } *** commented out so that color setting priority gets
-                    // set even if the event has same time
-                    if (context.getRank() == trace.getNbEvents() || context.getRank() == stopRank) {
-                        done = true;
-                        break;
-                    }
-                    if (context.getRank() % trace.getCacheSize() == 1) {
-                        // break for UI refresh
-                        break;
-                    }
+                // lastTimestamp = event.getTimestamp();
+                // } *** commented out so that color setting priority gets
+                // set even if the event has same time
+                if (context.getRank() == trace.getNbEvents() || context.getRank() == stopRank) {
+                    done = true;
+                    break;
+                }
+                if (context.getRank() % trace.getCacheSize() == 1) {
+                    // break for UI refresh
+                    break;
                 }
-                // timeAnalysisEntry.setLastRank(Math.min(trace.getNbEvents(),
-                // stopRank));
-                timeAnalysisEntry.setLastRank(context.getRank());
             }
-            refreshViewer(false);
-        }
-        if (context != null) {
-            context.dispose();
+            // timeAnalysisEntry.setLastRank(Math.min(trace.getNbEvents(),
+            // stopRank));
+            timeAnalysisEntry.setLastRank(context.getRank());
         }
+        context.dispose();
+        refreshViewer(false);
+        return !done;
     }
 
     private void refreshViewer(boolean resetTimeIntervals) {
@@ -247,21 +253,21 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
     }
 
     private void itemize(long startTime, long stopTime) {
+        // The new range supersedes the pending and running itemize tasks
         for (int i = 0; i < fTimeAnalysisEntries.size(); i++) {
-            Thread thread = new ItemizeThread(fTimeAnalysisEntries.get(i), startTime, stopTime);
-            thread.start();
+            fTaskQueue.submit(new ItemizeTask(fTimeAnalysisEntries.get(i), startTime, stopTime));
         }
     }
 
-    private class ItemizeThread extends Thread {
+    private class ItemizeTask extends TimeChartTaskQueue.Task {
 
         private final TimeChartAnalysisEntry fTimeAnalysisEntry;
         private final long fStartTime;
         private final long fStopTime;
         private final long fMaxDuration;
 
-        private ItemizeThread(TimeChartAnalysisEntry timeAnalysisEntry, long startTime, long stopTime) {
-            super("Itemize Thread:" + timeAnalysisEntry.getName()); //$NON-NLS-1$
+        private ItemizeTask(TimeChartAnalysisEntry timeAnalysisEntry, long startTime, long stopTime) {
+            super(ITEMIZE_STAGE, timeAnalysisEntry);
             fTimeAnalysisEntry = timeAnalysisEntry;
             fStartTime = startTime;
             fStopTime = stopTime;
@@ -269,15 +275,16 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
         }
 
         @Override
-        public void run() {
+        public boolean run() {
             itemizeTraceEntry(fTimeAnalysisEntry);
+            return false;
         }
 
         public void itemizeTraceEntry(TimeChartAnalysisEntry timeAnalysisEntry) {
             Iterator<ITimeEvent> iterator = timeAnalysisEntry.getTraceEventsIterator();
             TimeChartEvent event = null;
             boolean hasNext = true;
-            while (hasNext) {
+            while (!isCancelled() && hasNext) {
                 synchronized (timeAnalysisEntry) {
                     while (hasNext = iterator.hasNext()) {
                         event = (TimeChartEvent) iterator.next();
@@ -309,7 +316,15 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
             synchronized (event.getRankRangeList()) {
                 for (RankRange range : event.getRankRangeList()) {
                     timeAnalysisEntry.setLastRank(range.getFirstRank());
-                    updateTraceEntry(timeAnalysisEntry, range.getLastRank() + 1, event.getTime(), event.getTime() + event.getDuration());
+                    while (updateTraceEntry(timeAnalysisEntry, range.getLastRank() + 1, event.getTime(), event.getTime() + event.getDuration())) {
+                        if (isCancelled()) {
+                            // Superseded by a new range: the event will be itemized again if needed
+                            synchronized (event) {
+                                event.setItemizing(false);
+                            }
+                            return;
+                        }
+                    }
                 }
             }
             event.setItemizedEntry(timeAnalysisEntry);
@@ -322,48 +337,38 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
     }
 
     private void redecorate() {
-        synchronized (fDecorateThreads) {
-            for (DecorateThread thread : fDecorateThreads) {
-                thread.cancel();
-            }
-            fDecorateThreads.clear();
-            for (int i = 0; i < fTimeAnalysisEntries.size(); i++) {
-                DecorateThread thread = new DecorateThread(fTimeAnalysisEntries.get(i));
-                thread.start();
-                fDecorateThreads.add(thread);
-            }
+        // The new decoration supersedes the pending and running decorate tasks
+        for (int i = 0; i < fTimeAnalysisEntries.size(); i++) {
+            fTaskQueue.submit(new DecorateTask(fTimeAnalysisEntries.get(i)));
         }
     }
 
-    private class DecorateThread extends Thread {
-        private volatile boolean interrupted = false;
+    private class DecorateTask extends TimeChartTaskQueue.Task {
         private final TimeChartAnalysisEntry fTimeAnalysisEntry;
         private final TimeChartDecorationProvider fDecorationProvider;
         private TmfContext fContext;
         private int fCount = 0;
 
-        private DecorateThread(TimeChartAnalysisEntry timeAnalysisEntry) {
-            super("Decorate Thread:" + timeAnalysisEntry.getName()); //$NON-NLS-1$
+        private DecorateTask(TimeChartAnalysisEntry timeAnalysisEntry) {
+            super(DECORATE_STAGE, timeAnalysisEntry);
             fTimeAnalysisEntry = timeAnalysisEntry;
             fDecorationProvider = fDecorationProviders.get(timeAnalysisEntry.getTrace());
         }
 
         @Override
-        public void run() {
+        public boolean run() {
             resetTraceEntry(fTimeAnalysisEntry);
             refreshViewer(false);
             decorateTraceEntry(fTimeAnalysisEntry, null);
             refreshViewer(false);
-            synchronized (fDecorateThreads) {
-                fDecorateThreads.remove(this);
-            }
+            return false;
         }
 
         public void resetTraceEntry(TimeChartAnalysisEntry timeAnalysisEntry) {
             Iterator<ITimeEvent> iterator = timeAnalysisEntry.getTraceEventsIterator();
             TimeChartEvent event = null;
             boolean hasNext = true;
-            while (!interrupted && hasNext) {
+            while (!isCancelled() && hasNext) {
                 synchronized (timeAnalysisEntry) {
                     while (hasNext = iterator.hasNext()) {
                         event = (TimeChartEvent) iterator.next();
@@ -390,7 +395,7 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
             boolean entryIsVisible = false;
             boolean entryIsSearchMatch = false;
             boolean hasNext = true;
-            while (!interrupted && hasNext) {
+            while (!isCancelled() && hasNext) {
                 synchronized (timeAnalysisEntry) {
                     while (hasNext = iterator.hasNext()) {
                         event = (TimeChartEvent) iterator.next();
@@ -431,21 +436,21 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
             boolean isSearchMatch = false;
             synchronized (timeChartEvent.getRankRangeList()) {
                 for (RankRange range : timeChartEvent.getRankRangeList()) {
-                    if (interrupted)
+                    if (isCancelled())
                         return;
                     if (fContext == null || fContext.getRank() != range.getFirstRank()) {
                         fContext = trace.seekEvent(range.getFirstRank());
                         fContext.setRank(range.getFirstRank());
                     }
                     while (true) {
-                        if (interrupted)
+                        if (isCancelled())
                             return;
                         long rank = fContext.getRank();
                         TmfEvent event = trace.getNextEvent(fContext);
                         if (event == null) {
                             break;
                         }
-                        long eventTime = event.getTimestamp().synchronize(0, (byte) -9).getValue();
+                        long eventTime = event.getNormalizedTimestamp();
                         if (eventTime >= timeChartEvent.getTime() && eventTime <= timeChartEvent.getTime() + timeChartEvent.getDuration()) {
                             priority = Math.min(priority, ColorSettingsManager.getColorSettingPriority(event));
                         }
@@ -463,10 +468,6 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
             timeChartEvent.setIsVisible(isVisible);
             timeChartEvent.setIsSearchMatch(isSearchMatch);
         }
-
-        public void cancel() {
-            interrupted = true;
-        }
     }
 
     // ------------------------------------------------------------------------
@@ -551,8 +552,7 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
             timeAnalysisEntry = new TimeChartAnalysisEntry(trace, fDisplayWidth * 2);
             fTimeAnalysisEntries.add(timeAnalysisEntry);
             fDecorationProviders.put(trace, new TimeChartDecorationProvider(resource));
-            Thread thread = new ProcessTraceThread(timeAnalysisEntry);
-            thread.start();
+            fTaskQueue.submit(new ProcessTraceTask(timeAnalysisEntry));
         }
         refreshViewer(true);
         if (eventsFilterProvider != null) {
@@ -567,7 +567,7 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
         final ITmfTrace trace = signal.getTrace();
         for (int i = 0; i < fTimeAnalysisEntries.size(); i++) {
             if (fTimeAnalysisEntries.get(i).getTrace().equals(trace)) {
-                fTimeAnalysisEntries.remove(i);
+                fTaskQueue.cancel(null, fTimeAnalysisEntries.remove(i));
                 fDecorationProviders.remove(trace);
                 refreshViewer(true);
                 break;
@@ -596,7 +596,7 @@ public class TimeChartView extends TmfView implements ITmfTimeScaleSelectionList
         for (int i = 0; i < fTimeAnalysisEntries.size(); i++) {
             TimeChartAnalysisEntry timeAnalysisEntry = fTimeAnalysisEntries.get(i);
             if (timeAnalysisEntry.getTrace().equals(trace)) {
-                updateTraceEntry(timeAnalysisEntry, Long.MAX_VALUE, 0, Long.MAX_VALUE);
+                fTaskQueue.submit(new ProcessTraceTask(timeAnalysisEntry));
                 break;
             }
         }
@@ -12,8 +12,11 @@
 package org.eclipse.linuxtools.tmf.ui.views.uml2sd.impl;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -77,6 +80,7 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
     protected final static String TITLE = Messages.TmfUml2SDSyncLoader_ViewName;
     protected final static int DEFAULT_BLOCK_SIZE = 50000; 
     protected final static int MAX_NUM_OF_MSG = 10000;
+    protected final static int PAGE_CACHE_SIZE = 5;
     protected static final long INITIAL_WINDOW_OFFSET = (1L * 100  * 1000 * 1000); // .1sec
 
     // Experiment attributes
@@ -93,6 +97,10 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
 
     // Checkpoint and page attributes
     protected List<TmfTimeRange> fCheckPoints = new ArrayList<TmfTimeRange>(MAX_NUM_OF_MSG);
+    // The rank of the first sequence diagram event of each page
+    protected List<Long> fCheckPointRanks = new ArrayList<Long>(MAX_NUM_OF_MSG);
+    // The sequence diagram events of the recently displayed pages (LRU)
+    protected Map<Integer, List<ITmfSyncSequenceDiagramEvent>> fPageCache = new PageCache();
     volatile protected int fCurrentPage = 0;
     protected TmfTimestamp fCurrentTime = null;
     volatile protected boolean fIsSelect = false; 
@@ -102,6 +110,9 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
     protected List<GraphNode> fFindResults = new ArrayList<GraphNode>();
     protected Criteria fFindCriteria = null;
     volatile protected int fCurrentFindIndex = 0;
+    // The pages where each lifeline and message appears (null until the indexing is complete)
+    protected Map<String, List<Integer>> fLifelinePages = null;
+    protected Map<MessageKey, List<Integer>> fMessagePages = null;
 
     // Filter attributes
     protected List<FilterCriteria> fFilterCriteria = null;
@@ -176,12 +187,18 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
             // TmfTimeRange window = getInitTRange(fExperiment.getTimeRange());
             TmfTimeRange window = TmfTimeRange.Eternity;
 
+            fLifelinePages = null;
+            fMessagePages = null;
+
             fIndexRequest = new TmfEventRequest<TmfEvent>(TmfEvent.class, window, TmfDataRequest.ALL_DATA, DEFAULT_BLOCK_SIZE, ITmfDataRequest.ExecutionType.BACKGROUND) {
 
                 private TmfTimestamp fFirstTime = null;
                 private TmfTimestamp fLastTime = null;
+                private long fFirstRank = 0;
                 private int fNbSeqEvents = 0;
                 private List<ITmfSyncSequenceDiagramEvent> fSdEvents = new ArrayList<ITmfSyncSequenceDiagramEvent>(MAX_NUM_OF_MSG);
+                private Map<String, List<Integer>> fLifelineIndex = new HashMap<String, List<Integer>>();
+                private Map<MessageKey, List<Integer>> fMessageIndex = new HashMap<MessageKey, List<Integer>>();
 
                 @Override
                 public void handleData(TmfEvent event) {
@@ -194,14 +211,21 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
 
                         if (fFirstTime == null) {
                             fFirstTime = event.getTimestamp().clone();
+                            fFirstRank = getIndex() + getNbRead() - 1;
                         }
 
                         fLastTime = event.getTimestamp().clone();
 
+                        int page = (fNbSeqEvents - 1) / MAX_NUM_OF_MSG;
+                        addPage(fLifelineIndex, sdEvent.getSender(), page);
+                        addPage(fLifelineIndex, sdEvent.getReceiver(), page);
+                        addPage(fMessageIndex, new MessageKey(sdEvent), page);
+
                         if ((fNbSeqEvents % MAX_NUM_OF_MSG) == 0) {
                             fLock.lock();
                             try {
                                 fCheckPoints.add(new TmfTimeRange(fFirstTime, fLastTime));
+                                fCheckPointRanks.add(fFirstRank);
                                 if (fView != null) {
                                     fView.updateCoolBar();
                                 }
@@ -220,6 +244,7 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
                         fSdEvents.add(sdEvent);
 
                         if (fNbSeqEvents == MAX_NUM_OF_MSG) {
+                            cachePage(0, fSdEvents);
                             fillCurrentPage(fSdEvents);
                         }
                     }
@@ -233,6 +258,7 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
                         fLock.lock();
                         try {
                             fCheckPoints.add(new TmfTimeRange(fFirstTime, fLastTime));
+                            fCheckPointRanks.add(fFirstRank);
                             if (fView != null) {
                                 fView.updateCoolBar();
                             }
@@ -241,7 +267,17 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
                         }
                     }
 
+                    // The name index can be used once all the pages are known
+                    fLock.lock();
+                    try {
+                        fLifelinePages = fLifelineIndex;
+                        fMessagePages = fMessageIndex;
+                    } finally {
+                        fLock.unlock();
+                    }
+
                     if (fNbSeqEvents <= MAX_NUM_OF_MSG) {
+                        cachePage(0, fSdEvents);
                         fillCurrentPage(fSdEvents);
                     }
 
@@ -737,6 +773,10 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
             fCurrentTime = null;
             fEvents.clear();
             fCheckPoints.clear();
+            fCheckPointRanks.clear();
+            fPageCache.clear();
+            fLifelinePages = null;
+            fMessagePages = null;
             fCurrentPage = 0;
             fCurrentFindIndex = 0;
             fFindCriteria = null;
@@ -957,6 +997,11 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
     protected void moveToPage(boolean notifyAll) {
 
         TmfTimeRange window = TmfTimeRange.Eternity;
+        TmfTimeRange requestWindow = TmfTimeRange.Eternity;
+        long index = 0;
+        int nbRequested = TmfDataRequest.ALL_DATA;
+        int page = 0;
+        List<ITmfSyncSequenceDiagramEvent> cachedEvents = null;
 
         fLock.lock();
         try {
@@ -964,12 +1009,44 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
             if (fCurrentPage > fCheckPoints.size()) {
                 return;
             }
-            window = fCheckPoints.get(fCurrentPage);
+            page = fCurrentPage;
+            window = fCheckPoints.get(page);
+            requestWindow = window;
+            cachedEvents = fPageCache.get(page);
+            if (page < fCheckPointRanks.size()) {
+                // Read the events of the page by rank, up to the first event of the next page
+                index = fCheckPointRanks.get(page);
+                requestWindow = new TmfTimeRange(TmfTimestamp.BigBang, window.getEndTime());
+                if (page + 1 < fCheckPointRanks.size()) {
+                    nbRequested = (int) Math.min(Integer.MAX_VALUE, fCheckPointRanks.get(page + 1) - index);
+                }
+            }
         } finally {
             fLock.unlock();
         }
 
-        fPageRequest = new TmfEventRequest<TmfEvent>(TmfEvent.class, window, TmfDataRequest.ALL_DATA, 1, ITmfDataRequest.ExecutionType.FOREGROUND) {
+        if (cachedEvents != null) {
+            fillCurrentPage(cachedEvents);
+        } else {
+            requestPage(page, requestWindow, index, nbRequested);
+        }
+
+        if (notifyAll) {
+            TmfTimeRange timeRange = getSignalTimeRange(window.getStartTime());
+            broadcast(new TmfRangeSynchSignal(this, timeRange, timeRange.getStartTime()));
+        }
+    }
+
+    /**
+     * Reads the sequence diagram events of a page and fills the current page with them.
+     * @param page The page number
+     * @param window The time range of the request
+     * @param index The rank of the first event to read
+     * @param nbRequested The number of events to read
+     */
+    protected void requestPage(final int page, TmfTimeRange window, long index, int nbRequested) {
+
+        fPageRequest = new TmfEventRequest<TmfEvent>(TmfEvent.class, window, index, nbRequested, 1, ITmfDataRequest.ExecutionType.FOREGROUND) {
             private List<ITmfSyncSequenceDiagramEvent> fSdEvent = new ArrayList<ITmfSyncSequenceDiagramEvent>();
 
             @Override
@@ -985,6 +1062,7 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
 
             @Override
             public void handleSuccess() {
+                cachePage(page, fSdEvent);
                 fillCurrentPage(fSdEvent);
                 super.handleSuccess();
             }
@@ -992,10 +1070,19 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
         };
 
         ((TmfExperiment<TmfEvent>) fExperiment).sendRequest((ITmfDataRequest<TmfEvent>) fPageRequest);
+    }
 
-        if (notifyAll) {
-            TmfTimeRange timeRange = getSignalTimeRange(window.getStartTime());
-            broadcast(new TmfRangeSynchSignal(this, timeRange, timeRange.getStartTime()));
+    /**
+     * Keeps the sequence diagram events of a page in the page cache.
+     * @param page The page number
+     * @param events The sequence diagram events of the page
+     */
+    protected void cachePage(int page, List<ITmfSyncSequenceDiagramEvent> events) {
+        fLock.lock();
+        try {
+            fPageCache.put(page, new ArrayList<ITmfSyncSequenceDiagramEvent>(events));
+        } finally {
+            fLock.unlock();
         }
     }
 
@@ -1044,6 +1131,21 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
                 return false;
             }
 
+            if ((fLifelinePages != null) && (fMessagePages != null)) {
+                // Look up the next page with a match in the name index
+                int page = findPage(findCriteria, nextPage);
+                if (page < 0) {
+                    return false;
+                }
+                // Avoid double-selection. Selection will be done when calling find(criteria)
+                // after moving to relevant page
+                fIsSelect = false;
+                fCurrentTime = null;
+                fCurrentPage = page;
+                moveToPage(false);
+                return true;
+            }
+
             TmfTimeRange window = new TmfTimeRange(fCheckPoints.get(nextPage).getStartTime().clone(), fCheckPoints.get(fCheckPoints.size()-1).getEndTime().clone());
             fFindJob = new SearchJob(findCriteria, window);
             fFindJob.schedule();
@@ -1054,6 +1156,72 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
         return true;
     }
 
+    /**
+     * Finds the first page, starting at a given page, where a lifeline or a message name
+     * matches the find criteria, using the name index. The lifelines and messages hidden
+     * by the active filters are not considered.
+     * @param findCriteria The find criteria
+     * @param fromPage The first page to consider
+     * @return the page number, or -1 if there is no match
+     */
+    protected int findPage(Criteria findCriteria, int fromPage) {
+        fLock.lock();
+        try {
+            int page = -1;
+            if (findCriteria.isLifeLineSelected()) {
+                for (Map.Entry<String, List<Integer>> entry : fLifelinePages.entrySet()) {
+                    String lifeline = entry.getKey();
+                    if (findCriteria.matches(lifeline) && !filterLifeLine(lifeline)) {
+                        page = findPage(entry.getValue(), fromPage, page);
+                    }
+                }
+            }
+            if (findCriteria.isSyncMessageSelected()) {
+                for (Map.Entry<MessageKey, List<Integer>> entry : fMessagePages.entrySet()) {
+                    MessageKey message = entry.getKey();
+                    if (findCriteria.matches(message.fName) && !filterMessage(message)) {
+                        page = findPage(entry.getValue(), fromPage, page);
+                    }
+                }
+            }
+            return page;
+        } finally {
+            fLock.unlock();
+        }
+    }
+
+    /*
+     * Returns the first page of the (sorted) pages in [fromPage, page[ (or from fromPage
+     * if page is -1), or page if there is none 
+     */
+    private static int findPage(List<Integer> pages, int fromPage, int page) {
+        int pos = Collections.binarySearch(pages, fromPage);
+        if (pos < 0) {
+            pos = -pos - 1;
+        }
+        if (pos < pages.size()) {
+            int namePage = pages.get(pos);
+            if ((page == -1) || (namePage < page)) {
+                return namePage;
+            }
+        }
+        return page;
+    }
+
+    /*
+     * Adds a page to the (sorted) pages of a key
+     */
+    private static <K> void addPage(Map<K, List<Integer>> keyPages, K key, int page) {
+        List<Integer> pages = keyPages.get(key);
+        if (pages == null) {
+            pages = new ArrayList<Integer>();
+            keyPages.put(key, pages);
+        }
+        if (pages.isEmpty() || (pages.get(pages.size() - 1) != page)) {
+            pages.add(page);
+        }
+    }
+
     /**
      * Gets time range for time range signal.
      * @param startTime The start time of time range.
@@ -1076,13 +1244,22 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
      * @return true if match else false.
      */
     protected boolean filterMessage(ITmfSyncSequenceDiagramEvent sdEvent) {
+        return filterMessage(sdEvent.getName());
+    }
+
+    /**
+     * Checks if filter criteria matches a message name. 
+     * @param message The message name to check
+     * @return true if match else false.
+     */
+    protected boolean filterMessage(String message) {
         fLock.lock();
         try {
             if (fFilterCriteria != null) {
                 for(FilterCriteria criteria : fFilterCriteria) {
                     if (criteria.isActive() && criteria.getCriteria().isSyncMessageSelected() ) {
 
-                        if(criteria.getCriteria().matches(sdEvent.getName())) {
+                        if(criteria.getCriteria().matches(message)) {
                             return true;
                         }
                     }
@@ -1118,6 +1295,80 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
         return false;
     }
 
+    /*
+     * Checks if a message is hidden by the filters, by its name or by its lifelines 
+     */
+    private boolean filterMessage(MessageKey message) {
+        return filterMessage(message.fName) || filterLifeLine(message.fSender) || filterLifeLine(message.fReceiver);
+    }
+
+    /**
+     * Key of the message name index: the message name with its lifelines, as a message
+     * is hidden when either of its lifelines is filtered out.
+     */
+    protected static class MessageKey {
+
+        final protected String fName;
+        final protected String fSender;
+        final protected String fReceiver;
+
+        /**
+         * Constructor
+         * @param sdEvent The SD event of the message
+         */
+        public MessageKey(ITmfSyncSequenceDiagramEvent sdEvent) {
+            fName = sdEvent.getName();
+            fSender = sdEvent.getSender();
+            fReceiver = sdEvent.getReceiver();
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return (31 * ((31 * fName.hashCode()) + fSender.hashCode())) + fReceiver.hashCode();
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof MessageKey)) {
+                return false;
+            }
+            MessageKey key = (MessageKey) other;
+            return fName.equals(key.fName) && fSender.equals(key.fSender) && fReceiver.equals(key.fReceiver);
+        }
+    }
+
+    /**
+     * Cache of the sequence diagram events of the least recently displayed pages.
+     */
+    protected static class PageCache extends LinkedHashMap<Integer, List<ITmfSyncSequenceDiagramEvent>> {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructor
+         */
+        public PageCache() {
+            super(PAGE_CACHE_SIZE + 1, 1.0f, true);
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<ITmfSyncSequenceDiagramEvent>> eldest) {
+            return size() > PAGE_CACHE_SIZE;
+        }
+    }
+
     /**
      * Job to search in trace for given time range. 
      */
@@ -1263,21 +1514,25 @@ public class TmfUml2SDSyncLoader extends TmfComponent implements IUml2SDLoader,
             
             if (sdEvent != null) {
 
+                // The lifelines and messages hidden by the filters are not found
+                boolean senderFiltered = filterLifeLine(sdEvent.getSender());
+                boolean receiverFiltered = filterLifeLine(sdEvent.getReceiver());
+
                 if (fCriteria.isLifeLineSelected()) {
-                    if (fCriteria.matches(sdEvent.getSender())) {
+                    if (!senderFiltered && fCriteria.matches(sdEvent.getSender())) {
                         fFoundTime = event.getTimestamp().clone();
                         fIsFound = true;
                         super.cancel();
                     }
 
-                    if (fCriteria.matches(sdEvent.getReceiver())) {
+                    if (!receiverFiltered && fCriteria.matches(sdEvent.getReceiver())) {
                         fFoundTime = event.getTimestamp().clone();
                         fIsFound = true;
                         super.cancel();
                     }
                 }
 
-                if (fCriteria.isSyncMessageSelected()) {
+                if (fCriteria.isSyncMessageSelected() && !senderFiltered && !receiverFiltered && !filterMessage(sdEvent)) {
                     if (fCriteria.matches(sdEvent.getName())) {
                         fFoundTime = event.getTimestamp().clone();
                         fIsFound = true;
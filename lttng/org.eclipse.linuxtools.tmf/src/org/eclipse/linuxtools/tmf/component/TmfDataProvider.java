@@ -12,6 +12,8 @@
 
 package org.eclipse.linuxtools.tmf.component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -24,6 +26,7 @@ import org.eclipse.linuxtools.tmf.request.ITmfDataRequest.ExecutionType;
 import org.eclipse.linuxtools.tmf.request.TmfCoalescedDataRequest;
 import org.eclipse.linuxtools.tmf.request.TmfDataRequest;
 import org.eclipse.linuxtools.tmf.request.TmfRequestExecutor;
+import org.eclipse.linuxtools.tmf.request.TmfSharedScanRequest;
 import org.eclipse.linuxtools.tmf.signal.TmfEndSynchSignal;
 import org.eclipse.linuxtools.tmf.signal.TmfSignalHandler;
 import org.eclipse.linuxtools.tmf.signal.TmfStartSynchSignal;
@@ -64,10 +67,17 @@ public abstract class TmfDataProvider<T extends TmfData> extends TmfComponent im
     protected TmfRequestExecutor fExecutor;
 
     private int fSignalDepth = 0;
-    private final Object fLock = new Object();
+    private Object fLock = new Object();
 
     private int fRequestPendingCounter = 0;
 
+    // The scan in progress shared by the joinable requests
+    private TmfSharedScanRequest<T> fSharedScan = null;
+
+    // The follow-mode requests waiting for more data
+    private List<TmfThread> fParkedThreads = new ArrayList<TmfThread>();
+    private long fDataGeneration = 0;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -108,9 +118,36 @@ public abstract class TmfDataProvider<T extends TmfData> extends TmfComponent im
         this(name, type, DEFAULT_QUEUE_SIZE);
     }
 
+    /**
+     * The clone has its own request executor and queues, so that disposing it
+     * doesn't affect the original provider.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected TmfDataProvider<T> clone() throws CloneNotSupportedException {
+        TmfDataProvider<T> clone = (TmfDataProvider<T>) super.clone();
+        clone.fDataQueue = (fQueueSize > 1) ? new LinkedBlockingQueue<T>(fQueueSize) : new SynchronousQueue<T>();
+        clone.fExecutor = new TmfRequestExecutor();
+        clone.fSignalDepth = 0;
+        clone.fLock = new Object();
+        clone.fRequestPendingCounter = 0;
+        clone.fSharedScan = null;
+        clone.fParkedThreads = new ArrayList<TmfThread>();
+        clone.fDataGeneration = 0;
+        return clone;
+    }
+
     @Override
     public void dispose() {
         TmfProviderManager.deregister(fType, this);
+        List<TmfThread> parkedThreads;
+        synchronized (fLock) {
+            parkedThreads = new ArrayList<TmfThread>(fParkedThreads);
+            fParkedThreads.clear();
+        }
+        for (TmfThread thread : parkedThreads) {
+            thread.cancel();
+        }
         fExecutor.stop();
         super.dispose();
         // if (Tracer.isComponentTraced()) Tracer.traceComponent(this, "stopped");
@@ -128,6 +165,22 @@ public abstract class TmfDataProvider<T extends TmfData> extends TmfComponent im
         return fType;
     }
 
+    /**
+     * @return the executor servicing the requests (e.g. for monitoring or tuning)
+     */
+    public TmfRequestExecutor getExecutor() {
+        return fExecutor;
+    }
+
+    /**
+     * @return true if the provider data can still grow (e.g. a trace still
+     *         being written). The follow-mode requests then wait for more
+     *         data when they reach the end of the data.
+     */
+    public boolean isLive() {
+        return false;
+    }
+
     // ------------------------------------------------------------------------
     // ITmfRequestHandler
     // ------------------------------------------------------------------------
@@ -135,7 +188,9 @@ public abstract class TmfDataProvider<T extends TmfData> extends TmfComponent im
     @Override
     public void sendRequest(final ITmfDataRequest<T> request) {
         synchronized (fLock) {
-            if (fSignalDepth > 0) {
+            if (TmfSharedScanRequest.isShareable(request)) {
+                joinSharedScan(request);
+            } else if (fSignalDepth > 0 && !request.isFollowMode()) {
                 coalesceDataRequest(request);
             } else {
                 dispatchRequest(request);
@@ -222,12 +277,110 @@ public abstract class TmfDataProvider<T extends TmfData> extends TmfComponent im
         }
     }
 
+    // ------------------------------------------------------------------------
+    // Shared scan
+    // ------------------------------------------------------------------------
+
+    /**
+     * Have a joinable request join the scan in progress, or start a new scan
+     * if there is none.
+     * 
+     * @param request the joinable request
+     */
+    protected void joinSharedScan(ITmfDataRequest<T> request) {
+        synchronized (fLock) {
+            if (fSharedScan == null || !fSharedScan.join(request)) {
+                fSharedScan = new TmfSharedScanRequest<T>(fType);
+                fSharedScan.join(request);
+                queueSharedScan(fSharedScan);
+            }
+            if (Tracer.isRequestTraced()) {
+                Tracer.traceRequest(request, "joined shared scan " + fSharedScan.getRequestId()); //$NON-NLS-1$
+            }
+        }
+    }
+
+    protected void queueSharedScan(final TmfSharedScanRequest<T> scan) {
+
+        if (fExecutor.isShutdown()) {
+            scan.cancel();
+            return;
+        }
+
+        // Process the scan
+        TmfThread thread = new TmfThread(scan.getExecType()) {
+
+            // The scan state, preserved when the thread yields
+            private ITmfContext context = null;
+
+            @Override
+            public void run() {
+
+                if (context == null) {
+                    scan.start();
+                    context = armRequest(scan);
+                    if (context == null) {
+                        scan.cancel();
+                        return;
+                    }
+                }
+
+                try {
+                    while (scan.hasPendingRequests()) {
+                        T data = getNext(context);
+                        if (data == null || data.isNullRef()) {
+                            // End of data: go on from the start for the late joiners
+                            scan.wrap();
+                            if (!scan.hasPendingRequests()) {
+                                break;
+                            }
+                            context.dispose();
+                            context = armRequest(scan);
+                            continue;
+                        }
+                        if (fLogData)
+                            Tracer.traceEvent(TmfDataProvider.this, scan, data);
+                        scan.handleData(data);
+
+                        // The next data is read when resuming (see queueRequest)
+                        if (shouldYield()) {
+                            setSuspended(true);
+                            return;
+                        }
+                    }
+                    scan.done();
+                } catch (Exception e) {
+                    scan.fail();
+                }
+
+                // Cleanup
+                synchronized (fLock) {
+                    if (fSharedScan == scan) {
+                        fSharedScan = null;
+                    }
+                }
+                context.dispose();
+            }
+
+            @Override
+            public void cancel() {
+                if (!scan.isCompleted()) {
+                    scan.cancel();
+                }
+            }
+        };
+
+        if (Tracer.isRequestTraced())
+            Tracer.traceRequest(scan, "queued"); //$NON-NLS-1$
+        fExecutor.execute(thread);
+    }
+
     // ------------------------------------------------------------------------
     // Request processing
     // ------------------------------------------------------------------------
 
     private void dispatchRequest(final ITmfDataRequest<T> request) {
-        if (request.getExecType() == ExecutionType.FOREGROUND)
+        if (request.getExecType() == ExecutionType.FOREGROUND || request.isFollowMode())
             queueRequest(request);
         else
             queueBackgroundRequest(request, request.getBlockSize(), true);
@@ -244,30 +397,50 @@ public abstract class TmfDataProvider<T extends TmfData> extends TmfComponent im
 
         // Process the request
         TmfThread thread = new TmfThread(request.getExecType()) {
-            
+
+            // The request state, preserved when the thread yields
+            private ITmfContext context = null;
+            private int nbRead = 0;
+            private T data = null;
+            private boolean parked = false;
+
             @Override
             public void run() {
 
-                if (Tracer.isRequestTraced())
-                    Tracer.trace("Request #" + request.getRequestId() + " is being serviced by " + provider.getName()); //$NON-NLS-1$//$NON-NLS-2$
-
-                // Extract the generic information
-                request.start();
                 int nbRequested = request.getNbRequested();
-                int nbRead = 0;
+                long generation = getDataGeneration();
+
+                if (parked) {
+                    // Resume reading where the request left off
+                    parked = false;
+                    if (request.isCompleted()) {
+                        // Cancelled while waiting for more data
+                        context.dispose();
+                        return;
+                    }
+                    context = refreshContext(request, context);
+                } else if (context == null) {
+                    if (Tracer.isRequestTraced())
+                        Tracer.trace("Request #" + request.getRequestId() + " is being serviced by " + provider.getName()); //$NON-NLS-1$//$NON-NLS-2$
 
-                // Initialize the execution
-                ITmfContext context = armRequest(request);
-                if (context == null) {
-                    request.cancel();
-                    return;
+                    // Extract the generic information
+                    request.start();
+
+                    // Initialize the execution
+                    context = armRequest(request);
+                    if (context == null) {
+                        request.cancel();
+                        return;
+                    }
                 }
 
                 try {
                     // Get the ordered events
-                    T data = getNext(context);
-                    if (Tracer.isRequestTraced())
-                        Tracer.trace("Request #" + request.getRequestId() + " read first event"); //$NON-NLS-1$ //$NON-NLS-2$
+                    if (data == null) {
+                        data = getNext(context);
+                        if (Tracer.isRequestTraced() && nbRead == 0)
+                            Tracer.trace("Request #" + request.getRequestId() + " read first event"); //$NON-NLS-1$ //$NON-NLS-2$
+                    }
                     while (data != null && !isCompleted(request, data, nbRead)) {
                         if (fLogData)
                             Tracer.traceEvent(provider, request, data);
@@ -276,9 +449,31 @@ public abstract class TmfDataProvider<T extends TmfData> extends TmfComponent im
                         // To avoid an unnecessary read passed the last data
                         // requested
                         if (++nbRead < nbRequested) {
+                            // Make room for a waiting request. Only the context
+                            // is kept: the next data is read when resuming
+                            // since some providers re-use their data objects.
+                            if (shouldYield()) {
+                                if (Tracer.isRequestTraced())
+                                    Tracer.trace("Request #" + request.getRequestId() + " yields"); //$NON-NLS-1$ //$NON-NLS-2$
+                                data = null;
+                                setSuspended(true);
+                                return;
+                            }
                             data = getNext(context);
                         }
                     }
+
+                    // Wait for more data at the end of the data of a live provider
+                    if ((data == null || data.isNullRef()) && request.isFollowMode() && !request.isCompleted()
+                            && nbRead < nbRequested && isLive()) {
+                        if (Tracer.isRequestTraced())
+                            Tracer.trace("Request #" + request.getRequestId() + " waits for more data"); //$NON-NLS-1$ //$NON-NLS-2$
+                        data = null;
+                        parked = true;
+                        parkRequest(this, generation);
+                        return;
+                    }
+
                     if (Tracer.isRequestTraced())
                         Tracer.trace("Request #" + request.getRequestId() + " finished"); //$NON-NLS-1$//$NON-NLS-2$
 
@@ -355,6 +550,8 @@ public abstract class TmfDataProvider<T extends TmfData> extends TmfComponent im
                         }
                     };
 
+                    subRequest.setFlyweight(request.isFlyweight());
+
                     if (!isFinished[0]) {
                         queueRequest(subRequest);
 
@@ -373,6 +570,63 @@ public abstract class TmfDataProvider<T extends TmfData> extends TmfComponent im
         thread.start();
     }
 
+    // ------------------------------------------------------------------------
+    // Follow mode
+    // ------------------------------------------------------------------------
+
+    /*
+     * Park a follow-mode request thread until more data is available. If data
+     * arrived since the thread (re)started, it is re-queued right away since
+     * it may have missed the notification.
+     */
+    private void parkRequest(TmfThread thread, long generation) {
+        synchronized (fLock) {
+            if (generation == fDataGeneration && isLive()) {
+                fParkedThreads.add(thread);
+                return;
+            }
+        }
+        fExecutor.execute(thread);
+    }
+
+    private long getDataGeneration() {
+        synchronized (fLock) {
+            return fDataGeneration;
+        }
+    }
+
+    /**
+     * Resumes the follow-mode requests waiting for more data. To be called by
+     * live providers when new data is available (or when they stop being
+     * live, to have the requests complete).
+     */
+    protected void resumeFollowingRequests() {
+        List<TmfThread> parkedThreads;
+        synchronized (fLock) {
+            fDataGeneration++;
+            if (fParkedThreads.isEmpty()) {
+                return;
+            }
+            parkedThreads = new ArrayList<TmfThread>(fParkedThreads);
+            fParkedThreads.clear();
+        }
+        for (TmfThread thread : parkedThreads) {
+            fExecutor.execute(thread);
+        }
+    }
+
+    /**
+     * Returns the context to use to resume a follow-mode request that reached
+     * the end of the data. By default, the request goes on with its context.
+     * 
+     * @param request the follow-mode request
+     * @param context the request context, at the end of the data
+     * @return the context to read the new data from
+     */
+    protected ITmfContext refreshContext(ITmfDataRequest<T> request, ITmfContext context) {
+        return context;
+    }
+
     /**
      * Initialize the provider based on the request. The context is provider specific and will be updated by getNext().
      * 
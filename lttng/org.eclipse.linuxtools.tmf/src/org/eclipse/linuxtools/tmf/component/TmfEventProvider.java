@@ -60,7 +60,7 @@ public abstract class TmfEventProvider<T extends TmfEvent> extends TmfDataProvid
         boolean requestCompleted = super.isCompleted(request, data, nbRead);
         if (!requestCompleted && request instanceof ITmfEventRequest<?> && !data.isNullRef()) {
             TmfTimestamp endTime = ((ITmfEventRequest<?>) request).getRange().getEndTime();
-            return data.getTimestamp().compareTo(endTime, false) > 0;
+            return data.compareTimestampTo(endTime, false) > 0;
         }
         return requestCompleted;
     }
@@ -103,7 +103,7 @@ public abstract class TmfEventProvider<T extends TmfEvent> extends TmfDataProvid
 				final Boolean[] isFinished = new Boolean[1];
 				isFinished[0] = Boolean.FALSE;
 
-				int startIndex = request.getIndex();
+				long startIndex = request.getIndex();
 				
 				while (!isFinished[0]) {
 
@@ -5,11 +5,16 @@ import org.eclipse.linuxtools.tmf.request.ITmfDataRequest.ExecutionType;
 public class TmfThread extends Thread { // implements Comparator<ITmfDataRequest<?>> {
 
 	private final ExecutionType fExecType;
-	
+
+	// Time slicing (set by the request executor)
+	private volatile boolean fYieldRequested = false;
+	private volatile long fSliceEnd = Long.MAX_VALUE;
+	private boolean fSuspended = false;
+
 	public TmfThread(ExecutionType execType) {
 		fExecType = execType;
 	}
-	
+
 	public ExecutionType getExecType() {
 		return fExecType;
 	}
@@ -17,4 +22,46 @@ public class TmfThread extends Thread { // implements Comparator<ITmfDataRequest
 	public void cancel() {
 	}
 
+	// ------------------------------------------------------------------------
+	// Time slicing
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Called by the executor when the thread is (re)scheduled.
+	 *
+	 * @param timeSlice the time (in ms) the thread can run before having to
+	 *        yield to a waiting request
+	 */
+	public void startTimeSlice(long timeSlice) {
+		fYieldRequested = false;
+		fSliceEnd = System.currentTimeMillis() + timeSlice;
+	}
+
+	/**
+	 * Called by the executor when a higher priority request is waiting for
+	 * this thread to yield.
+	 */
+	public void requestYield() {
+		fYieldRequested = true;
+	}
+
+	/**
+	 * Polled by the running thread at convenient points. When true, the thread
+	 * should save its state, call setSuspended(true) and return from run(): it
+	 * will be re-queued and resumed later on.
+	 *
+	 * @return true if the thread should yield to a waiting request
+	 */
+	public boolean shouldYield() {
+		return fYieldRequested && System.currentTimeMillis() >= fSliceEnd;
+	}
+
+	public synchronized void setSuspended(boolean suspended) {
+		fSuspended = suspended;
+	}
+
+	public synchronized boolean isSuspended() {
+		return fSuspended;
+	}
+
 }
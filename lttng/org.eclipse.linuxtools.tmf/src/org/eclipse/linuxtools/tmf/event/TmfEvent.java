@@ -55,6 +55,12 @@ public class TmfEvent extends TmfData implements Cloneable {
     // using setContent()
     protected TmfEventContent fContent;
 
+    // Primitive timestamp of the events created without timestamp objects
+    // (these are only created if requested, e.g. by a view)
+    private boolean fLazyTimestamp = false;
+    private long    fTimestampValue;
+    private byte    fTimestampScale;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -79,6 +85,27 @@ public class TmfEvent extends TmfData implements Cloneable {
         fReference          = reference;
     }
 
+    /**
+     * Constructor for the event parsers hot path: the timestamp is kept as
+     * primitive values and the timestamp objects are only created on demand.
+     *
+     * @param trace the parent trace
+     * @param rank the event rank
+     * @param timestampValue the (effective and original) timestamp value
+     * @param timestampScale the timestamp scale
+     * @param source the event source (generator)
+     * @param type the event type
+     * @param reference a free-form reference field
+     */
+    public TmfEvent(ITmfTrace<?> trace, long rank, long timestampValue, byte timestampScale,
+            TmfEventSource source, TmfEventType type, TmfEventReference reference)
+    {
+        this(trace, rank, null, null, source, type, reference);
+        fLazyTimestamp  = true;
+        fTimestampValue = timestampValue;
+        fTimestampScale = timestampScale;
+    }
+
 	/**
 	 * @param originalTS the original timestamp
 	 * @param effectiveTS the effective timestamp
@@ -127,8 +154,8 @@ public class TmfEvent extends TmfData implements Cloneable {
     		throw new IllegalArgumentException();
         fParentTrace        = other.fParentTrace;
         fEventRank          = other.fEventRank;
-		fOriginalTimestamp  = new TmfTimestamp(other.fOriginalTimestamp);
-		fEffectiveTimestamp = new TmfTimestamp(other.fEffectiveTimestamp);
+		fOriginalTimestamp  = new TmfTimestamp(other.getOriginalTimestamp());
+		fEffectiveTimestamp = new TmfTimestamp(other.getTimestamp());
 		fSource    			= new TmfEventSource(other.fSource);
 		fType      			= new TmfEventType(other.fType);
 		fContent   			= new TmfEventContent(other.fContent);
@@ -165,6 +192,9 @@ public class TmfEvent extends TmfData implements Cloneable {
      * @return the effective event timestamp
      */
     public TmfTimestamp getTimestamp() {
+        if (isTimestampPending()) {
+            createTimestamps();
+        }
         return fEffectiveTimestamp;
     }
 
@@ -172,9 +202,124 @@ public class TmfEvent extends TmfData implements Cloneable {
      * @return the original event timestamp
      */
     public TmfTimestamp getOriginalTimestamp() {
+        parseTimestamp();
+        if (fLazyTimestamp && fOriginalTimestamp == null) {
+            createTimestamps();
+        }
         return fOriginalTimestamp;
     }
 
+    // ------------------------------------------------------------------------
+    // Allocation-free timestamp accessors (for the event processing hot paths)
+    // ------------------------------------------------------------------------
+
+    private boolean isTimestampPending() {
+        parseTimestamp();
+        return fLazyTimestamp && fEffectiveTimestamp == null;
+    }
+
+    /**
+     * Called before the timestamp is accessed, for the events that only parse
+     * their timestamp on demand (see setTimestamp()). Nothing to do by default.
+     */
+    protected void parseTimestamp() {
+    }
+
+    /**
+     * Sets the (effective and original) timestamp as primitive values. The
+     * timestamp objects are only created if requested.
+     *
+     * @param timestampValue the timestamp value
+     * @param timestampScale the timestamp scale
+     */
+    protected void setTimestamp(long timestampValue, byte timestampScale) {
+        fOriginalTimestamp  = null;
+        fEffectiveTimestamp = null;
+        fLazyTimestamp      = true;
+        fTimestampValue     = timestampValue;
+        fTimestampScale     = timestampScale;
+    }
+
+    /**
+     * Creates the timestamp object of a primitive timestamp. Overridden by
+     * the events that use a TmfTimestamp subclass.
+     *
+     * @param timestampValue the timestamp value
+     * @param timestampScale the timestamp scale
+     * @return the new timestamp
+     */
+    protected TmfTimestamp newTimestamp(long timestampValue, byte timestampScale) {
+        return new TmfTimestamp(timestampValue, timestampScale);
+    }
+
+    /**
+     * @return true if the event has an effective timestamp
+     */
+    public boolean hasTimestamp() {
+        return isTimestampPending() || getTimestamp() != null;
+    }
+
+    /**
+     * @return the effective timestamp value
+     */
+    public long getTimestampValue() {
+        return isTimestampPending() ? fTimestampValue : getTimestamp().getValue();
+    }
+
+    /**
+     * @return the effective timestamp scale
+     */
+    public byte getTimestampScale() {
+        return isTimestampPending() ? fTimestampScale : getTimestamp().getScale();
+    }
+
+    /**
+     * @return the effective timestamp precision
+     */
+    public long getTimestampPrecision() {
+        return isTimestampPending() ? 0 : getTimestamp().getPrecision();
+    }
+
+    /**
+     * @return the effective timestamp, normalized to nanoseconds
+     * @see TmfTimestamp#getNormalizedValue()
+     */
+    public long getNormalizedTimestamp() {
+        return isTimestampPending() ? TmfTimestamp.normalize(fTimestampValue, fTimestampScale) : getTimestamp().getNormalizedValue();
+    }
+
+    /**
+     * @return true if the normalized timestamp can be compared as a plain long
+     * @see TmfTimestamp#isNormalizedValueExact()
+     */
+    public boolean isNormalizedTimestampExact() {
+        return isTimestampPending() ? TmfTimestamp.isNormalizable(fTimestampValue, fTimestampScale) : getTimestamp().isNormalizedValueExact();
+    }
+
+    /**
+     * Compare the effective timestamp with another timestamp.
+     *
+     * @param other the other timestamp
+     * @param withinPrecision consider the precision in the comparison
+     * @return -1, 0 or 1 (see TmfTimestamp.compareTo(TmfTimestamp, boolean))
+     */
+    public int compareTimestampTo(TmfTimestamp other, boolean withinPrecision) {
+        if (isTimestampPending()) {
+            return TmfTimestamp.compare(fTimestampValue, fTimestampScale, 0, other.getValue(), other.getScale(), other.getPrecision(), withinPrecision);
+        }
+        return getTimestamp().compareTo(other, withinPrecision);
+    }
+
+    private void createTimestamps() {
+        TmfTimestamp timestamp = newTimestamp(fTimestampValue, fTimestampScale);
+        if (fOriginalTimestamp == null) {
+            fOriginalTimestamp = timestamp;
+        }
+        if (fEffectiveTimestamp == null) {
+            fEffectiveTimestamp = timestamp;
+        }
+    }
+
     /**
      * @return the event source
      */
@@ -211,6 +356,31 @@ public class TmfEvent extends TmfData implements Cloneable {
         fContent = content;
     }
 
+    /**
+     * Re-initialize a flyweight event with the next event read, as the
+     * corresponding constructor would (see TmfContext.getFlyweightEvent()).
+     * The content has to be set separately.
+     *
+     * @param trace the parent trace
+     * @param rank the event rank
+     * @param timestampValue the (effective and original) timestamp value
+     * @param timestampScale the timestamp scale
+     * @param source the event source (generator)
+     * @param type the event type
+     * @param reference a free-form reference field
+     */
+    public void reset(ITmfTrace<?> trace, long rank, long timestampValue, byte timestampScale,
+            TmfEventSource source, TmfEventType type, TmfEventReference reference)
+    {
+        fParentTrace        = trace;
+        fEventRank          = rank;
+        setTimestamp(timestampValue, timestampScale);
+        fSource             = source;
+        fType               = type;
+        fReference          = reference;
+        fContent            = null;
+    }
+
     /**
      * @return the event raw text
      */
@@ -230,7 +400,7 @@ public class TmfEvent extends TmfData implements Cloneable {
         int result = 17;
         result = 37 * result + fSource.hashCode();
         result = 37 * result + fType.hashCode();
-        result = 37 * result + fEffectiveTimestamp.hashCode();
+        result = 37 * result + getTimestamp().hashCode();
         return result;
     }
 
@@ -239,13 +409,13 @@ public class TmfEvent extends TmfData implements Cloneable {
         if (!(other instanceof TmfEvent))
             return false;
         TmfEvent o = (TmfEvent) other;
-        return fEffectiveTimestamp.equals(o.fEffectiveTimestamp) && fSource.equals(o.fSource) && fType.equals(o.fType) && fContent.equals(o.fContent);
+        return getTimestamp().equals(o.getTimestamp()) && fSource.equals(o.fSource) && fType.equals(o.fType) && fContent.equals(o.fContent);
     }
 
     @Override
     @SuppressWarnings("nls")
     public String toString() {
-        return "[TmfEvent(" + fEffectiveTimestamp + "," + fSource + "," + fType + "," + fContent + ")]";
+        return "[TmfEvent(" + getTimestamp() + "," + fSource + "," + fType + "," + fContent + ")]";
     }
 
 	@Override
@@ -255,12 +425,16 @@ public class TmfEvent extends TmfData implements Cloneable {
 			clone = (TmfEvent) super.clone();
 			clone.fParentTrace        = fParentTrace;
 			clone.fEventRank          = fEventRank;
-			clone.fOriginalTimestamp  = fOriginalTimestamp.clone();
-			clone.fEffectiveTimestamp = fEffectiveTimestamp.clone();
+			clone.fOriginalTimestamp  = (fOriginalTimestamp != null) ? fOriginalTimestamp.clone() : null;
+			clone.fEffectiveTimestamp = (fEffectiveTimestamp != null) ? fEffectiveTimestamp.clone() : null;
 			clone.fSource             = fSource.clone();
 			clone.fType               = fType.clone();
 			clone.fReference          = fReference.clone();
 			clone.fContent            = fContent.clone();
+			if (fContent.getEvent() == this) {
+				// A flyweight event content would otherwise follow the original
+				clone.fContent.setEvent(clone);
+			}
 		}
 		catch (CloneNotSupportedException e) {
 			e.printStackTrace();
@@ -13,6 +13,8 @@
 
 package org.eclipse.linuxtools.tmf.event;
 
+import java.io.Serializable;
+
 /**
  * <b><u>TmfTimestamp</u></b>
  * <p>
@@ -41,7 +43,9 @@ package org.eclipse.linuxtools.tmf.event;
  * Notice that the adjusted timestamp value could be negative e.g. for events
  * that occurred before t0 wrt the reference clock.
  */
-public class TmfTimestamp implements Cloneable, Comparable<TmfTimestamp> {
+public class TmfTimestamp implements Cloneable, Comparable<TmfTimestamp>, Serializable {
+
+    private static final long serialVersionUID = 4916227324460187287L;
 
 	// ------------------------------------------------------------------------
     // Attributes
@@ -60,6 +64,9 @@ public class TmfTimestamp implements Cloneable, Comparable<TmfTimestamp> {
     public static final TmfTimestamp BigCrunch = new TmfTimestamp(Long.MAX_VALUE, Byte.MAX_VALUE, 0);
     public static final TmfTimestamp Zero      = new TmfTimestamp(0, (byte) 0, 0);
 
+    // The scale of the normalized timestamp values (nanoseconds)
+    public static final byte NORMALIZED_SCALE = -9;
+
 	// ------------------------------------------------------------------------
     // Constructors
 	// ------------------------------------------------------------------------
@@ -240,6 +247,62 @@ public class TmfTimestamp implements Cloneable, Comparable<TmfTimestamp> {
     {
     	return scalingFactors[scale];
     }
+
+    /**
+     * Return the timestamp value in the normalized (nanosecond) scale. This is
+     * an allocation-free alternative to synchronize(0, NORMALIZED_SCALE) meant
+     * for the event processing hot paths.
+     * <p>
+     * Values in a finer scale are truncated. Values that don't fit in a long
+     * are clamped to Long.MIN_VALUE/Long.MAX_VALUE (e.g. BigBang, BigCrunch).
+     *
+     * @return the normalized timestamp value
+     */
+    public long getNormalizedValue() {
+        return normalize(fValue, fScale);
+    }
+
+    /**
+     * @return true if the normalized value represents this timestamp exactly
+     *         (i.e. no truncation, no clamping and no precision) so it can be
+     *         compared as a plain long
+     */
+    public boolean isNormalizedValueExact() {
+        return fPrecision == 0 && isNormalizable(fValue, fScale);
+    }
+
+    /**
+     * @param value the timestamp value
+     * @param scale the timestamp scale
+     * @return the value in the normalized (nanosecond) scale
+     * @see #getNormalizedValue()
+     */
+    public static long normalize(long value, byte scale) {
+        int scaleDiff = scale - NORMALIZED_SCALE;
+        if (scaleDiff == 0) {
+            return value;
+        }
+        if (scaleDiff < 0) {
+            return (-scaleDiff < scalingFactors.length) ? value / scalingFactors[-scaleDiff] : 0;
+        }
+        if (scaleDiff >= scalingFactors.length || value > scalingLimits[scaleDiff] || value < -scalingLimits[scaleDiff]) {
+            return (value > 0) ? Long.MAX_VALUE : (value < 0) ? Long.MIN_VALUE : 0;
+        }
+        return value * scalingFactors[scaleDiff];
+    }
+
+    /**
+     * @param value the timestamp value
+     * @param scale the timestamp scale
+     * @return true if the value can be normalized without loss
+     */
+    public static boolean isNormalizable(long value, byte scale) {
+        int scaleDiff = scale - NORMALIZED_SCALE;
+        if (scaleDiff < 0) {
+            return -scaleDiff < scalingFactors.length && (value % scalingFactors[-scaleDiff]) == 0;
+        }
+        return value == 0 || (scaleDiff < scalingFactors.length && value <= scalingLimits[scaleDiff] && value >= -scalingLimits[scaleDiff]);
+    }
     
     /**
      * Compute the adjustment, in the reference scale, needed to synchronize
@@ -283,20 +346,30 @@ public class TmfTimestamp implements Cloneable, Comparable<TmfTimestamp> {
      *          1: this timestamp is higher (i.e. posterior)
      */
     public int compareTo(final TmfTimestamp other, boolean withinPrecision) {
+        return compare(fValue, fScale, fPrecision, other.fValue, other.fScale, other.fPrecision, withinPrecision);
+    }
+
+    /**
+     * Compare two timestamps given as primitive values (no timestamp object
+     * needed).
+     *
+     * @see #compareTo(TmfTimestamp, boolean)
+     */
+    public static int compare(long value1, byte scale1, long precision1, long value2, byte scale2, long precision2, boolean withinPrecision) {
 
 		// If values have the same time scale, perform the comparison
-		if (fScale == other.fScale) {
+		if (scale1 == scale2) {
 			if (withinPrecision)
-				return compareWithinPrecision(this.fValue, this.fPrecision, other.fValue, other.fPrecision);
+				return compareWithinPrecision(value1, precision1, value2, precision2);
 			else
-				return compareNoPrecision(this.fValue, other.fValue);
+				return compareNoPrecision(value1, value2);
 		}
 
 		// If values have different time scales, adjust to the finest one and
 		// then compare. If the scaling difference is too large, revert to
 		// some heuristics. Hopefully, nobody will try to compare galactic and
 		// quantic clock events...
-		int scaleDiff = Math.abs(fScale - other.fScale);
+		int scaleDiff = Math.abs(scale1 - scale2);
 		long factor, limit;
 		if (scaleDiff < scalingFactors.length) {
 			factor = scalingFactors[scaleDiff];
@@ -306,34 +379,34 @@ public class TmfTimestamp implements Cloneable, Comparable<TmfTimestamp> {
 			limit = 0; // !!! 0 can always be scaled!!!
 		}
 
-		if (fScale < other.fScale) {
+		if (scale1 < scale2) {
 			// this has finer scale, so other should be scaled
 			if (withinPrecision)
-				if (other.fValue > limit || other.fValue < -limit
-						|| other.fPrecision > limit
-						|| other.fPrecision < -limit)
-					return other.fValue > 0 ? -1 : +1; // other exceeds scaling limit
+				if (value2 > limit || value2 < -limit
+						|| precision2 > limit
+						|| precision2 < -limit)
+					return value2 > 0 ? -1 : +1; // other exceeds scaling limit
 				else
-					return compareWithinPrecision(this.fValue, this.fPrecision,
-							other.fValue * factor, other.fPrecision * factor);
-			else if (other.fValue > limit || other.fValue < -limit)
-				return other.fValue > 0 ? -1 : +1; // other exceeds scaling limit
+					return compareWithinPrecision(value1, precision1,
+							value2 * factor, precision2 * factor);
+			else if (value2 > limit || value2 < -limit)
+				return value2 > 0 ? -1 : +1; // other exceeds scaling limit
 			else
-				return compareNoPrecision(this.fValue, other.fValue * factor);
+				return compareNoPrecision(value1, value2 * factor);
 		} else {
 			// other has finer scale, so this should be scaled
 			if (withinPrecision)
-				if (this.fValue > limit || this.fValue < -limit
-						|| this.fPrecision > limit || this.fPrecision < -limit)
-					return this.fValue > 0 ? +1 : -1; // we exceed scaling limit
+				if (value1 > limit || value1 < -limit
+						|| precision1 > limit || precision1 < -limit)
+					return value1 > 0 ? +1 : -1; // we exceed scaling limit
 				else
-					return compareWithinPrecision(this.fValue * factor,
-							this.fPrecision * factor, other.fValue,
-							other.fPrecision);
-			else if (this.fValue > limit || this.fValue < -limit)
-				return this.fValue > 0 ? +1 : -1; // we exceed scaling limit
+					return compareWithinPrecision(value1 * factor,
+							precision1 * factor, value2,
+							precision2);
+			else if (value1 > limit || value1 < -limit)
+				return value1 > 0 ? +1 : -1; // we exceed scaling limit
 			else
-				return compareNoPrecision(this.fValue * factor, other.fValue);
+				return compareNoPrecision(value1 * factor, value2);
 		}
     }
 
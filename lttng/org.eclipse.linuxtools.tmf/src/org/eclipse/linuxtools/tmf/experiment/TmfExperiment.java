@@ -15,12 +15,19 @@ package org.eclipse.linuxtools.tmf.experiment;
 import java.io.FileNotFoundException;
 import java.util.Collections;
 import java.util.Vector;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.linuxtools.tmf.Tracer;
 import org.eclipse.linuxtools.tmf.component.TmfEventProvider;
 import org.eclipse.linuxtools.tmf.event.TmfEvent;
 import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
@@ -75,6 +82,9 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
     // The current experiment context
     protected TmfExperimentContext fExperimentContext;
 
+    // True if the experiment is a copy (see copy())
+    private boolean fIsCopy = false;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -172,9 +182,28 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
 
     @Override
     public TmfExperiment<T> copy() {
-        TmfExperiment<T> experiment = new TmfExperiment<T>(this);
+        return completeCopy(new TmfExperiment<T>(this));
+    }
+
+    /**
+     * Completes a copy of an experiment (see copy()). The copy doesn't receive
+     * signals and doesn't broadcast its disposal.
+     * 
+     * @param copy the experiment copy
+     * @return the copy, or null (the copy is then disposed) if one of the
+     *         traces couldn't be copied
+     */
+    protected static <E extends TmfExperiment<?>> E completeCopy(E copy) {
+        TmfExperiment<?> experiment = copy;
         TmfSignalManager.deregister(experiment);
-        return experiment;
+        experiment.fIsCopy = true;
+        for (ITmfTrace<?> trace : experiment.fTraces) {
+            if (trace == null) {
+                experiment.dispose();
+                return null;
+            }
+        }
+        return copy;
     }
 
     /**
@@ -184,12 +213,16 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
     @SuppressWarnings("rawtypes")
     public synchronized void dispose() {
 
-        TmfExperimentDisposedSignal<T> signal = new TmfExperimentDisposedSignal<T>(this, this);
-        broadcast(signal);
+        if (!fIsCopy) {
+            TmfExperimentDisposedSignal<T> signal = new TmfExperimentDisposedSignal<T>(this, this);
+            broadcast(signal);
+        }
 
         if (fTraces != null) {
             for (ITmfTrace trace : fTraces) {
-                trace.dispose();
+                if (trace != null) {
+                    trace.dispose();
+                }
             }
             fTraces = null;
         }
@@ -228,6 +261,21 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
         return fTimeRange.getEndTime();
     }
 
+    /**
+     * @return true if any of the experiment traces is live
+     */
+    @Override
+    public boolean isLive() {
+        if (fTraces != null) {
+            for (ITmfTrace<T> trace : fTraces) {
+                if (trace.isLive()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     public Vector<TmfCheckpoint> getCheckpoints() {
         return fCheckpoints;
     }
@@ -302,6 +350,19 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
     // ------------------------------------------------------------------------
     // TmfProvider
     // ------------------------------------------------------------------------
+
+    /*
+     * The experiment context doesn't read the traces that reached their end
+     * anymore: re-position the experiment to pick up the new events.
+     */
+    @Override
+    protected ITmfContext refreshContext(ITmfDataRequest<T> request, ITmfContext context) {
+        TmfExperimentContext newContext = seekEvent(context.getRank());
+        newContext.setFlyweight(request.isFlyweight());
+        context.dispose();
+        return newContext;
+    }
+
     @Override
     public ITmfContext armRequest(ITmfDataRequest<T> request) {
 //		Tracer.trace("Ctx: Arming request - start");
@@ -316,7 +377,7 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
         if (timestamp != null) {
             // seek by timestamp
             context = seekEvent(timestamp);
-            ((ITmfEventRequest<T>) request).setStartIndex((int) context.getRank());
+            ((ITmfEventRequest<T>) request).setStartIndex(context.getRank());
         } else {
             // Seek by rank
             if ((fExperimentContext != null) && fExperimentContext.getRank() == request.getIndex()) {
@@ -326,6 +387,7 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
                 context = seekEvent(request.getIndex());
             }
         }
+        context.setFlyweight(request.isFlyweight());
 //		Tracer.trace("Ctx: Arming request - done");
         return context;
     }
@@ -544,24 +606,25 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
             return null; // Throw an exception?
         }
 
+        TmfExperimentContext expContext = (TmfExperimentContext) context;
+
         if (!context.equals(fExperimentContext)) {
 //    		Tracer.trace("Ctx: Restoring context");
             fExperimentContext = seekLocation(context.getLocation());
+            expContext.resetEventQueue();
         }
 
-        TmfExperimentContext expContext = (TmfExperimentContext) context;
-
 //		dumpContext(expContext, true);
 
         // If an event was consumed previously, get the next one from that trace
         int lastTrace = expContext.getLastTrace();
         if (lastTrace != TmfExperimentContext.NO_TRACE) {
             TmfContext traceContext = expContext.getContexts()[lastTrace];
-            expContext.getEvents()[lastTrace] = expContext.getTraces()[lastTrace].getNextEvent(traceContext);
+            expContext.setEvent(lastTrace, expContext.getTraces()[lastTrace].getNextEvent(traceContext));
             expContext.setLastTrace(TmfExperimentContext.NO_TRACE);
         }
 
-        // Scan the candidate events and identify the "next" trace to read from
+        // Identify the "next" trace to read from
         TmfEvent eventArray[] = expContext.getEvents();
         if (eventArray == null) {
             return null;
@@ -574,15 +637,9 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
                 trace = 0;
             }
         } else {
-            for (int i = 0; i < eventArray.length; i++) {
-                TmfEvent event = eventArray[i];
-                if (event != null && event.getTimestamp() != null) {
-                    TmfTimestamp otherTS = event.getTimestamp();
-                    if (otherTS.compareTo(timestamp, true) < 0) {
-                        trace = i;
-                        timestamp = otherTS;
-                    }
-                }
+            trace = expContext.getNextTrace();
+            if (trace != TmfExperimentContext.NO_TRACE) {
+                timestamp = eventArray[trace].getTimestamp();
             }
         }
         // Update the experiment context and set the "next" event
@@ -642,35 +699,25 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
             return null; // Throw an exception?
         }
 
+        TmfExperimentContext expContext = (TmfExperimentContext) context;
+
         if (!context.equals(fExperimentContext)) {
 //    		Tracer.trace("Ctx: Restoring context");
             seekLocation(context.getLocation());
+            expContext.resetEventQueue();
         }
 
-        TmfExperimentContext expContext = (TmfExperimentContext) context;
-
         // If an event was consumed previously, get the next one from that trace
         int lastTrace = expContext.getLastTrace();
         if (lastTrace != TmfExperimentContext.NO_TRACE) {
             TmfContext traceContext = expContext.getContexts()[lastTrace];
-            expContext.getEvents()[lastTrace] = expContext.getTraces()[lastTrace].getNextEvent(traceContext);
+            expContext.setEvent(lastTrace, expContext.getTraces()[lastTrace].getNextEvent(traceContext));
             expContext.setLastTrace(TmfExperimentContext.NO_TRACE);
             fExperimentContext = (TmfExperimentContext) context;
         }
 
-        // Scan the candidate events and identify the "next" trace to read from
-        int trace = TmfExperimentContext.NO_TRACE;
-        TmfTimestamp timestamp = TmfTimestamp.BigCrunch;
-        for (int i = 0; i < expContext.getTraces().length; i++) {
-            TmfEvent event = expContext.getEvents()[i];
-            if (event != null && event.getTimestamp() != null) {
-                TmfTimestamp otherTS = event.getTimestamp();
-                if (otherTS.compareTo(timestamp, true) < 0) {
-                    trace = i;
-                    timestamp = otherTS;
-                }
-            }
-        }
+        // Identify the "next" trace to read from
+        int trace = expContext.getNextTrace();
 
         TmfEvent event = null;
         if (trace != TmfExperimentContext.NO_TRACE) {
@@ -727,7 +774,11 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
     }
 
     protected void indexExperiment(boolean waitForCompletion) {
-        indexExperiment(waitForCompletion, 0, TmfTimeRange.Eternity);
+        if (fTraces != null && fTraces.length > 1) {
+            indexTracesInParallel(waitForCompletion);
+        } else {
+            indexExperiment(waitForCompletion, 0, TmfTimeRange.Eternity);
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -759,7 +810,7 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
 //		fEventLog = openLogFile("TraceEvent.log");
 //        System.out.println(System.currentTimeMillis() + ": Experiment indexing started");
 
-        ITmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class, timeRange, index, TmfDataRequest.ALL_DATA,
+        TmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class, timeRange, index, TmfDataRequest.ALL_DATA,
                 fIndexPageSize, ITmfDataRequest.ExecutionType.BACKGROUND) { // PATA FOREGROUND
 
 //            long indexingStart = System.nanoTime();
@@ -768,6 +819,12 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
             TmfTimestamp lastTime = (fTimeRange == TmfTimeRange.Null) ? null : fTimeRange.getEndTime();
             long initialNbEvents = fNbEvents;
 
+            // The last event timestamp (only converted to a timestamp object when the experiment is updated)
+            boolean lastTimeChanged = false;
+            long lastTimeValue;
+            byte lastTimeScale;
+            long lastTimePrecision;
+
             @Override
             public void handleStarted() {
                 super.handleStarted();
@@ -777,10 +834,12 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
             public void handleData(TmfEvent event) {
                 super.handleData(event);
                 if (event != null) {
-                    TmfTimestamp ts = event.getTimestamp();
                     if (startTime == null)
-                        startTime = new TmfTimestamp(ts);
-                    lastTime = new TmfTimestamp(ts);
+                        startTime = new TmfTimestamp(event.getTimestamp());
+                    lastTimeValue = event.getTimestampValue();
+                    lastTimeScale = event.getTimestampScale();
+                    lastTimePrecision = event.getTimestampPrecision();
+                    lastTimeChanged = true;
                     if ((getNbRead() % fIndexPageSize) == 1 && getNbRead() != 1) {
                         updateExperiment();
                     }
@@ -793,6 +852,7 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
 
                 if (getRange() != TmfTimeRange.Eternity) {
                     lastTime = getRange().getEndTime();
+                    lastTimeChanged = false;
                 }
                 updateExperiment();
 //                System.out.println(System.currentTimeMillis() + ": Experiment indexing completed");
@@ -820,6 +880,10 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
 
             private void updateExperiment() {
                 int nbRead = getNbRead();
+                if (lastTimeChanged) {
+                    lastTime = new TmfTimestamp(lastTimeValue, lastTimeScale, lastTimePrecision);
+                    lastTimeChanged = false;
+                }
                 if (startTime != null) {
                     fTimeRange = new TmfTimeRange(startTime, new TmfTimestamp(lastTime));
                 }
@@ -832,6 +896,8 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
             }
         };
 
+        // The indexing only looks at the event timestamps
+        request.setFlyweight(true);
         sendRequest((ITmfDataRequest<T>) request);
         if (waitForCompletion)
             try {
@@ -841,6 +907,374 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
             }
     }
 
+    // ------------------------------------------------------------------------
+    // Parallel indexing
+    // ------------------------------------------------------------------------
+
+    /*
+     * For multi-trace experiments, the initial index is built by reading the
+     * constituent traces concurrently, each one by its own reader thread (which
+     * also builds the trace own index as a side effect). A single merge thread
+     * then interleaves the per-trace streams of (timestamp, location, rank) in
+     * the same order as getNextEvent(), with the same timestamp heap, and
+     * records an experiment checkpoint every fIndexPageSize events. Since event parsing dominates the indexing
+     * cost, the indexing time scales with the number of traces (cores) rather
+     * than with the total number of events.
+     */
+
+    private static final int INDEXING_CHUNK_SIZE = 1000;
+    private static final int INDEXING_QUEUE_SIZE = 4;
+
+    /**
+     * The positions of consecutive trace events, as needed to build the
+     * experiment index. The timestamps are kept as primitives. The location
+     * of every event is kept since any event can be the next event of its
+     * trace at an experiment checkpoint.
+     */
+    private static class TraceIndexChunk {
+        final long firstRank;
+        final long[] values;
+        final byte[] scales;
+        final long[] precisions;
+        final ITmfLocation<?>[] locations;
+        int size = 0;
+
+        TraceIndexChunk(long firstRank, int capacity) {
+            this.firstRank = firstRank;
+            values = new long[capacity];
+            scales = new byte[capacity];
+            precisions = new long[capacity];
+            locations = new ITmfLocation<?>[capacity];
+        }
+    }
+
+    /**
+     * Reads a trace from start to end and hands its event positions, in
+     * chunks, to the merge thread.
+     * <p>
+     * The reader runs on the (bounded) indexing pool until its queue is full,
+     * then frees its pool thread. It is re-scheduled by the merge thread when
+     * a chunk is consumed, so any number of traces can share the pool.
+     * <p>
+     * The reader is never interrupted: cancel() makes it stop at the next
+     * event.
+     */
+    private static class TraceIndexReader implements Runnable {
+
+        private static final TraceIndexChunk END_OF_TRACE = new TraceIndexChunk(0, 0);
+
+        private final ITmfTrace<?> fTrace;
+        private final Executor fExecutor;
+        // One extra slot, kept for the end of trace marker
+        private final BlockingQueue<TraceIndexChunk> fQueue = new ArrayBlockingQueue<TraceIndexChunk>(INDEXING_QUEUE_SIZE + 1);
+        private final AtomicBoolean fScheduled = new AtomicBoolean(false);
+        private volatile boolean fCancelled = false;
+
+        // Reader side
+        private TmfContext fContext;
+        private ITmfLocation<?> fLocation;
+        private long fRank = 0;
+        private volatile boolean fDone = false;
+
+        // Set by the reader when the end of the trace is reached
+        private ITmfLocation<?> fEndLocation;
+        private long fEndRank;
+        private volatile Throwable fError = null;
+
+        // Consumer (merge thread) side
+        private TraceIndexChunk fChunk = END_OF_TRACE;
+        private int fChunkPos = 0;
+        private boolean fExhausted = false;
+
+        TraceIndexReader(ITmfTrace<?> trace, Executor executor) {
+            fTrace = trace;
+            fExecutor = executor;
+        }
+
+        void schedule() {
+            if (!fDone && !fCancelled && fScheduled.compareAndSet(false, true)) {
+                fExecutor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                try {
+                    while (!fDone && !fCancelled && fQueue.remainingCapacity() > 1) {
+                        readChunk();
+                    }
+                } catch (RuntimeException e) {
+                    fError = e;
+                    if (Tracer.isErrorTraced()) {
+                        Tracer.traceError("Indexing of " + fTrace.getName() + " aborted: " + e); //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                    endOfTrace(null);
+                }
+                fScheduled.set(false);
+                // The merge thread may have consumed a chunk in the meantime
+                if (fDone || fCancelled || fQueue.remainingCapacity() <= 1 || !fScheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+
+        private void readChunk() {
+            if (fContext == null) {
+                fContext = fTrace.seekLocation(null);
+                fContext.setRank(0);
+                fLocation = (fContext.getLocation() != null) ? fContext.getLocation().clone() : null;
+            }
+            TraceIndexChunk chunk = new TraceIndexChunk(fRank, INDEXING_CHUNK_SIZE);
+            TmfEvent event = fTrace.getNextEvent(fContext);
+            while (event != null) {
+                int pos = chunk.size++;
+                chunk.values[pos] = event.getTimestampValue();
+                chunk.scales[pos] = event.getTimestampScale();
+                chunk.precisions[pos] = event.getTimestampPrecision();
+                chunk.locations[pos] = fLocation;
+                fRank++;
+                fLocation = fContext.getLocation().clone();
+                if (chunk.size == INDEXING_CHUNK_SIZE) {
+                    fQueue.add(chunk);
+                    return;
+                }
+                if (fCancelled) {
+                    return;
+                }
+                event = fTrace.getNextEvent(fContext);
+            }
+            endOfTrace(chunk);
+        }
+
+        private void endOfTrace(TraceIndexChunk lastChunk) {
+            fEndLocation = fLocation;
+            fEndRank = fRank;
+            if (lastChunk != null && lastChunk.size > 0 && fQueue.remainingCapacity() > 1) {
+                fQueue.add(lastChunk);
+            }
+            fDone = true;
+            fQueue.add(END_OF_TRACE);
+        }
+
+        void cancel() {
+            fCancelled = true;
+        }
+
+        /**
+         * @return the exception that aborted the reading of the trace, or null
+         */
+        Throwable getError() {
+            return fError;
+        }
+
+        /**
+         * Waits for the next (unconsumed) event position, if any
+         *
+         * @return false at the end of the trace
+         */
+        boolean hasHead() throws InterruptedException {
+            while (!fExhausted && fChunkPos == fChunk.size) {
+                fChunk = fQueue.take();
+                fChunkPos = 0;
+                fExhausted = (fChunk == END_OF_TRACE);
+                schedule();
+            }
+            return !fExhausted;
+        }
+
+        /*
+         * The next event position, hasHead() must be true
+         */
+
+        long headValue() {
+            return fChunk.values[fChunkPos];
+        }
+
+        byte headScale() {
+            return fChunk.scales[fChunkPos];
+        }
+
+        long headPrecision() {
+            return fChunk.precisions[fChunkPos];
+        }
+
+        void consume() {
+            fChunkPos++;
+        }
+
+        /**
+         * @return the location of the next (unconsumed) event
+         */
+        ITmfLocation<?> headLocation() throws InterruptedException {
+            return hasHead() ? fChunk.locations[fChunkPos] : fEndLocation;
+        }
+
+        /**
+         * @return the rank of the next (unconsumed) event
+         */
+        long headRank() throws InterruptedException {
+            return hasHead() ? fChunk.firstRank + fChunkPos : fEndRank;
+        }
+    }
+
+    protected void indexTracesInParallel(boolean waitForCompletion) {
+
+        synchronized (fCheckpoints) {
+            if (fIndexing) {
+                return;
+            }
+            fIndexing = true;
+        }
+
+        final Job job = new Job("Indexing " + getName() + "...") { //$NON-NLS-1$ //$NON-NLS-2$
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                while (!monitor.isCanceled()) {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        return Status.OK_STATUS;
+                    }
+                }
+                monitor.done();
+                return Status.OK_STATUS;
+            }
+        };
+        job.schedule();
+
+        final ITmfTrace<T>[] traces = fTraces;
+        Thread thread = new Thread("Indexing " + getName()) { //$NON-NLS-1$
+            @Override
+            public void run() {
+                // The trace readers share one pool thread per processor
+                int nbThreads = Math.max(1, Math.min(traces.length, Runtime.getRuntime().availableProcessors()));
+                ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+                TraceIndexReader[] readers = new TraceIndexReader[traces.length];
+                for (int i = 0; i < traces.length; i++) {
+                    readers[i] = new TraceIndexReader(traces[i], executor);
+                    readers[i].schedule();
+                }
+                try {
+                    mergeTraceIndexes(readers);
+                } catch (InterruptedException e) {
+                    // Indexing aborted
+                } catch (RuntimeException e) {
+                    if (Tracer.isErrorTraced()) {
+                        Tracer.traceError("Indexing of " + getName() + " aborted: " + e); //$NON-NLS-1$ //$NON-NLS-2$
+                    }
+                } finally {
+                    // The readers are not interrupted: they stop at their next event
+                    for (TraceIndexReader reader : readers) {
+                        reader.cancel();
+                    }
+                    executor.shutdown();
+                    job.cancel();
+                    synchronized (fCheckpoints) {
+                        fIndexing = false;
+                        if (fIndexingPendingRange != TmfTimeRange.Null) {
+                            indexExperiment(false, (int) fNbEvents, fIndexingPendingRange);
+                            fIndexingPendingRange = TmfTimeRange.Null;
+                        }
+                    }
+                }
+            }
+        };
+        thread.start();
+
+        if (waitForCompletion) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void mergeTraceIndexes(TraceIndexReader[] readers) throws InterruptedException {
+        // The traces, ordered by the timestamp of their next event
+        TmfTimestampHeap heap = new TmfTimestampHeap(readers.length);
+        for (int i = 0; i < readers.length; i++) {
+            if (!pushHead(heap, readers, i)) {
+                return;
+            }
+        }
+
+        TmfTimestamp startTime = null;
+        long lastValue = 0;
+        byte lastScale = 0;
+        long lastPrecision = 0;
+        long rank = 0;
+
+        while (fTraces != null) {
+            int trace = heap.peek();
+            if (trace == TmfExperimentContext.NO_TRACE) {
+                break;
+            }
+            TraceIndexReader reader = readers[trace];
+            lastValue = reader.headValue();
+            lastScale = reader.headScale();
+            lastPrecision = reader.headPrecision();
+
+            if ((rank % fIndexPageSize) == 0) {
+                addCheckpoint(readers, rank, new TmfTimestamp(lastValue, lastScale, lastPrecision));
+            }
+            reader.consume();
+            rank++;
+            if (!pushHead(heap, readers, trace)) {
+                // The index would be wrong past this point
+                return;
+            }
+
+            if (startTime == null) {
+                startTime = new TmfTimestamp(lastValue, lastScale, lastPrecision);
+            }
+            if ((rank % fIndexPageSize) == 1 && rank != 1) {
+                fTimeRange = new TmfTimeRange(startTime, new TmfTimestamp(lastValue, lastScale, lastPrecision));
+                fNbEvents = rank;
+                notifyListeners();
+            }
+        }
+
+        if (startTime != null) {
+            fTimeRange = new TmfTimeRange(startTime, new TmfTimestamp(lastValue, lastScale, lastPrecision));
+        }
+        if (rank != 0) {
+            fNbEvents = rank;
+            notifyListeners();
+        }
+    }
+
+    /*
+     * Puts the next event of a trace in the heap. Returns false if the reading
+     * of the trace failed.
+     */
+    private static boolean pushHead(TmfTimestampHeap heap, TraceIndexReader[] readers, int trace) throws InterruptedException {
+        TraceIndexReader reader = readers[trace];
+        if (reader.hasHead()) {
+            heap.set(trace, reader.headValue(), reader.headScale(), reader.headPrecision());
+            return true;
+        }
+        heap.remove(trace);
+        return reader.getError() == null;
+    }
+
+    private void addCheckpoint(TraceIndexReader[] readers, long rank, TmfTimestamp timestamp) throws InterruptedException {
+        ITmfLocation<?>[] locations = new ITmfLocation<?>[readers.length];
+        long[] ranks = new long[readers.length];
+        for (int i = 0; i < readers.length; i++) {
+            ITmfLocation<?> location = readers[i].headLocation();
+            locations[i] = (location != null) ? location.clone() : null;
+            ranks[i] = readers[i].headRank();
+        }
+        synchronized (fCheckpoints) {
+            // Add new entry at proper location (if empty)
+            if (fCheckpoints.size() == rank / fIndexPageSize) {
+                fCheckpoints.add(new TmfCheckpoint(timestamp, new TmfExperimentLocation(new TmfLocationArray(locations), ranks)));
+            }
+        }
+    }
+
     protected void notifyListeners() {
         broadcast(new TmfExperimentUpdatedSignal(this, this)); // , null));
         broadcast(new TmfExperimentRangeUpdatedSignal(this, this, fTimeRange)); // , null));
@@ -867,6 +1301,8 @@ public class TmfExperiment<T extends TmfEvent> extends TmfEventProvider<T> imple
     public void traceUpdated(TmfTraceUpdatedSignal signal) {
         for (ITmfTrace<T> trace : fTraces) {
             if (trace == signal.getTrace()) {
+                // The follow-mode requests can read the new events right away
+                resumeFollowingRequests();
                 synchronized (fCheckpoints) {
                     if (fIndexing) {
                         if (fIndexingPendingRange == TmfTimeRange.Null) {
@@ -30,6 +30,10 @@ import org.eclipse.linuxtools.tmf.trace.TmfContext;
  * <p>
  * The last trace refers to the trace from which the last event was
  * "consumed" at the experiment level.
+ * <p>
+ * The traces with a pending event are kept in a binary min-heap ordered by
+ * event timestamp (then by trace index) so the next event is found in
+ * O(log N) rather than by scanning the N traces (see TmfTimestampHeap).
  */
 public class TmfExperimentContext extends TmfContext {
 
@@ -48,6 +52,10 @@ public class TmfExperimentContext extends TmfContext {
 	private TmfEvent[]   fEvents;
 	private int lastTraceRead;
 
+	// The event queue: a min-heap of the traces with a pending event
+	private TmfTimestampHeap fHeap;
+	private boolean fHeapValid = false;
+
 	// ------------------------------------------------------------------------
 	// Constructors
 	// ------------------------------------------------------------------------
@@ -80,7 +88,15 @@ public class TmfExperimentContext extends TmfContext {
 
 	public TmfExperimentContext(TmfExperimentContext other) {
 		this(other.fTraces, other.cloneContexts());
-		fEvents = other.fEvents;
+		fEvents = other.fEvents.clone();
+		if (other.isFlyweight()) {
+			// The pending events will be re-used by the other context
+			for (int i = 0; i < fEvents.length; i++) {
+				if (fEvents[i] != null) {
+					fEvents[i] = fEvents[i].clone();
+				}
+			}
+		}
 		if (other.getLocation() != null)
 			setLocation(other.getLocation().clone());
 		setRank(other.getRank());
@@ -118,6 +134,78 @@ public class TmfExperimentContext extends TmfContext {
 		lastTraceRead = newIndex;
 	}
 
+	/**
+	 * The flyweight mode applies to the trace contexts (the events are read
+	 * by the traces).
+	 */
+	@Override
+	public void setFlyweight(boolean flyweight) {
+		super.setFlyweight(flyweight);
+		for (TmfContext context : fContexts) {
+			if (context != null) {
+				context.setFlyweight(flyweight);
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Event queue
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Set the pending event of a trace and update the event queue accordingly.
+	 * Events set directly in the array returned by getEvents() require a call
+	 * to resetEventQueue().
+	 *
+	 * @param trace the trace index
+	 * @param event the next event of the trace (null if none)
+	 */
+	public void setEvent(int trace, TmfEvent event) {
+		fEvents[trace] = event;
+		if (!fHeapValid) {
+			return;
+		}
+		if (event == null || !event.hasTimestamp()) {
+			fHeap.remove(trace);
+			return;
+		}
+		fHeap.set(trace, event.getTimestampValue(), event.getTimestampScale(), event.getTimestampPrecision());
+	}
+
+	/**
+	 * @return the index of the trace holding the earliest pending event (or NO_TRACE)
+	 */
+	public int getNextTrace() {
+		if (!fHeapValid) {
+			buildEventQueue();
+		}
+		return fHeap.peek();
+	}
+
+	/**
+	 * Invalidate the event queue (it will be rebuilt on the next use). Needed
+	 * when the pending events were modified behind the context's back.
+	 */
+	public void resetEventQueue() {
+		fHeapValid = false;
+	}
+
+	private void buildEventQueue() {
+		int nbTraces = fEvents.length;
+		if (fHeap == null || fHeap.getNbTraces() != nbTraces) {
+			fHeap = new TmfTimestampHeap(nbTraces);
+		} else {
+			fHeap.clear();
+		}
+		for (int i = 0; i < nbTraces; i++) {
+			TmfEvent event = fEvents[i];
+			if (event != null && event.hasTimestamp()) {
+				fHeap.set(i, event.getTimestampValue(), event.getTimestampScale(), event.getTimestampPrecision());
+			}
+		}
+		fHeapValid = true;
+	}
+
 	// ------------------------------------------------------------------------
 	// Object
 	// ------------------------------------------------------------------------
@@ -21,6 +21,8 @@ import org.eclipse.linuxtools.tmf.trace.TmfLocation;
  */
 public class TmfExperimentLocation extends TmfLocation<TmfLocationArray> {
 
+    private static final long serialVersionUID = 4328749302587411283L;
+
     private long[] fRanks;
 
 	public TmfExperimentLocation(TmfLocationArray locations, long[] ranks) {
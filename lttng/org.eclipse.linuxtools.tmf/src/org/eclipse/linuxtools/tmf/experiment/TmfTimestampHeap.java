@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.experiment;
+
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+
+/**
+ * <b><u>TmfTimestampHeap</u></b>
+ * <p>
+ * A binary min-heap of the traces of an experiment, ordered by the timestamp
+ * of their next event (then by trace index), so the next event is found in
+ * O(log N) rather than by scanning the N traces.
+ * <p>
+ * The timestamps are kept as primitives. Whenever possible, they are compared
+ * pre-normalized to nanoseconds, otherwise they are compared within their
+ * precision, as TmfTimestamp.compareTo(TmfTimestamp, true) does.
+ */
+class TmfTimestampHeap {
+
+    // ------------------------------------------------------------------------
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final int[] fHeap;
+    private final int[] fPositions;      // position of each trace in the heap (-1 if none)
+    private final long[] fKeys;          // normalized timestamp of each trace
+    private final boolean[] fNormalized; // true if the timestamp could be normalized
+    private final long[] fValues;
+    private final byte[] fScales;
+    private final long[] fPrecisions;
+    private int fSize = 0;
+
+    // ------------------------------------------------------------------------
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param nbTraces the number of traces
+     */
+    TmfTimestampHeap(int nbTraces) {
+        fHeap = new int[nbTraces];
+        fPositions = new int[nbTraces];
+        fKeys = new long[nbTraces];
+        fNormalized = new boolean[nbTraces];
+        fValues = new long[nbTraces];
+        fScales = new byte[nbTraces];
+        fPrecisions = new long[nbTraces];
+        clear();
+    }
+
+    // ------------------------------------------------------------------------
+    // Operations
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return the number of traces
+     */
+    int getNbTraces() {
+        return fHeap.length;
+    }
+
+    /**
+     * @return the trace with the earliest timestamp (or TmfExperimentContext.NO_TRACE)
+     */
+    int peek() {
+        return (fSize > 0) ? fHeap[0] : TmfExperimentContext.NO_TRACE;
+    }
+
+    /**
+     * Removes all the traces
+     */
+    void clear() {
+        fSize = 0;
+        for (int i = 0; i < fPositions.length; i++) {
+            fPositions[i] = -1;
+        }
+    }
+
+    /**
+     * Sets the timestamp of a trace, adding the trace to the heap if needed
+     *
+     * @param trace the trace index
+     * @param value the timestamp value
+     * @param scale the timestamp scale
+     * @param precision the timestamp precision
+     */
+    void set(int trace, long value, byte scale, long precision) {
+        fValues[trace] = value;
+        fScales[trace] = scale;
+        fPrecisions[trace] = precision;
+        fNormalized[trace] = precision == 0 && TmfTimestamp.isNormalizable(value, scale);
+        fKeys[trace] = fNormalized[trace] ? TmfTimestamp.normalize(value, scale) : 0;
+        int pos = fPositions[trace];
+        if (pos < 0) {
+            pos = fSize++;
+            fHeap[pos] = trace;
+            fPositions[trace] = pos;
+            siftUp(pos);
+        } else {
+            siftDown(siftUp(pos));
+        }
+    }
+
+    /**
+     * Removes a trace from the heap (if present)
+     *
+     * @param trace the trace index
+     */
+    void remove(int trace) {
+        int pos = fPositions[trace];
+        if (pos < 0) {
+            return;
+        }
+        fPositions[trace] = -1;
+        int last = --fSize;
+        if (pos != last) {
+            fHeap[pos] = fHeap[last];
+            fPositions[fHeap[pos]] = pos;
+            siftDown(siftUp(pos));
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Helper functions
+    // ------------------------------------------------------------------------
+
+    /*
+     * Same ordering as a linear scan of the traces: earliest timestamp first,
+     * lowest trace index for equal timestamps.
+     */
+    private boolean isBefore(int trace1, int trace2) {
+        if (fNormalized[trace1] && fNormalized[trace2]) {
+            if (fKeys[trace1] != fKeys[trace2]) {
+                return fKeys[trace1] < fKeys[trace2];
+            }
+        } else {
+            int result = TmfTimestamp.compare(fValues[trace1], fScales[trace1], fPrecisions[trace1],
+                    fValues[trace2], fScales[trace2], fPrecisions[trace2], true);
+            if (result != 0) {
+                return result < 0;
+            }
+        }
+        return trace1 < trace2;
+    }
+
+    private int siftUp(int pos) {
+        int trace = fHeap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            int parentTrace = fHeap[parent];
+            if (!isBefore(trace, parentTrace)) {
+                break;
+            }
+            fHeap[pos] = parentTrace;
+            fPositions[parentTrace] = pos;
+            pos = parent;
+        }
+        fHeap[pos] = trace;
+        fPositions[trace] = pos;
+        return pos;
+    }
+
+    private int siftDown(int pos) {
+        int trace = fHeap[pos];
+        int half = fSize >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < fSize && isBefore(fHeap[right], fHeap[child])) {
+                child = right;
+            }
+            int childTrace = fHeap[child];
+            if (!isBefore(childTrace, trace)) {
+                break;
+            }
+            fHeap[pos] = childTrace;
+            fPositions[childTrace] = pos;
+            pos = child;
+        }
+        fHeap[pos] = trace;
+        fPositions[trace] = pos;
+        return pos;
+    }
+
+}
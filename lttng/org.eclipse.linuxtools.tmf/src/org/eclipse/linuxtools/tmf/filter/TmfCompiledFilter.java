@@ -0,0 +1,684 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.filter;
+
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.event.TmfEventContent;
+import org.eclipse.linuxtools.tmf.event.TmfEventType;
+import org.eclipse.linuxtools.tmf.event.TmfNoSuchFieldException;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.filter.model.ITmfFilterTreeNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterAndNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterCompareNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterContainsNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterEqualsNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterEventTypeNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterMatchesNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterOrNode;
+import org.eclipse.linuxtools.tmf.filter.model.TmfFilterRootNode;
+
+/**
+ * <b><u>TmfCompiledFilter</u></b>
+ * <p>
+ * A filter tree compiled for fast evaluation: it gives the same result as
+ * ITmfFilterTreeNode.matches() but the tree is only interpreted once per
+ * event class and event type. For each of them, the tree is specialized into
+ * a predicate where:
+ * <ul>
+ * <li>the event type nodes are resolved (non-matching branches are pruned, so
+ * the events of other types are rejected right away),
+ * <li>the event type fields are looked up by index instead of by name,
+ * <li>the constants (numbers, timestamps, patterns) are parsed once.
+ * </ul>
+ * The filter tree is compiled as it is when the compiled filter is created:
+ * later changes to the tree are not taken into account.
+ * <p>
+ * The compiled filter can be shared between threads.
+ */
+public class TmfCompiledFilter implements ITmfFilter {
+
+    // ------------------------------------------------------------------------
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    // The compiled filter tree
+    private final Node fRoot;
+
+    // The predicates, per event class and event type
+    private final Map<Class<?>, Map<TmfEventType, ITmfFilter>> fPredicates = new HashMap<Class<?>, Map<TmfEventType, ITmfFilter>>();
+
+    // The last predicate used (most events of a row are of the same type)
+    private volatile Specialization fLastPredicate = null;
+
+    // ------------------------------------------------------------------------
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param filter the filter tree to compile
+     */
+    public TmfCompiledFilter(ITmfFilterTreeNode filter) {
+        fRoot = compile(filter);
+    }
+
+    // ------------------------------------------------------------------------
+    // ITmfFilter
+    // ------------------------------------------------------------------------
+
+    @Override
+    public boolean matches(TmfEvent event) {
+        return getPredicate(event).matches(event);
+    }
+
+    /**
+     * @param event an event
+     * @return the filter specialized for the event class and type
+     */
+    public ITmfFilter getPredicate(TmfEvent event) {
+        Class<?> eventClass = event.getClass();
+        TmfEventType type = event.getType();
+        Specialization last = fLastPredicate;
+        if (last != null && last.eventClass == eventClass && (last.type == type || last.type.equals(type))) {
+            return last.predicate;
+        }
+        ITmfFilter predicate;
+        synchronized (fPredicates) {
+            Map<TmfEventType, ITmfFilter> predicates = fPredicates.get(eventClass);
+            if (predicates == null) {
+                predicates = new HashMap<TmfEventType, ITmfFilter>();
+                fPredicates.put(eventClass, predicates);
+            }
+            predicate = predicates.get(type);
+            if (predicate == null) {
+                predicate = fRoot.specialize(eventClass, type);
+                predicates.put(type, predicate);
+            }
+        }
+        fLastPredicate = new Specialization(eventClass, type, predicate);
+        return predicate;
+    }
+
+    private static class Specialization {
+        final Class<?> eventClass;
+        final TmfEventType type;
+        final ITmfFilter predicate;
+
+        Specialization(Class<?> eventClass, TmfEventType type, ITmfFilter predicate) {
+            this.eventClass = eventClass;
+            this.type = type;
+            this.predicate = predicate;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Compilation
+    // ------------------------------------------------------------------------
+
+    /*
+     * The filter tree, with its constants parsed, before specialization
+     */
+    private static abstract class Node {
+        abstract ITmfFilter specialize(Class<?> eventClass, TmfEventType type);
+    }
+
+    private static Node compile(ITmfFilterTreeNode node) {
+        ITmfFilterTreeNode[] children = node.getChildren();
+        List<Node> compiledChildren = new ArrayList<Node>(children.length);
+        for (ITmfFilterTreeNode child : children) {
+            compiledChildren.add(compile(child));
+        }
+        if (node instanceof TmfFilterRootNode) {
+            return new AndNode(compiledChildren, false);
+        }
+        if (node instanceof TmfFilterNode) {
+            return new OrNode(compiledChildren, false);
+        }
+        if (node instanceof TmfFilterAndNode) {
+            return new AndNode(compiledChildren, ((TmfFilterAndNode) node).isNot());
+        }
+        if (node instanceof TmfFilterOrNode) {
+            return new OrNode(compiledChildren, ((TmfFilterOrNode) node).isNot());
+        }
+        if (node instanceof TmfFilterEventTypeNode) {
+            return new EventTypeNode(((TmfFilterEventTypeNode) node).getEventType(), new AndNode(compiledChildren, false));
+        }
+        if (node instanceof TmfFilterEqualsNode) {
+            return new EqualsNode((TmfFilterEqualsNode) node);
+        }
+        if (node instanceof TmfFilterContainsNode) {
+            return new ContainsNode((TmfFilterContainsNode) node);
+        }
+        if (node instanceof TmfFilterMatchesNode) {
+            return new MatchesNode((TmfFilterMatchesNode) node);
+        }
+        if (node instanceof TmfFilterCompareNode) {
+            return new CompareNode((TmfFilterCompareNode) node);
+        }
+        // Unknown node type: interpret it
+        return new InterpretedNode(node);
+    }
+
+    private static final ITmfFilter TRUE = new ITmfFilter() {
+        @Override
+        public boolean matches(TmfEvent event) {
+            return true;
+        }
+    };
+
+    private static final ITmfFilter FALSE = new ITmfFilter() {
+        @Override
+        public boolean matches(TmfEvent event) {
+            return false;
+        }
+    };
+
+    private static ITmfFilter constant(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    private static ITmfFilter not(final ITmfFilter predicate) {
+        if (predicate == TRUE) {
+            return FALSE;
+        }
+        if (predicate == FALSE) {
+            return TRUE;
+        }
+        return new ITmfFilter() {
+            @Override
+            public boolean matches(TmfEvent event) {
+                return !predicate.matches(event);
+            }
+        };
+    }
+
+    private static class InterpretedNode extends Node {
+        private final ITmfFilterTreeNode fNode;
+
+        InterpretedNode(ITmfFilterTreeNode node) {
+            fNode = node.clone();
+        }
+
+        @Override
+        ITmfFilter specialize(Class<?> eventClass, TmfEventType type) {
+            return fNode;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Logical nodes
+    // ------------------------------------------------------------------------
+
+    private static class AndNode extends Node {
+        private final List<Node> fChildren;
+        private final boolean fNot;
+
+        AndNode(List<Node> children, boolean not) {
+            fChildren = children;
+            fNot = not;
+        }
+
+        @Override
+        ITmfFilter specialize(Class<?> eventClass, TmfEventType type) {
+            List<ITmfFilter> predicates = new ArrayList<ITmfFilter>(fChildren.size());
+            for (Node child : fChildren) {
+                ITmfFilter predicate = child.specialize(eventClass, type);
+                if (predicate == FALSE) {
+                    return constant(fNot);
+                }
+                if (predicate != TRUE) {
+                    predicates.add(predicate);
+                }
+            }
+            ITmfFilter result;
+            if (predicates.isEmpty()) {
+                result = TRUE;
+            } else if (predicates.size() == 1) {
+                result = predicates.get(0);
+            } else {
+                final ITmfFilter[] array = predicates.toArray(new ITmfFilter[predicates.size()]);
+                result = new ITmfFilter() {
+                    @Override
+                    public boolean matches(TmfEvent event) {
+                        for (int i = 0; i < array.length; i++) {
+                            if (!array[i].matches(event)) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                };
+            }
+            return fNot ? not(result) : result;
+        }
+    }
+
+    private static class OrNode extends Node {
+        private final List<Node> fChildren;
+        private final boolean fNot;
+
+        OrNode(List<Node> children, boolean not) {
+            fChildren = children;
+            fNot = not;
+        }
+
+        @Override
+        ITmfFilter specialize(Class<?> eventClass, TmfEventType type) {
+            List<ITmfFilter> predicates = new ArrayList<ITmfFilter>(fChildren.size());
+            for (Node child : fChildren) {
+                ITmfFilter predicate = child.specialize(eventClass, type);
+                if (predicate == TRUE) {
+                    return constant(!fNot);
+                }
+                if (predicate != FALSE) {
+                    predicates.add(predicate);
+                }
+            }
+            ITmfFilter result;
+            if (predicates.isEmpty()) {
+                result = FALSE;
+            } else if (predicates.size() == 1) {
+                result = predicates.get(0);
+            } else {
+                final ITmfFilter[] array = predicates.toArray(new ITmfFilter[predicates.size()]);
+                result = new ITmfFilter() {
+                    @Override
+                    public boolean matches(TmfEvent event) {
+                        for (int i = 0; i < array.length; i++) {
+                            if (array[i].matches(event)) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+                };
+            }
+            return fNot ? not(result) : result;
+        }
+    }
+
+    private static class EventTypeNode extends Node {
+        private final String fType;
+        private final Node fChild;
+
+        EventTypeNode(String type, Node child) {
+            fType = type;
+            fChild = child;
+        }
+
+        @Override
+        ITmfFilter specialize(Class<?> eventClass, TmfEventType type) {
+            // Same as TmfFilterEventTypeNode.matches(), once per event type
+            boolean match;
+            if (fType.contains(":")) { //$NON-NLS-1$
+                // special case for custom parsers
+                match = fType.startsWith(eventClass.getCanonicalName()) && fType.endsWith(type.getTypeId());
+            } else {
+                match = eventClass.getCanonicalName().equals(fType);
+            }
+            return match ? fChild.specialize(eventClass, type) : FALSE;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Field nodes
+    // ------------------------------------------------------------------------
+
+    /*
+     * The value of a field of the events of a given type
+     */
+    private static abstract class Field {
+        abstract Object getValue(TmfEvent event);
+    }
+
+    private static class IndexedField extends Field {
+        private final int fIndex;
+
+        IndexedField(int index) {
+            fIndex = index;
+        }
+
+        @Override
+        Object getValue(TmfEvent event) {
+            return event.getContent().getField(fIndex);
+        }
+    }
+
+    /*
+     * A field that is not one of the event type fields. The content classes
+     * that override getField(String) (e.g. to map their own column names) are
+     * asked for the field, the others get the TmfEventContent special fields.
+     */
+    private static class ContentField extends Field {
+        private final String fId;
+        private final Field fDefault;
+
+        ContentField(String id, Field defaultField) {
+            fId = id;
+            fDefault = defaultField;
+        }
+
+        @Override
+        Object getValue(TmfEvent event) {
+            TmfEventContent content = event.getContent();
+            if (content == null) {
+                return null;
+            }
+            if (!overridesGetField(content.getClass())) {
+                return (fDefault != null) ? fDefault.getValue(event) : null;
+            }
+            try {
+                return content.getField(fId);
+            } catch (TmfNoSuchFieldException e) {
+                return null;
+            }
+        }
+    }
+
+    // Whether each content class overrides TmfEventContent.getField(String)
+    private static final Map<Class<?>, Boolean> fGetFieldOverrides = new ConcurrentHashMap<Class<?>, Boolean>();
+
+    private static boolean overridesGetField(Class<?> contentClass) {
+        Boolean overrides = fGetFieldOverrides.get(contentClass);
+        if (overrides == null) {
+            try {
+                overrides = contentClass.getMethod("getField", String.class).getDeclaringClass() != TmfEventContent.class; //$NON-NLS-1$
+            } catch (NoSuchMethodException e) {
+                overrides = Boolean.FALSE;
+            }
+            fGetFieldOverrides.put(contentClass, overrides);
+        }
+        return overrides.booleanValue();
+    }
+
+    /*
+     * Resolves a field id for an event type, as getField(String) does for each
+     * event: by index for the event type fields, through the event content for
+     * the others.
+     */
+    private static Field resolveField(String id, TmfEventType type) {
+        try {
+            return new IndexedField(type.getFieldIndex(id));
+        } catch (TmfNoSuchFieldException e) {
+        }
+        return new ContentField(id, resolveSpecialField(id));
+    }
+
+    /*
+     * Resolves the special fields of TmfEventContent.getField(String). Returns
+     * null for the other field ids.
+     */
+    private static Field resolveSpecialField(String id) {
+        if (id.equals(TmfEventContent.FIELD_ID_CONTENT)) {
+            return new Field() {
+                @Override
+                Object getValue(TmfEvent event) {
+                    return event.getContent().toString();
+                }
+            };
+        } else if (id.equals(TmfEventContent.FIELD_ID_TIMESTAMP)) {
+            return new Field() {
+                @Override
+                Object getValue(TmfEvent event) {
+                    return Long.toString(event.getTimestamp().getValue());
+                }
+            };
+        } else if (id.equals(TmfEventContent.FIELD_ID_SOURCE)) {
+            return new Field() {
+                @Override
+                Object getValue(TmfEvent event) {
+                    return event.getSource().getSourceId().toString();
+                }
+            };
+        } else if (id.equals(TmfEventContent.FIELD_ID_TYPE)) {
+            return new Field() {
+                @Override
+                Object getValue(TmfEvent event) {
+                    return event.getType().getTypeId().toString();
+                }
+            };
+        } else if (id.equals(TmfEventContent.FIELD_ID_REFERENCE)) {
+            return new Field() {
+                @Override
+                Object getValue(TmfEvent event) {
+                    return event.getReference().getReference().toString();
+                }
+            };
+        }
+        return null;
+    }
+
+    /*
+     * A node testing a field value
+     */
+    private static abstract class FieldNode extends Node {
+        private final String fField;
+        protected final boolean fNot;
+
+        FieldNode(String field, boolean not) {
+            fField = field;
+            fNot = not;
+        }
+
+        @Override
+        ITmfFilter specialize(Class<?> eventClass, TmfEventType type) {
+            final Field field = (fField != null) ? resolveField(fField, type) : null;
+            if (field == null) {
+                // No such field
+                return constant(fNot);
+            }
+            return new ITmfFilter() {
+                @Override
+                public boolean matches(TmfEvent event) {
+                    Object value = field.getValue(event);
+                    if (value == null) {
+                        return fNot;
+                    }
+                    return matchesValue(value) ^ fNot;
+                }
+            };
+        }
+
+        abstract boolean matchesValue(Object value);
+    }
+
+    private static class EqualsNode extends FieldNode {
+        private final String fValue;
+        private final boolean fIgnoreCase;
+
+        EqualsNode(TmfFilterEqualsNode node) {
+            super(node.getField(), node.isNot());
+            fValue = node.getValue();
+            fIgnoreCase = node.isIgnoreCase();
+        }
+
+        @Override
+        boolean matchesValue(Object value) {
+            String valueString = value.toString();
+            if (valueString == null) {
+                return false;
+            }
+            return fIgnoreCase ? valueString.equalsIgnoreCase(fValue) : valueString.equals(fValue);
+        }
+    }
+
+    private static class ContainsNode extends FieldNode {
+        private final String fValue;
+        private final String fValueUpperCase;
+        private final boolean fIgnoreCase;
+
+        ContainsNode(TmfFilterContainsNode node) {
+            super(node.getField(), node.isNot());
+            fValue = node.getValue();
+            fValueUpperCase = (fValue != null) ? fValue.toUpperCase() : null;
+            fIgnoreCase = node.isIgnoreCase();
+        }
+
+        @Override
+        boolean matchesValue(Object value) {
+            String valueString = value.toString();
+            return fIgnoreCase ? valueString.toUpperCase().contains(fValueUpperCase) : valueString.contains(fValue);
+        }
+    }
+
+    private static class MatchesNode extends FieldNode {
+        private final Pattern fPattern;
+
+        MatchesNode(TmfFilterMatchesNode node) {
+            super(node.getField(), node.isNot());
+            Pattern pattern = null;
+            if (node.getRegex() != null) {
+                try {
+                    pattern = Pattern.compile(node.getRegex());
+                } catch (PatternSyntaxException e) {
+                }
+            }
+            fPattern = pattern;
+        }
+
+        @Override
+        ITmfFilter specialize(Class<?> eventClass, TmfEventType type) {
+            if (fPattern == null) {
+                return constant(fNot);
+            }
+            return super.specialize(eventClass, type);
+        }
+
+        @Override
+        boolean matchesValue(Object value) {
+            return fPattern.matcher(value.toString()).matches();
+        }
+    }
+
+    private static class CompareNode extends FieldNode {
+        private final TmfFilterCompareNode.Type fType;
+        private final int fResult;
+        private final String fValue;
+        private final double fValueNumber;
+        private final TmfTimestamp fValueTimestamp;
+        private final boolean fValid;
+
+        CompareNode(TmfFilterCompareNode node) {
+            super(node.getField(), node.isNot());
+            fType = node.getType();
+            fResult = node.getResult();
+            fValue = node.getValue();
+
+            // Parse the constant once (as TmfFilterCompareNode.setValue() does)
+            Number number = (fValue != null && fType != TmfFilterCompareNode.Type.ALPHA) ? parseNumber(fValue) : null;
+            fValueNumber = (number != null) ? number.doubleValue() : 0;
+            fValueTimestamp = (number != null && fType == TmfFilterCompareNode.Type.TIMESTAMP) ? new TmfTimestamp((long) (1E9 * fValueNumber)) : null;
+            fValid = (fType == TmfFilterCompareNode.Type.ALPHA) ? fValue != null : number != null;
+        }
+
+        @Override
+        ITmfFilter specialize(Class<?> eventClass, TmfEventType type) {
+            if (!fValid) {
+                return constant(fNot);
+            }
+            return super.specialize(eventClass, type);
+        }
+
+        @Override
+        boolean matchesValue(Object value) {
+            switch (fType) {
+                case NUM: {
+                    double valueDouble;
+                    if (value instanceof Number) {
+                        valueDouble = ((Number) value).doubleValue();
+                    } else {
+                        Number number = parseNumber(value.toString());
+                        if (number == null) {
+                            return false;
+                        }
+                        valueDouble = number.doubleValue();
+                    }
+                    return Double.valueOf(valueDouble).compareTo(fValueNumber) == fResult;
+                }
+                case ALPHA:
+                    return value.toString().compareTo(fValue) == fResult;
+                case TIMESTAMP: {
+                    if (value instanceof TmfTimestamp) {
+                        return ((TmfTimestamp) value).compareTo(fValueTimestamp, false) == fResult;
+                    }
+                    Number number = parseNumber(value.toString());
+                    if (number == null) {
+                        return false;
+                    }
+                    long valueTimestamp = (long) (1E9 * number.doubleValue());
+                    return TmfTimestamp.compare(valueTimestamp, (byte) 0, 0, fValueTimestamp.getValue(),
+                            fValueTimestamp.getScale(), fValueTimestamp.getPrecision(), false) == fResult;
+                }
+                default:
+                    return false;
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Number parsing
+    // ------------------------------------------------------------------------
+
+    // NumberFormat is costly to create and is not thread-safe
+    private static final ThreadLocal<NumberFormat> fNumberFormat = new ThreadLocal<NumberFormat>() {
+        @Override
+        protected NumberFormat initialValue() {
+            return NumberFormat.getInstance();
+        }
+    };
+
+    /**
+     * Parses a number the same way NumberFormat.getInstance().parse() does,
+     * but without creating a NumberFormat each time. Plain integers (the
+     * common case) are parsed directly.
+     *
+     * @param value the string to parse
+     * @return the number, or null if the string doesn't start with a number
+     */
+    public static Number parseNumber(String value) {
+        int length = value.length();
+        int start = (length > 1 && value.charAt(0) == '-') ? 1 : 0;
+        // Leave "-0..." to NumberFormat (negative zero)
+        if (length > start && length - start <= 18 && !(start == 1 && value.charAt(1) == '0')) {
+            long result = 0;
+            int i = start;
+            while (i < length) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                result = 10 * result + (c - '0');
+                i++;
+            }
+            if (i == length) {
+                return (start == 1) ? -result : result;
+            }
+        }
+        try {
+            return fNumberFormat.get().parse(value);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.linuxtools.tmf.Tracer;
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.trace.ITmfLocation;
+import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
+import org.eclipse.linuxtools.tmf.trace.TmfContext;
+
+/**
+ * <b><u>TmfFilterIndex</u></b>
+ * <p>
+ * The ranks of the events of a trace that match a filter, i.e. the mapping
+ * between the indexes of a filtered view of the trace and the trace ranks.
+ * <p>
+ * The index is built by splitting the trace at its checkpoints into segments
+ * that are scanned in parallel, each by a worker thread with its own copy of
+ * the trace (see ITmfTrace.copy()). The copies are disposed at the end of the
+ * build. If the trace can't be copied, the index is built by a single worker
+ * reading the trace itself. Once built, the rank of a filtered index
+ * is a lookup in the rank list and the filtered index of a rank is a binary
+ * search in it.
+ * <p>
+ * The index covers the events of the trace at the time it is built. As in the
+ * events table, the ranks are limited to the int range.
+ */
+public class TmfFilterIndex {
+
+    // ------------------------------------------------------------------------
+    // Constants
+    // ------------------------------------------------------------------------
+
+    // The number of segments per worker thread (to balance the load)
+    private static final int SEGMENTS_PER_THREAD = 4;
+
+    // ------------------------------------------------------------------------
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final ITmfTrace<?> fTrace;
+    private final ITmfFilter fFilter;
+
+    private volatile boolean fCancelled = false;
+    private volatile boolean fComplete = false;
+
+    // The failure that aborted the build, if any
+    private volatile Throwable fError = null;
+
+    // The number of events covered by the index
+    private long fNbEvents = 0;
+
+    // The ranks of the matching events, in increasing order
+    private int[] fRanks = new int[0];
+
+    // ------------------------------------------------------------------------
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param trace the trace to index (already indexed itself)
+     * @param filter the filter (it must support concurrent calls to matches())
+     */
+    public TmfFilterIndex(ITmfTrace<?> trace, ITmfFilter filter) {
+        fTrace = trace;
+        fFilter = filter;
+    }
+
+    // ------------------------------------------------------------------------
+    // Accessors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return true if the index was built (and not cancelled)
+     */
+    public boolean isComplete() {
+        return fComplete;
+    }
+
+    /**
+     * @return true if the build was cancelled
+     */
+    public boolean isCancelled() {
+        return fCancelled;
+    }
+
+    /**
+     * @return the exception that aborted the build (the build is then
+     *         cancelled), or null if there was none
+     */
+    public Throwable getError() {
+        return fError;
+    }
+
+    /**
+     * @return the number of trace events covered by the index
+     */
+    public synchronized long getNbEvents() {
+        return fNbEvents;
+    }
+
+    /**
+     * @return the number of matching events
+     */
+    public synchronized int getNbMatches() {
+        return fRanks.length;
+    }
+
+    /**
+     * @param index a filtered index
+     * @return the rank of the matching event at that index, or -1 if there is
+     *         no such event in the index
+     */
+    public synchronized long getRank(int index) {
+        if (index < 0 || index >= fRanks.length) {
+            return -1;
+        }
+        return fRanks[index];
+    }
+
+    /**
+     * @param rank a trace rank
+     * @return the filtered index of the first matching event at or after the
+     *         rank (i.e. the number of matching events before the rank)
+     */
+    public synchronized int getIndex(long rank) {
+        if (rank > Integer.MAX_VALUE) {
+            return fRanks.length;
+        }
+        int index = Arrays.binarySearch(fRanks, (int) rank);
+        return (index >= 0) ? index : -index - 1;
+    }
+
+    // ------------------------------------------------------------------------
+    // Operations
+    // ------------------------------------------------------------------------
+
+    /**
+     * Builds the index using one worker thread per processor.
+     *
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public void build() throws InterruptedException {
+        build(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Builds the index. The call returns when the index is complete or the
+     * build is cancelled.
+     *
+     * @param nbThreads the number of worker threads
+     * @throws InterruptedException if the calling thread is interrupted (the
+     *         build is then cancelled)
+     */
+    public void build(int nbThreads) throws InterruptedException {
+        final long nbEvents = fTrace.getNbEvents();
+        final int blockSize = Math.max(1, fTrace.getCacheSize());
+        long nbBlocks = (nbEvents + blockSize - 1) / blockSize;
+        final int nbSegments = (int) Math.min(nbBlocks, (long) Math.max(1, nbThreads) * SEGMENTS_PER_THREAD);
+        final int[][] segmentRanks = new int[nbSegments][];
+
+        // Position the segments at the trace checkpoints
+        final long[] bounds = new long[nbSegments + 1];
+        final ITmfLocation<?>[] locations = new ITmfLocation<?>[nbSegments];
+        for (int i = 0; i < nbSegments; i++) {
+            bounds[i] = Math.min(nbEvents, (nbBlocks * i / nbSegments) * blockSize);
+            TmfContext context = fTrace.seekEvent(bounds[i]);
+            locations[i] = (context.getLocation() != null) ? context.getLocation().clone() : null;
+        }
+        bounds[nbSegments] = nbEvents;
+
+        // Scan the segments, each worker with its own copy of the trace
+        int nbWorkers = Math.min(Math.max(1, nbThreads), nbSegments);
+        List<ITmfTrace<?>> traces = new ArrayList<ITmfTrace<?>>(nbWorkers);
+        try {
+            for (int i = 0; i < nbWorkers && nbWorkers > 1; i++) {
+                ITmfTrace<?> copy = fTrace.copy();
+                if (copy == null) {
+                    break;
+                }
+                traces.add(copy);
+            }
+            if (traces.size() < nbWorkers) {
+                // The trace can't be copied: a single worker reads the trace
+                disposeCopies(traces);
+                traces.add(fTrace);
+            }
+            if (nbWorkers > 0) {
+                scanSegments(traces, locations, bounds, segmentRanks);
+            }
+        } finally {
+            disposeCopies(traces);
+        }
+
+        if (fCancelled) {
+            return;
+        }
+
+        // Concatenate the segment ranks
+        int nbMatches = 0;
+        for (int[] ranks : segmentRanks) {
+            nbMatches += ranks.length;
+        }
+        int[] allRanks = new int[nbMatches];
+        int pos = 0;
+        for (int[] ranks : segmentRanks) {
+            System.arraycopy(ranks, 0, allRanks, pos, ranks.length);
+            pos += ranks.length;
+        }
+        synchronized (this) {
+            fRanks = allRanks;
+            fNbEvents = nbEvents;
+        }
+        fComplete = true;
+    }
+
+    /**
+     * Cancels the build in progress (if any)
+     */
+    public void cancel() {
+        fCancelled = true;
+    }
+
+    /*
+     * Scans the segments with one worker thread per trace (or trace copy)
+     */
+    private void scanSegments(List<ITmfTrace<?>> traces, final ITmfLocation<?>[] locations, final long[] bounds,
+            final int[][] segmentRanks) throws InterruptedException {
+        final int nbSegments = segmentRanks.length;
+        final AtomicInteger nextSegment = new AtomicInteger(0);
+        ExecutorService executor = Executors.newFixedThreadPool(traces.size());
+        List<Future<?>> futures = new ArrayList<Future<?>>(traces.size());
+        try {
+            for (final ITmfTrace<?> trace : traces) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        int segment;
+                        while (!fCancelled && (segment = nextSegment.getAndIncrement()) < nbSegments) {
+                            segmentRanks[segment] = scanSegment(trace, locations[segment], bounds[segment], bounds[segment + 1]);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    fCancelled = true;
+                    if (fError == null) {
+                        fError = e.getCause();
+                        if (Tracer.isErrorTraced()) {
+                            Tracer.traceError("Filter index of " + fTrace.getName() + " aborted: " + e.getCause()); //$NON-NLS-1$ //$NON-NLS-2$
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            fCancelled = true;
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * Disposes the trace copies of the list and clears it
+     */
+    private void disposeCopies(List<ITmfTrace<?>> traces) {
+        for (ITmfTrace<?> trace : traces) {
+            if (trace != fTrace) {
+                trace.dispose();
+            }
+        }
+        traces.clear();
+    }
+
+    /*
+     * Returns the ranks of the matching events in [start, end[
+     */
+    private int[] scanSegment(ITmfTrace<?> trace, ITmfLocation<?> location, long start, long end) {
+        int[] ranks = new int[16];
+        int nbRanks = 0;
+        TmfContext context;
+        if (trace == fTrace || location == null) {
+            context = trace.seekEvent(start);
+        } else {
+            context = trace.seekLocation(location.clone());
+        }
+        for (long rank = start; rank < end && !fCancelled; rank++) {
+            TmfEvent event = trace.getNextEvent(context);
+            if (event == null) {
+                break;
+            }
+            if (fFilter.matches(event)) {
+                if (nbRanks == ranks.length) {
+                    ranks = Arrays.copyOf(ranks, 2 * nbRanks);
+                }
+                ranks[nbRanks++] = (int) rank;
+            }
+        }
+        return Arrays.copyOf(ranks, nbRanks);
+    }
+
+}
@@ -46,7 +46,7 @@ public class TmfFilterOrNode extends TmfFilterTreeNode {
 				return true ^ fNot;
 			}
 		}
-		return false & fNot;
+		return false ^ fNot;
 	}
 
 	@Override
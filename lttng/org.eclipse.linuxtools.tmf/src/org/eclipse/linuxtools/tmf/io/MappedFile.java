@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <b><u>MappedFile</u></b>
+ * <p>
+ * A read-only file accessed through memory-mapped windows. The file channel
+ * and the mapped windows are shared by all the readers of the file (see
+ * newReader()), e.g. by all the contexts of a trace.
+ * <p>
+ * The file is mapped in fixed-size windows so that files over 2 GB can be
+ * read. The file may grow while it is read: its length is not cached and
+ * a window is mapped again when it doesn't cover the new data.
+ */
+public class MappedFile {
+
+	// The default size of the mapped windows
+	public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+	// The number of mapped windows kept by the file
+	private static final int MAX_CACHED_WINDOWS = 4;
+
+	private final RandomAccessFile fFile;
+	private final FileChannel fChannel;
+	private final int fWindowSize;
+
+	// The mapped windows, by start position (least recently used first)
+	private final Map<Long, ByteBuffer> fWindows = new LinkedHashMap<Long, ByteBuffer>(MAX_CACHED_WINDOWS, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, ByteBuffer> eldest) {
+			return size() > MAX_CACHED_WINDOWS;
+		}
+	};
+
+	public MappedFile(String name) throws IOException {
+		this(new File(name), DEFAULT_WINDOW_SIZE);
+	}
+
+	public MappedFile(File file) throws IOException {
+		this(file, DEFAULT_WINDOW_SIZE);
+	}
+
+	public MappedFile(File file, int windowSize) throws IOException {
+		fFile = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+		fChannel = fFile.getChannel();
+		fWindowSize = windowSize;
+	}
+
+	/**
+	 * @return the current length of the file
+	 * @throws IOException
+	 */
+	public long length() throws IOException {
+		return fChannel.size();
+	}
+
+	/**
+	 * @return the size of the mapped windows
+	 */
+	public int getWindowSize() {
+		return fWindowSize;
+	}
+
+	/**
+	 * @return a new reader, positioned at the start of the file
+	 */
+	public MappedFileReader newReader() {
+		return new MappedFileReader(this);
+	}
+
+	/**
+	 * Returns the mapped window that contains a position. The window extends
+	 * up to the end of the file (or the window size), as of the time it was
+	 * mapped.
+	 *
+	 * @param position a position in the file
+	 * @return the window (read-only, to be used with absolute gets or a
+	 *         duplicate), or null if the position is at or past the end of
+	 *         the file
+	 * @throws IOException
+	 */
+	synchronized ByteBuffer getWindow(long position) throws IOException {
+		long start = position - (position % fWindowSize);
+		ByteBuffer window = fWindows.get(start);
+		if (window != null && (start + window.capacity() > position || window.capacity() == fWindowSize)) {
+			return window;
+		}
+		long size = Math.min(fWindowSize, fChannel.size() - start);
+		if (start + size <= position) {
+			return null;
+		}
+		window = fChannel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		fWindows.put(start, window);
+		return window;
+	}
+
+	/**
+	 * Closes the file. The readers can't be used anymore.
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void close() throws IOException {
+		fWindows.clear();
+		fFile.close();
+	}
+}
@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ ******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * <b><u>MappedFileReader</u></b>
+ * <p>
+ * A reader of a MappedFile, with its own file pointer. It has the same
+ * reading methods as BufferedRandomAccessFile, but the data is read straight
+ * from the mapped windows of the file: the lines are scanned in place and
+ * only copied once to be decoded.
+ * <p>
+ * A reader is not thread-safe, but the readers of a same file can be used
+ * concurrently.
+ */
+public class MappedFileReader {
+
+	private static final Charset CHARSET_UTF8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+	private final MappedFile fFile;
+	private long fPosition = 0;
+
+	// The current window (a duplicate of the shared window)
+	private ByteBuffer fWindow = null;
+	private long fWindowStart = 0;
+	private int fWindowLimit = 0;
+
+	// The bytes of the line being read
+	private byte[] fLineBuffer = new byte[256];
+
+	// True if the last line read was terminated by '\n'
+	private boolean fLineTerminated = false;
+
+	MappedFileReader(MappedFile file) {
+		fFile = file;
+	}
+
+	/**
+	 * @return the file read
+	 */
+	public MappedFile getFile() {
+		return fFile;
+	}
+
+	public long getFilePointer() {
+		return fPosition;
+	}
+
+	public void seek(long pos) {
+		fPosition = pos;
+	}
+
+	public long length() throws IOException {
+		return fFile.length();
+	}
+
+	/**
+	 * Reads a byte.
+	 *
+	 * @return the byte (0 to 255), or -1 at the end of the file
+	 * @throws IOException
+	 */
+	public int read() throws IOException {
+		if (!fillWindow()) {
+			return -1;
+		}
+		int b = fWindow.get((int) (fPosition - fWindowStart)) & 0xFF;
+		fPosition++;
+		return b;
+	}
+
+	/**
+	 * Reads bytes, across windows if needed.
+	 *
+	 * @param b the destination array
+	 * @param off the offset in the destination array
+	 * @param len the number of bytes to read
+	 * @return the number of bytes read, or -1 at the end of the file
+	 * @throws IOException
+	 */
+	public int read(byte b[], int off, int len) throws IOException {
+		int n = 0;
+		while (n < len && fillWindow()) {
+			int pos = (int) (fPosition - fWindowStart);
+			int count = Math.min(len - n, fWindowLimit - pos);
+			fWindow.position(pos);
+			fWindow.get(b, off + n, count);
+			fPosition += count;
+			n += count;
+		}
+		return (n == 0 && len > 0) ? -1 : n;
+	}
+
+	/**
+	 * Reads the next line. The line terminator ('\n' or "\r\n") is consumed
+	 * but not returned.
+	 *
+	 * @return the line (decoded as UTF-8), or null at the end of the file
+	 * @throws IOException
+	 */
+	public String getNextLine() throws IOException {
+		int length = 0;
+		boolean eol = false;
+		while (!eol && fillWindow()) {
+			int start = (int) (fPosition - fWindowStart);
+			int end = start;
+			while (end < fWindowLimit && fWindow.get(end) != '\n') {
+				end++;
+			}
+			eol = end < fWindowLimit;
+			int count = end - start;
+			if (length + count > fLineBuffer.length) {
+				fLineBuffer = Arrays.copyOf(fLineBuffer, Math.max(2 * fLineBuffer.length, length + count));
+			}
+			fWindow.position(start);
+			fWindow.get(fLineBuffer, length, count);
+			length += count;
+			fPosition += eol ? count + 1 : count;
+		}
+		fLineTerminated = eol;
+		if (!eol && length == 0) {
+			return null;
+		}
+		if (length > 0 && fLineBuffer[length - 1] == '\r') {
+			length--;
+		}
+		return new String(fLineBuffer, 0, length, CHARSET_UTF8);
+	}
+
+	/**
+	 * Reads the next line if it is complete, i.e. terminated by '\n'. This is
+	 * for files still being written, where the last line may be partial.
+	 *
+	 * @return the line (decoded as UTF-8), or null if there is no complete
+	 *         line left (the file pointer is then unchanged)
+	 * @throws IOException
+	 */
+	public String getNextCompleteLine() throws IOException {
+		long position = fPosition;
+		String line = getNextLine();
+		if (line != null && !fLineTerminated) {
+			fPosition = position;
+			return null;
+		}
+		return line;
+	}
+
+	/**
+	 * Releases the reader resources. The file itself stays open.
+	 */
+	public void close() {
+		fWindow = null;
+		fWindowLimit = 0;
+	}
+
+	/*
+	 * Makes the current window cover the file pointer. Returns false at the
+	 * end of the file.
+	 */
+	private boolean fillWindow() throws IOException {
+		if (fWindow != null && fPosition >= fWindowStart && fPosition < fWindowStart + fWindowLimit) {
+			return true;
+		}
+		ByteBuffer window = fFile.getWindow(fPosition);
+		if (window == null) {
+			return false;
+		}
+		fWindow = window.duplicate();
+		fWindowStart = fPosition - (fPosition % fFile.getWindowSize());
+		fWindowLimit = fWindow.capacity();
+		return true;
+	}
+}
@@ -49,7 +49,7 @@ public interface ITmfDataRequest<T extends TmfData> {
     /**
 	 * @return the index of the first event requested
      */
-    public int getIndex();
+    public long getIndex();
 
     /**
      * @return the number of requested events
@@ -66,6 +66,27 @@ public interface ITmfDataRequest<T extends TmfData> {
      */
     public int getNbRead();
 
+    /**
+     * @return true if the provider can re-use the same data object for the
+     *         successive handleData() calls (consumers that keep the data
+     *         past handleData() then have to clone() it)
+     */
+    public boolean isFlyweight();
+
+    /**
+     * @return true if the request can join a scan of the provider data
+     *         already in progress, and thus receive the data out of order
+     *         (see TmfSharedScanRequest)
+     */
+    public boolean isJoinable();
+
+    /**
+     * @return true if the request waits for more data at the end of the data
+     *         of a live provider (e.g. a trace still being written) instead
+     *         of completing
+     */
+    public boolean isFollowMode();
+
 	// ------------------------------------------------------------------------
 	// Request state
 	// ------------------------------------------------------------------------
@@ -31,6 +31,6 @@ public interface ITmfEventRequest<T extends TmfEvent> extends ITmfDataRequest<T>
      * this method is called by the event provider to set the index corresponding to the time range start time
      * @param index the start time index
      */
-	public void setStartIndex(int index);
+	public void setStartIndex(long index);
 
 }
@@ -47,11 +47,11 @@ public class TmfCoalescedDataRequest<T extends TmfData> extends TmfDataRequest<T
     /**
      * @param nbRequested
      */
-    public TmfCoalescedDataRequest(Class<T> dataType, int index) {
+    public TmfCoalescedDataRequest(Class<T> dataType, long index) {
         this(dataType, index, ALL_DATA, DEFAULT_BLOCK_SIZE, ExecutionType.FOREGROUND);
     }
 
-    public TmfCoalescedDataRequest(Class<T> dataType, int index, ExecutionType execType) {
+    public TmfCoalescedDataRequest(Class<T> dataType, long index, ExecutionType execType) {
         this(dataType, index, ALL_DATA, DEFAULT_BLOCK_SIZE, execType);
     }
 
@@ -59,11 +59,11 @@ public class TmfCoalescedDataRequest<T extends TmfData> extends TmfDataRequest<T
      * @param index
      * @param nbRequested
      */
-    public TmfCoalescedDataRequest(Class<T> dataType, int index, int nbRequested) {
+    public TmfCoalescedDataRequest(Class<T> dataType, long index, int nbRequested) {
         this(dataType, index, nbRequested, DEFAULT_BLOCK_SIZE, ExecutionType.FOREGROUND);
     }
 
-    public TmfCoalescedDataRequest(Class<T> dataType, int index, int nbRequested, ExecutionType execType) {
+    public TmfCoalescedDataRequest(Class<T> dataType, long index, int nbRequested, ExecutionType execType) {
         this(dataType, index, nbRequested, DEFAULT_BLOCK_SIZE, execType);
     }
 
@@ -72,11 +72,11 @@ public class TmfCoalescedDataRequest<T extends TmfData> extends TmfDataRequest<T
      * @param nbRequested
      * @param blockSize
      */
-    public TmfCoalescedDataRequest(Class<T> dataType, int index, int nbRequested, int blockSize) {
+    public TmfCoalescedDataRequest(Class<T> dataType, long index, int nbRequested, int blockSize) {
         super(dataType, index, nbRequested, blockSize, ExecutionType.FOREGROUND);
     }
 
-    public TmfCoalescedDataRequest(Class<T> dataType, int index, int nbRequested, int blockSize, ExecutionType execType) {
+    public TmfCoalescedDataRequest(Class<T> dataType, long index, int nbRequested, int blockSize, ExecutionType execType) {
         super(dataType, index, nbRequested, blockSize, execType);
     }
 
@@ -85,6 +85,8 @@ public class TmfCoalescedDataRequest<T extends TmfData> extends TmfDataRequest<T
     // ------------------------------------------------------------------------
 
 	public void addRequest(ITmfDataRequest<T> request) {
+		// The data objects can only be re-used if all the requests allow it
+		setFlyweight(request.isFlyweight() && (fRequests.isEmpty() || isFlyweight()));
 		fRequests.add(request);
 	}
 
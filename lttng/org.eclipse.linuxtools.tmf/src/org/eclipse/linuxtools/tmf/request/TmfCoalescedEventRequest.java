@@ -82,7 +82,7 @@ public class TmfCoalescedEventRequest<T extends TmfEvent> extends TmfCoalescedDa
     	fRange = range;
     }
 
-    public TmfCoalescedEventRequest(Class<T> dataType, TmfTimeRange range, int index, int nbRequested, int blockSize, ExecutionType execType) {
+    public TmfCoalescedEventRequest(Class<T> dataType, TmfTimeRange range, long index, int nbRequested, int blockSize, ExecutionType execType) {
     	super(dataType, index, nbRequested, blockSize, execType);
     	fRange = range;
     }
@@ -124,8 +124,7 @@ public class TmfCoalescedEventRequest<T extends TmfEvent> extends TmfCoalescedDa
     			if (request instanceof TmfEventRequest<?>) {
     				TmfEventRequest<T> req = (TmfEventRequest<T>) request;
        				if (!req.isCompleted()) {
-       					TmfTimestamp ts = data.getTimestamp();
-    					if (req.getRange().contains(ts)) {
+    					if (isInRange(req.getRange(), data)) {
     						req.handleData(data);
     					}
     				}
@@ -140,6 +139,16 @@ public class TmfCoalescedEventRequest<T extends TmfEvent> extends TmfCoalescedDa
     	}
     }
 
+    /*
+     * Same as range.contains(event.getTimestamp()), without requiring the
+     * event timestamp object
+     */
+    static boolean isInRange(TmfTimeRange range, TmfEvent event) {
+        // Zero acts as a "universal donor" timestamp
+        if (event.compareTimestampTo(TmfTimestamp.Zero, false) == 0) return true;
+        return (event.compareTimestampTo(range.getStartTime(), true) >= 0) && (event.compareTimestampTo(range.getEndTime(), true) <= 0);
+    }
+
     // ------------------------------------------------------------------------
     // ITmfEventRequest
     // ------------------------------------------------------------------------
@@ -150,7 +159,7 @@ public class TmfCoalescedEventRequest<T extends TmfEvent> extends TmfCoalescedDa
 	}
 	
 	@Override
-	public void setStartIndex(int index) {
+	public void setStartIndex(long index) {
 		setIndex(index);
 	}
 	
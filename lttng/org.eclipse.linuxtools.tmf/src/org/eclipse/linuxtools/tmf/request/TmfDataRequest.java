@@ -90,10 +90,13 @@ public abstract class TmfDataRequest<T extends TmfData> implements ITmfDataReque
     private final Class<T> fDataType;
     private final ExecutionType fExecType;
     private final int fRequestId; // A unique request ID
-    private int fIndex; // The index (rank) of the requested event
+    private long fIndex; // The index (rank) of the requested event
     private final int fNbRequested; // The number of requested events (ALL_DATA for all)
     private final int fBlockSize; // The block size (for BG requests)
     private int fNbRead; // The number of reads so far
+    private boolean fFlyweight = false; // The provider can re-use the data objects
+    private boolean fJoinable = false; // The request can join a shared scan in progress
+    private boolean fFollowMode = false; // The request waits for the data of a live provider
 
     private CountDownLatch startedLatch = new CountDownLatch(1);
     private CountDownLatch completedLatch = new CountDownLatch(1);
@@ -133,11 +136,11 @@ public abstract class TmfDataRequest<T extends TmfData> implements ITmfDataReque
      * @param nbRequested
      *            the number of data items requested
      */
-    public TmfDataRequest(Class<T> dataType, int index) {
+    public TmfDataRequest(Class<T> dataType, long index) {
         this(dataType, index, ALL_DATA, DEFAULT_BLOCK_SIZE, ExecutionType.FOREGROUND);
     }
 
-    public TmfDataRequest(Class<T> dataType, int index, ExecutionType execType) {
+    public TmfDataRequest(Class<T> dataType, long index, ExecutionType execType) {
         this(dataType, index, ALL_DATA, DEFAULT_BLOCK_SIZE, execType);
     }
 
@@ -149,11 +152,11 @@ public abstract class TmfDataRequest<T extends TmfData> implements ITmfDataReque
      * @param blockSize
      *            the number of data items per block
      */
-    public TmfDataRequest(Class<T> dataType, int index, int nbRequested) {
+    public TmfDataRequest(Class<T> dataType, long index, int nbRequested) {
         this(dataType, index, nbRequested, DEFAULT_BLOCK_SIZE, ExecutionType.FOREGROUND);
     }
 
-    public TmfDataRequest(Class<T> dataType, int index, int nbRequested, ExecutionType execType) {
+    public TmfDataRequest(Class<T> dataType, long index, int nbRequested, ExecutionType execType) {
         this(dataType, index, nbRequested, DEFAULT_BLOCK_SIZE, execType);
     }
 
@@ -167,11 +170,11 @@ public abstract class TmfDataRequest<T extends TmfData> implements ITmfDataReque
      * @param blockSize
      *            the number of data items per block
      */
-    public TmfDataRequest(Class<T> dataType, int index, int nbRequested, int blockSize) {
+    public TmfDataRequest(Class<T> dataType, long index, int nbRequested, int blockSize) {
         this(dataType, index, nbRequested, blockSize, ExecutionType.FOREGROUND);
     }
 
-    public TmfDataRequest(Class<T> dataType, int index, int nbRequested, int blockSize, ExecutionType execType) {
+    public TmfDataRequest(Class<T> dataType, long index, int nbRequested, int blockSize, ExecutionType execType) {
         fRequestId = fRequestNumber++;
         fDataType = dataType;
         fIndex = index;
@@ -207,7 +210,7 @@ public abstract class TmfDataRequest<T extends TmfData> implements ITmfDataReque
      * @return the index of the first event requested
      */
     @Override
-    public int getIndex() {
+    public long getIndex() {
         return fIndex;
     }
 
@@ -243,6 +246,30 @@ public abstract class TmfDataRequest<T extends TmfData> implements ITmfDataReque
         return fNbRead;
     }
 
+    /**
+     * @return true if the provider can re-use the data objects
+     */
+    @Override
+    public boolean isFlyweight() {
+        return fFlyweight;
+    }
+
+    /**
+     * @return true if the request can join a shared scan in progress
+     */
+    @Override
+    public boolean isJoinable() {
+        return fJoinable;
+    }
+
+    /**
+     * @return true if the request waits for more data at the end of the data of a live provider
+     */
+    @Override
+    public boolean isFollowMode() {
+        return fFollowMode;
+    }
+
     /**
      * @return indicates if the request is completed
      */
@@ -293,10 +320,52 @@ public abstract class TmfDataRequest<T extends TmfData> implements ITmfDataReque
      * @param index
      *            the start time index
      */
-    protected void setIndex(int index) {
+    protected void setIndex(long index) {
         fIndex = index;
     }
 
+    /**
+     * Opt-in for flyweight data: the provider can then re-use the same data
+     * object for all the handleData() calls of this request (e.g. one event
+     * per trace context) instead of allocating a new one per read. The data
+     * is only valid for the duration of handleData(): a consumer that keeps
+     * it has to clone() it.
+     * 
+     * @param flyweight
+     *            true to allow the re-use of the data objects
+     */
+    public void setFlyweight(boolean flyweight) {
+        fFlyweight = flyweight;
+    }
+
+    /**
+     * Opt-in for shared scans: a request for all the data (index 0, ALL_DATA)
+     * that doesn't depend on the data order can then join a scan of the
+     * provider data already in progress instead of starting its own (see
+     * TmfSharedScanRequest). It gets the data from the current scan position
+     * to the end, then from the start up to where it joined.
+     * 
+     * @param joinable
+     *            true to allow the request to join a shared scan
+     */
+    public void setJoinable(boolean joinable) {
+        fJoinable = joinable;
+    }
+
+    /**
+     * Follow mode: when the end of the data of a live provider is reached
+     * (see TmfDataProvider.isLive()), the request is not completed but waits
+     * for the provider to get more data, then resumes where it left off. The
+     * request completes when it got its data, when it is cancelled or when
+     * the provider stops being live.
+     * 
+     * @param followMode
+     *            true to have the request follow the provider data
+     */
+    public void setFollowMode(boolean followMode) {
+        fFollowMode = followMode;
+    }
+
     // ------------------------------------------------------------------------
     // Operators
     // ------------------------------------------------------------------------
@@ -377,7 +446,7 @@ public abstract class TmfDataRequest<T extends TmfData> implements ITmfDataReque
      * @throws InterruptedException
      */
     public void waitForStart() throws InterruptedException {
-        while (!fRequestRunning) {
+        while (!fRequestRunning && !fRequestCompleted) {
             startedLatch.await();
         }
     }
@@ -422,6 +491,7 @@ public abstract class TmfDataRequest<T extends TmfData> implements ITmfDataReque
         try {
             handleCompleted();
         } finally {
+            startedLatch.countDown();
             completedLatch.countDown();
         }
     }
@@ -79,7 +79,7 @@ public abstract class TmfEventRequest<T extends TmfEvent> extends TmfDataRequest
     	this(dataType, range, 0, nbRequested, blockSize, execType);
     }
 
-    public TmfEventRequest(Class<T> dataType, TmfTimeRange range, int index, int nbRequested, int blockSize, ExecutionType execType) {
+    public TmfEventRequest(Class<T> dataType, TmfTimeRange range, long index, int nbRequested, int blockSize, ExecutionType execType) {
     	super(dataType, index, nbRequested, blockSize, execType);
     	fRange = range;
     }
@@ -106,7 +106,7 @@ public abstract class TmfEventRequest<T extends TmfEvent> extends TmfDataRequest
      * @param index the start time index
      */
     @Override
-	public void setStartIndex(int index) {
+	public void setStartIndex(long index) {
     	setIndex(index);
     }
 
@@ -13,6 +13,8 @@
 package org.eclipse.linuxtools.tmf.request;
 
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -25,111 +27,325 @@ import org.eclipse.linuxtools.tmf.request.ITmfDataRequest.ExecutionType;
 /**
  * <b><u>TmfRequestExecutor</u></b>
  *
- * A simple, straightforward request executor.
+ * A request executor that services up to a configurable number of requests
+ * concurrently.
+ * <p>
+ * FOREGROUND requests are always scheduled before BACKGROUND ones; requests of
+ * the same type are scheduled in order of arrival. When more than one request
+ * can run concurrently, one slot is reserved for FOREGROUND requests.
+ * <p>
+ * By default, requests are serviced one at a time. A data provider whose
+ * requests can safely run concurrently opts in with
+ * getExecutor().setMaxConcurrentRequests().
+ * <p>
+ * When a FOREGROUND request is waiting for a slot, the running BACKGROUND
+ * requests are asked to yield at the end of their time slice: they are then
+ * re-queued (keeping their context) and resumed later on.
+ * <p>
+ * The executor also keeps some statistics (queue depth, wait and execution
+ * times) per execution type.
  */
 public class TmfRequestExecutor implements Executor {
 
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+
+	public static final int  DEFAULT_MAX_CONCURRENT_REQUESTS = 1;
+	public static final long DEFAULT_TIME_SLICE = 100; // ms
+
+	// ------------------------------------------------------------------------
+	// Attributes
+	// ------------------------------------------------------------------------
+
 	private final ExecutorService fExecutor;
 	private final String fExecutorName;
-	private final PriorityBlockingQueue<TmfThread> fRequestQueue = new PriorityBlockingQueue<TmfThread>(100, new Comparator<TmfThread>() {
+	private final PriorityBlockingQueue<RequestThread> fRequestQueue = new PriorityBlockingQueue<RequestThread>(100, new Comparator<RequestThread>() {
 		@Override
-		public int compare(TmfThread o1, TmfThread o2) {
-			if (o1.getExecType() == o2.getExecType())
-				return 0;
-			if (o1.getExecType() == ExecutionType.BACKGROUND)
-				return 1;
-			return -1;
+		public int compare(RequestThread o1, RequestThread o2) {
+			if (o1.getExecType() != o2.getExecType()) {
+				return (o1.getExecType() == ExecutionType.BACKGROUND) ? 1 : -1;
+			}
+			return (o1.fSequence < o2.fSequence) ? -1 : (o1.fSequence == o2.fSequence) ? 0 : 1;
 		}
 	});
-	private TmfThread fCurrentRequest;
-	
+	private final Set<RequestThread> fRunningRequests = new HashSet<RequestThread>();
+
+	private int  fMaxConcurrentRequests;
+	private long fTimeSlice = DEFAULT_TIME_SLICE;
+	private long fSequence = 0;
+
+	// Statistics, indexed by execution type
+	private final long[] fNbCompletedRequests = new long[ExecutionType.values().length];
+	private final long[] fTotalWaitTime       = new long[ExecutionType.values().length];
+	private final long[] fMaxWaitTime         = new long[ExecutionType.values().length];
+	private final long[] fTotalExecutionTime  = new long[ExecutionType.values().length];
+
 	// ------------------------------------------------------------------------
 	// Constructors
 	// ------------------------------------------------------------------------
-	
+
 	public TmfRequestExecutor() {
-		this(Executors.newSingleThreadExecutor());
+		this(DEFAULT_MAX_CONCURRENT_REQUESTS);
+	}
+
+	/**
+	 * @param maxConcurrentRequests the maximum number of requests serviced concurrently
+	 */
+	public TmfRequestExecutor(int maxConcurrentRequests) {
+		this(Executors.newCachedThreadPool(), maxConcurrentRequests);
 	}
 
 	public TmfRequestExecutor(ExecutorService executor) {
+		this(executor, DEFAULT_MAX_CONCURRENT_REQUESTS);
+	}
+
+	/**
+	 * @param executor the executor service running the requests
+	 * @param maxConcurrentRequests the maximum number of requests serviced concurrently
+	 */
+	public TmfRequestExecutor(ExecutorService executor, int maxConcurrentRequests) {
+		if (maxConcurrentRequests < 1)
+			throw new IllegalArgumentException();
 		fExecutor = executor;
+		fMaxConcurrentRequests = maxConcurrentRequests;
 		String canonicalName = fExecutor.getClass().getCanonicalName();
 		fExecutorName = canonicalName.substring(canonicalName.lastIndexOf('.') + 1);
 		if (Tracer.isComponentTraced()) Tracer.trace(fExecutor + " created"); //$NON-NLS-1$
 	}
 
+	// ------------------------------------------------------------------------
+	// Accessors
+	// ------------------------------------------------------------------------
+
 	/**
 	 * @return the number of pending requests
 	 */
 	public synchronized int getNbPendingRequests() {
 		return fRequestQueue.size();
 	}
-	
+
+	/**
+	 * @return the number of requests currently being serviced
+	 */
+	public synchronized int getNbRunningRequests() {
+		return fRunningRequests.size();
+	}
+
+	/**
+	 * @return the maximum number of requests serviced concurrently
+	 */
+	public synchronized int getMaxConcurrentRequests() {
+		return fMaxConcurrentRequests;
+	}
+
+	/**
+	 * @param maxConcurrentRequests the maximum number of requests serviced concurrently
+	 */
+	public synchronized void setMaxConcurrentRequests(int maxConcurrentRequests) {
+		if (maxConcurrentRequests < 1)
+			throw new IllegalArgumentException();
+		fMaxConcurrentRequests = maxConcurrentRequests;
+		scheduleNext();
+	}
+
+	/**
+	 * @return the time slice (in ms) of a BACKGROUND request when a FOREGROUND request is waiting
+	 */
+	public synchronized long getTimeSlice() {
+		return fTimeSlice;
+	}
+
+	/**
+	 * @param timeSlice the time slice (in ms) of a BACKGROUND request when a FOREGROUND request is waiting
+	 */
+	public synchronized void setTimeSlice(long timeSlice) {
+		fTimeSlice = timeSlice;
+	}
+
+	/**
+	 * @param execType the execution type
+	 * @return the number of completed requests of that type
+	 */
+	public synchronized long getNbCompletedRequests(ExecutionType execType) {
+		return fNbCompletedRequests[execType.ordinal()];
+	}
+
+	/**
+	 * @param execType the execution type
+	 * @return the average time (in ms) a request of that type waited before being serviced
+	 */
+	public synchronized long getAverageWaitTime(ExecutionType execType) {
+		int type = execType.ordinal();
+		return (fNbCompletedRequests[type] > 0) ? fTotalWaitTime[type] / fNbCompletedRequests[type] : 0;
+	}
+
+	/**
+	 * @param execType the execution type
+	 * @return the maximum time (in ms) a request of that type waited before being serviced
+	 */
+	public synchronized long getMaxWaitTime(ExecutionType execType) {
+		return fMaxWaitTime[execType.ordinal()];
+	}
+
+	/**
+	 * @param execType the execution type
+	 * @return the average time (in ms) between the start and the end of the servicing of a request of that type
+	 */
+	public synchronized long getAverageExecutionTime(ExecutionType execType) {
+		int type = execType.ordinal();
+		return (fNbCompletedRequests[type] > 0) ? fTotalExecutionTime[type] / fNbCompletedRequests[type] : 0;
+	}
+
 	/**
 	 * @return the shutdown state (i.e. if it is accepting new requests)
 	 */
 	public synchronized boolean isShutdown() {
 		return fExecutor.isShutdown();
 	}
-	
+
 	/**
 	 * @return the termination state
 	 */
 	public synchronized boolean isTerminated() {
 		return fExecutor.isTerminated();
 	}
-	
+
 	/**
 	 * Stops the executor
 	 */
 	public synchronized void stop() {
-	    if (fCurrentRequest != null) {
-	        fCurrentRequest.cancel();
-	    }
-	    
-	    while ((fCurrentRequest = fRequestQueue.poll()) != null) {
-	        fCurrentRequest.cancel();
-	    }
+		for (RequestThread thread : fRunningRequests) {
+			thread.cancel();
+		}
+
+		RequestThread thread;
+		while ((thread = fRequestQueue.poll()) != null) {
+			thread.cancel();
+		}
 
 		fExecutor.shutdown();
 		if (Tracer.isComponentTraced()) Tracer.trace(fExecutor + " terminated"); //$NON-NLS-1$
 	}
-	
+
 	// ------------------------------------------------------------------------
 	// Operations
 	// ------------------------------------------------------------------------
-	
+
 	/* (non-Javadoc)
 	 * @see java.util.concurrent.Executor#execute(java.lang.Runnable)
 	 */
 	@Override
 	public synchronized void execute(final Runnable requestThread) {
-		fRequestQueue.offer(new TmfThread(((TmfThread) requestThread).getExecType()) {
-			@Override
-			public void run() {
-				try {
-					requestThread.run();
-				} finally {
-					scheduleNext();
+		queue(new RequestThread((TmfThread) requestThread));
+		scheduleNext();
+	}
+
+	/**
+	 * Executes the next pending requests, if applicable.
+	 */
+	protected synchronized void scheduleNext() {
+		RequestThread thread;
+		while ((thread = fRequestQueue.peek()) != null && canStart(thread)) {
+			fRequestQueue.poll();
+			if (isShutdown()) {
+				thread.cancel();
+				continue;
+			}
+			fRunningRequests.add(thread);
+			thread.fThread.startTimeSlice(fTimeSlice);
+			fExecutor.execute(thread);
+		}
+
+		// Have the running background requests make room for a waiting foreground request
+		if (thread != null && thread.getExecType() == ExecutionType.FOREGROUND) {
+			for (RequestThread running : fRunningRequests) {
+				if (running.getExecType() == ExecutionType.BACKGROUND) {
+					running.fThread.requestYield();
 				}
 			}
-            @Override
-            public void cancel() {
-                ((TmfThread) requestThread).cancel();
-            }
-		});
-		if (fCurrentRequest == null) {
-			scheduleNext();
 		}
 	}
 
+	private boolean canStart(RequestThread thread) {
+		if (fRunningRequests.size() >= fMaxConcurrentRequests) {
+			return false;
+		}
+		if (thread.getExecType() == ExecutionType.BACKGROUND && fMaxConcurrentRequests > 1) {
+			// Keep a slot for the foreground requests
+			int nbBackground = 0;
+			for (RequestThread running : fRunningRequests) {
+				if (running.getExecType() == ExecutionType.BACKGROUND) {
+					nbBackground++;
+				}
+			}
+			return nbBackground < fMaxConcurrentRequests - 1;
+		}
+		return true;
+	}
+
+	private void queue(RequestThread thread) {
+		thread.fSequence = fSequence++;
+		fRequestQueue.offer(thread);
+	}
+
+	private synchronized void threadCompleted(RequestThread thread) {
+		fRunningRequests.remove(thread);
+
+		if (thread.fThread.isSuspended()) {
+			// Resume the request later on
+			thread.fThread.setSuspended(false);
+			if (isShutdown()) {
+				thread.cancel();
+			} else {
+				queue(thread);
+			}
+		} else {
+			long now = System.currentTimeMillis();
+			long waitTime = thread.fStartTime - thread.fQueueTime;
+			long executionTime = now - thread.fStartTime;
+			int type = thread.getExecType().ordinal();
+			fNbCompletedRequests[type]++;
+			fTotalWaitTime[type] += waitTime;
+			fMaxWaitTime[type] = Math.max(fMaxWaitTime[type], waitTime);
+			fTotalExecutionTime[type] += executionTime;
+			if (Tracer.isRequestTraced())
+				Tracer.trace(this + " " + thread.getExecType() + " request serviced: waited " + waitTime + " ms, executed in " + executionTime + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
+
+		scheduleNext();
+	}
+
 	/**
-	 * Executes the next pending request, if applicable.
+	 * Wraps a request thread for scheduling and accounting purposes
 	 */
-	protected synchronized void scheduleNext() {
-		if ((fCurrentRequest = fRequestQueue.poll()) != null) {
-			if (!isShutdown())
-				fExecutor.execute(fCurrentRequest);
+	private class RequestThread extends TmfThread {
+
+		private final TmfThread fThread;
+		private final long fQueueTime = System.currentTimeMillis();
+		private long fStartTime = 0;
+		private long fSequence;
+
+		public RequestThread(TmfThread thread) {
+			super(thread.getExecType());
+			fThread = thread;
+		}
+
+		@Override
+		public void run() {
+			if (fStartTime == 0) {
+				fStartTime = System.currentTimeMillis();
+			}
+			try {
+				fThread.run();
+			} finally {
+				threadCompleted(this);
+			}
+		}
+
+		@Override
+		public void cancel() {
+			fThread.cancel();
 		}
 	}
 
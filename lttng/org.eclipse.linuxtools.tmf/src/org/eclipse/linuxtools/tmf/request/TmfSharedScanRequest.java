@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.request;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.linuxtools.tmf.event.TmfData;
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+
+/**
+ * <b><u>TmfSharedScanRequest</u></b>
+ * <p>
+ * A scan of all the data of a provider, shared by all the joinable requests
+ * (see ITmfDataRequest.isJoinable()) sent while it is in progress.
+ * <p>
+ * A request joins the scan at its current position: it gets the data from
+ * that position to the end, then the scan wraps around and the request gets
+ * the data from the start up to where it joined. The scan ends when all its
+ * requests got all their data, so N requests cost roughly one read of the
+ * data instead of N.
+ * <p>
+ * The scan is driven by the provider: hasPendingRequests() before each read,
+ * handleData() for each data read and wrap() at the end of the data. The
+ * requests are started, completed and fed from the provider thread.
+ */
+public class TmfSharedScanRequest<T extends TmfData> extends TmfDataRequest<T> {
+
+    // ------------------------------------------------------------------------
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    // A request sharing the scan
+    private class Member {
+        final ITmfDataRequest<T> request;
+        final long joinPosition;
+        boolean wrapped = false;
+
+        Member(ITmfDataRequest<T> request, long joinPosition) {
+            this.request = request;
+            this.joinPosition = joinPosition;
+        }
+    }
+
+    // The requests waiting to be picked up by the scan
+    private final List<ITmfDataRequest<T>> fJoining = new ArrayList<ITmfDataRequest<T>>();
+
+    // The requests sharing the scan (only modified by the provider thread)
+    private final List<Member> fMembers = new ArrayList<Member>();
+    private List<ITmfDataRequest<T>> fActiveRequests = new ArrayList<ITmfDataRequest<T>>();
+
+    // The position (rank) of the next data to read
+    private long fPosition = 0;
+
+    private boolean fStarted = false;
+    private boolean fClosed = false;
+
+    // ------------------------------------------------------------------------
+    // Constructor
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param dataType the requested data type
+     */
+    public TmfSharedScanRequest(Class<T> dataType) {
+        super(dataType, 0, ALL_DATA, DEFAULT_BLOCK_SIZE, ExecutionType.BACKGROUND);
+    }
+
+    // ------------------------------------------------------------------------
+    // Management
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param request a data request
+     * @return true if the request is eligible to a shared scan
+     */
+    public static boolean isShareable(ITmfDataRequest<?> request) {
+        return request.isJoinable() && !request.isFollowMode() && request.getIndex() == 0 && request.getNbRequested() == ALL_DATA;
+    }
+
+    /**
+     * Add a request to the scan. It will start receiving data at the next
+     * position read.
+     *
+     * @param request the request to add
+     * @return false if the request can't join the scan (e.g. it is over)
+     */
+    public synchronized boolean join(ITmfDataRequest<T> request) {
+        if (fClosed || !isShareable(request)) {
+            return false;
+        }
+        if (fStarted) {
+            // The data objects can't be re-used once the scan is in flyweight mode
+            if (isFlyweight() && !request.isFlyweight()) {
+                return false;
+            }
+        } else {
+            boolean first = fJoining.isEmpty();
+            setFlyweight(request.isFlyweight() && (first || isFlyweight()));
+        }
+        fJoining.add(request);
+        return true;
+    }
+
+    /**
+     * @return the number of requests sharing the scan (including those that
+     *         are about to join)
+     */
+    public synchronized int getNbSharingRequests() {
+        return fMembers.size() + fJoining.size();
+    }
+
+    /**
+     * Called by the provider before reading the data at the current position:
+     * completes the requests that got all their data and starts those that
+     * joined since the previous position.
+     *
+     * @return true if the scan has to go on, false if no request is left (the
+     *         scan is then closed)
+     */
+    public boolean hasPendingRequests() {
+        List<ITmfDataRequest<T>> completed = null;
+        List<ITmfDataRequest<T>> started = null;
+        boolean pending;
+        synchronized (this) {
+            boolean changed = false;
+            for (int i = fMembers.size() - 1; i >= 0; i--) {
+                Member member = fMembers.get(i);
+                if (member.request.isCompleted()) {
+                    fMembers.remove(i);
+                    changed = true;
+                } else if (member.wrapped && member.joinPosition == fPosition) {
+                    if (completed == null) {
+                        completed = new ArrayList<ITmfDataRequest<T>>();
+                    }
+                    completed.add(member.request);
+                    fMembers.remove(i);
+                    changed = true;
+                }
+            }
+            if (!fJoining.isEmpty()) {
+                started = new ArrayList<ITmfDataRequest<T>>(fJoining);
+                for (ITmfDataRequest<T> request : fJoining) {
+                    fMembers.add(new Member(request, fPosition));
+                }
+                fJoining.clear();
+                changed = true;
+            }
+            if (changed) {
+                List<ITmfDataRequest<T>> requests = new ArrayList<ITmfDataRequest<T>>(fMembers.size());
+                for (Member member : fMembers) {
+                    requests.add(member.request);
+                }
+                fActiveRequests = requests;
+            }
+            if (fMembers.isEmpty()) {
+                fClosed = true;
+            }
+            pending = !fClosed;
+        }
+        if (started != null) {
+            for (ITmfDataRequest<T> request : started) {
+                if (!request.isCompleted()) {
+                    request.start();
+                }
+            }
+        }
+        if (completed != null) {
+            for (ITmfDataRequest<T> request : completed) {
+                request.done();
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Called by the provider when the end of the data is reached. The scan
+     * goes on from the start of the data for the requests that joined late.
+     */
+    public synchronized void wrap() {
+        for (Member member : fMembers) {
+            member.wrapped = true;
+        }
+        fPosition = 0;
+    }
+
+    // ------------------------------------------------------------------------
+    // ITmfDataRequest
+    // ------------------------------------------------------------------------
+
+    @Override
+    public void handleData(T data) {
+        super.handleData(data);
+        fPosition++;
+        List<ITmfDataRequest<T>> requests = fActiveRequests;
+        for (int i = 0; i < requests.size(); i++) {
+            ITmfDataRequest<T> request = requests.get(i);
+            if (!request.isCompleted() && isInRange(request, data)) {
+                request.handleData(data);
+            }
+        }
+    }
+
+    private boolean isInRange(ITmfDataRequest<T> request, T data) {
+        if (request instanceof ITmfEventRequest<?> && data instanceof TmfEvent) {
+            return TmfCoalescedEventRequest.isInRange(((ITmfEventRequest<?>) request).getRange(), (TmfEvent) data);
+        }
+        return true;
+    }
+
+    @Override
+    public void start() {
+        synchronized (this) {
+            fStarted = true;
+        }
+        super.start();
+    }
+
+    @Override
+    public void done() {
+        for (ITmfDataRequest<T> request : close()) {
+            if (!request.isCompleted()) {
+                request.done();
+            }
+        }
+        super.done();
+    }
+
+    @Override
+    public void fail() {
+        for (ITmfDataRequest<T> request : close()) {
+            request.fail();
+        }
+        super.fail();
+    }
+
+    @Override
+    public void cancel() {
+        for (ITmfDataRequest<T> request : close()) {
+            if (!request.isCompleted()) {
+                request.cancel();
+            }
+        }
+        super.cancel();
+    }
+
+    /*
+     * Close the scan and return the requests still sharing it
+     */
+    private synchronized List<ITmfDataRequest<T>> close() {
+        fClosed = true;
+        List<ITmfDataRequest<T>> requests = new ArrayList<ITmfDataRequest<T>>(fJoining);
+        for (Member member : fMembers) {
+            requests.add(member.request);
+        }
+        fJoining.clear();
+        fMembers.clear();
+        fActiveRequests = new ArrayList<ITmfDataRequest<T>>();
+        return requests;
+    }
+
+    // ------------------------------------------------------------------------
+    // Object
+    // ------------------------------------------------------------------------
+
+    @Override
+    // All requests have a unique id
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other == this;
+    }
+
+    @Override
+    @SuppressWarnings("nls")
+    public String toString() {
+        return "[TmfSharedScanRequest(" + getRequestId() + "," + getDataType().getSimpleName() + "," + fPosition + ")]";
+    }
+
+}
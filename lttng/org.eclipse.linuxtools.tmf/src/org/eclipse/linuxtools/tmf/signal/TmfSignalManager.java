@@ -15,9 +15,18 @@ package org.eclipse.linuxtools.tmf.signal;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.linuxtools.tmf.Tracer;
 
@@ -28,6 +37,16 @@ import org.eclipse.linuxtools.tmf.Tracer;
  * interested in. When a signal is broadcasted, the appropriate listeners
  * signal handlers are invoked.
  * <p>
+ * The handlers of each signal class are resolved once and cached in a
+ * dispatch table. The table is copied and replaced whenever a listener is
+ * registered or deregistered, so that a signal is dispatched without locking
+ * and only visits the handlers of its own class.
+ * <p>
+ * High-frequency signals (e.g. the time synch signals fired while dragging a
+ * cursor) can be dispatched asynchronously with dispatchSignalAsync(). They
+ * are queued and delivered in order by the async executor, and a pending
+ * signal is superseded by a newer signal of the same class from the same
+ * source (latest wins).
  */
 public class TmfSignalManager {
 
@@ -35,8 +54,12 @@ public class TmfSignalManager {
 	// Note: listeners could be restricted to ITmfComponents but there is no
 	// harm in letting anyone use this since it is not tied to anything but
 	// the signal data type.
-	static private Map<Object, Method[]> fListeners = new HashMap<Object, Method[]>();
-    static private Map<Object, Method[]> fVIPListeners = new HashMap<Object, Method[]>();
+	static private Map<Object, Method[]> fListeners = new LinkedHashMap<Object, Method[]>();
+    static private Map<Object, Method[]> fVIPListeners = new LinkedHashMap<Object, Method[]>();
+
+    // The handlers of each signal class dispatched so far (VIP listeners first).
+    // The map and its arrays are never modified once published.
+    static private volatile Map<Class<?>, SignalHandler[]> fDispatchTable = Collections.emptyMap();
 
 	// If requested, add universal signal tracer
 	// TODO: Temporary solution: should be enabled/disabled dynamically 
@@ -51,19 +74,27 @@ public class TmfSignalManager {
 
 	public static synchronized void register(Object listener) {
 		Method[] methods = getSignalHandlerMethods(listener);
-		if (methods.length > 0)
+		if (methods.length > 0) {
 			fListeners.put(listener, methods);
+			rebuildDispatchTable();
+		}
 	}
 
     public static synchronized void registerVIP(Object listener) {
         Method[] methods = getSignalHandlerMethods(listener);
-        if (methods.length > 0)
+        if (methods.length > 0) {
             fVIPListeners.put(listener, methods);
+            rebuildDispatchTable();
+        }
     }
 
 	public static synchronized void deregister(Object listener) {
-		fVIPListeners.remove(listener);
-        fListeners.remove(listener);
+		boolean removed = fVIPListeners.remove(listener) != null;
+        removed |= fListeners.remove(listener) != null;
+        if (removed) {
+            rebuildDispatchTable();
+        }
+        dropPendingSignals(listener);
 	}
 
 	/**
@@ -78,77 +109,308 @@ public class TmfSignalManager {
 		Method[] methods = listener.getClass().getMethods();
 		for (Method method : methods) {
 			if (method.isAnnotationPresent(TmfSignalHandler.class)) {
+				try {
+					// Skip the access check on every invocation
+					method.setAccessible(true);
+				} catch (SecurityException e) {
+				}
 				handlers.add(method);
 			}
 		}
 		return handlers.toArray(new Method[handlers.size()]);
 	}
 
+    // ------------------------------------------------------------------------
+    // Dispatch table
+    // ------------------------------------------------------------------------
+
+    /**
+     * A signal handler method bound to its listener
+     */
+    static private class SignalHandler {
+        final Object fListener;
+        final Method fMethod;
+
+        SignalHandler(Object listener, Method method) {
+            fListener = listener;
+            fMethod = method;
+        }
+    }
+
+    /**
+     * Returns the handlers of a signal class, resolving and caching them on
+     * the first dispatch of that class.
+     * 
+     * @param signalClass the signal class
+     * @return the handlers, VIP listeners first
+     */
+    static private SignalHandler[] getSignalHandlers(Class<?> signalClass) {
+        SignalHandler[] handlers = fDispatchTable.get(signalClass);
+        if (handlers != null) {
+            return handlers;
+        }
+        synchronized (TmfSignalManager.class) {
+            handlers = fDispatchTable.get(signalClass);
+            if (handlers == null) {
+                handlers = resolveSignalHandlers(signalClass);
+                Map<Class<?>, SignalHandler[]> table = new HashMap<Class<?>, SignalHandler[]>(fDispatchTable);
+                table.put(signalClass, handlers);
+                fDispatchTable = table;
+            }
+            return handlers;
+        }
+    }
+
+    /**
+     * Re-resolves the handlers of the signal classes already in the dispatch
+     * table. Called with the class lock held.
+     */
+    static private void rebuildDispatchTable() {
+        Map<Class<?>, SignalHandler[]> table = new HashMap<Class<?>, SignalHandler[]>();
+        for (Class<?> signalClass : fDispatchTable.keySet()) {
+            table.put(signalClass, resolveSignalHandlers(signalClass));
+        }
+        fDispatchTable = table;
+    }
+
+    static private SignalHandler[] resolveSignalHandlers(Class<?> signalClass) {
+        List<SignalHandler> handlers = new ArrayList<SignalHandler>();
+        addSignalHandlers(handlers, fVIPListeners, signalClass);
+        addSignalHandlers(handlers, fListeners, signalClass);
+        return handlers.toArray(new SignalHandler[handlers.size()]);
+    }
+
+    static private void addSignalHandlers(List<SignalHandler> handlers, Map<Object, Method[]> listeners, Class<?> signalClass) {
+        for (Map.Entry<Object, Method[]> entry : listeners.entrySet()) {
+            for (Method method : entry.getValue()) {
+                if (method.getParameterTypes()[0].isAssignableFrom(signalClass)) {
+                    handlers.add(new SignalHandler(entry.getKey(), method));
+                }
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Dispatch
+    // ------------------------------------------------------------------------
+
 	/**
 	 * Invokes the handling methods that listens to signals of a given type.
 	 * 
-	 * The list of handlers is built on-the-fly to allow for the dynamic
-	 * creation/deletion of signal handlers. Since the number of signal
-	 * handlers shouldn't be too high, this is not a big performance issue
-	 * to pay for the flexibility.
+	 * The handlers are looked up in the dispatch table, which is updated
+	 * whenever a listener is (de)registered. A listener registered while a
+	 * signal is being dispatched only receives the subsequent signals.
 	 * 
 	 * For synchronization purposes, the signal is bracketed by two synch signals.
 	 * 
 	 * @param signal the signal to dispatch
 	 */
-	static int fSignalId = 0;
-	static public synchronized void dispatchSignal(TmfSignal signal) {
-		fSignalId++;
-		sendSignal(new TmfStartSynchSignal(fSignalId));
-		signal.setReference(fSignalId);
+	static private final AtomicInteger fSignalId = new AtomicInteger();
+	static public void dispatchSignal(TmfSignal signal) {
+		int signalId = fSignalId.incrementAndGet();
+		sendSignal(new TmfStartSynchSignal(signalId));
+		signal.setReference(signalId);
 		sendSignal(signal);
-		sendSignal(new TmfEndSynchSignal(fSignalId));
+		sendSignal(new TmfEndSynchSignal(signalId));
 	}
 
     static private void sendSignal(TmfSignal signal) {
-        sendSignal(fVIPListeners, signal);
-        sendSignal(fListeners, signal);
+
+        if (Tracer.isSignalTraced()) Tracer.traceSignal(signal, "(start)"); //$NON-NLS-1$
+
+        // Call the signal handlers 
+        for (SignalHandler handler : getSignalHandlers(signal.getClass())) {
+            try {
+                handler.fMethod.invoke(handler.fListener, signal);
+                if (Tracer.isSignalTraced()) {
+                    Object key = handler.fListener;
+                    String hash = String.format("%1$08X", key.hashCode()); //$NON-NLS-1$
+                    String target = "[" + hash + "] " + key.getClass().getSimpleName() + ":" + handler.fMethod.getName();   //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+                    Tracer.traceSignal(signal, target);                     
+                }
+            } catch (IllegalArgumentException e) {
+            } catch (IllegalAccessException e) {
+            } catch (InvocationTargetException e) {
+            }
+        }
+
+        if (Tracer.isSignalTraced()) Tracer.traceSignal(signal, "(end)"); //$NON-NLS-1$
     }
 
-    static private void sendSignal(Map<Object, Method[]> listeners, TmfSignal signal) {
+    // ------------------------------------------------------------------------
+    // Asynchronous dispatch
+    // ------------------------------------------------------------------------
 
-        if (Tracer.isSignalTraced()) Tracer.traceSignal(signal, "(start)"); //$NON-NLS-1$
+    // The pending signals, in order of dispatch, keyed by signal class and source
+    static private final Map<SignalKey, TmfSignal> fPendingSignals = new LinkedHashMap<SignalKey, TmfSignal>();
+    static private boolean fDeliveryScheduled = false;
 
-        // Build the list of listener methods that are registered for this signal
-        Class<?> signalClass = signal.getClass();
-        Map<Object, List<Method>> targets = new HashMap<Object, List<Method>>();
-        targets.clear();
-        for (Map.Entry<Object, Method[]> entry : listeners.entrySet()) {
-            List<Method> matchingMethods = new ArrayList<Method>();
-            for (Method method : entry.getValue()) {
-                if (method.getParameterTypes()[0].isAssignableFrom(signalClass)) {
-                    matchingMethods.add(method);
+    // The executor that delivers the pending signals (null: default dispatcher thread)
+    static private Executor fAsyncExecutor = null;
+    static private ExecutorService fDispatcher = null;
+
+    static private final AtomicLong fAsyncSignalCount = new AtomicLong();
+    static private final AtomicLong fCoalescedSignalCount = new AtomicLong();
+    static private final AtomicLong fDroppedSignalCount = new AtomicLong();
+
+    /**
+     * Identifies the signals that supersede each other: same class, same
+     * source instance.
+     */
+    static private class SignalKey {
+        final Class<?> fClass;
+        final Object fSource;
+
+        SignalKey(TmfSignal signal) {
+            fClass = signal.getClass();
+            fSource = signal.getSource();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fClass.hashCode() + System.identityHashCode(fSource);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof SignalKey)) {
+                return false;
+            }
+            SignalKey key = (SignalKey) other;
+            return fClass == key.fClass && fSource == key.fSource;
+        }
+    }
+
+    /**
+     * Delivers the batch of signals pending when it runs, then re-schedules
+     * itself if more signals were queued in the meantime.
+     */
+    static private final Runnable fDeliveryTask = new Runnable() {
+        @Override
+        public void run() {
+            List<TmfSignal> signals;
+            synchronized (fPendingSignals) {
+                signals = new ArrayList<TmfSignal>(fPendingSignals.values());
+                fPendingSignals.clear();
+            }
+            for (TmfSignal signal : signals) {
+                dispatchSignal(signal);
+            }
+            synchronized (fPendingSignals) {
+                if (fPendingSignals.isEmpty()) {
+                    fDeliveryScheduled = false;
+                    return;
                 }
             }
-            if (!matchingMethods.isEmpty()) {
-                targets.put(entry.getKey(), matchingMethods);
+            scheduleDelivery();
+        }
+    };
+
+    /**
+     * Queues a signal for asynchronous dispatch. A signal of the same class
+     * and source still pending is discarded (coalesced) and this one takes
+     * its place at the end of the queue.
+     * 
+     * The handlers are invoked (as with dispatchSignal) from the async
+     * executor, so the caller can't assume the signal has been handled on
+     * return.
+     * 
+     * @param signal the signal to dispatch
+     */
+    static public void dispatchSignalAsync(TmfSignal signal) {
+        fAsyncSignalCount.incrementAndGet();
+        boolean schedule = false;
+        synchronized (fPendingSignals) {
+            SignalKey key = new SignalKey(signal);
+            if (fPendingSignals.remove(key) != null) {
+                fCoalescedSignalCount.incrementAndGet();
+            }
+            fPendingSignals.put(key, signal);
+            if (!fDeliveryScheduled) {
+                fDeliveryScheduled = true;
+                schedule = true;
             }
         }
+        if (schedule) {
+            scheduleDelivery();
+        }
+    }
 
-        // Call the signal handlers 
-        for (Map.Entry<Object, List<Method>> entry : targets.entrySet()) {
-            for (Method method : entry.getValue()) {
-                try {
-                    method.invoke(entry.getKey(), new Object[] { signal });
-                    if (Tracer.isSignalTraced()) {
-                        Object key = entry.getKey();
-                        String hash = String.format("%1$08X", entry.getKey().hashCode()); //$NON-NLS-1$
-                        String target = "[" + hash + "] " + key.getClass().getSimpleName() + ":" + method.getName();   //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
-                        Tracer.traceSignal(signal, target);                     
-                    }
-                } catch (IllegalArgumentException e) {
-                } catch (IllegalAccessException e) {
-                } catch (InvocationTargetException e) {
+    static private void scheduleDelivery() {
+        try {
+            getAsyncExecutor().execute(fDeliveryTask);
+        } catch (RuntimeException e) {
+            // The executor is no longer usable (e.g. shut down)
+            synchronized (fPendingSignals) {
+                fDroppedSignalCount.addAndGet(fPendingSignals.size());
+                fPendingSignals.clear();
+                fDeliveryScheduled = false;
+            }
+        }
+    }
+
+    /**
+     * Discards the pending signals of a (deregistered) source
+     */
+    static private void dropPendingSignals(Object source) {
+        synchronized (fPendingSignals) {
+            for (Iterator<SignalKey> iter = fPendingSignals.keySet().iterator(); iter.hasNext();) {
+                if (iter.next().fSource == source) {
+                    iter.remove();
+                    fDroppedSignalCount.incrementAndGet();
                 }
             }
         }
+    }
 
-        if (Tracer.isSignalTraced()) Tracer.traceSignal(signal, "(end)"); //$NON-NLS-1$
+    static private synchronized Executor getAsyncExecutor() {
+        if (fAsyncExecutor != null) {
+            return fAsyncExecutor;
+        }
+        if (fDispatcher == null) {
+            fDispatcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "TMF Signal Dispatcher"); //$NON-NLS-1$
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return fDispatcher;
+    }
+
+    /**
+     * Sets the executor that delivers the asynchronous signals, e.g. to
+     * deliver them on a UI thread. By default, they are delivered by a
+     * dedicated dispatcher thread.
+     * 
+     * @param executor the executor (null to restore the dispatcher thread)
+     */
+    static public synchronized void setAsyncExecutor(Executor executor) {
+        fAsyncExecutor = executor;
+    }
+
+    /**
+     * @return the number of signals queued with dispatchSignalAsync()
+     */
+    static public long getAsyncSignalCount() {
+        return fAsyncSignalCount.get();
+    }
+
+    /**
+     * @return the number of asynchronous signals superseded before delivery
+     */
+    static public long getCoalescedSignalCount() {
+        return fCoalescedSignalCount.get();
+    }
+
+    /**
+     * @return the number of asynchronous signals discarded because their
+     *         source was deregistered or the executor rejected them
+     */
+    static public long getDroppedSignalCount() {
+        return fDroppedSignalCount.get();
     }
 
 }
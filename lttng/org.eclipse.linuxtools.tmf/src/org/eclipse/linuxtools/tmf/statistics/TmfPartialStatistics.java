@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.statistics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.event.TmfEventType;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
+
+/**
+ * <b><u>TmfPartialStatistics</u></b>
+ * <p>
+ * The number of events of a set of events (e.g. a page of a trace), per trace
+ * and per event type, and their time span. Partial statistics of disjoint sets
+ * of events can be merged.
+ * <p>
+ * The traces are identified by their name (null for the events without a
+ * parent trace) and the event types by their toString().
+ */
+public class TmfPartialStatistics {
+
+    // ------------------------------------------------------------------------
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private long fNbEvents = 0;
+    private TmfTimestamp fStartTime = null;
+    private TmfTimestamp fEndTime = null;
+
+    // The number of events per trace, and per trace and type
+    private final Map<String, long[]> fTraceCounts = new HashMap<String, long[]>();
+    private final Map<String, Map<String, long[]>> fTypeCounts = new HashMap<String, Map<String, long[]>>();
+
+    // The counters of the last event added (usually shared by the next one)
+    private ITmfTrace<?> fLastTrace = null;
+    private long[] fLastTraceCount = null;
+    private Map<String, long[]> fLastTraceTypes = null;
+    private TmfEventType fLastType = null;
+    private long[] fLastTypeCount = null;
+
+    // ------------------------------------------------------------------------
+    // Accessors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return the total number of events
+     */
+    public long getNbEvents() {
+        return fNbEvents;
+    }
+
+    /**
+     * @param traceName the trace name
+     * @return the number of events of the trace
+     */
+    public long getNbEvents(String traceName) {
+        long[] count = fTraceCounts.get(traceName);
+        return (count != null) ? count[0] : 0;
+    }
+
+    /**
+     * @param traceName the trace name
+     * @param typeName the event type name
+     * @return the number of events of that type in the trace
+     */
+    public long getNbEvents(String traceName, String typeName) {
+        Map<String, long[]> types = fTypeCounts.get(traceName);
+        long[] count = (types != null) ? types.get(typeName) : null;
+        return (count != null) ? count[0] : 0;
+    }
+
+    /**
+     * @return the names of the traces that have events
+     */
+    public Set<String> getTraceNames() {
+        return Collections.unmodifiableSet(fTraceCounts.keySet());
+    }
+
+    /**
+     * @param traceName the trace name
+     * @return the names of the event types of the trace
+     */
+    public Set<String> getTypeNames(String traceName) {
+        Map<String, long[]> types = fTypeCounts.get(traceName);
+        if (types == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(types.keySet());
+    }
+
+    /**
+     * @return the timestamp of the earliest event (null if there is none)
+     */
+    public TmfTimestamp getStartTime() {
+        return fStartTime;
+    }
+
+    /**
+     * @return the timestamp of the latest event (null if there is none)
+     */
+    public TmfTimestamp getEndTime() {
+        return fEndTime;
+    }
+
+    // ------------------------------------------------------------------------
+    // Operations
+    // ------------------------------------------------------------------------
+
+    /**
+     * Counts an event. The time span is not updated (see setTimeRange()).
+     *
+     * @param event the event
+     */
+    public void addEvent(TmfEvent event) {
+        ITmfTrace<?> trace = event.getParentTrace();
+        if (trace != fLastTrace || fLastTraceCount == null) {
+            String traceName = (trace != null) ? trace.getName() : null;
+            fLastTraceCount = fTraceCounts.get(traceName);
+            if (fLastTraceCount == null) {
+                fLastTraceCount = new long[1];
+                fTraceCounts.put(traceName, fLastTraceCount);
+                fTypeCounts.put(traceName, new HashMap<String, long[]>());
+            }
+            fLastTraceTypes = fTypeCounts.get(traceName);
+            fLastTrace = trace;
+            fLastType = null;
+        }
+        TmfEventType type = event.getType();
+        if (type != fLastType || fLastTypeCount == null) {
+            String typeName = String.valueOf(type);
+            fLastTypeCount = fLastTraceTypes.get(typeName);
+            if (fLastTypeCount == null) {
+                fLastTypeCount = new long[1];
+                fLastTraceTypes.put(typeName, fLastTypeCount);
+            }
+            fLastType = type;
+        }
+        fNbEvents++;
+        fLastTraceCount[0]++;
+        fLastTypeCount[0]++;
+    }
+
+    /**
+     * Widens the time span to include [startTime, endTime]
+     *
+     * @param startTime the earliest timestamp
+     * @param endTime the latest timestamp
+     */
+    public void setTimeRange(TmfTimestamp startTime, TmfTimestamp endTime) {
+        if (fStartTime == null || startTime.compareTo(fStartTime, false) < 0) {
+            fStartTime = startTime.clone();
+        }
+        if (fEndTime == null || endTime.compareTo(fEndTime, false) > 0) {
+            fEndTime = endTime.clone();
+        }
+    }
+
+    /**
+     * Adds the statistics of another (disjoint) set of events
+     *
+     * @param other the other statistics
+     */
+    public void merge(TmfPartialStatistics other) {
+        if (other.fNbEvents == 0) {
+            return;
+        }
+        fNbEvents += other.fNbEvents;
+        for (Map.Entry<String, long[]> entry : other.fTraceCounts.entrySet()) {
+            String traceName = entry.getKey();
+            long[] count = fTraceCounts.get(traceName);
+            if (count == null) {
+                count = new long[1];
+                fTraceCounts.put(traceName, count);
+                fTypeCounts.put(traceName, new HashMap<String, long[]>());
+            }
+            count[0] += entry.getValue()[0];
+            Map<String, long[]> types = fTypeCounts.get(traceName);
+            for (Map.Entry<String, long[]> typeEntry : other.fTypeCounts.get(traceName).entrySet()) {
+                long[] typeCount = types.get(typeEntry.getKey());
+                if (typeCount == null) {
+                    typeCount = new long[1];
+                    types.put(typeEntry.getKey(), typeCount);
+                }
+                typeCount[0] += typeEntry.getValue()[0];
+            }
+        }
+        if (other.fStartTime != null) {
+            setTimeRange(other.fStartTime, other.fEndTime);
+        }
+    }
+
+}
@@ -0,0 +1,348 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.linuxtools.tmf.Tracer;
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.trace.ITmfLocation;
+import org.eclipse.linuxtools.tmf.trace.ITmfTrace;
+import org.eclipse.linuxtools.tmf.trace.TmfContext;
+
+/**
+ * <b><u>TmfStatisticsCache</u></b>
+ * <p>
+ * The statistics of a trace (or experiment), kept per checkpoint interval
+ * (page) of the trace index.
+ * <p>
+ * The pages are scanned in parallel, each by a worker thread with its own copy
+ * of the trace (see ITmfTrace.copy()) disposed at the end of the update, or by
+ * a single worker reading the trace itself if it can't be copied. Only the
+ * pages not yet complete are scanned again when the trace grows. The
+ * statistics of a time range are then the merge of the cached pages within the
+ * range, plus a scan of the (at most two) pages that straddle its bounds.
+ */
+public class TmfStatisticsCache {
+
+    // ------------------------------------------------------------------------
+    // Constants
+    // ------------------------------------------------------------------------
+
+    // The number of pages scanned per worker thread (to balance the load)
+    private static final int PAGES_PER_THREAD = 4;
+
+    // ------------------------------------------------------------------------
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    private final ITmfTrace<?> fTrace;
+    private final int fPageSize;
+
+    private volatile boolean fCancelled = false;
+
+    // The failure that aborted the last update, if any
+    private volatile Throwable fError = null;
+
+    // The statistics of the complete pages, in trace order (page i starts at
+    // rank i * fPageSize)
+    private final List<TmfPartialStatistics> fPages = new ArrayList<TmfPartialStatistics>();
+
+    // The statistics of the events after the complete pages (null if none)
+    private TmfPartialStatistics fLastPage = null;
+
+    // The number of events covered by the cache
+    private long fNbEvents = 0;
+
+    // ------------------------------------------------------------------------
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param trace the trace (already indexed itself)
+     */
+    public TmfStatisticsCache(ITmfTrace<?> trace) {
+        fTrace = trace;
+        fPageSize = Math.max(1, trace.getCacheSize());
+    }
+
+    // ------------------------------------------------------------------------
+    // Accessors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return the number of trace events covered by the cache
+     */
+    public synchronized long getNbEvents() {
+        return fNbEvents;
+    }
+
+    /**
+     * @return true if the last update was cancelled
+     */
+    public boolean isCancelled() {
+        return fCancelled;
+    }
+
+    /**
+     * @return the exception that aborted the last update (the update is then
+     *         cancelled), or null if there was none
+     */
+    public Throwable getError() {
+        return fError;
+    }
+
+    // ------------------------------------------------------------------------
+    // Operations
+    // ------------------------------------------------------------------------
+
+    /**
+     * Updates the cache using one worker thread per processor.
+     *
+     * @throws InterruptedException if the calling thread is interrupted
+     */
+    public void update() throws InterruptedException {
+        update(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Scans the pages of the trace not yet complete in the cache. The call
+     * returns when the cache covers all the events of the trace (at the time
+     * of the call) or the update is cancelled.
+     *
+     * @param nbThreads the number of worker threads
+     * @throws InterruptedException if the calling thread is interrupted (the
+     *         update is then cancelled)
+     */
+    public void update(int nbThreads) throws InterruptedException {
+        fCancelled = false;
+        fError = null;
+        final long nbEvents = fTrace.getNbEvents();
+        final int firstPage;
+        synchronized (this) {
+            if (nbEvents <= fNbEvents) {
+                return;
+            }
+            firstPage = fPages.size();
+        }
+        final int nbPages = (int) ((nbEvents + fPageSize - 1) / fPageSize) - firstPage;
+        final TmfPartialStatistics[] pages = new TmfPartialStatistics[nbPages];
+
+        // Position the pages at the trace checkpoints
+        final ITmfLocation<?>[] locations = new ITmfLocation<?>[nbPages];
+        for (int i = 0; i < nbPages; i++) {
+            TmfContext context = fTrace.seekEvent((long) (firstPage + i) * fPageSize);
+            locations[i] = (context.getLocation() != null) ? context.getLocation().clone() : null;
+        }
+
+        // Scan the pages, each worker with its own copy of the trace
+        int nbWorkers = Math.min(Math.max(1, nbThreads), (nbPages + PAGES_PER_THREAD - 1) / PAGES_PER_THREAD);
+        nbWorkers = Math.max(1, nbWorkers);
+        List<ITmfTrace<?>> traces = new ArrayList<ITmfTrace<?>>(nbWorkers);
+        try {
+            for (int i = 0; i < nbWorkers && nbWorkers > 1; i++) {
+                ITmfTrace<?> copy = fTrace.copy();
+                if (copy == null) {
+                    break;
+                }
+                traces.add(copy);
+            }
+            if (traces.size() < nbWorkers) {
+                // The trace can't be copied: a single worker reads the trace
+                disposeCopies(traces);
+                traces.add(fTrace);
+            }
+            scanPages(traces, locations, firstPage, nbEvents, pages);
+        } finally {
+            disposeCopies(traces);
+        }
+
+        if (fCancelled) {
+            return;
+        }
+
+        // Keep the complete pages, up to the first incomplete one (the next
+        // pages are scanned again at the next update)
+        synchronized (this) {
+            fLastPage = null;
+            for (TmfPartialStatistics page : pages) {
+                if (page.getNbEvents() != fPageSize) {
+                    fLastPage = page;
+                    break;
+                }
+                fPages.add(page);
+            }
+            fNbEvents = (long) fPages.size() * fPageSize + ((fLastPage != null) ? fLastPage.getNbEvents() : 0);
+        }
+    }
+
+    /**
+     * Cancels the update in progress (if any)
+     */
+    public void cancel() {
+        fCancelled = true;
+    }
+
+    /**
+     * @return the statistics of all the events covered by the cache
+     */
+    public TmfPartialStatistics getStatistics() {
+        TmfPartialStatistics statistics = new TmfPartialStatistics();
+        for (TmfPartialStatistics page : getPages()) {
+            statistics.merge(page);
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the statistics of the events of a time range. Only the pages
+     * that straddle the range bounds are scanned.
+     *
+     * @param range the time range
+     * @return the statistics of the events covered by the cache in the range
+     */
+    public TmfPartialStatistics getStatistics(TmfTimeRange range) {
+        TmfPartialStatistics statistics = new TmfPartialStatistics();
+        List<TmfPartialStatistics> pages = getPages();
+        for (int i = 0; i < pages.size(); i++) {
+            TmfPartialStatistics page = pages.get(i);
+            if (page.getNbEvents() == 0) {
+                continue;
+            }
+            TmfTimestamp startTime = page.getStartTime();
+            TmfTimestamp endTime = page.getEndTime();
+            if (range.contains(startTime) && range.contains(endTime)) {
+                statistics.merge(page);
+            } else if (endTime.compareTo(range.getStartTime(), false) >= 0 && startTime.compareTo(range.getEndTime(), false) <= 0) {
+                long start = (long) i * fPageSize;
+                statistics.merge(scanPage(fTrace, null, start, start + page.getNbEvents(), range));
+            }
+        }
+        return statistics;
+    }
+
+    /*
+     * Returns the cached pages, in trace order
+     */
+    private synchronized List<TmfPartialStatistics> getPages() {
+        List<TmfPartialStatistics> pages = new ArrayList<TmfPartialStatistics>(fPages);
+        if (fLastPage != null) {
+            pages.add(fLastPage);
+        }
+        return pages;
+    }
+
+    /*
+     * Scans the pages with one worker thread per trace (or trace copy)
+     */
+    private void scanPages(List<ITmfTrace<?>> traces, final ITmfLocation<?>[] locations, final int firstPage,
+            final long nbEvents, final TmfPartialStatistics[] pages) throws InterruptedException {
+        final int nbPages = pages.length;
+        final AtomicInteger nextPage = new AtomicInteger(0);
+        ExecutorService executor = Executors.newFixedThreadPool(traces.size());
+        List<Future<?>> futures = new ArrayList<Future<?>>(traces.size());
+        try {
+            for (final ITmfTrace<?> trace : traces) {
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        int page;
+                        while (!fCancelled && (page = nextPage.getAndIncrement()) < nbPages) {
+                            long start = (long) (firstPage + page) * fPageSize;
+                            long end = Math.min(nbEvents, start + fPageSize);
+                            pages[page] = scanPage(trace, locations[page], start, end, null);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    fCancelled = true;
+                    if (fError == null) {
+                        fError = e.getCause();
+                        if (Tracer.isErrorTraced()) {
+                            Tracer.traceError("Statistics update of " + fTrace.getName() + " aborted: " + e.getCause()); //$NON-NLS-1$ //$NON-NLS-2$
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            fCancelled = true;
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * Disposes the trace copies of the list and clears it
+     */
+    private void disposeCopies(List<ITmfTrace<?>> traces) {
+        for (ITmfTrace<?> trace : traces) {
+            if (trace != fTrace) {
+                trace.dispose();
+            }
+        }
+        traces.clear();
+    }
+
+    /*
+     * Returns the statistics of the events in [start, end[ (within the time
+     * range, if any)
+     */
+    private TmfPartialStatistics scanPage(ITmfTrace<?> trace, ITmfLocation<?> location, long start, long end, TmfTimeRange range) {
+        TmfPartialStatistics statistics = new TmfPartialStatistics();
+        TmfContext context;
+        if (trace == fTrace || location == null) {
+            context = trace.seekEvent(start);
+        } else {
+            context = trace.seekLocation(location.clone());
+        }
+        TmfTimestamp startTime = null;
+        TmfTimestamp endTime = null;
+        for (long rank = start; rank < end && !(range == null && fCancelled); rank++) {
+            TmfEvent event = trace.getNextEvent(context);
+            if (event == null) {
+                break;
+            }
+            TmfTimestamp timestamp = event.getTimestamp();
+            if (range == null) {
+                endTime = timestamp;
+            } else if (range.contains(timestamp)) {
+                // The next (excluded) events may reuse the timestamp
+                endTime = timestamp.clone();
+            } else {
+                continue;
+            }
+            if (startTime == null) {
+                startTime = timestamp.clone();
+            }
+            statistics.addEvent(event);
+        }
+        if (startTime != null) {
+            statistics.setTimeRange(startTime, endTime);
+        }
+        return statistics;
+    }
+
+}
@@ -70,6 +70,11 @@ public interface ITmfTrace<T extends TmfEvent> extends ITmfComponent {
 
     public TmfTimestamp getEndTime();
 
+    /**
+     * @return true if the trace is still being written (and followed)
+     */
+    public boolean isLive();
+
     /**
      * Positions the trace at the first event with the specified timestamp or index (i.e. the nth event in the trace).
      * 
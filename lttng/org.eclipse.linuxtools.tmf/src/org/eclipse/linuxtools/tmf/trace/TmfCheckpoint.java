@@ -29,6 +29,10 @@ public class TmfCheckpoint implements Comparable<TmfCheckpoint>, Cloneable {
     private TmfTimestamp fTimestamp;
 	private ITmfLocation<? extends Comparable> fLocation;
 
+    // Normalized timestamp, for fast comparisons (if exact)
+    private long fNormalizedTimestamp;
+    private boolean fNormalized;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -46,6 +50,7 @@ public class TmfCheckpoint implements Comparable<TmfCheckpoint>, Cloneable {
     public TmfCheckpoint(TmfTimestamp ts, ITmfLocation<? extends Comparable> location) {
         fTimestamp = ts;
         fLocation = location;
+        normalizeTimestamp();
     }
 
     /**
@@ -57,6 +62,12 @@ public class TmfCheckpoint implements Comparable<TmfCheckpoint>, Cloneable {
     		throw new IllegalArgumentException();
         fTimestamp = (TmfTimestamp) other.fTimestamp.clone();
         fLocation  = other.fLocation.clone();
+        normalizeTimestamp();
+    }
+
+    private void normalizeTimestamp() {
+        fNormalized = fTimestamp != null && fTimestamp.isNormalizedValueExact();
+        fNormalizedTimestamp = fNormalized ? fTimestamp.getNormalizedValue() : 0;
     }
 
     // ------------------------------------------------------------------------
@@ -125,6 +136,9 @@ public class TmfCheckpoint implements Comparable<TmfCheckpoint>, Cloneable {
     	if (fTimestamp == null || other.fTimestamp == null) {
     		return fLocation.getLocation().compareTo(other.fLocation.getLocation());
     	}
+    	if (fNormalized && other.fNormalized) {
+    	    return (fNormalizedTimestamp < other.fNormalizedTimestamp) ? -1 : (fNormalizedTimestamp == other.fNormalizedTimestamp) ? 0 : 1;
+    	}
         return fTimestamp.compareTo(other.fTimestamp, false);
     }
 
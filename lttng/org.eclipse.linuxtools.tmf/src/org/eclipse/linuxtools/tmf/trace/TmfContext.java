@@ -12,6 +12,8 @@
 
 package org.eclipse.linuxtools.tmf.trace;
 
+import org.eclipse.linuxtools.tmf.event.TmfEvent;
+
 /**
  * <b><u>TmfContext</u></b>
  * <p>
@@ -24,6 +26,11 @@ public class TmfContext implements ITmfContext, Cloneable {
     private ITmfLocation<? extends Comparable<?>> fLocation;
     private long fRank;
 
+    // In flyweight mode, the event read with this context can be re-used
+    // by the parser for the next read (see ITmfDataRequest.isFlyweight())
+    private boolean fFlyweight = false;
+    private TmfEvent fFlyweightEvent = null;
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -85,6 +92,44 @@ public class TmfContext implements ITmfContext, Cloneable {
         return fRank != UNKNOWN_RANK;
     }
 
+    // ------------------------------------------------------------------------
+    // Flyweight event
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param flyweight true if the events read with this context can be re-used
+     */
+    public void setFlyweight(boolean flyweight) {
+        fFlyweight = flyweight;
+        fFlyweightEvent = null;
+    }
+
+    /**
+     * @return true if the events read with this context can be re-used
+     */
+    public boolean isFlyweight() {
+        return fFlyweight;
+    }
+
+    /**
+     * @return the event to re-initialize for the next read (null if none)
+     */
+    public TmfEvent getFlyweightEvent() {
+        return fFlyweightEvent;
+    }
+
+    /**
+     * Called by the parser with the event it just created. It will be handed
+     * back by getFlyweightEvent() for the next read, if in flyweight mode.
+     * 
+     * @param event the event just read
+     */
+    public void setFlyweightEvent(TmfEvent event) {
+        if (fFlyweight) {
+            fFlyweightEvent = event;
+        }
+    }
+
     // ------------------------------------------------------------------------
     // Object
     // ------------------------------------------------------------------------
@@ -122,6 +167,9 @@ public class TmfContext implements ITmfContext, Cloneable {
             clone = (TmfContext) super.clone();
             clone.fLocation = fLocation.clone();
             clone.fRank = fRank;
+            // The flyweight event belongs to this context
+            clone.fFlyweight = false;
+            clone.fFlyweightEvent = null;
         } catch (CloneNotSupportedException e) {
         }
         return clone;
@@ -12,6 +12,7 @@
 
 package org.eclipse.linuxtools.tmf.trace;
 
+import java.io.Serializable;
 import java.lang.reflect.Method;
 
 /**
@@ -20,7 +21,9 @@ import java.lang.reflect.Method;
  * A generic implementation of ITmfLocation
  */
 @SuppressWarnings("rawtypes")
-public class TmfLocation<L extends Comparable> implements ITmfLocation<L> {
+public class TmfLocation<L extends Comparable> implements ITmfLocation<L>, Serializable {
+
+    private static final long serialVersionUID = -2562453627925366183L;
 
 	private L fLocation;
 	
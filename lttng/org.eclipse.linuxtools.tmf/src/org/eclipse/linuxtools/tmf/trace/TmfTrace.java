@@ -14,18 +14,29 @@ package org.eclipse.linuxtools.tmf.trace;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.linuxtools.tmf.TmfCorePlugin;
 import org.eclipse.linuxtools.tmf.component.TmfEventProvider;
 import org.eclipse.linuxtools.tmf.event.TmfEvent;
 import org.eclipse.linuxtools.tmf.event.TmfTimeRange;
 import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+import org.eclipse.linuxtools.tmf.io.MappedFile;
+import org.eclipse.linuxtools.tmf.io.MappedFileReader;
 import org.eclipse.linuxtools.tmf.request.ITmfDataRequest;
 import org.eclipse.linuxtools.tmf.request.ITmfEventRequest;
 import org.eclipse.linuxtools.tmf.request.TmfDataRequest;
@@ -46,8 +57,10 @@ import org.eclipse.linuxtools.tmf.signal.TmfTraceUpdatedSignal;
  * That it is not supported by LTTng does by no mean indicate that it is not useful for (just about) every other tracing
  * tool. Therefore, this class provides a minimal (and partial) implementation of rank. However, the current
  * implementation should not be relied on in the general case.
- * 
- * TODO: Add support for live streaming (notifications, incremental indexing, ...)
+ * <p>
+ * A trace that is still being written can be followed (see startFollowing()): the events appended to the trace are
+ * then periodically indexed, a TmfTraceUpdatedSignal is broadcast with the new time range and the follow-mode requests
+ * that reached the end of the trace are resumed.
  */
 public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> implements ITmfTrace<T>, Cloneable {
 
@@ -59,6 +72,10 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
     // TODO: Make the DEFAULT_CACHE_SIZE a preference
     public static final int DEFAULT_INDEX_PAGE_SIZE = 50000;
 
+    // The persistent index files location (relative to the plug-in state location)
+    private static final String INDEX_DIRECTORY = "index"; //$NON-NLS-1$
+    private static final String INDEX_FILE_EXTENSION = ".idx"; //$NON-NLS-1$
+
     // ------------------------------------------------------------------------
     // Attributes
     // ------------------------------------------------------------------------
@@ -82,6 +99,22 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
     private TmfTimestamp fStartTime = TmfTimestamp.BigCrunch;
     private TmfTimestamp fEndTime = TmfTimestamp.BigBang;
 
+    // The end time, as updated when reading events. It is kept as primitive
+    // values: the corresponding timestamp (fEndTime) is only re-created when
+    // requested (fEndTime == null).
+    private long fEndTimeValue = TmfTimestamp.BigBang.getValue();
+    private byte fEndTimeScale = TmfTimestamp.BigBang.getScale();
+    private long fEndTimePrecision = TmfTimestamp.BigBang.getPrecision();
+
+    // The indexing request in progress, if any
+    private volatile ITmfDataRequest<?> fIndexingRequest = null;
+
+    // The tail-following indexer of a live trace
+    private volatile boolean fLive = false;
+    private Thread fFollower = null;
+    private TmfContext fTailContext = null;
+    private Object fTailLock = new Object();
+
     // ------------------------------------------------------------------------
     // Constructors
     // ------------------------------------------------------------------------
@@ -175,10 +208,23 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
         TmfTrace<T> clone = (TmfTrace<T>) super.clone();
         clone.fCheckpoints = fCheckpoints;
         clone.fStartTime = new TmfTimestamp(fStartTime);
-        clone.fEndTime = new TmfTimestamp(fEndTime);
+        clone.setEndTime(new TmfTimestamp(getEndTime()));
+        clone.fLive = false;
+        clone.fFollower = null;
+        clone.fTailContext = null;
+        clone.fTailLock = new Object();
+        clone.fIndexingThread = null;
         return clone;
     }
 
+    @Override
+    public void dispose() {
+        stopFollower();
+        // Stops the chunked indexing, if any
+        fIndexingThread = null;
+        super.dispose();
+    }
+
     // ------------------------------------------------------------------------
     // Accessors
     // ------------------------------------------------------------------------
@@ -212,7 +258,7 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
      */
     @Override
     public TmfTimeRange getTimeRange() {
-        return new TmfTimeRange(fStartTime, fEndTime);
+        return new TmfTimeRange(fStartTime, getEndTime());
     }
 
     /* (non-Javadoc)
@@ -227,10 +273,21 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
      * @see org.eclipse.linuxtools.tmf.trace.ITmfTrace#getEndTime()
      */
     @Override
-    public TmfTimestamp getEndTime() {
+    public synchronized TmfTimestamp getEndTime() {
+        if (fEndTime == null) {
+            fEndTime = new TmfTimestamp(fEndTimeValue, fEndTimeScale, fEndTimePrecision);
+        }
         return fEndTime;
     }
 
+    /* (non-Javadoc)
+     * @see org.eclipse.linuxtools.tmf.component.TmfDataProvider#isLive()
+     */
+    @Override
+    public boolean isLive() {
+        return fLive;
+    }
+
     @SuppressWarnings("unchecked")
     public Vector<TmfCheckpoint> getCheckpoints() {
         return (Vector<TmfCheckpoint>) fCheckpoints.clone();
@@ -255,15 +312,18 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
 
     protected void setTimeRange(TmfTimeRange range) {
         fStartTime = range.getStartTime();
-        fEndTime = range.getEndTime();
+        setEndTime(range.getEndTime());
     }
 
     protected void setStartTime(TmfTimestamp startTime) {
         fStartTime = startTime;
     }
 
-    protected void setEndTime(TmfTimestamp endTime) {
+    protected synchronized void setEndTime(TmfTimestamp endTime) {
         fEndTime = endTime;
+        fEndTimeValue = endTime.getValue();
+        fEndTimeScale = endTime.getScale();
+        fEndTimePrecision = endTime.getPrecision();
     }
 
     // ------------------------------------------------------------------------
@@ -274,12 +334,15 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
     public ITmfContext armRequest(ITmfDataRequest<T> request) {
         if (request instanceof ITmfEventRequest<?>
                 && !TmfTimestamp.BigBang.equals(((ITmfEventRequest<T>) request).getRange().getStartTime()) && request.getIndex() == 0) {
-            ITmfContext context = seekEvent(((ITmfEventRequest<T>) request).getRange().getStartTime());
-            ((ITmfEventRequest<T>) request).setStartIndex((int) context.getRank());
+            TmfContext context = seekEvent(((ITmfEventRequest<T>) request).getRange().getStartTime());
+            ((ITmfEventRequest<T>) request).setStartIndex(context.getRank());
+            context.setFlyweight(request.isFlyweight());
             return context;
 
         }
-        return seekEvent(request.getIndex());
+        TmfContext context = seekEvent(request.getIndex());
+        context.setFlyweight(request.isFlyweight());
+        return context;
     }
 
     /**
@@ -394,7 +457,7 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
         // parseEvent() does not update the context
         TmfEvent event = parseEvent(context);
         if (event != null) {
-            updateIndex(context, context.getRank(), event.getTimestamp());
+            updateIndex(context, context.getRank(), event);
             context.setLocation(getCurrentLocation());
             context.updateRank(1);
             processEvent(event);
@@ -405,8 +468,37 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
     protected synchronized void updateIndex(ITmfContext context, long rank, TmfTimestamp timestamp) {
         if (fStartTime.compareTo(timestamp, false) > 0)
             fStartTime = timestamp;
-        if (fEndTime.compareTo(timestamp, false) < 0)
-            fEndTime = timestamp;
+        if (getEndTime().compareTo(timestamp, false) < 0)
+            setEndTime(timestamp);
+        updateCheckpoints(context, rank, timestamp);
+    }
+
+    /**
+     * Same as updateIndex(ITmfContext, long, TmfTimestamp) but using the event
+     * timestamp primitive values: no timestamp object is involved unless the
+     * event is the first of an index page (or precedes the trace start time).
+     */
+    protected synchronized void updateIndex(ITmfContext context, long rank, TmfEvent event) {
+        if (event.compareTimestampTo(fStartTime, false) < 0)
+            fStartTime = event.getTimestamp();
+        long value = event.getTimestampValue();
+        byte scale = event.getTimestampScale();
+        long precision = event.getTimestampPrecision();
+        if (TmfTimestamp.compare(fEndTimeValue, fEndTimeScale, fEndTimePrecision, value, scale, precision, false) < 0) {
+            fEndTime = null;
+            fEndTimeValue = value;
+            fEndTimeScale = scale;
+            fEndTimePrecision = precision;
+        }
+        if (context.isValidRank()) {
+            if ((rank % fIndexPageSize) == 0)
+                updateCheckpoints(context, rank, event.getTimestamp());
+            else if (fNbEvents <= rank)
+                fNbEvents = rank + 1;
+        }
+    }
+
+    private void updateCheckpoints(ITmfContext context, long rank, TmfTimestamp timestamp) {
         if (context.isValidRank()) {
             if (fNbEvents <= rank)
                 fNbEvents = rank + 1;
@@ -460,6 +552,12 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
     @SuppressWarnings({ "unchecked" })
     protected void indexTrace(boolean waitForCompletion) {
 
+        // Re-use the persisted index if the trace didn't change since
+        if (loadIndex()) {
+            notifyListeners();
+            return;
+        }
+
         final Job job = new Job("Indexing " + getName() + "...") { //$NON-NLS-1$ //$NON-NLS-2$
             @Override
             protected IStatus run(IProgressMonitor monitor) {
@@ -477,20 +575,25 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
         job.schedule();
 
         fCheckpoints.clear();
-        ITmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class, TmfTimeRange.Eternity, TmfDataRequest.ALL_DATA,
+        TmfEventRequest<TmfEvent> request = new TmfEventRequest<TmfEvent>(TmfEvent.class, TmfTimeRange.Eternity, TmfDataRequest.ALL_DATA,
                 fIndexPageSize, ITmfDataRequest.ExecutionType.BACKGROUND) {
 
             TmfTimestamp startTime = null;
-            TmfTimestamp lastTime = null;
+
+            // The last event timestamp (only converted to a timestamp object when the trace is updated)
+            long lastTimeValue;
+            byte lastTimeScale;
+            long lastTimePrecision;
 
             @Override
             public void handleData(TmfEvent event) {
                 super.handleData(event);
                 if (event != null) {
-                    TmfTimestamp ts = event.getTimestamp();
                     if (startTime == null)
-                        startTime = new TmfTimestamp(ts);
-                    lastTime = new TmfTimestamp(ts);
+                        startTime = new TmfTimestamp(event.getTimestamp());
+                    lastTimeValue = event.getTimestampValue();
+                    lastTimeScale = event.getTimestampScale();
+                    lastTimePrecision = event.getTimestampPrecision();
 
                     if ((getNbRead() % fIndexPageSize) == 0) {
                         updateTrace();
@@ -501,11 +604,13 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
             @Override
             public void handleSuccess() {
                 updateTrace();
+                saveIndex();
             }
 
             @Override
             public void handleCompleted() {
                 job.cancel();
+                fIndexingRequest = null;
                 super.handleCompleted();
             }
 
@@ -513,13 +618,16 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
                 int nbRead = getNbRead();
                 if (nbRead != 0) {
                     fStartTime = startTime;
-                    fEndTime = lastTime;
+                    setEndTime(new TmfTimestamp(lastTimeValue, lastTimeScale, lastTimePrecision));
                     fNbEvents = nbRead;
                     notifyListeners();
                 }
             }
         };
 
+        // The indexing only looks at the event timestamps
+        request.setFlyweight(true);
+        fIndexingRequest = request;
         sendRequest((ITmfDataRequest<T>) request);
         if (waitForCompletion)
             try {
@@ -530,6 +638,480 @@ public abstract class TmfTrace<T extends TmfEvent> extends TmfEventProvider<T> i
     }
 
     protected void notifyListeners() {
-        broadcast(new TmfTraceUpdatedSignal(this, this, new TmfTimeRange(fStartTime, fEndTime)));
+        broadcast(new TmfTraceUpdatedSignal(this, this, new TmfTimeRange(fStartTime, getEndTime())));
+    }
+
+    // ------------------------------------------------------------------------
+    // Chunked indexing
+    // ------------------------------------------------------------------------
+
+    /*
+     * Text traces, whose locations are file offsets (TmfLocation<Long>), can
+     * be indexed by parsing several chunks of the file concurrently: the file
+     * is split at line boundaries, each chunk is parsed from the first event
+     * that starts in it up to the first event that starts in the next chunk,
+     * and the chunks are then stitched in order into the checkpoint index.
+     * 
+     * A chunk worker re-synchronizes on the first line that looks like the
+     * start of an event, which may actually be the continuation of an event
+     * of the previous chunk. Such a chunk is detected when stitching (its
+     * first event isn't where the previous chunk ended) and is parsed again,
+     * sequentially, from the right location.
+     */
+
+    private static final long MIN_INDEXING_CHUNK_SIZE = 1024 * 1024;
+    private static final long MAX_INDEXING_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int INDEXING_CHUNKS_PER_THREAD = 4;
+
+    // The chunked indexing in progress, if any
+    private volatile Thread fIndexingThread = null;
+
+    /**
+     * The events of a chunk of the trace file, as parsed by a chunk worker
+     */
+    private static class IndexChunk {
+        // The chunk start offset and the offset of its events (relative to the start)
+        final long start;
+        int[] offsets = new int[1024];
+        int nbEvents = 0;
+
+        // The first and last event timestamps (null if the chunk is empty)
+        TmfTimestamp firstTime;
+        TmfTimestamp lastTime;
+
+        // The offset of the first event following the chunk (-1 at the end of the trace)
+        long endOffset = -1;
+
+        IndexChunk(long start) {
+            this.start = start;
+        }
+
+        void add(long offset) {
+            if (nbEvents == offsets.length) {
+                int[] newOffsets = new int[2 * offsets.length];
+                System.arraycopy(offsets, 0, newOffsets, 0, nbEvents);
+                offsets = newOffsets;
+            }
+            offsets[nbEvents++] = (int) (offset - start);
+        }
+
+        long getFirstOffset() {
+            return (nbEvents > 0) ? start + offsets[0] : endOffset;
+        }
+    }
+
+    /**
+     * Indexes the trace by parsing chunks of the trace file concurrently,
+     * using one worker thread per processor. See indexTraceInChunks(boolean,
+     * int, long) for the requirements on the trace.
+     * 
+     * @param waitForCompletion true to return only when the indexing is done
+     */
+    protected void indexTraceInChunks(boolean waitForCompletion) {
+        int nbThreads = Runtime.getRuntime().availableProcessors();
+        long length = new File(fPath).length();
+        long chunkSize = length / (nbThreads * INDEXING_CHUNKS_PER_THREAD);
+        chunkSize = Math.max(MIN_INDEXING_CHUNK_SIZE, Math.min(MAX_INDEXING_CHUNK_SIZE, chunkSize));
+        indexTraceInChunks(waitForCompletion, nbThreads, chunkSize);
+    }
+
+    /**
+     * Indexes the trace by parsing chunks of the trace file concurrently. This
+     * is an alternative to indexTrace() for the traces that:
+     * <ul>
+     * <li>use file offsets (TmfLocation&lt;Long&gt;) as locations,</li>
+     * <li>return from seekLocation() a context positioned on the first event
+     * that starts at or after the given offset (a line start),</li>
+     * <li>advance the context to the next event in parseEvent() and support
+     * concurrent parsing with distinct contexts.</li>
+     * </ul>
+     * The resulting index is the same as the one built by indexTrace().
+     * 
+     * @param waitForCompletion true to return only when the indexing is done
+     * @param nbThreads the number of worker threads
+     * @param chunkSize the approximate size of a chunk (in bytes, at most 64 MB)
+     */
+    protected void indexTraceInChunks(boolean waitForCompletion, final int nbThreads, final long chunkSize) {
+
+        // Re-use the persisted index if the trace didn't change since
+        if (loadIndex()) {
+            notifyListeners();
+            return;
+        }
+
+        final Job job = new Job("Indexing " + getName() + "...") { //$NON-NLS-1$ //$NON-NLS-2$
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                while (!monitor.isCanceled()) {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        return Status.OK_STATUS;
+                    }
+                }
+                monitor.done();
+                return Status.OK_STATUS;
+            }
+        };
+        job.schedule();
+
+        fCheckpoints.clear();
+        Thread thread = new Thread("Indexing " + getName()) { //$NON-NLS-1$
+            @Override
+            public void run() {
+                try {
+                    if (indexChunks(Math.max(1, nbThreads), Math.max(1, Math.min(chunkSize, MAX_INDEXING_CHUNK_SIZE)))) {
+                        saveIndex();
+                    }
+                } catch (InterruptedException e) {
+                    // Indexing aborted
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } finally {
+                    job.cancel();
+                    fIndexingThread = null;
+                }
+            }
+        };
+        fIndexingThread = thread;
+        thread.start();
+
+        if (waitForCompletion) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /*
+     * Parses the chunks and stitches them into the index. Returns true if the
+     * whole trace was indexed.
+     */
+    private boolean indexChunks(int nbThreads, long chunkSize) throws InterruptedException, IOException {
+
+        // Split the file at line boundaries
+        List<Long> bounds = new ArrayList<Long>();
+        MappedFile file = new MappedFile(fPath);
+        try {
+            MappedFileReader reader = file.newReader();
+            long length = file.length();
+            long position = 0;
+            while (position < length) {
+                bounds.add(position);
+                reader.seek(position + chunkSize - 1);
+                reader.getNextLine();
+                position = reader.getFilePointer();
+            }
+            bounds.add(Math.max(position, length));
+        } finally {
+            file.close();
+        }
+
+        // Parse the chunks concurrently
+        final int nbChunks = bounds.size() - 1;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(nbThreads, Math.max(1, nbChunks)));
+        List<Future<IndexChunk>> futures = new ArrayList<Future<IndexChunk>>(nbChunks);
+        try {
+            for (int i = 0; i < nbChunks; i++) {
+                final long start = bounds.get(i);
+                final long end = bounds.get(i + 1);
+                futures.add(executor.submit(new Callable<IndexChunk>() {
+                    @Override
+                    public IndexChunk call() {
+                        return parseChunk(start, start, end);
+                    }
+                }));
+            }
+
+            // Stitch the chunks in order
+            TmfTimestamp startTime = null;
+            TmfTimestamp lastTime = null;
+            long rank = 0;
+            long expectedOffset = 0;
+            for (int i = 0; i < nbChunks && expectedOffset != -1; i++) {
+                IndexChunk chunk;
+                try {
+                    chunk = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    e.printStackTrace();
+                    return false;
+                }
+                futures.set(i, null);
+                if (chunk.getFirstOffset() != expectedOffset) {
+                    // The worker re-synchronized on the wrong line
+                    chunk = parseChunk(chunk.start, expectedOffset, bounds.get(i + 1));
+                }
+                if (fIndexingThread == null) {
+                    // Indexing aborted
+                    return false;
+                }
+                if (chunk.nbEvents > 0) {
+                    addCheckpoints(chunk, rank);
+                    rank += chunk.nbEvents;
+                    if (startTime == null) {
+                        startTime = chunk.firstTime;
+                    }
+                    lastTime = chunk.lastTime;
+                    fStartTime = startTime;
+                    setEndTime(lastTime);
+                    fNbEvents = rank;
+                    notifyListeners();
+                }
+                expectedOffset = chunk.endOffset;
+            }
+            return true;
+        } finally {
+            // The workers are not interrupted: they may share the trace file channel
+            fIndexingThread = null;
+            executor.shutdown();
+        }
+    }
+
+    /*
+     * Parses the events that start in [start, end), from the first event that
+     * starts at or after 'from'.
+     */
+    private IndexChunk parseChunk(long start, long from, long end) {
+        IndexChunk chunk = new IndexChunk(start);
+        TmfContext context = seekLocation(new TmfLocation<Long>(from));
+        try {
+            Object location = context.getLocation().getLocation();
+            while (location instanceof Long && (Long) location < end && fIndexingThread != null) {
+                TmfEvent event = parseEvent(context);
+                if (event == null) {
+                    location = null;
+                    break;
+                }
+                if (chunk.firstTime == null) {
+                    chunk.firstTime = event.getTimestamp().clone();
+                }
+                chunk.lastTime = event.getTimestamp();
+                chunk.add((Long) location);
+                location = context.getLocation().getLocation();
+            }
+            if (chunk.lastTime != null) {
+                chunk.lastTime = chunk.lastTime.clone();
+            }
+            chunk.endOffset = (location instanceof Long) ? (Long) location : -1;
+        } finally {
+            context.dispose();
+        }
+        return chunk;
+    }
+
+    /*
+     * Adds the checkpoints that fall in a chunk, given the rank of its first
+     * event. The checkpoint timestamps are those of the events parsed again.
+     */
+    private void addCheckpoints(IndexChunk chunk, long firstRank) {
+        long rank = ((firstRank + fIndexPageSize - 1) / fIndexPageSize) * fIndexPageSize;
+        for (; rank < firstRank + chunk.nbEvents; rank += fIndexPageSize) {
+            TmfLocation<Long> location = new TmfLocation<Long>(chunk.start + chunk.offsets[(int) (rank - firstRank)]);
+            TmfContext context = seekLocation(location);
+            try {
+                TmfEvent event = parseEvent(context);
+                if (event == null) {
+                    return;
+                }
+                synchronized (fCheckpoints) {
+                    // Add new entry at proper location (if empty)
+                    if (fCheckpoints.size() == rank / fIndexPageSize) {
+                        fCheckpoints.add(new TmfCheckpoint(event.getTimestamp().clone(), location));
+                    }
+                }
+            } finally {
+                context.dispose();
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Live trace
+    // ------------------------------------------------------------------------
+
+    /**
+     * Starts following a trace that is still being written: the trace is
+     * polled for new events every period (in ms). The new events are indexed
+     * as they arrive and, when there are some, a TmfTraceUpdatedSignal is
+     * broadcast and the follow-mode requests waiting at the end of the trace
+     * are resumed.
+     * 
+     * @param period the polling period (in ms)
+     */
+    public synchronized void startFollowing(final long period) {
+        if (fFollower != null) {
+            return;
+        }
+        fLive = true;
+        fFollower = new Thread("Following " + getName()) { //$NON-NLS-1$
+            @Override
+            public void run() {
+                while (fLive) {
+                    followTrace();
+                    try {
+                        Thread.sleep(period);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        };
+        fFollower.setDaemon(true);
+        fFollower.start();
+    }
+
+    /**
+     * Stops following the trace: the last events appended are indexed, then
+     * the trace listeners are notified and the follow-mode requests complete.
+     */
+    public void stopFollowing() {
+        if (!stopFollower()) {
+            return;
+        }
+        readAppendedEvents();
+        notifyListeners();
+        resumeFollowingRequests();
+    }
+
+    /*
+     * Stops the polling thread. Returns false if the trace wasn't followed.
+     */
+    private boolean stopFollower() {
+        Thread follower;
+        synchronized (this) {
+            follower = fFollower;
+            fFollower = null;
+            fLive = false;
+        }
+        if (follower == null) {
+            return false;
+        }
+        follower.interrupt();
+        try {
+            follower.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    /**
+     * Indexes the events appended to the trace since the previous call. If
+     * there are some, the trace listeners are notified of the new time range
+     * and the follow-mode requests are resumed.
+     * 
+     * @return true if new events were found
+     */
+    protected boolean followTrace() {
+        if (readAppendedEvents() == 0) {
+            return false;
+        }
+        notifyListeners();
+        resumeFollowingRequests();
+        return true;
+    }
+
+    /*
+     * Reads the events past the end of the index, which updates the index on
+     * the way (see getNextEvent()). Returns the number of events read.
+     * 
+     * The trace itself is only locked while each event is read so that the
+     * requests are not held up while the tail is read. The parser has to
+     * leave the context where it is on an event that is not completely
+     * written yet (see TmfTextTraceStub).
+     */
+    private int readAppendedEvents() {
+        synchronized (fTailLock) {
+            if (fIndexingRequest != null || fIndexingThread != null) {
+                // The indexing in progress will pick them up
+                return 0;
+            }
+            if (fTailContext == null) {
+                fTailContext = seekEvent(fNbEvents);
+                fTailContext.setFlyweight(true);
+            }
+            int nbRead = 0;
+            while (getNextEvent(fTailContext) != null) {
+                nbRead++;
+            }
+            return nbRead;
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Index persistence
+    // ------------------------------------------------------------------------
+
+    /*
+     * The index built by indexTrace() is saved to disk so that re-opening an
+     * unmodified trace doesn't require a full pass over the trace.
+     */
+
+    /**
+     * Returns the file where the trace index is persisted. By default, index
+     * files are kept in the TMF core plug-in state location and are named
+     * after the trace (name and absolute path hash).
+     * 
+     * @return the index file, or null if the index is not to be persisted
+     */
+    protected File getIndexFile() {
+        TmfCorePlugin plugin = TmfCorePlugin.getDefault();
+        if (plugin == null || fPath == null) {
+            return null;
+        }
+        try {
+            File directory = plugin.getStateLocation().append(INDEX_DIRECTORY).toFile();
+            String key = Integer.toHexString(new File(fPath).getAbsolutePath().hashCode());
+            return new File(directory, getName() + '_' + key + INDEX_FILE_EXTENSION);
+        } catch (IllegalStateException e) {
+            // Plug-in not started (e.g. headless execution)
+            return null;
+        }
+    }
+
+    /**
+     * Restores the trace index (checkpoints, number of events and time range)
+     * from its index file, if it is still valid.
+     * 
+     * @return true if the index was restored
+     */
+    protected boolean loadIndex() {
+        File file = getIndexFile();
+        if (file == null) {
+            return false;
+        }
+        TmfTraceIndexFile index = new TmfTraceIndexFile(file, fPath, getClass().getClassLoader());
+        if (!index.read(fIndexPageSize)) {
+            return false;
+        }
+        synchronized (fCheckpoints) {
+            fCheckpoints.clear();
+            fCheckpoints.addAll(index.getCheckpoints());
+        }
+        fNbEvents = index.getNbEvents();
+        fStartTime = index.getStartTime();
+        setEndTime(index.getEndTime());
+        return true;
+    }
+
+    /**
+     * Saves the trace index (checkpoints, number of events and time range) to
+     * its index file.
+     * 
+     * @return true if the index was saved
+     */
+    protected boolean saveIndex() {
+        File file = getIndexFile();
+        if (file == null) {
+            return false;
+        }
+        Vector<TmfCheckpoint> checkpoints;
+        synchronized (fCheckpoints) {
+            checkpoints = new Vector<TmfCheckpoint>(fCheckpoints);
+        }
+        TmfTraceIndexFile index = new TmfTraceIndexFile(file, fPath, getClass().getClassLoader());
+        return index.write(checkpoints, fIndexPageSize, fNbEvents, fStartTime, getEndTime());
     }
 }
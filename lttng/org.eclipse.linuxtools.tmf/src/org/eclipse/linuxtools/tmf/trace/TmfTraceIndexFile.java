@@ -0,0 +1,331 @@
+/*******************************************************************************
+ * Copyright (c) 2011 Ericsson
+ *
+ * All rights reserved. This program and the accompanying materials are
+ * made available under the terms of the Eclipse Public License v1.0 which
+ * accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *   Ericsson - Initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.linuxtools.tmf.trace;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Vector;
+
+import org.eclipse.linuxtools.tmf.event.TmfTimestamp;
+
+/**
+ * <b><u>TmfTraceIndexFile</u></b>
+ * <p>
+ * Persistent (on-disk) copy of a trace index, i.e. the trace checkpoints, the
+ * number of events and the trace time range.
+ * <p>
+ * The index file is only valid for the exact trace it was built from: the
+ * trace path, size and last modification time are stored in the file header
+ * and checked when the index is read back. Any mismatch (or any I/O or
+ * de-serialization problem) simply invalidates the index and the trace has to
+ * be re-indexed the usual way.
+ * <p>
+ * Only traces whose checkpoint locations are <code>Serializable</code> can be
+ * persisted. Since the location classes are typically defined by the trace
+ * plug-in, they are resolved with the class loader supplied at construction
+ * (usually the trace class loader).
+ */
+public class TmfTraceIndexFile {
+
+    // ------------------------------------------------------------------------
+    // Constants
+    // ------------------------------------------------------------------------
+
+    private static final int INDEX_FILE_MAGIC = 0x544D4649; // "TMFI"
+    private static final int INDEX_FILE_VERSION = 1;
+
+    // ------------------------------------------------------------------------
+    // Attributes
+    // ------------------------------------------------------------------------
+
+    // The index file
+    private final File fIndexFile;
+
+    // The indexed trace path
+    private final String fTracePath;
+
+    // The class loader used to resolve the persisted locations
+    private final ClassLoader fClassLoader;
+
+    // The index content (valid after a successful read)
+    private Vector<TmfCheckpoint> fCheckpoints = new Vector<TmfCheckpoint>();
+    private int fIndexPageSize = 0;
+    private long fNbEvents = 0;
+    private TmfTimestamp fStartTime = TmfTimestamp.BigCrunch;
+    private TmfTimestamp fEndTime = TmfTimestamp.BigBang;
+
+    // ------------------------------------------------------------------------
+    // Constructors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @param indexFile the index file
+     * @param tracePath the path of the indexed trace
+     * @param classLoader the class loader used to resolve the locations
+     */
+    public TmfTraceIndexFile(File indexFile, String tracePath, ClassLoader classLoader) {
+        if (indexFile == null || tracePath == null)
+            throw new IllegalArgumentException();
+        fIndexFile = indexFile;
+        fTracePath = tracePath;
+        fClassLoader = (classLoader != null) ? classLoader : TmfTraceIndexFile.class.getClassLoader();
+    }
+
+    // ------------------------------------------------------------------------
+    // Accessors
+    // ------------------------------------------------------------------------
+
+    /**
+     * @return the index file
+     */
+    public File getFile() {
+        return fIndexFile;
+    }
+
+    /**
+     * @return the checkpoints read from the index file
+     */
+    public Vector<TmfCheckpoint> getCheckpoints() {
+        return fCheckpoints;
+    }
+
+    /**
+     * @return the index page size read from the index file
+     */
+    public int getIndexPageSize() {
+        return fIndexPageSize;
+    }
+
+    /**
+     * @return the number of events read from the index file
+     */
+    public long getNbEvents() {
+        return fNbEvents;
+    }
+
+    /**
+     * @return the trace start time read from the index file
+     */
+    public TmfTimestamp getStartTime() {
+        return fStartTime;
+    }
+
+    /**
+     * @return the trace end time read from the index file
+     */
+    public TmfTimestamp getEndTime() {
+        return fEndTime;
+    }
+
+    // ------------------------------------------------------------------------
+    // Operators
+    // ------------------------------------------------------------------------
+
+    /**
+     * Read the index file. The index is accepted only if it was built for the
+     * current version of the trace with the requested page size.
+     *
+     * @param indexPageSize the expected index page size
+     * @return true if a valid index was read, false otherwise
+     */
+    @SuppressWarnings("rawtypes")
+    public synchronized boolean read(int indexPageSize) {
+        if (!fIndexFile.isFile()) {
+            return false;
+        }
+
+        ObjectInputStream in = null;
+        try {
+            in = new IndexInputStream(new BufferedInputStream(new FileInputStream(fIndexFile)), fClassLoader);
+            if (in.readInt() != INDEX_FILE_MAGIC || in.readInt() != INDEX_FILE_VERSION) {
+                return false;
+            }
+            if (!fTracePath.equals(in.readUTF())) {
+                return false;
+            }
+            File trace = new File(fTracePath);
+            if (in.readLong() != getTraceSize(trace) || in.readLong() != getTraceLastModified(trace)) {
+                return false;
+            }
+            int pageSize = in.readInt();
+            if (pageSize != indexPageSize) {
+                return false;
+            }
+            long nbEvents = in.readLong();
+            TmfTimestamp startTime = (TmfTimestamp) in.readObject();
+            TmfTimestamp endTime = (TmfTimestamp) in.readObject();
+            int nbCheckpoints = in.readInt();
+            Vector<TmfCheckpoint> checkpoints = new Vector<TmfCheckpoint>(nbCheckpoints);
+            for (int i = 0; i < nbCheckpoints; i++) {
+                TmfTimestamp timestamp = (TmfTimestamp) in.readObject();
+                ITmfLocation<? extends Comparable> location = (ITmfLocation<?>) in.readObject();
+                checkpoints.add(new TmfCheckpoint(timestamp, location));
+            }
+
+            fIndexPageSize = pageSize;
+            fNbEvents = nbEvents;
+            fStartTime = startTime;
+            fEndTime = endTime;
+            fCheckpoints = checkpoints;
+            return true;
+        } catch (IOException e) {
+            return false;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (ClassCastException e) {
+            return false;
+        } finally {
+            close(in);
+        }
+    }
+
+    /**
+     * Write the index file. Nothing is written if the checkpoint locations
+     * can't be serialized.
+     *
+     * @param checkpoints the trace checkpoints
+     * @param indexPageSize the index page size
+     * @param nbEvents the number of events in the trace
+     * @param startTime the trace start time
+     * @param endTime the trace end time
+     * @return true if the index was written, false otherwise
+     */
+    public synchronized boolean write(List<TmfCheckpoint> checkpoints, int indexPageSize, long nbEvents,
+            TmfTimestamp startTime, TmfTimestamp endTime) {
+
+        for (TmfCheckpoint checkpoint : checkpoints) {
+            if (!(checkpoint.getLocation() instanceof Serializable)) {
+                return false;
+            }
+        }
+
+        File parent = fIndexFile.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            return false;
+        }
+
+        File trace = new File(fTracePath);
+        ObjectOutputStream out = null;
+        boolean success = false;
+        try {
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(fIndexFile)));
+            out.writeInt(INDEX_FILE_MAGIC);
+            out.writeInt(INDEX_FILE_VERSION);
+            out.writeUTF(fTracePath);
+            out.writeLong(getTraceSize(trace));
+            out.writeLong(getTraceLastModified(trace));
+            out.writeInt(indexPageSize);
+            out.writeLong(nbEvents);
+            out.writeObject(startTime);
+            out.writeObject(endTime);
+            out.writeInt(checkpoints.size());
+            for (TmfCheckpoint checkpoint : checkpoints) {
+                out.writeObject(checkpoint.getTimestamp());
+                out.writeObject(checkpoint.getLocation());
+            }
+            success = true;
+        } catch (IOException e) {
+            success = false;
+        } finally {
+            success &= close(out);
+            if (!success) {
+                fIndexFile.delete();
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Remove the index file
+     */
+    public synchronized void delete() {
+        fIndexFile.delete();
+    }
+
+    // ------------------------------------------------------------------------
+    // Helper functions
+    // ------------------------------------------------------------------------
+
+    /*
+     * Some traces (e.g. LTTng) are directories: use the cumulative size and
+     * the latest modification time of their files.
+     */
+
+    private static long getTraceSize(File trace) {
+        if (trace.isDirectory()) {
+            long size = 0;
+            File[] files = trace.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    size += file.length();
+                }
+            }
+            return size;
+        }
+        return trace.length();
+    }
+
+    private static long getTraceLastModified(File trace) {
+        long lastModified = trace.lastModified();
+        if (trace.isDirectory()) {
+            File[] files = trace.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    lastModified = Math.max(lastModified, file.lastModified());
+                }
+            }
+        }
+        return lastModified;
+    }
+
+    private static class IndexInputStream extends ObjectInputStream {
+        private final ClassLoader fLoader;
+
+        public IndexInputStream(InputStream in, ClassLoader loader) throws IOException {
+            super(in);
+            fLoader = loader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, fLoader);
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+
+    private static boolean close(Closeable stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}